@@ -0,0 +1,122 @@
+package com.alkl1m.cataloguegraph.benchmark;
+
+import com.alkl1m.cataloguegraph.cache.ProductCacheEvictor;
+import com.alkl1m.cataloguegraph.cache.ResponseCache;
+import com.alkl1m.cataloguegraph.cache.ResponseCacheProperties;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.ingestion.ReviewWriteBehind;
+import com.alkl1m.cataloguegraph.ranking.ProductRanking;
+import com.alkl1m.cataloguegraph.ranking.RankingProperties;
+import com.alkl1m.cataloguegraph.repository.inmemory.InMemoryCategoryStatsRepository;
+import com.alkl1m.cataloguegraph.repository.inmemory.InMemoryProductRepository;
+import com.alkl1m.cataloguegraph.repository.inmemory.InMemoryReviewRepository;
+import com.alkl1m.cataloguegraph.service.impl.CategoryStatsServiceImpl;
+import com.alkl1m.cataloguegraph.service.impl.ProductServiceImpl;
+import com.alkl1m.cataloguegraph.service.impl.ReviewServiceImpl;
+import com.alkl1m.cataloguegraph.subscription.ReviewEvents;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.support.NoOpCacheManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Набор данных каталога в памяти для бенчмарков.
+ * Продукт с номером {@code i} получает цену {@code i} и одну из {@link #CATEGORIES} категорий,
+ * поэтому самые дешевые продукты каждой категории попадают на первые страницы выборки.
+ * Отзывы создаются для {@link #REVIEWED_PRODUCTS} самых дешевых продуктов: именно их отзывы
+ * загружаются при выборке первой страницы, а наполнение отзывами всего каталога
+ * на больших размерах не поместилось бы в память.
+ * Сервисы собираются без прокси Spring, поэтому кэш не участвует в измерениях,
+ * а отзывы записываются сразу, без отложенной записи.
+ *
+ * @author AlKl1M
+ */
+@State(Scope.Benchmark)
+public class CatalogueDataset {
+
+    /**
+     * Количество категорий продуктов.
+     */
+    public static final int CATEGORIES = 10;
+
+    /**
+     * Количество самых дешевых продуктов, для которых создаются отзывы.
+     */
+    public static final int REVIEWED_PRODUCTS = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    public int products;
+
+    @Param({"0", "100", "10000"})
+    public int reviewsPerProduct;
+
+    InMemoryProductRepository productRepository;
+    InMemoryReviewRepository reviewRepository;
+    InMemoryCategoryStatsRepository categoryStatsRepository;
+    ProductRanking productRanking;
+    ProductServiceImpl productService;
+    ReviewServiceImpl reviewService;
+
+    /**
+     * Заполняет репозитории и собирает сервисы.
+     */
+    @Setup
+    public void setUp() {
+        productRepository = new InMemoryProductRepository();
+        reviewRepository = new InMemoryReviewRepository();
+        categoryStatsRepository = new InMemoryCategoryStatsRepository(productRepository);
+        ResponseCache responseCache = new ResponseCache(
+                new ResponseCacheProperties(false, 0, Duration.ZERO, Duration.ZERO));
+        RankingProperties rankingProperties = new RankingProperties(10, 100, 1000);
+        productRanking = new ProductRanking(productRepository, reviewRepository, rankingProperties);
+        productService = new ProductServiceImpl(productRepository, new ProductCacheEvictor(new NoOpCacheManager()),
+                new CategoryStatsServiceImpl(categoryStatsRepository), responseCache, productRanking, rankingProperties);
+        reviewService = new ReviewServiceImpl(productService, reviewRepository, new ReviewEvents(256), responseCache,
+                productRanking,
+                new StaticListableBeanFactory().getBeanProvider(ReviewWriteBehind.class));
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < products; i++) {
+            Product product = new Product(productId(i), "Product " + i, "Description of product " + i,
+                    (double) i, category(i));
+            productRepository.save(product).block();
+        }
+        categoryStatsRepository.rebuild(List.of()).block();
+
+        LocalDateTime createdAt = LocalDateTime.now();
+        List<Review> reviews = new ArrayList<>(reviewsPerProduct);
+        for (int i = 0; i < Math.min(products, REVIEWED_PRODUCTS); i++) {
+            reviews.clear();
+            for (int j = 0; j < reviewsPerProduct; j++) {
+                reviews.add(new Review(null, productId(i), "Author " + j, random.nextInt(1, 6), "Comment " + j,
+                        createdAt));
+            }
+            reviewService.addReviews(new ArrayList<>(reviews)).block();
+        }
+        productRanking.rebuild().block();
+    }
+
+    /**
+     * Возвращает идентификатор продукта с указанным номером.
+     */
+    static String productId(int index) {
+        return "product-" + index;
+    }
+
+    /**
+     * Возвращает категорию продукта с указанным номером.
+     */
+    static String category(int index) {
+        return "category-" + (index % CATEGORIES);
+    }
+
+}
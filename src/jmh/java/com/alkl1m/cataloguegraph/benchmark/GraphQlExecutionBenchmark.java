@@ -0,0 +1,234 @@
+package com.alkl1m.cataloguegraph.benchmark;
+
+import com.alkl1m.cataloguegraph.cache.ProductCacheEvictor;
+import com.alkl1m.cataloguegraph.cache.ResponseCache;
+import com.alkl1m.cataloguegraph.cache.ResponseCacheProperties;
+import com.alkl1m.cataloguegraph.config.DataLoaderConfig;
+import com.alkl1m.cataloguegraph.controller.CategoryStatsController;
+import com.alkl1m.cataloguegraph.controller.PagingProperties;
+import com.alkl1m.cataloguegraph.controller.ProductController;
+import com.alkl1m.cataloguegraph.controller.ReviewController;
+import com.alkl1m.cataloguegraph.execution.VirtualThreadExecutionInstrumentation;
+import com.alkl1m.cataloguegraph.job.ProductRankingRebuildJob;
+import com.alkl1m.cataloguegraph.ranking.ProductRanking;
+import com.alkl1m.cataloguegraph.ranking.RankingProperties;
+import com.alkl1m.cataloguegraph.service.impl.CategoryStatsServiceImpl;
+import com.alkl1m.cataloguegraph.service.impl.ProductServiceImpl;
+import com.alkl1m.cataloguegraph.service.impl.ReviewServiceImpl;
+import com.alkl1m.cataloguegraph.subscription.ReviewEvents;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.graphql.GraphQlAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк выполнения GraphQL-запросов через {@link ExecutionGraphQlService}:
+ * разбор и проверка документа, контроллеры, загрузчики DataLoader и сервисы
+ * поверх репозиториев в памяти, без HTTP-транспорта. Каждый запрос измеряется
+ * в реактивном и в блокирующем режиме. Оба режима используют одни и те же репозитории в памяти,
+ * поэтому разница между ними — накладные расходы переноса корневых полей на виртуальные потоки.
+ * Реактивный и синхронный драйверы MongoDB на той же смеси запросов сравнивает {@link MongoExecutionBenchmark}.
+ *
+ * @author AlKl1M
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GraphQlExecutionBenchmark {
+
+    private static final String PRODUCTS_WITH_REVIEWS = """
+            query ($category: String) {
+                getProducts(category: $category, size: 10) {
+                    id
+                    name
+                    price
+                    averageRating
+                    reviews {
+                        author
+                        rating
+                    }
+                }
+            }
+            """;
+
+    private static final String PRODUCTS_CONNECTION = """
+            query ($category: String) {
+                getProductsConnection(category: $category, first: 10) {
+                    edges {
+                        cursor
+                        node {
+                            id
+                            name
+                            price
+                        }
+                    }
+                    pageInfo {
+                        hasNextPage
+                    }
+                }
+            }
+            """;
+
+    private static final String CATEGORY_STATS = """
+            query ($category: String!) {
+                categoryStats(categories: [$category]) {
+                    category
+                    productCount
+                    averagePrice
+                    averageRating
+                }
+            }
+            """;
+
+    static final String[] QUERY_MIX = {PRODUCTS_WITH_REVIEWS, PRODUCTS_CONNECTION, CATEGORY_STATS};
+
+    /**
+     * Контекст Spring с GraphQL-инфраструктурой и контроллерами приложения.
+     */
+    @State(Scope.Benchmark)
+    public static class GraphQlContext {
+
+        /**
+         * Режим выполнения, свойство {@code catalogue.execution.mode}: реактивный или с переносом
+         * корневых полей на виртуальные потоки.
+         */
+        @Param({"reactive", "blocking"})
+        String mode;
+
+        ConfigurableApplicationContext context;
+        ExecutionGraphQlService graphQlService;
+
+        /**
+         * Поднимает контекст поверх репозиториев набора данных.
+         */
+        @Setup
+        public void setUp(CatalogueDataset dataset) {
+            context = new SpringApplicationBuilder(BenchmarkConfiguration.class)
+                    .web(WebApplicationType.NONE)
+                    .properties("catalogue.execution.mode=" + mode)
+                    .initializers(applicationContext -> {
+                        applicationContext.getBeanFactory().registerSingleton("productRepository", dataset.productRepository);
+                        applicationContext.getBeanFactory().registerSingleton("reviewRepository", dataset.reviewRepository);
+                        applicationContext.getBeanFactory().registerSingleton("categoryStatsRepository",
+                                dataset.categoryStatsRepository);
+                    })
+                    .run();
+            graphQlService = context.getBean(ExecutionGraphQlService.class);
+        }
+
+        /**
+         * Закрывает контекст.
+         */
+        @TearDown
+        public void tearDown() {
+            context.close();
+        }
+
+    }
+
+    /**
+     * Очередь смеси запросов одного потока бенчмарка.
+     */
+    @State(Scope.Thread)
+    public static class QueryMix {
+
+        int next;
+
+    }
+
+    /**
+     * Первая страница продуктов категории вместе с их отзывами.
+     */
+    @Benchmark
+    public Map<String, Object> getProductsWithReviews(GraphQlContext graphQl) {
+        return execute(graphQl, PRODUCTS_WITH_REVIEWS, 0);
+    }
+
+    /**
+     * Первая страница продуктов категории в виде Relay-соединения.
+     */
+    @Benchmark
+    public Map<String, Object> getProductsConnection(GraphQlContext graphQl) {
+        return execute(graphQl, PRODUCTS_CONNECTION, 0);
+    }
+
+    /**
+     * Смесь запросов продуктов, соединений и сводок по разным категориям из 16 потоков:
+     * пропускная способность и распределение задержек под конкурентной нагрузкой.
+     */
+    @Benchmark
+    @Threads(16)
+    @BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<String, Object> concurrentQueryMix(GraphQlContext graphQl, QueryMix mix) {
+        int index = mix.next++ & Integer.MAX_VALUE;
+        return execute(graphQl, QUERY_MIX[index % QUERY_MIX.length], index);
+    }
+
+    private Map<String, Object> execute(GraphQlContext graphQl, String document, int category) {
+        DefaultExecutionGraphQlRequest request = new DefaultExecutionGraphQlRequest(document, null,
+                Map.of("category", CatalogueDataset.category(category)), null, UUID.randomUUID().toString(), null);
+        ExecutionGraphQlResponse response = graphQl.graphQlService.execute(request).block();
+        if (response == null || !response.getErrors().isEmpty()) {
+            throw new IllegalStateException("GraphQL request failed: " + (response != null ? response.getErrors() : null));
+        }
+        return response.getData();
+    }
+
+    /**
+     * Конфигурация контекста бенчмарка: GraphQL-автоконфигурация Spring Boot, контроллеры и сервисы
+     * приложения. Репозитории регистрируются из набора данных, кэш отключен.
+     * Блокирующий режим включается свойством контекста.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration(GraphQlAutoConfiguration.class)
+    @Import({ProductServiceImpl.class, ReviewServiceImpl.class, CategoryStatsServiceImpl.class, ReviewEvents.class,
+            ProductCacheEvictor.class, ProductController.class, ReviewController.class, CategoryStatsController.class,
+            DataLoaderConfig.class, VirtualThreadExecutionInstrumentation.class, ProductRanking.class,
+            ProductRankingRebuildJob.class})
+    @EnableConfigurationProperties({RankingProperties.class, PagingProperties.class})
+    static class BenchmarkConfiguration {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new NoOpCacheManager();
+        }
+
+        @Bean
+        ResponseCache responseCache() {
+            return new ResponseCache(new ResponseCacheProperties(false, 0, Duration.ZERO, Duration.ZERO));
+        }
+
+    }
+
+}
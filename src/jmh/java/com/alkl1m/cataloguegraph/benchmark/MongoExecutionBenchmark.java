@@ -0,0 +1,188 @@
+package com.alkl1m.cataloguegraph.benchmark;
+
+import com.alkl1m.cataloguegraph.CatalogueGraphApplication;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.repository.ProductRepository;
+import com.alkl1m.cataloguegraph.service.CategoryStatsService;
+import com.alkl1m.cataloguegraph.service.ReviewService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.testcontainers.containers.MongoDBContainer;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк реактивного и блокирующего режимов выполнения поверх настоящей MongoDB:
+ * приложение поднимается целиком, запросы выполняются через {@link ExecutionGraphQlService} в обход
+ * HTTP-транспорта, и в реактивном режиме приложение обращается к MongoDB
+ * реактивным драйвером, а в блокирующем — синхронным драйвером из виртуальных потоков корневых полей.
+ * Оба режима выполняют ту же смесь запросов, что и {@link GraphQlExecutionBenchmark}, из 16 потоков
+ * и сообщают пропускную способность и распределение задержек.
+ * MongoDB задается свойством {@code -Dmongo.uri}, иначе запускается в Testcontainers.
+ * Каждое испытание наполняет свою базу и удаляет ее по завершении. Кэши ответов и продуктов,
+ * ограничение частоты и миграции отключены, чтобы каждый запрос доходил до MongoDB.
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="MongoExecutionBenchmark" -Dmongo.uri=mongodb://localhost:27017
+ * </pre>
+ *
+ * @author AlKl1M
+ */
+@Threads(16)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MongoExecutionBenchmark {
+
+    /**
+     * Приложение поверх MongoDB с наполненным каталогом.
+     */
+    @State(Scope.Benchmark)
+    public static class MongoContext {
+
+        /**
+         * Режим выполнения, свойство {@code catalogue.execution.mode}: реактивный драйвер
+         * или синхронный драйвер в виртуальных потоках.
+         */
+        @Param({"reactive", "blocking"})
+        String mode;
+
+        @Param({"10000"})
+        int products;
+
+        @Param({"10"})
+        int reviewsPerProduct;
+
+        MongoDBContainer container;
+        ConfigurableApplicationContext context;
+        ExecutionGraphQlService graphQlService;
+
+        /**
+         * Запускает MongoDB, если она не задана, поднимает приложение и наполняет каталог.
+         */
+        @Setup
+        public void setUp() {
+            String uri = System.getProperty("mongo.uri");
+            if (uri == null) {
+                container = new MongoDBContainer("mongo:latest");
+                container.start();
+                uri = container.getReplicaSetUrl();
+            }
+            context = new SpringApplicationBuilder(CatalogueGraphApplication.class)
+                    .web(WebApplicationType.REACTIVE)
+                    .properties(
+                            "server.port=0",
+                            "catalogue.execution.mode=" + mode,
+                            "spring.data.mongodb.uri=" + uri,
+                            "spring.data.mongodb.database=catalogue-benchmark-" + UUID.randomUUID(),
+                            "spring.cache.type=none",
+                            "catalogue.graphql.response-cache.enabled=false",
+                            "catalogue.graphql.cost.rate-limit.enabled=false",
+                            "catalogue.migrations.build-category-stats=false",
+                            "catalogue.migrations.backfill-rating-aggregates=false",
+                            "catalogue.migrations.strip-embedded-reviews=false")
+                    .run();
+            seed();
+            graphQlService = context.getBean(ExecutionGraphQlService.class);
+        }
+
+        /**
+         * Удаляет базу бенчмарка, закрывает приложение и останавливает MongoDB.
+         */
+        @TearDown
+        public void tearDown() {
+            context.getBean(ReactiveMongoTemplate.class).getMongoDatabase()
+                    .flatMap(database -> Mono.from(database.drop()))
+                    .block();
+            context.close();
+            if (container != null) {
+                container.stop();
+            }
+        }
+
+        /**
+         * Наполняет каталог так же, как {@link CatalogueDataset}: отзывы получают самые дешевые продукты,
+         * которые попадают на первые страницы выборки, а сводки по категориям перестраиваются целиком.
+         */
+        private void seed() {
+            ProductRepository productRepository = context.getBean(ProductRepository.class);
+            List<Product> batch = new ArrayList<>();
+            for (int i = 0; i < products; i++) {
+                batch.add(new Product(CatalogueDataset.productId(i), "Product " + i, "Description of product " + i,
+                        (double) i, CatalogueDataset.category(i)));
+                if (batch.size() == 1000 || i == products - 1) {
+                    productRepository.bulkInsert(batch).block();
+                    batch = new ArrayList<>();
+                }
+            }
+
+            ReviewService reviewService = context.getBean(ReviewService.class);
+            SplittableRandom random = new SplittableRandom(42);
+            LocalDateTime createdAt = LocalDateTime.now();
+            for (int i = 0; i < Math.min(products, CatalogueDataset.REVIEWED_PRODUCTS); i++) {
+                List<Review> reviews = new ArrayList<>(reviewsPerProduct);
+                for (int j = 0; j < reviewsPerProduct; j++) {
+                    reviews.add(new Review(null, CatalogueDataset.productId(i), "Author " + j,
+                            random.nextInt(1, 6), "Comment " + j, createdAt));
+                }
+                reviewService.addReviews(reviews).block();
+            }
+            context.getBean(CategoryStatsService.class).rebuild().block();
+        }
+
+    }
+
+    /**
+     * Очередь смеси запросов одного потока бенчмарка.
+     */
+    @State(Scope.Thread)
+    public static class QueryMix {
+
+        int next;
+
+    }
+
+    /**
+     * Смесь запросов продуктов, соединений и сводок по разным категориям.
+     */
+    @Benchmark
+    public Map<String, Object> concurrentQueryMix(MongoContext mongo, QueryMix mix) {
+        int index = mix.next++ & Integer.MAX_VALUE;
+        String document = GraphQlExecutionBenchmark.QUERY_MIX[index % GraphQlExecutionBenchmark.QUERY_MIX.length];
+        DefaultExecutionGraphQlRequest request = new DefaultExecutionGraphQlRequest(document, null,
+                Map.of("category", CatalogueDataset.category(index)), null, UUID.randomUUID().toString(), null);
+        ExecutionGraphQlResponse response = mongo.graphQlService.execute(request).block();
+        if (response == null || !response.getErrors().isEmpty()) {
+            throw new IllegalStateException("GraphQL request failed: " + (response != null ? response.getErrors() : null));
+        }
+        return response.getData();
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.alkl1m.cataloguegraph.benchmark;
+
+import com.alkl1m.cataloguegraph.dto.ProductSearchResult;
+import com.alkl1m.cataloguegraph.dto.SearchFacet;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.exception.ReviewNotFoundException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки чтения продуктов через {@code ProductServiceImpl}.
+ *
+ * @author AlKl1M
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductServiceBenchmark {
+
+    /**
+     * Первая страница продуктов категории в ценовом диапазоне.
+     */
+    @Benchmark
+    public List<Product> getProductsFiltered(CatalogueDataset dataset) {
+        return dataset.productService.getProductsFiltered(CatalogueDataset.category(0), 0f, (float) dataset.products,
+                0, 10, List.of()).collectList().block();
+    }
+
+    /**
+     * Поиск случайного продукта по номеру из его названия с подсчетом фасетов.
+     */
+    @Benchmark
+    public ProductSearchResult searchProducts(CatalogueDataset dataset) {
+        int index = ThreadLocalRandom.current().nextInt(dataset.products);
+        return dataset.productService.searchProducts(String.valueOf(index), null,
+                List.of(SearchFacet.CATEGORY, SearchFacet.PRICE), 0, 10, List.of()).block();
+    }
+
+    /**
+     * Средний рейтинг случайного продукта из тех, у которых есть отзывы.
+     * Без отзывов измеряется путь с ошибкой {@link ReviewNotFoundException}.
+     */
+    @Benchmark
+    public Double getProductAverageRating(CatalogueDataset dataset) {
+        int index = ThreadLocalRandom.current().nextInt(Math.min(dataset.products, CatalogueDataset.REVIEWED_PRODUCTS));
+        return dataset.productService.getProductAverageRating(CatalogueDataset.productId(index))
+                .onErrorResume(ReviewNotFoundException.class, e -> Mono.empty())
+                .block();
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.alkl1m.cataloguegraph.benchmark;
+
+import com.alkl1m.cataloguegraph.entity.Review;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки записи отзывов через {@code ReviewServiceImpl}.
+ *
+ * @author AlKl1M
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReviewServiceBenchmark {
+
+    /**
+     * Количество идентификаторов, по кругу назначаемых добавляемым отзывам.
+     * Повторное сохранение отзыва с тем же идентификатором заменяет его,
+     * поэтому размер хранилища не растет во время измерения.
+     */
+    private static final int REVIEW_IDS = 10_000;
+
+    /**
+     * Счетчик добавленных отзывов потока.
+     */
+    @State(Scope.Thread)
+    public static class ReviewCounter {
+
+        long next;
+
+    }
+
+    /**
+     * Добавление отзыва к случайному продукту: обновление агрегатов рейтинга и сохранение отзыва.
+     */
+    @Benchmark
+    public Review addReview(CatalogueDataset dataset, ReviewCounter counter) {
+        int index = ThreadLocalRandom.current().nextInt(dataset.products);
+        String id = "benchmark-review-" + Thread.currentThread().threadId() + "-" + counter.next++ % REVIEW_IDS;
+        Review review = new Review(id, CatalogueDataset.productId(index), "Benchmark", 4, "Benchmark review",
+                LocalDateTime.now());
+        return dataset.reviewService.addReview(review).block();
+    }
+
+}
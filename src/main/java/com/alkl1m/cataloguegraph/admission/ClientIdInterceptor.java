@@ -0,0 +1,113 @@
+package com.alkl1m.cataloguegraph.admission;
+
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Определяет клиента GraphQL-запроса и сохраняет его идентификатор в контексте выполнения.
+ * Клиент определяется по адресу, с которого пришел запрос. Заголовку с идентификатором клиента
+ * доверяется, только если запрос пришел с адреса доверенного прокси из настроек: иначе клиент мог бы
+ * получать новую корзину токенов на каждый запрос, меняя значение заголовка.
+ *
+ * @author AlKl1M
+ */
+@Component
+public class ClientIdInterceptor implements WebGraphQlInterceptor {
+
+    /**
+     * Ключ идентификатора клиента в контексте выполнения GraphQL.
+     */
+    public static final String CLIENT_ID = ClientIdInterceptor.class.getName() + ".clientId";
+
+    private final String clientIdHeader;
+    private final List<AddressRange> trustedProxies;
+
+    public ClientIdInterceptor(QueryCostProperties properties) {
+        this.clientIdHeader = properties.rateLimit().clientIdHeader();
+        this.trustedProxies = properties.rateLimit().trustedProxies().stream()
+                .map(AddressRange::parse)
+                .toList();
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        String clientId = clientId(request);
+        request.configureExecutionInput((executionInput, builder) ->
+                builder.graphQLContext(Map.of(CLIENT_ID, clientId)).build());
+        return chain.next(request);
+    }
+
+    private String clientId(WebGraphQlRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        InetAddress address = remoteAddress != null ? remoteAddress.getAddress() : null;
+        if (address == null) {
+            return remoteAddress != null ? remoteAddress.getHostString() : "anonymous";
+        }
+        if (isTrustedProxy(address)) {
+            String header = request.getHeaders().getFirst(clientIdHeader);
+            if (header != null && !header.isBlank()) {
+                return "client:" + header;
+            }
+        }
+        return address.getHostAddress();
+    }
+
+    private boolean isTrustedProxy(InetAddress address) {
+        for (AddressRange range : trustedProxies) {
+            if (range.contains(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Диапазон адресов в нотации CIDR ({@code 10.0.0.0/8}) или отдельный адрес.
+     */
+    private record AddressRange(byte[] network, int prefixLength) {
+
+        private static AddressRange parse(String value) {
+            int slash = value.indexOf('/');
+            try {
+                byte[] network = InetAddress.getByName(slash >= 0 ? value.substring(0, slash) : value).getAddress();
+                int prefixLength = slash >= 0 ? Integer.parseInt(value.substring(slash + 1)) : network.length * 8;
+                if (prefixLength < 0 || prefixLength > network.length * 8) {
+                    throw new IllegalArgumentException("Invalid prefix length in trusted proxy " + value);
+                }
+                return new AddressRange(network, prefixLength);
+            } catch (UnknownHostException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid trusted proxy " + value, e);
+            }
+        }
+
+        private boolean contains(InetAddress address) {
+            byte[] bytes = address.getAddress();
+            if (bytes.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (bytes[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits);
+            return (bytes[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.alkl1m.cataloguegraph.admission;
+
+import com.alkl1m.cataloguegraph.admission.QueryCostCalculator.QueryCost;
+import graphql.ExecutionResult;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Допускает GraphQL-операции к выполнению по их статической стоимости.
+ * Операция отклоняется до обращения к сервисам, если ее глубина или стоимость превышает допустимую
+ * либо если в корзине токенов клиента не хватает единиц стоимости. Стоимость допущенных операций
+ * записывается в гистограмму {@value #COST_METRIC}, а отклонения считаются счетчиком
+ * {@value #REJECTED_METRIC} с указанием причины.
+ *
+ * @author AlKl1M
+ */
+@Component
+@RequiredArgsConstructor
+public class CostAdmissionInstrumentation extends SimplePerformantInstrumentation {
+
+    /**
+     * Имя гистограммы стоимости допущенных операций.
+     */
+    public static final String COST_METRIC = "graphql.request.cost";
+
+    /**
+     * Имя счетчика отклоненных операций.
+     */
+    public static final String REJECTED_METRIC = "graphql.request.rejected";
+
+    private final QueryCostCalculator calculator;
+    private final QueryCostProperties properties;
+    private final TokenBuckets tokenBuckets;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        ExecutionContext executionContext = parameters.getExecutionContext();
+        QueryCost queryCost = calculator.calculate(executionContext);
+
+        if (queryCost.depth() > properties.maxDepth()) {
+            throw reject("depth", "Query depth " + queryCost.depth()
+                    + " exceeds the maximum of " + properties.maxDepth());
+        }
+        if (queryCost.cost() > properties.maxCost()) {
+            throw reject("cost", "Query cost exceeds the maximum of " + properties.maxCost());
+        }
+        String clientId = executionContext.getGraphQLContext().getOrDefault(ClientIdInterceptor.CLIENT_ID, "anonymous");
+        if (properties.rateLimit().enabled() && !tokenBuckets.tryConsume(clientId, queryCost.cost())) {
+            throw reject("rate", "Query cost budget exhausted, retry later");
+        }
+
+        DistributionSummary.builder(COST_METRIC)
+                .register(meterRegistry)
+                .record(queryCost.cost());
+        return super.beginExecuteOperation(parameters, state);
+    }
+
+    private AbortExecutionException reject(String reason, String message) {
+        meterRegistry.counter(REJECTED_METRIC, "reason", reason).increment();
+        return new AbortExecutionException(message);
+    }
+
+}
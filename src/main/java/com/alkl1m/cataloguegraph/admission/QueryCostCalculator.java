@@ -0,0 +1,104 @@
+package com.alkl1m.cataloguegraph.admission;
+
+import graphql.analysis.FieldComplexityEnvironment;
+import graphql.analysis.QueryComplexityCalculator;
+import graphql.execution.ExecutionContext;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLTypeUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Статическая оценка стоимости GraphQL-операции до ее выполнения.
+ * Стоимость поля складывается из его собственной стоимости и стоимости вложенных полей,
+ * умноженной на количество элементов, если поле возвращает список. Количество элементов берется
+ * из аргумента размера ({@code size}, {@code first}, {@code limit}), а без него — из настроек.
+ * Поле {@code edges} Relay-соединения не умножает стоимость повторно: размер соединения
+ * уже учтен аргументом {@code first} самого соединения.
+ * Поля интроспекции не учитываются.
+ *
+ * @author AlKl1M
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryCostCalculator {
+
+    private final QueryCostProperties properties;
+
+    /**
+     * Оценивает стоимость и глубину выполняемой операции.
+     *
+     * @param executionContext контекст выполнения операции
+     * @return стоимость и глубина операции
+     */
+    public QueryCost calculate(ExecutionContext executionContext) {
+        int[] depth = {0};
+        int cost = QueryComplexityCalculator.newCalculator()
+                .schema(executionContext.getGraphQLSchema())
+                .document(executionContext.getDocument())
+                .operationName(executionContext.getOperationDefinition().getName())
+                .variables(executionContext.getCoercedVariables())
+                .fieldComplexityCalculator((environment, childCost) -> {
+                    if (isIntrospection(environment)) {
+                        return 0;
+                    }
+                    depth[0] = Math.max(depth[0], depthOf(environment));
+                    return fieldCost(environment, childCost);
+                })
+                .build()
+                .calculate();
+        return new QueryCost(cost, depth[0]);
+    }
+
+    /**
+     * Вычисляет стоимость поля с учетом вложенных полей.
+     * Стоимость ограничена сверху значением, превышающим максимально допустимую,
+     * чтобы сумма стоимостей не переполнялась.
+     */
+    private int fieldCost(FieldComplexityEnvironment environment, int childCost) {
+        String coordinates = environment.getParentType().getName() + "." + environment.getField().getName();
+        long cost = properties.fieldCosts().getOrDefault(coordinates, properties.defaultFieldCost())
+                + (long) listSize(environment, coordinates) * childCost;
+        return (int) Math.min(cost, properties.maxCost() + 1L);
+    }
+
+    private int listSize(FieldComplexityEnvironment environment, String coordinates) {
+        for (String argument : properties.listSizeArguments()) {
+            if (environment.getArguments().get(argument) instanceof Integer size) {
+                return Math.max(size, 0);
+            }
+        }
+        if (!(GraphQLTypeUtil.unwrapNonNull(environment.getFieldDefinition().getType()) instanceof GraphQLList)) {
+            return 1;
+        }
+        if (environment.getParentType().getName().endsWith("Connection")
+                && environment.getField().getName().equals("edges")) {
+            return 1;
+        }
+        return properties.listSizes().getOrDefault(coordinates, properties.defaultListSize());
+    }
+
+    private boolean isIntrospection(FieldComplexityEnvironment environment) {
+        return environment.getField().getName().startsWith("__")
+                || environment.getParentType().getName().startsWith("__");
+    }
+
+    private int depthOf(FieldComplexityEnvironment environment) {
+        int depth = 1;
+        for (FieldComplexityEnvironment parent = environment.getParentEnvironment(); parent != null;
+             parent = parent.getParentEnvironment()) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * Оценка операции.
+     *
+     * @param cost  стоимость операции
+     * @param depth глубина вложенности полей операции
+     */
+    public record QueryCost(int cost, int depth) {
+    }
+
+}
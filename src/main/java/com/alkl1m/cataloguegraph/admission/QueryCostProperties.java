@@ -0,0 +1,57 @@
+package com.alkl1m.cataloguegraph.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Настройки статической оценки стоимости GraphQL-операций и допуска их к выполнению.
+ * Поля указываются в виде {@code Тип.поле}, например {@code Product.reviews}.
+ *
+ * @param maxCost           максимальная стоимость одной операции
+ * @param maxDepth          максимальная глубина вложенности полей операции
+ * @param defaultFieldCost  стоимость поля, для которого не задана собственная
+ * @param fieldCosts        стоимости отдельных полей
+ * @param listSizeArguments аргументы, задающие количество элементов списка
+ * @param defaultListSize   предполагаемое количество элементов списка без аргумента размера
+ * @param listSizes         предполагаемые количества элементов отдельных списков без аргумента размера
+ * @param rateLimit         ограничение суммарной стоимости операций клиента
+ * @author AlKl1M
+ */
+@ConfigurationProperties("catalogue.graphql.cost")
+public record QueryCostProperties(
+        @DefaultValue("5000") int maxCost,
+        @DefaultValue("10") int maxDepth,
+        @DefaultValue("1") int defaultFieldCost,
+        @DefaultValue Map<String, Integer> fieldCosts,
+        @DefaultValue({"size", "first", "limit"}) List<String> listSizeArguments,
+        @DefaultValue("10") int defaultListSize,
+        @DefaultValue Map<String, Integer> listSizes,
+        @DefaultValue RateLimit rateLimit) {
+
+    /**
+     * Ограничение суммарной стоимости операций клиента по алгоритму корзины токенов.
+     * Емкость корзины должна быть не меньше максимальной стоимости операции.
+     *
+     * @param enabled         включено ли ограничение
+     * @param capacity        емкость корзины в единицах стоимости
+     * @param refillPerSecond скорость пополнения корзины в единицах стоимости в секунду
+     * @param clientIdHeader  заголовок с идентификатором клиента, которому доверяется только от доверенных прокси
+     * @param trustedProxies  адреса и диапазоны CIDR доверенных прокси; по умолчанию клиент определяется по адресу
+     * @param maxClients      максимальное количество одновременно отслеживаемых клиентов
+     * @param idleTimeout     время бездействия, после которого корзина клиента забывается
+     */
+    public record RateLimit(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("20000") long capacity,
+            @DefaultValue("2000") long refillPerSecond,
+            @DefaultValue("X-Client-Id") String clientIdHeader,
+            @DefaultValue List<String> trustedProxies,
+            @DefaultValue("100000") int maxClients,
+            @DefaultValue("10m") Duration idleTimeout) {
+    }
+
+}
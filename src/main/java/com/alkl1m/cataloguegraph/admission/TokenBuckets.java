@@ -0,0 +1,66 @@
+package com.alkl1m.cataloguegraph.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+/**
+ * Корзины токенов клиентов, ограничивающие суммарную стоимость их операций.
+ * Корзина пополняется непрерывно с постоянной скоростью до своей емкости;
+ * операция допускается, если в корзине хватает токенов на всю ее стоимость.
+ * Корзины бездействующих клиентов забываются, а количество отслеживаемых клиентов ограничено.
+ *
+ * @author AlKl1M
+ */
+@Component
+public class TokenBuckets {
+
+    private final QueryCostProperties.RateLimit rateLimit;
+    private final Cache<String, TokenBucket> buckets;
+
+    public TokenBuckets(QueryCostProperties properties) {
+        this.rateLimit = properties.rateLimit();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(rateLimit.maxClients())
+                .expireAfterAccess(rateLimit.idleTimeout())
+                .build();
+    }
+
+    /**
+     * Списывает стоимость операции из корзины клиента.
+     *
+     * @param clientId идентификатор клиента
+     * @param cost     стоимость операции
+     * @return true, если токенов хватило и они списаны
+     */
+    public boolean tryConsume(String clientId, long cost) {
+        return buckets.get(clientId, id -> new TokenBucket(rateLimit.capacity(), System.nanoTime()))
+                .tryConsume(cost, rateLimit.capacity(), rateLimit.refillPerSecond(), System.nanoTime());
+    }
+
+    /**
+     * Корзина токенов одного клиента.
+     */
+    private static final class TokenBucket {
+
+        private double tokens;
+        private long refilledAt;
+
+        private TokenBucket(long tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+
+        private synchronized boolean tryConsume(long cost, long capacity, long refillPerSecond, long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * refillPerSecond / 1e9);
+            refilledAt = now;
+            if (tokens < cost) {
+                return false;
+            }
+            tokens -= cost;
+            return true;
+        }
+
+    }
+
+}
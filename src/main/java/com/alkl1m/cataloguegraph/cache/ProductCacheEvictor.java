@@ -0,0 +1,41 @@
+package com.alkl1m.cataloguegraph.cache;
+
+import com.alkl1m.cataloguegraph.config.CacheConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Вытесняет продукты и их средние рейтинги из кэша по идентификаторам продуктов.
+ * Используется там, где ключи вытеснения известны только во время выполнения,
+ * например в пакетных операциях и при обработке change stream.
+ *
+ * @author AlKl1M
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductCacheEvictor {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Вытесняет записи кэшей продуктов и средних рейтингов для указанных продуктов.
+     *
+     * @param productIds уникальные идентификаторы продуктов
+     */
+    public void evict(Collection<String> productIds) {
+        evict(CacheConfig.PRODUCTS, productIds);
+        evict(CacheConfig.PRODUCT_RATINGS, productIds);
+    }
+
+    private void evict(String cacheName, Collection<String> productIds) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            productIds.forEach(cache::evict);
+        }
+    }
+
+}
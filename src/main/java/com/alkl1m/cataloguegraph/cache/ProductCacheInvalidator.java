@@ -0,0 +1,93 @@
+package com.alkl1m.cataloguegraph.cache;
+
+import com.alkl1m.cataloguegraph.config.InMemoryRepositoryConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Вытесняет продукты из локального кэша и ответы на GraphQL-запросы из кэша ответов по событиям
+ * change stream коллекции продуктов.
+ * Нужен при запуске нескольких экземпляров приложения: изменения, сделанные другим экземпляром,
+ * в том числе изменения агрегатов рейтинга при работе с отзывами, вытесняют записи и здесь.
+ * Категория продукта известна только для вставленных и замененных документов, поэтому списки категории,
+ * в которую продукт перенесли обновлением, обновляются по истечении времени жизни ответа.
+ * Требует, чтобы MongoDB работала в режиме набора реплик.
+ *
+ * @author AlKl1M
+ */
+@Slf4j
+@Component
+@Profile("!" + InMemoryRepositoryConfig.PROFILE)
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "catalogue.cache.change-stream.enabled", havingValue = "true")
+public class ProductCacheInvalidator {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ProductCacheEvictor productCacheEvictor;
+    private final ResponseCache responseCache;
+
+    private Disposable subscription;
+
+    /**
+     * Подписывается на изменения коллекции продуктов после запуска приложения.
+     * При обрыве потока подписка восстанавливается с экспоненциальной задержкой.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        subscription = mongoTemplate.changeStream(Document.class)
+                .watchCollection("products")
+                .listen()
+                .doOnError(e -> log.warn("Products change stream failed, resubscribing", e))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofMinutes(1)))
+                .subscribe(this::evict);
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private void evict(ChangeStreamEvent<Document> event) {
+        Optional.ofNullable(event.getRaw())
+                .map(raw -> raw.getDocumentKey())
+                .map(documentKey -> documentKey.get("_id"))
+                .map(this::toProductId)
+                .ifPresent(productId -> {
+                    productCacheEvictor.evict(List.of(productId));
+                    responseCache.invalidate(tags(productId, event.getBody()));
+                });
+    }
+
+    private List<String> tags(String productId, Document product) {
+        List<String> tags = new ArrayList<>(List.of(ResponseTags.product(productId), ResponseTags.PRODUCTS,
+                ResponseTags.CATEGORY_STATS));
+        if (product != null && product.getString("category") != null) {
+            tags.add(ResponseTags.category(product.getString("category")));
+        }
+        return tags;
+    }
+
+    private String toProductId(BsonValue id) {
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
+}
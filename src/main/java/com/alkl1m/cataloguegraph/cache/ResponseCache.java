@@ -0,0 +1,173 @@
+package com.alkl1m.cataloguegraph.cache;
+
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Кэш ответов на GraphQL-запросы с вытеснением по тегам.
+ * Ответы вытесняются по размеру (LRU) и по времени; теги ответов не индексируются: при вытеснении тега
+ * запоминается только время вытеснения, а ответ, вычисление которого началось не позже вытеснения
+ * любого из его тегов, считается недействительным при чтении. Поэтому вытеснение не зависит от числа
+ * закэшированных ответов и не теряет ответы, вычисляемые одновременно с изменением данных.
+ * Статистика кэша публикуется как метрики {@code cache.*} с именем {@value #RESPONSES_CACHE}.
+ *
+ * @author AlKl1M
+ */
+@Component
+public class ResponseCache implements MeterBinder {
+
+    /**
+     * Имя кэша ответов в метриках.
+     */
+    public static final String RESPONSES_CACHE = "graphqlResponses";
+
+    private static final Duration INVALIDATION_MARGIN = Duration.ofMinutes(1);
+
+    private final long ttlNanos;
+    private final Cache<String, CachedResponse> responses;
+    private final Cache<String, Long> invalidatedAt;
+
+    public ResponseCache(ResponseCacheProperties properties) {
+        Duration lifetime = properties.ttl().plus(properties.staleWhileRevalidate());
+        this.ttlNanos = properties.ttl().toNanos();
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(properties.maxEntries())
+                .expireAfterWrite(lifetime)
+                .recordStats()
+                .build();
+        this.invalidatedAt = Caffeine.newBuilder()
+                .expireAfterWrite(lifetime.plus(INVALIDATION_MARGIN))
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, responses, RESPONSES_CACHE);
+    }
+
+    /**
+     * Возвращает действительный ответ из кэша.
+     *
+     * @param key ключ запроса
+     * @return закэшированный ответ или null, если ответа нет или он вытеснен по тегу
+     */
+    public CachedResponse get(String key) {
+        CachedResponse response = responses.getIfPresent(key);
+        if (response == null) {
+            return null;
+        }
+        if (isInvalidated(response.tags(), response.startedAt())) {
+            responses.asMap().remove(key, response);
+            return null;
+        }
+        return response;
+    }
+
+    /**
+     * Сохраняет ответ в кэш, если ни один из его тегов не был вытеснен после начала вычисления ответа.
+     *
+     * @param key       ключ запроса
+     * @param result    результат выполнения запроса
+     * @param tags      теги ответа
+     * @param startedAt время начала вычисления ответа по {@link System#nanoTime()}
+     */
+    public void put(String key, ExecutionResult result, Set<String> tags, long startedAt) {
+        if (!isInvalidated(tags, startedAt)) {
+            responses.put(key, new CachedResponse(result, Set.copyOf(tags), startedAt, new AtomicBoolean()));
+        }
+    }
+
+    /**
+     * Вытесняет ответы, помеченные любым из указанных тегов.
+     *
+     * @param tags теги вытесняемых ответов
+     */
+    public void invalidate(Collection<String> tags) {
+        long now = System.nanoTime();
+        tags.forEach(tag -> invalidatedAt.put(tag, now));
+    }
+
+    /**
+     * Вытесняет ответы, содержащие указанные продукты, списки продуктов их категорий и сводки по категориям.
+     *
+     * @param products добавленные, измененные или удаленные продукты
+     */
+    public void invalidateProducts(Collection<Product> products) {
+        List<String> tags = new ArrayList<>(products.size() * 2 + 2);
+        tags.add(ResponseTags.PRODUCTS);
+        tags.add(ResponseTags.CATEGORY_STATS);
+        for (Product product : products) {
+            tags.add(ResponseTags.product(product.getId()));
+            if (product.getCategory() != null) {
+                tags.add(ResponseTags.category(product.getCategory()));
+            }
+        }
+        invalidate(tags);
+    }
+
+    /**
+     * Вытесняет ответы, содержащие указанные продукты или их отзывы, и сводки по категориям.
+     * Используется, когда меняются отзывы и агрегаты рейтинга, но не поля продуктов.
+     *
+     * @param productIds уникальные идентификаторы продуктов
+     */
+    public void invalidateRatings(Collection<String> productIds) {
+        List<String> tags = new ArrayList<>(productIds.size() + 1);
+        tags.add(ResponseTags.CATEGORY_STATS);
+        productIds.forEach(productId -> tags.add(ResponseTags.product(productId)));
+        invalidate(tags);
+    }
+
+    /**
+     * Вытесняет все ответы.
+     */
+    public void invalidateAll() {
+        responses.invalidateAll();
+    }
+
+    /**
+     * Проверяет, истекло ли время, в течение которого ответ считается свежим.
+     *
+     * @param response закэшированный ответ
+     * @return true, если ответ устарел и должен быть вычислен заново
+     */
+    boolean isStale(CachedResponse response) {
+        return System.nanoTime() - response.startedAt() > ttlNanos;
+    }
+
+    private boolean isInvalidated(Set<String> tags, long startedAt) {
+        for (String tag : tags) {
+            Long invalidated = invalidatedAt.getIfPresent(tag);
+            if (invalidated != null && invalidated - startedAt >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Закэшированный ответ.
+     *
+     * @param result       результат выполнения запроса
+     * @param tags         теги ответа
+     * @param startedAt    время начала вычисления ответа по {@link System#nanoTime()}
+     * @param revalidating выполняется ли фоновое обновление ответа
+     */
+    public record CachedResponse(ExecutionResult result, Set<String> tags, long startedAt,
+                                 AtomicBoolean revalidating) {
+    }
+
+}
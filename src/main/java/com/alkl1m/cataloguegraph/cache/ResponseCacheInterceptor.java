@@ -0,0 +1,165 @@
+package com.alkl1m.cataloguegraph.cache;
+
+import com.alkl1m.cataloguegraph.cache.ResponseCache.CachedResponse;
+import com.alkl1m.cataloguegraph.persisted.PersistedQueryStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.language.AstPrinter;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.parser.InvalidSyntaxException;
+import graphql.parser.Parser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Отдает ответы на повторяющиеся GraphQL-запросы из {@link ResponseCache}, не вызывая резолверы.
+ * Кэшируются только запросы (не изменения и не подписки) без заголовка авторизации, состоящие
+ * из одной операции, все корневые поля которой известны {@link ResponseTags}. Ключом служит
+ * нормализованный текст запроса вместе с именем операции и переменными, упорядоченными по именам,
+ * поэтому запросы, отличающиеся только форматированием или порядком переменных, попадают в одну запись.
+ * Сохраняются только ответы без ошибок. Устаревший ответ отдается клиенту, пока новый вычисляется в фоне.
+ * Ответы из кэша не проходят допуск по стоимости, поэтому не расходуют бюджет клиента.
+ *
+ * @author AlKl1M
+ */
+@Slf4j
+@Component
+public class ResponseCacheInterceptor implements WebGraphQlInterceptor {
+
+    private static final ObjectMapper CANONICAL_JSON = JsonMapper.builder()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    private final ResponseCacheProperties properties;
+    private final ResponseCache responseCache;
+    private final PersistedQueryStore persistedQueryStore;
+    private final Cache<String, Optional<String>> normalizedDocuments;
+
+    public ResponseCacheInterceptor(ResponseCacheProperties properties, ResponseCache responseCache,
+                                    PersistedQueryStore persistedQueryStore) {
+        this.properties = properties;
+        this.responseCache = responseCache;
+        this.persistedQueryStore = persistedQueryStore;
+        this.normalizedDocuments = Caffeine.newBuilder()
+                .maximumSize(properties.maxEntries())
+                .build();
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        if (!properties.enabled() || request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
+            return chain.next(request);
+        }
+        String key = key(request);
+        if (key == null) {
+            return chain.next(request);
+        }
+        CachedResponse cached = responseCache.get(key);
+        if (cached == null) {
+            return execute(request, chain, key);
+        }
+        if (responseCache.isStale(cached) && cached.revalidating().compareAndSet(false, true)) {
+            execute(request, chain, key)
+                    .doFinally(signal -> cached.revalidating().set(false))
+                    .subscribe(response -> {
+                    }, e -> log.debug("Background revalidation of a cached response failed", e));
+        }
+        return Mono.just(new WebGraphQlResponse(
+                new DefaultExecutionGraphQlResponse(request.toExecutionInput(), cached.result())));
+    }
+
+    private Mono<WebGraphQlResponse> execute(WebGraphQlRequest request, Chain chain, String key) {
+        Set<String> tags = ConcurrentHashMap.newKeySet();
+        long startedAt = System.nanoTime();
+        request.configureExecutionInput((executionInput, builder) ->
+                builder.graphQLContext(Map.of(ResponseTags.COLLECTOR, tags)).build());
+        return chain.next(request)
+                .doOnNext(response -> {
+                    if (response.isValid() && response.getErrors().isEmpty()) {
+                        responseCache.put(key, response.getExecutionResult(), tags, startedAt);
+                    }
+                });
+    }
+
+    /**
+     * Вычисляет ключ кэша запроса.
+     *
+     * @return ключ или null, если ответ на запрос не кэшируется
+     */
+    private String key(WebGraphQlRequest request) {
+        String document = document(request);
+        if (document == null) {
+            return null;
+        }
+        String normalized = normalizedDocuments.get(document, ResponseCacheInterceptor::normalize).orElse(null);
+        if (normalized == null) {
+            return null;
+        }
+        try {
+            return normalized + '\n' + request.getOperationName() + '\n'
+                    + CANONICAL_JSON.writeValueAsString(request.getVariables());
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Возвращает текст запроса, в том числе сохраненного и пришедшего только по хэшу.
+     */
+    private String document(WebGraphQlRequest request) {
+        String document = request.getDocument();
+        if (document != null && !document.isBlank() && !PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(document)) {
+            return document;
+        }
+        if (request.getExtensions().get("persistedQuery") instanceof Map<?, ?> persistedQuery
+                && persistedQuery.get("sha256Hash") instanceof String hash) {
+            return persistedQueryStore.query(hash).orElse(null);
+        }
+        return null;
+    }
+
+    /**
+     * Разбирает запрос и приводит его текст к каноническому виду.
+     *
+     * @return нормализованный текст или пустой результат, если ответ на запрос не кэшируется
+     */
+    private static Optional<String> normalize(String document) {
+        Document parsed;
+        try {
+            parsed = Parser.parse(document);
+        } catch (InvalidSyntaxException e) {
+            return Optional.empty();
+        }
+        List<OperationDefinition> operations = parsed.getDefinitionsOfType(OperationDefinition.class);
+        if (operations.size() != 1 || operations.get(0).getOperation() != OperationDefinition.Operation.QUERY) {
+            return Optional.empty();
+        }
+        for (Selection<?> selection : operations.get(0).getSelectionSet().getSelections()) {
+            if (!(selection instanceof Field field) || !ResponseTags.isCacheable(field.getName())) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(AstPrinter.printAstCompact(parsed));
+    }
+
+}
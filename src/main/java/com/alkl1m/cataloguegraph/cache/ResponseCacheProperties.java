@@ -0,0 +1,26 @@
+package com.alkl1m.cataloguegraph.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша ответов на GraphQL-запросы.
+ * Ответ считается свежим в течение {@code ttl}; после этого он еще {@code staleWhileRevalidate}
+ * отдается клиентам, пока в фоне вычисляется новый ответ.
+ *
+ * @param enabled              включен ли кэш ответов
+ * @param maxEntries           максимальное количество ответов в кэше
+ * @param ttl                  время, в течение которого ответ считается свежим
+ * @param staleWhileRevalidate время после {@code ttl}, в течение которого устаревший ответ отдается
+ *                             на время фонового обновления
+ * @author AlKl1M
+ */
+@ConfigurationProperties("catalogue.graphql.response-cache")
+public record ResponseCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") int maxEntries,
+        @DefaultValue("30s") Duration ttl,
+        @DefaultValue("2m") Duration staleWhileRevalidate) {
+}
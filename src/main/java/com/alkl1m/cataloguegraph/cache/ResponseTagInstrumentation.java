@@ -0,0 +1,33 @@
+package com.alkl1m.cataloguegraph.cache;
+
+import graphql.execution.instrumentation.FieldFetchingInstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetchingEnvironment;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Собирает теги кэшируемого ответа по мере извлечения полей запроса.
+ * Теги собираются только для запросов, ответы на которые {@link ResponseCacheInterceptor}
+ * собирается сохранить в кэш.
+ *
+ * @author AlKl1M
+ */
+@Component
+public class ResponseTagInstrumentation extends SimplePerformantInstrumentation {
+
+    @Override
+    public FieldFetchingInstrumentationContext beginFieldFetching(InstrumentationFieldFetchParameters parameters,
+                                                                  InstrumentationState state) {
+        DataFetchingEnvironment environment = parameters.getEnvironment();
+        Set<String> tags = environment.getGraphQlContext().get(ResponseTags.COLLECTOR);
+        if (tags != null) {
+            ResponseTags.collect(environment, tags);
+        }
+        return super.beginFieldFetching(parameters, state);
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.alkl1m.cataloguegraph.cache;
+
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import graphql.schema.DataFetchingEnvironment;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Теги, которыми помечаются закэшированные ответы, и правила их вычисления.
+ * Ответ помечается идентификаторами всех продуктов, которые он содержит, а также тегами корневых полей,
+ * вычисляемыми по их аргументам: списки продуктов категории зависят от всех продуктов этой категории,
+ * списки без категории и результаты поиска — от всех продуктов. Кэшируются только запросы,
+ * все корневые поля которых перечислены здесь.
+ *
+ * @author AlKl1M
+ */
+public final class ResponseTags {
+
+    /**
+     * Ключ набора тегов выполняемого запроса в контексте выполнения GraphQL.
+     */
+    public static final String COLLECTOR = ResponseTags.class.getName() + ".tags";
+
+    /**
+     * Тег ответов, зависящих от всех продуктов каталога.
+     */
+    public static final String PRODUCTS = "products";
+
+    /**
+     * Тег ответов, содержащих сводки по категориям.
+     */
+    public static final String CATEGORY_STATS = "category-stats";
+
+    private static final Map<String, Function<Map<String, Object>, Collection<String>>> ROOT_FIELDS = Map.of(
+            "getProducts", ResponseTags::listing,
+            "getProductsConnection", ResponseTags::listing,
+            "searchProducts", arguments -> List.of(PRODUCTS),
+            "getProductById", arguments -> List.of(product((String) arguments.get("id"))),
+            "getProductAverageRating", arguments -> List.of(product((String) arguments.get("id"))),
+            "getReviews", arguments -> List.of(product((String) arguments.get("productId"))),
+            "getReviewsConnection", arguments -> List.of(product((String) arguments.get("productId"))),
+            "getReviewById", arguments -> List.of(),
+            "categoryStats", arguments -> List.of(CATEGORY_STATS));
+
+    private ResponseTags() {
+    }
+
+    /**
+     * Тег ответов, содержащих продукт или его отзывы.
+     *
+     * @param productId уникальный идентификатор продукта
+     * @return тег продукта
+     */
+    public static String product(String productId) {
+        return "product:" + productId;
+    }
+
+    /**
+     * Тег ответов со списками продуктов категории.
+     *
+     * @param category категория продуктов
+     * @return тег категории
+     */
+    public static String category(String category) {
+        return "category:" + category;
+    }
+
+    /**
+     * Проверяет, можно ли кэшировать ответы с указанным корневым полем запроса.
+     *
+     * @param fieldName имя корневого поля
+     * @return true, если для поля известны правила вычисления тегов
+     */
+    static boolean isCacheable(String fieldName) {
+        return ROOT_FIELDS.containsKey(fieldName) || "__typename".equals(fieldName);
+    }
+
+    /**
+     * Добавляет теги извлекаемого поля в набор тегов запроса.
+     *
+     * @param environment окружение извлечения поля
+     * @param tags        набор тегов запроса
+     */
+    static void collect(DataFetchingEnvironment environment, Set<String> tags) {
+        Object source = environment.getSource();
+        if (source instanceof Product product) {
+            if (product.getId() != null) {
+                tags.add(product(product.getId()));
+            }
+        } else if (source instanceof Review review) {
+            if (review.getProductId() != null) {
+                tags.add(product(review.getProductId()));
+            }
+        } else if (environment.getParentType() == environment.getGraphQLSchema().getQueryType()) {
+            Function<Map<String, Object>, Collection<String>> rule = ROOT_FIELDS.get(environment.getField().getName());
+            if (rule != null) {
+                tags.addAll(rule.apply(environment.getArguments()));
+            }
+        }
+    }
+
+    private static Collection<String> listing(Map<String, Object> arguments) {
+        Object category = arguments.get("category");
+        return List.of(category != null ? category((String) category) : PRODUCTS);
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.alkl1m.cataloguegraph.config;
+
+import com.alkl1m.cataloguegraph.metrics.ConnectionCheckoutMetrics;
+import com.alkl1m.cataloguegraph.repository.MongoOperationRouting;
+import com.alkl1m.cataloguegraph.repository.blocking.BlockingCategoryStatsRepository;
+import com.alkl1m.cataloguegraph.repository.blocking.BlockingMongoOperations;
+import com.alkl1m.cataloguegraph.repository.blocking.BlockingProductRepository;
+import com.alkl1m.cataloguegraph.repository.blocking.BlockingReviewRepository;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+/**
+ * Репозитории на синхронном драйвере MongoDB для блокирующего режима выполнения
+ * ({@code catalogue.execution.mode=blocking}). Заменяют реактивные репозитории {@link ReactiveRepositoryConfig}
+ * за теми же интерфейсами, поэтому сервисы и контроллеры не меняются, а корневое поле выполняет запрос
+ * к MongoDB в своем виртуальном потоке. Основной и аналитический синхронные клиенты собираются теми же
+ * настройщиками и с теми же настройками пулов, что и реактивные, но со своими именами пулов в метриках.
+ * Задачи, миграции и обработка change stream по-прежнему используют реактивный драйвер.
+ *
+ * @author AlKl1M
+ */
+@Configuration
+@Profile("!" + InMemoryRepositoryConfig.PROFILE)
+@ConditionalOnProperty(value = "catalogue.execution.mode", havingValue = "blocking")
+public class BlockingRepositoryConfig {
+
+    /**
+     * Имя пула основного синхронного клиента в метриках.
+     */
+    public static final String BLOCKING_POOL = "blocking";
+
+    /**
+     * Имя пула аналитического синхронного клиента в метриках.
+     */
+    public static final String BLOCKING_ANALYTICS_POOL = "blocking-analytics";
+
+    @Bean
+    public MongoClient blockingMongoClient(MongoClientProperties properties,
+                                           ObjectProvider<MongoClientSettingsBuilderCustomizer> customizers,
+                                           MeterRegistry meterRegistry) {
+        return MongoClients.create(MongoClientConfig.clientSettings(customizers, properties.pool(),
+                new ConnectionCheckoutMetrics(meterRegistry, BLOCKING_POOL)));
+    }
+
+    @Bean
+    public MongoClient blockingAnalyticsMongoClient(MongoClientProperties properties,
+                                                    ObjectProvider<MongoClientSettingsBuilderCustomizer> customizers,
+                                                    MeterRegistry meterRegistry) {
+        return MongoClients.create(MongoClientConfig.clientSettings(customizers, properties.analyticsPool(),
+                new ConnectionCheckoutMetrics(meterRegistry, BLOCKING_ANALYTICS_POOL)));
+    }
+
+    @Bean(destroyMethod = "close")
+    public BlockingMongoOperations blockingMongoOperations(
+            @Qualifier("blockingMongoClient") MongoClient mongoClient,
+            @Qualifier("blockingAnalyticsMongoClient") MongoClient analyticsClient,
+            MongoProperties mongoProperties,
+            MongoConverter mongoConverter,
+            MongoOperationRouting routing) {
+        String database = mongoProperties.getMongoClientDatabase();
+        return new BlockingMongoOperations(
+                new MongoTemplate(new SimpleMongoClientDatabaseFactory(mongoClient, database), mongoConverter),
+                new MongoTemplate(new SimpleMongoClientDatabaseFactory(analyticsClient, database), mongoConverter),
+                routing);
+    }
+
+    @Bean
+    public BlockingProductRepository productRepository(BlockingMongoOperations operations) {
+        return new BlockingProductRepository(operations);
+    }
+
+    @Bean
+    public BlockingReviewRepository reviewRepository(BlockingMongoOperations operations) {
+        return new BlockingReviewRepository(operations);
+    }
+
+    @Bean
+    public BlockingCategoryStatsRepository categoryStatsRepository(BlockingMongoOperations operations) {
+        return new BlockingCategoryStatsRepository(operations);
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.alkl1m.cataloguegraph.config;
+
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация кэша продуктов.
+ * Размер, время жизни записей и сбор статистики задаются свойством {@code spring.cache.caffeine.spec};
+ * статистика попаданий, промахов и вытеснений публикуется как метрики {@code cache.*}.
+ *
+ * @author AlKl1M
+ */
+@EnableCaching
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Кэш продуктов по идентификатору.
+     */
+    public static final String PRODUCTS = "products";
+
+    /**
+     * Кэш средних рейтингов продуктов по идентификатору продукта.
+     */
+    public static final String PRODUCT_RATINGS = "productRatings";
+
+    /**
+     * Переводит Caffeine в асинхронный режим, необходимый для кэширования результатов {@code Mono}.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> asyncCacheModeCustomizer() {
+        return cacheManager -> cacheManager.setAsyncCacheMode(true);
+    }
+
+}
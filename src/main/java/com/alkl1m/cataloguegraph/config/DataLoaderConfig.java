@@ -0,0 +1,37 @@
+package com.alkl1m.cataloguegraph.config;
+
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.service.ProductService;
+import com.alkl1m.cataloguegraph.service.ReviewService;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+
+import java.util.List;
+
+/**
+ * Регистрация загрузчиков DataLoader для вложенных полей схемы.
+ * Загрузчики создаются на каждую GraphQL-операцию: ключи, запрошенные на одном уровне запроса,
+ * загружаются одним запросом {@code $in}, а уже загруженные ключи берутся из кэша загрузчика.
+ *
+ * @author AlKl1M
+ */
+@Configuration
+public class DataLoaderConfig {
+
+    /**
+     * Имя загрузчика отзывов по идентификатору продукта.
+     */
+    public static final String REVIEWS_BY_PRODUCT_ID = "reviewsByProductId";
+
+    public DataLoaderConfig(BatchLoaderRegistry registry, ProductService productService, ReviewService reviewService) {
+        registry.forTypePair(String.class, Product.class)
+                .registerMappedBatchLoader((ids, environment) ->
+                        productService.getProductsByIds(ids).collectMap(Product::getId));
+
+        registry.<String, List<Review>>forName(REVIEWS_BY_PRODUCT_ID)
+                .registerMappedBatchLoader((productIds, environment) ->
+                        reviewService.getReviewsByProductIds(productIds));
+    }
+
+}
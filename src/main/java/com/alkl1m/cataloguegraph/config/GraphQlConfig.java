@@ -0,0 +1,67 @@
+package com.alkl1m.cataloguegraph.config;
+
+import com.alkl1m.cataloguegraph.encoding.EncodingGraphQlHttpHandler;
+import com.alkl1m.cataloguegraph.encoding.ResponseEncodingProperties;
+import com.alkl1m.cataloguegraph.persisted.PersistedDocumentProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.autoconfigure.graphql.GraphQlProperties;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Настройка движка GraphQL.
+ * Разобранные и проверенные документы берутся из кэша сохраненных запросов,
+ * поэтому повторяющиеся операции клиентов не разбираются и не проверяются заново.
+ * Ответы по HTTP кодируются в JSON, CBOR или Smile в зависимости от заголовка {@code Accept};
+ * двоичные форматы настраиваются теми же модулями и параметрами Jackson, что и JSON.
+ *
+ * @author AlKl1M
+ */
+@Configuration
+public class GraphQlConfig {
+
+    /**
+     * Подключает поставщика разобранных документов с поддержкой сохраненных запросов.
+     */
+    @Bean
+    public GraphQlSourceBuilderCustomizer persistedQueriesCustomizer(PersistedDocumentProvider documentProvider) {
+        return builder -> builder.configureGraphQl(graphQl -> graphQl.preparsedDocumentProvider(documentProvider));
+    }
+
+    /**
+     * Заменяет стандартный обработчик GraphQL-запросов по HTTP обработчиком с выбором формата ответа.
+     */
+    @Bean
+    public EncodingGraphQlHttpHandler graphQlHttpHandler(WebGraphQlHandler webGraphQlHandler,
+                                                         ResponseEncodingProperties properties,
+                                                         ObjectMapper objectMapper,
+                                                         Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        ObjectMapper cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        return new EncodingGraphQlHttpHandler(webGraphQlHandler, properties, objectMapper, cborMapper, smileMapper);
+    }
+
+    /**
+     * Направляет запросы, принимающие ответ в двоичном формате, в обработчик GraphQL раньше стандартного маршрута,
+     * который принимает только JSON.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public RouterFunction<ServerResponse> binaryGraphQlRouterFunction(EncodingGraphQlHttpHandler graphQlHttpHandler,
+                                                                      GraphQlProperties graphQlProperties) {
+        return RouterFunctions.route()
+                .POST(graphQlProperties.getPath(), graphQlHttpHandler::acceptsBinary, graphQlHttpHandler::handleRequest)
+                .build();
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.alkl1m.cataloguegraph.config;
+
+import com.alkl1m.cataloguegraph.repository.inmemory.InMemoryCategoryStatsRepository;
+import com.alkl1m.cataloguegraph.repository.inmemory.InMemoryProductRepository;
+import com.alkl1m.cataloguegraph.repository.inmemory.InMemoryReviewRepository;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Репозитории в памяти вместо MongoDB, включаемые профилем {@value #PROFILE}.
+ * Профиль отключает автоконфигурацию MongoDB (см. {@code application-in-memory.yaml}), а компоненты,
+ * которым нужна MongoDB — миграции, задача сверки агрегатов рейтинга и обработка change stream, —
+ * в нем не создаются. Данные не переживают перезапуск; каталог можно заполнить через импорт.
+ *
+ * @author AlKl1M
+ */
+@Configuration
+@Profile(InMemoryRepositoryConfig.PROFILE)
+public class InMemoryRepositoryConfig {
+
+    /**
+     * Имя профиля с репозиториями в памяти.
+     */
+    public static final String PROFILE = "in-memory";
+
+    @Bean
+    public InMemoryProductRepository productRepository() {
+        return new InMemoryProductRepository();
+    }
+
+    @Bean
+    public InMemoryReviewRepository reviewRepository() {
+        return new InMemoryReviewRepository();
+    }
+
+    @Bean
+    public InMemoryCategoryStatsRepository categoryStatsRepository(InMemoryProductRepository productRepository) {
+        return new InMemoryCategoryStatsRepository(productRepository);
+    }
+
+}
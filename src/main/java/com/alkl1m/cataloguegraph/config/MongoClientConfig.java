@@ -0,0 +1,129 @@
+package com.alkl1m.cataloguegraph.config;
+
+import com.alkl1m.cataloguegraph.metrics.ConnectionCheckoutMetrics;
+import com.alkl1m.cataloguegraph.repository.MongoOperationClass;
+import com.alkl1m.cataloguegraph.repository.MongoOperationRouting;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import com.mongodb.TagSet;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Клиенты MongoDB и маршрутизация операций чтения по классам.
+ * Основной клиент создается автоконфигурацией Spring Boot и получает настройки пула из
+ * {@code catalogue.mongo.pool}. Аналитический клиент собирается теми же настройщиками, что и основной,
+ * но со своим пулом {@code catalogue.mongo.analytics-pool}, поэтому медленные аналитические и пакетные
+ * операции ждут соединений только своего пула.
+ *
+ * @author AlKl1M
+ */
+@Configuration
+@Profile("!" + InMemoryRepositoryConfig.PROFILE)
+public class MongoClientConfig {
+
+    /**
+     * Имя пула основного клиента в метриках.
+     */
+    public static final String MAIN_POOL = "main";
+
+    /**
+     * Имя пула аналитического клиента в метриках.
+     */
+    public static final String ANALYTICS_POOL = "analytics";
+
+    @Bean
+    public ConnectionPoolCustomizer connectionPoolCustomizer(MongoClientProperties properties,
+                                                             MeterRegistry meterRegistry) {
+        return new ConnectionPoolCustomizer(properties.pool(), new ConnectionCheckoutMetrics(meterRegistry, MAIN_POOL));
+    }
+
+    @Bean(destroyMethod = "close")
+    public MongoOperationRouting mongoOperationRouting(MongoClientProperties properties,
+                                                       MongoProperties mongoProperties,
+                                                       ObjectProvider<MongoClientSettingsBuilderCustomizer> customizers,
+                                                       ReactiveMongoTemplate mongoTemplate,
+                                                       MongoConverter mongoConverter,
+                                                       MeterRegistry meterRegistry) {
+        MongoClient analyticsClient = MongoClients.create(clientSettings(customizers, properties.analyticsPool(),
+                new ConnectionCheckoutMetrics(meterRegistry, ANALYTICS_POOL)));
+        ReactiveMongoTemplate analyticsTemplate = new ReactiveMongoTemplate(
+                new SimpleReactiveMongoDatabaseFactory(analyticsClient, mongoProperties.getMongoClientDatabase()),
+                mongoConverter);
+
+        Map<MongoOperationClass, Duration> maxTimes = new EnumMap<>(MongoOperationClass.class);
+        Map<MongoOperationClass, ReadPreference> readPreferences = new EnumMap<>(MongoOperationClass.class);
+        properties.operations().forEach((operation, options) -> {
+            maxTimes.put(operation, options.maxTime());
+            readPreferences.put(operation, readPreference(options));
+        });
+        return new MongoOperationRouting(mongoTemplate, analyticsClient, analyticsTemplate, maxTimes, readPreferences);
+    }
+
+    /**
+     * Собирает настройки дополнительного клиента теми же настройщиками, что и основной клиент,
+     * но со своим пулом соединений.
+     *
+     * @param customizers настройщики клиентов MongoDB
+     * @param pool        настройки пула соединений клиента
+     * @param metrics     метрики ожидания соединений пула
+     * @return настройки клиента
+     */
+    public static MongoClientSettings clientSettings(ObjectProvider<MongoClientSettingsBuilderCustomizer> customizers,
+                                                     MongoClientProperties.Pool pool,
+                                                     ConnectionCheckoutMetrics metrics) {
+        MongoClientSettings.Builder settings = MongoClientSettings.builder();
+        customizers.orderedStream()
+                .filter(customizer -> !(customizer instanceof ConnectionPoolCustomizer))
+                .forEach(customizer -> customizer.customize(settings));
+        new ConnectionPoolCustomizer(pool, metrics).customize(settings);
+        return settings.build();
+    }
+
+    private static ReadPreference readPreference(MongoClientProperties.Operation operation) {
+        if (operation.maxStaleness().isZero()) {
+            return ReadPreference.valueOf(operation.readPreference());
+        }
+        return ReadPreference.valueOf(operation.readPreference(), List.<TagSet>of(),
+                operation.maxStaleness().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Применяет настройки пула соединений к клиенту MongoDB и подключает метрики ожидания соединений.
+     *
+     * @param pool    настройки пула
+     * @param metrics метрики ожидания соединений пула
+     */
+    public record ConnectionPoolCustomizer(MongoClientProperties.Pool pool, ConnectionCheckoutMetrics metrics)
+            implements MongoClientSettingsBuilderCustomizer {
+
+        @Override
+        public void customize(MongoClientSettings.Builder settings) {
+            settings.applyToConnectionPoolSettings(connectionPool -> connectionPool
+                    .maxSize(pool.maxSize())
+                    .minSize(pool.minSize())
+                    .maxWaitTime(pool.maxWaitTime().toMillis(), TimeUnit.MILLISECONDS)
+                    .maxConnecting(pool.maxConnecting())
+                    .maxConnectionIdleTime(pool.maxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS)
+                    .addConnectionPoolListener(metrics));
+        }
+
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.alkl1m.cataloguegraph.config;
+
+import com.alkl1m.cataloguegraph.repository.MongoOperationClass;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Настройки клиентов MongoDB: пулы соединений основного и аналитического клиентов
+ * и параметры чтения по классам операций. Значения пулов по умолчанию совпадают
+ * с умолчаниями драйвера; параметры пула в строке подключения переопределяются этими настройками.
+ *
+ * @param pool          пул соединений основного клиента
+ * @param analyticsPool пул соединений аналитического клиента
+ * @param operations    параметры чтения по классам операций
+ * @author AlKl1M
+ */
+@ConfigurationProperties("catalogue.mongo")
+public record MongoClientProperties(
+        @DefaultValue Pool pool,
+        @DefaultValue Pool analyticsPool,
+        @DefaultValue Map<MongoOperationClass, Operation> operations) {
+
+    /**
+     * Пул соединений клиента с каждым узлом набора реплик.
+     *
+     * @param maxSize               максимальное количество соединений
+     * @param minSize               количество соединений, поддерживаемых открытыми
+     * @param maxWaitTime           максимальное время ожидания свободного соединения
+     * @param maxConnecting         максимальное количество одновременно устанавливаемых соединений
+     * @param maxConnectionIdleTime время простоя, после которого соединение закрывается (ноль — не закрывается)
+     */
+    public record Pool(
+            @DefaultValue("100") int maxSize,
+            @DefaultValue("0") int minSize,
+            @DefaultValue("2m") Duration maxWaitTime,
+            @DefaultValue("2") int maxConnecting,
+            @DefaultValue("0s") Duration maxConnectionIdleTime) {
+    }
+
+    /**
+     * Параметры чтения класса операций.
+     * Устаревание ограничивает отставание вторичных узлов, с которых допускается чтение,
+     * и не применяется к чтению с первичного узла.
+     *
+     * @param maxTime        ограничение времени выполнения на сервере, {@code maxTimeMS} (ноль — без ограничения)
+     * @param readPreference предпочтение чтения: primary, primaryPreferred, secondary, secondaryPreferred
+     *                       или nearest
+     * @param maxStaleness   максимальное отставание вторичного узла (ноль — без ограничения); MongoDB
+     *                       требует не меньше 90 секунд
+     */
+    public record Operation(
+            @DefaultValue("0s") Duration maxTime,
+            @DefaultValue("primary") String readPreference,
+            @DefaultValue("0s") Duration maxStaleness) {
+    }
+
+}
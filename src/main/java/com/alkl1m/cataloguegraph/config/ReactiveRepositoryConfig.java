@@ -0,0 +1,22 @@
+package com.alkl1m.cataloguegraph.config;
+
+import com.alkl1m.cataloguegraph.repository.ProductRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+/**
+ * Репозитории Spring Data на реактивном драйвере MongoDB для реактивного режима выполнения
+ * ({@code catalogue.execution.mode=reactive}, по умолчанию). Автоконфигурация репозиториев Spring Boot
+ * отключена в {@code application.yaml}, чтобы в блокирующем режиме вместо них создавались только
+ * репозитории {@link BlockingRepositoryConfig}.
+ *
+ * @author AlKl1M
+ */
+@Configuration
+@Profile("!" + InMemoryRepositoryConfig.PROFILE)
+@ConditionalOnProperty(value = "catalogue.execution.mode", havingValue = "reactive", matchIfMissing = true)
+@EnableReactiveMongoRepositories(basePackageClasses = ProductRepository.class)
+public class ReactiveRepositoryConfig {
+}
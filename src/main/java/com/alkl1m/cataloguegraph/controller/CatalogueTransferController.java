@@ -0,0 +1,83 @@
+package com.alkl1m.cataloguegraph.controller;
+
+import com.alkl1m.cataloguegraph.dto.BulkError;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.service.ProductService;
+import com.alkl1m.cataloguegraph.service.ReviewService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+/**
+ * Контроллер потоковой выгрузки и загрузки каталога в формате NDJSON (один JSON-документ на строку).
+ * Предназначен для наборов данных, которые не помещаются в постраничные GraphQL-запросы.
+ * Выгрузка читает коллекцию курсором и пишет документы в ответ по мере чтения, а загрузка разбирает
+ * тело запроса построчно и записывает его пакетами; в обоих случаях следующая порция данных
+ * запрашивается только после обработки предыдущей, поэтому потребление памяти не зависит от объема данных.
+ * Продукты нужно загружать раньше отзывов: агрегаты рейтинга продуктов набираются при загрузке отзывов.
+ *
+ * @author AlKl1M
+ */
+@RestController
+@RequestMapping("/catalogue")
+@RequiredArgsConstructor
+public class CatalogueTransferController {
+
+    private final ProductService productService;
+    private final ReviewService reviewService;
+
+    @Value("${catalogue.transfer.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Выгружает все продукты.
+     *
+     * @return поток продуктов
+     */
+    @GetMapping(value = "/products", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Product> exportProducts() {
+        return productService.exportProducts(batchSize);
+    }
+
+    /**
+     * Загружает продукты.
+     *
+     * @param products поток продуктов из тела запроса
+     * @return ошибки по строкам, которые не удалось загрузить
+     */
+    @PostMapping(value = "/products", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BulkError> importProducts(@RequestBody Flux<Product> products) {
+        return productService.importProducts(products, batchSize);
+    }
+
+    /**
+     * Выгружает все отзывы.
+     *
+     * @return поток отзывов
+     */
+    @GetMapping(value = "/reviews", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Review> exportReviews() {
+        return reviewService.exportReviews(batchSize);
+    }
+
+    /**
+     * Загружает отзывы.
+     *
+     * @param reviews поток отзывов из тела запроса
+     * @return ошибки по строкам, которые не удалось загрузить
+     */
+    @PostMapping(value = "/reviews", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BulkError> importReviews(@RequestBody Flux<Review> reviews) {
+        return reviewService.importReviews(reviews, batchSize);
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.alkl1m.cataloguegraph.controller;
+
+import com.alkl1m.cataloguegraph.dto.PriceRangeCount;
+import com.alkl1m.cataloguegraph.entity.CategoryStats;
+import com.alkl1m.cataloguegraph.service.CategoryStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Контроллер сводок по категориям продуктов.
+ *
+ * @author AlKl1M
+ */
+@Controller
+@RequiredArgsConstructor
+public class CategoryStatsController {
+
+    private final CategoryStatsService categoryStatsService;
+
+    /**
+     * Получает сводки по категориям: количество продуктов, цены и средний рейтинг.
+     *
+     * @param categories категории (если не указаны — все категории)
+     * @return сводки существующих категорий, упорядоченные по названию категории
+     */
+    @QueryMapping
+    public Flux<CategoryStats> categoryStats(@Argument List<String> categories) {
+        return categoryStatsService.getCategoryStats(categories);
+    }
+
+    /**
+     * Разрешает количество продуктов категории по ценовым диапазонам.
+     *
+     * @param stats сводка по категории
+     * @return непустые ценовые диапазоны в порядке возрастания цены
+     */
+    @SchemaMapping(typeName = "CategoryStats", field = "priceBands")
+    public List<PriceRangeCount> priceBands(CategoryStats stats) {
+        return categoryStatsService.getPriceBands(stats);
+    }
+
+}
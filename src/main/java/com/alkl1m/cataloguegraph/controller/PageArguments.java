@@ -0,0 +1,61 @@
+package com.alkl1m.cataloguegraph.controller;
+
+import com.alkl1m.cataloguegraph.exception.InvalidPageException;
+
+import java.util.OptionalInt;
+
+/**
+ * Проверка аргументов пагинации GraphQL-запросов до обращения к хранилищу.
+ * Отрицательный номер страницы и размер страницы меньше единицы отклоняются,
+ * а размер больше максимального уменьшается до {@link PagingProperties#maxSize()}, поэтому
+ * хранилище никогда не получает нулевой или отрицательный лимит, означающий выборку без ограничения.
+ *
+ * @author AlKl1M
+ */
+final class PageArguments {
+
+    private PageArguments() {
+    }
+
+    /**
+     * @param page номер страницы (может быть null)
+     * @return номер страницы, по умолчанию 0
+     * @throws InvalidPageException если номер страницы отрицательный
+     */
+    static int page(Integer page) {
+        if (page == null) {
+            return 0;
+        }
+        if (page < 0) {
+            throw new InvalidPageException("page must not be negative, got " + page);
+        }
+        return page;
+    }
+
+    /**
+     * @param size       количество элементов на странице (может быть null)
+     * @param properties настройки размера страниц
+     * @return размер страницы, не превышающий максимальный
+     * @throws InvalidPageException если размер страницы меньше единицы
+     */
+    static int size(Integer size, PagingProperties properties) {
+        if (size == null) {
+            return properties.defaultSize();
+        }
+        if (size < 1) {
+            throw new InvalidPageException("size must be at least 1, got " + size);
+        }
+        return Math.min(size, properties.maxSize());
+    }
+
+    /**
+     * @param count      количество элементов окна Relay-соединения (аргумент {@code first} или {@code last})
+     * @param properties настройки размера страниц
+     * @return размер окна, не превышающий максимальный
+     * @throws InvalidPageException если размер окна меньше единицы
+     */
+    static int size(OptionalInt count, PagingProperties properties) {
+        return size(count.isPresent() ? count.getAsInt() : null, properties);
+    }
+
+}
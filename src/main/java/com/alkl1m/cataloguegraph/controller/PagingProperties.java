@@ -0,0 +1,17 @@
+package com.alkl1m.cataloguegraph.controller;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки размера страниц списков и Relay-соединений.
+ *
+ * @param defaultSize количество элементов на странице, если клиент его не указал
+ * @param maxSize     максимальное количество элементов на странице; большие размеры уменьшаются до него
+ * @author AlKl1M
+ */
+@ConfigurationProperties("catalogue.graphql.paging")
+public record PagingProperties(
+        @DefaultValue("10") int defaultSize,
+        @DefaultValue("100") int maxSize) {
+}
@@ -1,18 +1,37 @@
 package com.alkl1m.cataloguegraph.controller;
 
+import com.alkl1m.cataloguegraph.dto.BulkResult;
+import com.alkl1m.cataloguegraph.dto.ProductInput;
+import com.alkl1m.cataloguegraph.dto.ProductSearchResult;
+import com.alkl1m.cataloguegraph.dto.SearchFacet;
+import com.alkl1m.cataloguegraph.dto.SearchFilters;
+import com.alkl1m.cataloguegraph.dto.RatingBucket;
+import com.alkl1m.cataloguegraph.dto.TrendingWindow;
 import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
 import com.alkl1m.cataloguegraph.service.ProductService;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import lombok.RequiredArgsConstructor;
+import org.dataloader.DataLoader;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.data.query.ScrollSubrange;
 import org.springframework.stereotype.Controller;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Контроллер для управления продуктами.
- * Предоставляет методы для получения, добавления, обновления и удаления продуктов.
+ * Предоставляет методы для получения, добавления, обновления и удаления продуктов,
+ * а также разрешает отзывы продукта.
  *
  * @author AlKl1M
  */
@@ -21,15 +40,17 @@ import reactor.core.publisher.Mono;
 public class ProductController {
 
     private final ProductService productService;
+    private final PagingProperties pagingProperties;
 
     /**
      * Получает список продуктов с фильтрацией по категории и ценовому диапазону.
      *
-     * @param category категория продуктов (может быть null)
-     * @param minPrice минимальная цена продуктов (может быть null)
-     * @param maxPrice максимальная цена продуктов (может быть null)
-     * @param page     номер страницы для пагинации (по умолчанию 0)
-     * @param size     количество элементов на странице (по умолчанию 10)
+     * @param category  категория продуктов (может быть null)
+     * @param minPrice  минимальная цена продуктов (может быть null)
+     * @param maxPrice  максимальная цена продуктов (может быть null)
+     * @param page      номер страницы для пагинации (по умолчанию 0)
+     * @param size      количество элементов на странице (по умолчанию 10, не больше максимального)
+     * @param selection выбранные клиентом поля, определяющие загружаемые поля документов
      * @return список продуктов, удовлетворяющих фильтрам
      */
     @QueryMapping
@@ -38,11 +59,64 @@ public class ProductController {
             @Argument Float minPrice,
             @Argument Float maxPrice,
             @Argument Integer page,
-            @Argument Integer size) {
-        int pageNumber = (page != null) ? page : 0;
-        int pageSize = (size != null) ? size : 10;
+            @Argument Integer size,
+            DataFetchingFieldSelectionSet selection) {
+        int pageNumber = PageArguments.page(page);
+        int pageSize = PageArguments.size(size, pagingProperties);
 
-        return productService.getProductsFiltered(category, minPrice, maxPrice, pageNumber, pageSize);
+        return productService.getProductsFiltered(category, minPrice, maxPrice, pageNumber, pageSize,
+                SelectionProjections.productFields(selection, SelectionProjections.LIST_ITEM));
+    }
+
+    /**
+     * Получает страницу продуктов в виде Relay-соединения с фильтрацией по категории и ценовому диапазону.
+     * Курсоры непрозрачны для клиента и кодируют ключи сортировки (цена, идентификатор) последнего элемента.
+     *
+     * @param category  категория продуктов (может быть null)
+     * @param minPrice  минимальная цена продуктов (может быть null)
+     * @param maxPrice  максимальная цена продуктов (может быть null)
+     * @param subrange  аргументы first/after, преобразованные в позицию прокрутки
+     * @param selection выбранные клиентом поля, определяющие загружаемые поля документов
+     * @return окно продуктов, удовлетворяющих фильтрам
+     */
+    @QueryMapping
+    public Mono<Window<Product>> getProductsConnection(
+            @Argument String category,
+            @Argument Float minPrice,
+            @Argument Float maxPrice,
+            ScrollSubrange subrange,
+            DataFetchingFieldSelectionSet selection) {
+        ScrollPosition position = subrange.position().orElse(ScrollPosition.keyset());
+        int pageSize = PageArguments.size(subrange.count(), pagingProperties);
+
+        return productService.getProductsWindow(category, minPrice, maxPrice, position, pageSize,
+                SelectionProjections.productFields(selection, SelectionProjections.CONNECTION_NODE));
+    }
+
+    /**
+     * Выполняет полнотекстовый поиск продуктов по названию и описанию.
+     *
+     * @param query     поисковый запрос
+     * @param filters   фильтры по категориям и ценовому диапазону (может быть null)
+     * @param facets    подсчитываемые фасеты (может быть null)
+     * @param page      номер страницы для пагинации (по умолчанию 0)
+     * @param size      количество элементов на странице (по умолчанию 10, не больше максимального)
+     * @param selection выбранные клиентом поля, определяющие загружаемые поля документов
+     * @return найденные продукты в порядке убывания релевантности и фасеты
+     */
+    @QueryMapping
+    public Mono<ProductSearchResult> searchProducts(
+            @Argument String query,
+            @Argument SearchFilters filters,
+            @Argument List<SearchFacet> facets,
+            @Argument Integer page,
+            @Argument Integer size,
+            DataFetchingFieldSelectionSet selection) {
+        int pageNumber = PageArguments.page(page);
+        int pageSize = PageArguments.size(size, pagingProperties);
+
+        return productService.searchProducts(query, filters, facets != null ? facets : List.of(), pageNumber,
+                pageSize, SelectionProjections.productFields(selection, SelectionProjections.SEARCH_HIT));
     }
 
     /**
@@ -71,18 +145,32 @@ public class ProductController {
             @Argument String description,
             @Argument Double price,
             @Argument String category) {
-        Product product = new Product(null, name, description, price, category, null);
+        Product product = new Product(null, name, description, price, category);
         return productService.addProduct(product);
     }
 
     /**
-     * Обновляет информацию о продукте.
+     * Добавляет несколько продуктов одной пакетной записью.
+     *
+     * @param products входные данные продуктов
+     * @return добавленные продукты и ошибки по остальным
+     */
+    @MutationMapping
+    public Mono<BulkResult<Product>> addProducts(@Argument List<ProductInput> products) {
+        return productService.addProducts(products.stream()
+                .map(input -> new Product(null, input.name(), input.description(), input.price(), input.category()))
+                .toList());
+    }
+
+    /**
+     * Обновляет информацию о продукте. Не переданные поля не меняются.
      *
-     * @param id          уникальный идентификатор продукта
-     * @param name        новое название продукта
-     * @param description новое описание продукта
-     * @param price       новая цена продукта
-     * @param category    новая категория продукта
+     * @param id              уникальный идентификатор продукта
+     * @param name            новое название продукта (может быть null)
+     * @param description     новое описание продукта (может быть null)
+     * @param price           новая цена продукта (может быть null)
+     * @param category        новая категория продукта (может быть null)
+     * @param expectedVersion версия продукта, прочитанная клиентом (может быть null)
      * @return обновленный продукт
      */
     @MutationMapping
@@ -91,9 +179,10 @@ public class ProductController {
             @Argument String name,
             @Argument String description,
             @Argument Double price,
-            @Argument String category) {
-        Product product = new Product(id, name, description, price, category, null);
-        return productService.updateProduct(id, product);
+            @Argument String category,
+            @Argument Long expectedVersion) {
+        Product changes = new Product(id, name, description, price, category);
+        return productService.updateProduct(id, changes, expectedVersion);
     }
 
     /**
@@ -107,6 +196,42 @@ public class ProductController {
         return productService.deleteProduct(id);
     }
 
+    /**
+     * Удаляет несколько продуктов по уникальным идентификаторам одним запросом.
+     *
+     * @param ids уникальные идентификаторы продуктов
+     * @return количество удаленных продуктов
+     */
+    @MutationMapping
+    public Mono<Long> deleteProducts(@Argument List<String> ids) {
+        return productService.deleteProducts(ids);
+    }
+
+    /**
+     * Получает продукты с наибольшей байесовской оценкой рейтинга.
+     *
+     * @param category категория продуктов (может быть null)
+     * @param limit    максимальное количество продуктов (по умолчанию 10, не больше максимального)
+     * @return продукты по убыванию оценки
+     */
+    @QueryMapping
+    public Flux<Product> topProducts(@Argument String category, @Argument Integer limit) {
+        return productService.getTopProducts(category, (limit != null) ? limit : 10);
+    }
+
+    /**
+     * Получает продукты, отзывы к которым появляются быстрее всего.
+     *
+     * @param window окно оценки скорости появления отзывов (по умолчанию сутки)
+     * @param limit  максимальное количество продуктов (по умолчанию 10, не больше максимального)
+     * @return продукты по убыванию скорости появления отзывов
+     */
+    @QueryMapping
+    public Flux<Product> trendingProducts(@Argument TrendingWindow window, @Argument Integer limit) {
+        return productService.getTrendingProducts((window != null) ? window : TrendingWindow.DAY,
+                (limit != null) ? limit : 10);
+    }
+
     /**
      * Получает средний рейтинг продукта.
      *
@@ -118,4 +243,33 @@ public class ProductController {
         return productService.getProductAverageRating(id);
     }
 
+    /**
+     * Получает отзывы продукта из коллекции отзывов.
+     * Отзывы всех продуктов, запрошенных на одном уровне запроса, загружаются одним запросом.
+     *
+     * @param product            продукт, для которого запрошены отзывы
+     * @param reviewsByProductId загрузчик отзывов по идентификатору продукта
+     * @return список отзывов продукта
+     */
+    @SchemaMapping(typeName = "Product", field = "reviews")
+    public CompletableFuture<List<Review>> getReviews(Product product,
+                                                      DataLoader<String, List<Review>> reviewsByProductId) {
+        return reviewsByProductId.load(product.getId());
+    }
+
+    /**
+     * Получает гистограмму оценок продукта, упорядоченную по оценке.
+     *
+     * @param product продукт, для которого запрошена гистограмма
+     * @return столбцы гистограммы с ненулевым количеством отзывов
+     */
+    @SchemaMapping(typeName = "Product", field = "ratingHistogram")
+    public List<RatingBucket> getRatingHistogram(Product product) {
+        return product.getRatingHistogram().entrySet().stream()
+                .filter(bucket -> bucket.getValue() > 0)
+                .map(bucket -> new RatingBucket(Integer.parseInt(bucket.getKey()), bucket.getValue()))
+                .sorted(Comparator.comparingInt(RatingBucket::rating))
+                .toList();
+    }
+
 }
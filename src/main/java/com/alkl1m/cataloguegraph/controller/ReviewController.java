@@ -1,20 +1,33 @@
 package com.alkl1m.cataloguegraph.controller;
 
+import com.alkl1m.cataloguegraph.dto.BulkResult;
+import com.alkl1m.cataloguegraph.dto.ReviewInput;
+import com.alkl1m.cataloguegraph.entity.Product;
 import com.alkl1m.cataloguegraph.entity.Review;
 import com.alkl1m.cataloguegraph.service.ReviewService;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import lombok.RequiredArgsConstructor;
+import org.dataloader.DataLoader;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
+import org.springframework.graphql.data.query.ScrollSubrange;
 import org.springframework.stereotype.Controller;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Контроллер для управления отзывами продуктов.
- * Предоставляет методы для получения, добавления, обновления и удаления отзывов.
+ * Предоставляет методы для получения, добавления, обновления и удаления отзывов,
+ * а также разрешает продукт, к которому относится отзыв.
  *
  * @author AlKl1M
  */
@@ -23,24 +36,49 @@ import java.time.LocalDateTime;
 public class ReviewController {
 
     private final ReviewService reviewService;
+    private final PagingProperties pagingProperties;
 
     /**
      * Получает список отзывов по идентификатору продукта с поддержкой пагинации.
      *
      * @param productId уникальный идентификатор продукта
      * @param page      номер страницы для пагинации (по умолчанию 0)
-     * @param size      количество элементов на странице (по умолчанию 10)
+     * @param size      количество элементов на странице (по умолчанию 10, не больше максимального)
+     * @param selection выбранные клиентом поля, определяющие загружаемые поля документов
      * @return список отзывов для указанного продукта
      */
     @QueryMapping
     public Flux<Review> getReviews(
             @Argument String productId,
             @Argument Integer page,
-            @Argument Integer size) {
-        int pageNumber = (page != null) ? page : 0;
-        int pageSize = (size != null) ? size : 10;
+            @Argument Integer size,
+            DataFetchingFieldSelectionSet selection) {
+        int pageNumber = PageArguments.page(page);
+        int pageSize = PageArguments.size(size, pagingProperties);
 
-        return reviewService.getReviewsByProductId(productId, pageNumber, pageSize);
+        return reviewService.getReviewsByProductId(productId, pageNumber, pageSize,
+                SelectionProjections.reviewFields(selection, SelectionProjections.LIST_ITEM));
+    }
+
+    /**
+     * Получает отзывы продукта в виде Relay-соединения.
+     * Курсоры непрозрачны для клиента и кодируют идентификатор последнего отзыва.
+     *
+     * @param productId уникальный идентификатор продукта
+     * @param subrange  аргументы first/after, преобразованные в позицию прокрутки
+     * @param selection выбранные клиентом поля, определяющие загружаемые поля документов
+     * @return окно отзывов для указанного продукта
+     */
+    @QueryMapping
+    public Mono<Window<Review>> getReviewsConnection(
+            @Argument String productId,
+            ScrollSubrange subrange,
+            DataFetchingFieldSelectionSet selection) {
+        ScrollPosition position = subrange.position().orElse(ScrollPosition.keyset());
+        int pageSize = PageArguments.size(subrange.count(), pagingProperties);
+
+        return reviewService.getReviewsWindow(productId, position, pageSize,
+                SelectionProjections.reviewFields(selection, SelectionProjections.CONNECTION_NODE));
     }
 
     /**
@@ -80,20 +118,37 @@ public class ReviewController {
     }
 
     /**
-     * Обновляет существующий отзыв по его идентификатору.
+     * Добавляет несколько отзывов одной пакетной записью.
      *
-     * @param id      уникальный идентификатор отзыва
-     * @param rating  новый рейтинг отзыва
-     * @param comment новый текст отзыва
+     * @param reviews входные данные отзывов
+     * @return добавленные отзывы и ошибки по остальным
+     */
+    @MutationMapping
+    public Mono<BulkResult<Review>> addReviews(@Argument List<ReviewInput> reviews) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        return reviewService.addReviews(reviews.stream()
+                .map(input -> new Review(null, input.productId(), input.author(), input.rating(), input.comment(),
+                        createdAt))
+                .toList());
+    }
+
+    /**
+     * Обновляет существующий отзыв по его идентификатору. Не переданные поля не меняются.
+     *
+     * @param id              уникальный идентификатор отзыва
+     * @param rating          новый рейтинг отзыва (может быть null)
+     * @param comment         новый текст отзыва (может быть null)
+     * @param expectedVersion версия отзыва, прочитанная клиентом (может быть null)
      * @return обновленный отзыв
      */
     @MutationMapping
     public Mono<Review> updateReview(
             @Argument String id,
             @Argument Integer rating,
-            @Argument String comment
+            @Argument String comment,
+            @Argument Long expectedVersion
     ) {
-        return reviewService.updateReview(id, rating, comment);
+        return reviewService.updateReview(id, rating, comment, expectedVersion);
     }
 
     /**
@@ -107,4 +162,41 @@ public class ReviewController {
         return reviewService.deleteReview(id);
     }
 
+    /**
+     * Подписывает на отзывы, добавляемые к продукту.
+     *
+     * @param productId уникальный идентификатор продукта
+     * @return отзывы, добавляемые после подписки
+     */
+    @SubscriptionMapping
+    public Flux<Review> reviewAdded(@Argument String productId) {
+        return reviewService.watchReviewsAdded(productId);
+    }
+
+    /**
+     * Подписывает на изменения рейтинга продукта.
+     * Медленный подписчик получает только последнее состояние рейтинга.
+     *
+     * @param productId уникальный идентификатор продукта
+     * @return продукт после каждого изменения его рейтинга
+     */
+    @SubscriptionMapping
+    public Flux<Product> ratingChanged(@Argument String productId) {
+        return reviewService.watchRatingChanges(productId);
+    }
+
+    /**
+     * Получает продукт, к которому относится отзыв.
+     * Продукты всех отзывов, запрошенных на одном уровне запроса, загружаются одним запросом,
+     * и каждый продукт загружается не более одного раза за операцию.
+     *
+     * @param review отзыв, для которого запрошен продукт
+     * @param loader загрузчик продуктов по идентификатору
+     * @return продукт отзыва
+     */
+    @SchemaMapping(typeName = "Review", field = "product")
+    public CompletableFuture<Product> getProduct(Review review, DataLoader<String, Product> loader) {
+        return loader.load(review.getProductId());
+    }
+
 }
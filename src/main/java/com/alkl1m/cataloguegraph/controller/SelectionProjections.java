@@ -0,0 +1,75 @@
+package com.alkl1m.cataloguegraph.controller;
+
+import graphql.schema.DataFetchingFieldSelectionSet;
+import graphql.schema.SelectedField;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Преобразование набора выбранных клиентом полей GraphQL в проекцию полей документа MongoDB.
+ * Поля, вычисляемые на сервере, заменяются полями документа, из которых они вычисляются,
+ * а поля, разрешаемые отдельными запросами, в проекцию не попадают.
+ *
+ * @author AlKl1M
+ */
+final class SelectionProjections {
+
+    /**
+     * Шаблон полей элемента списка.
+     */
+    static final String LIST_ITEM = "*";
+
+    /**
+     * Шаблон полей элемента Relay-соединения.
+     */
+    static final String CONNECTION_NODE = "edges/node/*";
+
+    /**
+     * Шаблон полей продукта в результате поиска.
+     */
+    static final String SEARCH_HIT = "products/*";
+
+    private static final Map<String, List<String>> PRODUCT_FIELDS = Map.of(
+            "averageRating", List.of("ratingCount", "ratingSum"),
+            "reviews", List.of());
+
+    private static final Map<String, List<String>> REVIEW_FIELDS = Map.of(
+            "product", List.of("productId"));
+
+    private SelectionProjections() {
+    }
+
+    /**
+     * @param selectionSet выбранные клиентом поля
+     * @param glob         шаблон пути к полям продукта
+     * @return поля документа продукта, необходимые для ответа
+     */
+    static Set<String> productFields(DataFetchingFieldSelectionSet selectionSet, String glob) {
+        return documentFields(selectionSet, glob, PRODUCT_FIELDS);
+    }
+
+    /**
+     * @param selectionSet выбранные клиентом поля
+     * @param glob         шаблон пути к полям отзыва
+     * @return поля документа отзыва, необходимые для ответа
+     */
+    static Set<String> reviewFields(DataFetchingFieldSelectionSet selectionSet, String glob) {
+        return documentFields(selectionSet, glob, REVIEW_FIELDS);
+    }
+
+    private static Set<String> documentFields(DataFetchingFieldSelectionSet selectionSet, String glob,
+                                              Map<String, List<String>> derivedFields) {
+        Set<String> fields = new LinkedHashSet<>();
+        fields.add("id");
+        for (SelectedField field : selectionSet.getFields(glob)) {
+            if (!field.getName().startsWith("__")) {
+                fields.addAll(derivedFields.getOrDefault(field.getName(), List.of(field.getName())));
+            }
+        }
+        return fields;
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.alkl1m.cataloguegraph.dto;
+
+/**
+ * Ошибка обработки одного элемента пакетной операции.
+ *
+ * @param index   позиция элемента во входном списке
+ * @param message описание ошибки
+ * @author AlKl1M
+ */
+public record BulkError(int index, String message) {
+
+    /**
+     * Сдвигает позицию элемента, например, из позиции в пакете в позицию во всем потоке.
+     *
+     * @param offset сдвиг позиции
+     * @return ошибка со сдвинутой позицией
+     */
+    public BulkError withOffset(long offset) {
+        return new BulkError(Math.toIntExact(index + offset), message);
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.alkl1m.cataloguegraph.dto;
+
+import java.util.List;
+
+/**
+ * Результат пакетной операции: успешно обработанные элементы и ошибки по остальным.
+ *
+ * @param items  успешно обработанные элементы в порядке входного списка
+ * @param errors ошибки по элементам, которые не удалось обработать
+ * @param <T>    тип элемента
+ * @author AlKl1M
+ */
+public record BulkResult<T>(List<T> items, List<BulkError> errors) {
+}
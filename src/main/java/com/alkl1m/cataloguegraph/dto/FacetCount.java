@@ -0,0 +1,11 @@
+package com.alkl1m.cataloguegraph.dto;
+
+/**
+ * Количество найденных продуктов с одним значением фасета.
+ *
+ * @param value значение фасета
+ * @param count количество найденных продуктов с этим значением
+ * @author AlKl1M
+ */
+public record FacetCount(String value, long count) {
+}
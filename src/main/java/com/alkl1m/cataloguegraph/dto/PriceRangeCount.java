@@ -0,0 +1,12 @@
+package com.alkl1m.cataloguegraph.dto;
+
+/**
+ * Количество продуктов в ценовом диапазоне {@code [from, to)}.
+ *
+ * @param from  нижняя граница диапазона включительно
+ * @param to    верхняя граница диапазона (null — диапазон не ограничен сверху)
+ * @param count количество продуктов в диапазоне
+ * @author AlKl1M
+ */
+public record PriceRangeCount(double from, Double to, long count) {
+}
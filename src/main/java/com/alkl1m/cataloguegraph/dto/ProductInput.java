@@ -0,0 +1,13 @@
+package com.alkl1m.cataloguegraph.dto;
+
+/**
+ * Входные данные продукта для пакетного добавления.
+ *
+ * @param name        название продукта
+ * @param description описание продукта
+ * @param price       цена продукта
+ * @param category    категория продукта
+ * @author AlKl1M
+ */
+public record ProductInput(String name, String description, Double price, String category) {
+}
@@ -0,0 +1,18 @@
+package com.alkl1m.cataloguegraph.dto;
+
+import com.alkl1m.cataloguegraph.entity.Product;
+
+import java.util.List;
+
+/**
+ * Результат полнотекстового поиска продуктов.
+ *
+ * @param total       общее количество найденных продуктов
+ * @param products    страница найденных продуктов в порядке убывания релевантности
+ * @param categories  количество найденных продуктов по категориям (null, если фасет не запрошен)
+ * @param priceRanges количество найденных продуктов по ценовым диапазонам (null, если фасет не запрошен)
+ * @author AlKl1M
+ */
+public record ProductSearchResult(long total, List<Product> products, List<FacetCount> categories,
+                                  List<PriceRangeCount> priceRanges) {
+}
@@ -0,0 +1,11 @@
+package com.alkl1m.cataloguegraph.dto;
+
+/**
+ * Столбец гистограммы оценок продукта.
+ *
+ * @param rating оценка
+ * @param count  количество отзывов с этой оценкой
+ * @author AlKl1M
+ */
+public record RatingBucket(int rating, long count) {
+}
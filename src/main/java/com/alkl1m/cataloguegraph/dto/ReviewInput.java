@@ -0,0 +1,13 @@
+package com.alkl1m.cataloguegraph.dto;
+
+/**
+ * Входные данные отзыва для пакетного добавления.
+ *
+ * @param productId уникальный идентификатор продукта
+ * @param author    автор отзыва
+ * @param rating    рейтинг продукта
+ * @param comment   текст отзыва
+ * @author AlKl1M
+ */
+public record ReviewInput(String productId, String author, int rating, String comment) {
+}
@@ -0,0 +1,20 @@
+package com.alkl1m.cataloguegraph.dto;
+
+/**
+ * Фасет поиска продуктов, по которому подсчитывается количество найденных продуктов.
+ *
+ * @author AlKl1M
+ */
+public enum SearchFacet {
+
+    /**
+     * Количество найденных продуктов по категориям.
+     */
+    CATEGORY,
+
+    /**
+     * Количество найденных продуктов по ценовым диапазонам.
+     */
+    PRICE
+
+}
@@ -0,0 +1,20 @@
+package com.alkl1m.cataloguegraph.dto;
+
+import java.util.List;
+
+/**
+ * Фильтры полнотекстового поиска продуктов.
+ *
+ * @param categories категории продуктов (может быть null — любые категории)
+ * @param minPrice   минимальная цена продуктов (может быть null)
+ * @param maxPrice   максимальная цена продуктов (может быть null)
+ * @author AlKl1M
+ */
+public record SearchFilters(List<String> categories, Double minPrice, Double maxPrice) {
+
+    /**
+     * Фильтры, не ограничивающие результаты поиска.
+     */
+    public static final SearchFilters NONE = new SearchFilters(null, null, null);
+
+}
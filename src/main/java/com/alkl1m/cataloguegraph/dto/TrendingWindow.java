@@ -0,0 +1,43 @@
+package com.alkl1m.cataloguegraph.dto;
+
+import java.time.Duration;
+
+/**
+ * Окно, за которое оценивается скорость появления отзывов продукта.
+ * Вклад отзыва в скорость экспоненциально убывает с его возрастом; окно — среднее время жизни вклада.
+ *
+ * @author AlKl1M
+ */
+public enum TrendingWindow {
+
+    /**
+     * Отзывы за последний час.
+     */
+    HOUR(Duration.ofHours(1)),
+
+    /**
+     * Отзывы за последние сутки.
+     */
+    DAY(Duration.ofDays(1)),
+
+    /**
+     * Отзывы за последнюю неделю.
+     */
+    WEEK(Duration.ofDays(7));
+
+    private final Duration duration;
+
+    TrendingWindow(Duration duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * Возвращает среднее время жизни вклада отзыва в скорость.
+     *
+     * @return длительность окна
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.alkl1m.cataloguegraph.encoding;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.webflux.GraphQlHttpHandler;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Обработчик GraphQL-запросов по HTTP, кодирующий ответ в формат, выбранный заголовком {@code Accept}:
+ * JSON или, если разрешены, CBOR и Smile. Без подходящего типа в {@code Accept} ответ кодируется в JSON.
+ * Ответ сериализуется потоково прямо в буфер сервера, без промежуточного массива байтов
+ * и его копирования, а длина ответа известна заранее, поэтому сжатие применяется по ее порогу.
+ *
+ * @author AlKl1M
+ */
+public class EncodingGraphQlHttpHandler extends GraphQlHttpHandler {
+
+    /**
+     * Тип содержимого ответа в формате Smile.
+     */
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    private final Map<MediaType, ObjectWriter> writers = new LinkedHashMap<>();
+    private final ObjectWriter jsonWriter;
+    private final int initialBufferSize;
+
+    public EncodingGraphQlHttpHandler(WebGraphQlHandler graphQlHandler, ResponseEncodingProperties properties,
+                                      ObjectMapper jsonMapper, ObjectMapper cborMapper, ObjectMapper smileMapper) {
+        super(graphQlHandler);
+        this.jsonWriter = jsonMapper.writer();
+        this.initialBufferSize = (int) properties.initialBufferSize().toBytes();
+        writers.put(MediaType.APPLICATION_GRAPHQL_RESPONSE, jsonWriter);
+        writers.put(MediaType.APPLICATION_JSON, jsonWriter);
+        if (properties.cbor()) {
+            writers.put(MediaType.APPLICATION_CBOR, cborMapper.writer());
+        }
+        if (properties.smile()) {
+            writers.put(APPLICATION_SMILE, smileMapper.writer());
+        }
+    }
+
+    /**
+     * Проверяет, принимает ли клиент ответ в одном из разрешенных двоичных форматов.
+     * Стандартный маршрут GraphQL отклоняет такие запросы, поэтому для них регистрируется отдельный маршрут.
+     *
+     * @param request HTTP-запрос
+     * @return true, если в {@code Accept} указан разрешенный двоичный формат
+     */
+    public boolean acceptsBinary(ServerRequest request) {
+        MediaType mediaType = selectMediaType(request);
+        return writers.get(mediaType) != jsonWriter;
+    }
+
+    @Override
+    protected Mono<ServerResponse> prepareResponse(ServerRequest request, WebGraphQlResponse response) {
+        MediaType mediaType = selectMediaType(request);
+        DataBuffer body = encode(response.toMap(), writers.getOrDefault(mediaType, jsonWriter),
+                request.exchange().getResponse().bufferFactory());
+        return ServerResponse.ok()
+                .headers(headers -> headers.putAll(response.getResponseHeaders()))
+                .contentType(mediaType)
+                .bodyValue(body);
+    }
+
+    private MediaType selectMediaType(ServerRequest request) {
+        for (MediaType accepted : request.headers().accept()) {
+            for (MediaType supported : writers.keySet()) {
+                if (supported.equalsTypeAndSubtype(accepted)) {
+                    return supported;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    private DataBuffer encode(Map<String, Object> result, ObjectWriter writer, DataBufferFactory bufferFactory) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(initialBufferSize);
+        boolean release = true;
+        try (OutputStream output = buffer.asOutputStream()) {
+            writer.writeValue(output, result);
+            release = false;
+            return buffer;
+        } catch (IOException e) {
+            throw new EncodingException("Failed to encode GraphQL response", e);
+        } finally {
+            if (release) {
+                DataBufferUtils.release(buffer);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.alkl1m.cataloguegraph.encoding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Настройки кодирования ответов на GraphQL-запросы по HTTP.
+ * Двоичные форматы выбираются клиентом заголовком {@code Accept}; без него ответ кодируется в JSON.
+ *
+ * @param cbor              разрешен ли ответ в формате CBOR ({@code application/cbor})
+ * @param smile             разрешен ли ответ в формате Smile ({@code application/x-jackson-smile})
+ * @param initialBufferSize начальный размер буфера, в который записывается ответ
+ * @author AlKl1M
+ */
+@ConfigurationProperties("catalogue.graphql.encoding")
+public record ResponseEncodingProperties(
+        @DefaultValue("true") boolean cbor,
+        @DefaultValue("true") boolean smile,
+        @DefaultValue("8KB") DataSize initialBufferSize) {
+}
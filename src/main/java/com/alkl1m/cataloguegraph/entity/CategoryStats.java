@@ -0,0 +1,56 @@
+package com.alkl1m.cataloguegraph.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Сводка по категории продуктов, материализованная в коллекции {@code category_stats}.
+ * Хранит счетчики и суммы, из которых вычисляются средние значения, поэтому изменения продуктов
+ * и отзывов учитываются атомарными приращениями без пересчета по всей категории.
+ * Столбцы ценовых диапазонов хранятся по номеру диапазона в списке границ
+ * {@code catalogue.search.price-boundaries}. Тот же класс описывает приращение сводки.
+ *
+ * @author AlKl1M
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Document(collection = "category_stats")
+public class CategoryStats {
+
+    @Id
+    private String category;
+    private long productCount;
+    private long pricedCount;
+    private double priceSum;
+    private Double minPrice;
+    private Double maxPrice;
+    private long ratingCount;
+    private long ratingSum;
+    private Map<String, Long> priceBands = new HashMap<>();
+
+    public CategoryStats(String category) {
+        this.category = category;
+    }
+
+    /**
+     * @return средняя цена продуктов категории или null, если ни у одного продукта нет цены
+     */
+    public Double getAveragePrice() {
+        return pricedCount > 0 ? priceSum / pricedCount : null;
+    }
+
+    /**
+     * @return средний рейтинг продуктов категории по всем отзывам или null, если отзывов нет
+     */
+    public Double getAverageRating() {
+        return ratingCount > 0 ? (double) ratingSum / ratingCount : null;
+    }
+
+}
@@ -5,13 +5,25 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Сущность продукта.
+ * Отзывы хранятся только в коллекции {@code reviews} и не встраиваются в документ продукта.
+ * Вместо них продукт хранит агрегаты рейтинга: количество и сумму оценок, а также
+ * гистограмму оценок, которые атомарно изменяются при добавлении, изменении и удалении отзывов.
+ * Составные индексы поддерживают выборку по категории и ценовому диапазону
+ * с сортировкой по цене и идентификатору, а текстовый индекс по названию и описанию —
+ * полнотекстовый поиск, в котором совпадение в названии весит больше совпадения в описании.
+ * Версия увеличивается при каждом изменении описательных полей продукта и позволяет клиенту
+ * обновлять продукт, только если его не изменили после чтения; изменения агрегатов рейтинга версию не меняют.
  *
  * @author AlKl1M
  */
@@ -20,14 +32,41 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "products")
+@CompoundIndexes({
+        @CompoundIndex(name = "category_price_id", def = "{'category': 1, 'price': 1, '_id': 1}"),
+        @CompoundIndex(name = "price_id", def = "{'price': 1, '_id': 1}")
+})
 public class Product {
 
     @Id
     private String id;
+    @TextIndexed(weight = 3)
     private String name;
+    @TextIndexed
     private String description;
     private Double price;
     private String category;
-    private List<Review> reviews = new ArrayList<>();
+    private long ratingCount;
+    private long ratingSum;
+    private Map<String, Long> ratingHistogram = new HashMap<>();
+    @Version
+    private Long version;
+
+    public Product(String id, String name, String description, Double price, String category) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.category = category;
+    }
+
+    /**
+     * Вычисляет средний рейтинг продукта по агрегатам без обращения к отзывам.
+     *
+     * @return средний рейтинг или null, если у продукта нет отзывов
+     */
+    public Double getAverageRating() {
+        return ratingCount > 0 ? (double) ratingSum / ratingCount : null;
+    }
 
 }
@@ -5,12 +5,16 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 /**
  * Сущность отзыва.
+ * Составной индекс поддерживает выборку отзывов продукта в порядке идентификаторов.
+ * Версия увеличивается при каждом изменении отзыва.
  *
  * @author AlKl1M
  */
@@ -19,6 +23,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection = "reviews")
+@CompoundIndex(name = "productId_id", def = "{'productId': 1, '_id': 1}")
 public class Review {
 
     @Id
@@ -28,5 +33,16 @@ public class Review {
     private int rating;
     private String comment;
     private LocalDateTime createdAt;
+    @Version
+    private Long version;
+
+    public Review(String id, String productId, String author, int rating, String comment, LocalDateTime createdAt) {
+        this.id = id;
+        this.productId = productId;
+        this.author = author;
+        this.rating = rating;
+        this.comment = comment;
+        this.createdAt = createdAt;
+    }
 
 }
@@ -0,0 +1,9 @@
+package com.alkl1m.cataloguegraph.exception;
+
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.alkl1m.cataloguegraph.exception;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import graphql.ErrorClassification;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.schema.DataFetchingEnvironment;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Преобразует истечение крайнего срока запроса и превышение {@code maxTimeMS} на сервере MongoDB
+ * в ошибку GraphQL с классификацией {@code DeadlineExceeded}. Остальные поля ответа при этом
+ * возвращаются, если успели вычислиться.
+ *
+ * @author AlKl1M
+ */
+@Component
+public class DeadlineExceededExceptionResolver extends DataFetcherExceptionResolverAdapter {
+
+    private static final ErrorClassification DEADLINE_EXCEEDED = ErrorClassification.errorClassification("DeadlineExceeded");
+
+    @Override
+    protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment env) {
+        if (ex instanceof DeadlineExceededException || ex instanceof QueryTimeoutException
+                || ex instanceof MongoExecutionTimeoutException) {
+            return GraphqlErrorBuilder.newError(env)
+                    .message(ex instanceof DeadlineExceededException ? ex.getMessage() : "Query time limit exceeded")
+                    .errorType(DEADLINE_EXCEEDED)
+                    .build();
+        }
+        return null;
+    }
+
+}
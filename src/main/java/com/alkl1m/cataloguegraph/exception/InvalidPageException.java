@@ -0,0 +1,9 @@
+package com.alkl1m.cataloguegraph.exception;
+
+public class InvalidPageException extends RuntimeException {
+
+    public InvalidPageException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.alkl1m.cataloguegraph.exception;
+
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.schema.DataFetchingEnvironment;
+import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Преобразует недопустимые аргументы пагинации в ошибку GraphQL с классификацией {@code BAD_REQUEST}.
+ *
+ * @author AlKl1M
+ */
+@Component
+public class InvalidPageExceptionResolver extends DataFetcherExceptionResolverAdapter {
+
+    @Override
+    protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment env) {
+        if (ex instanceof InvalidPageException) {
+            return GraphqlErrorBuilder.newError(env)
+                    .message(ex.getMessage())
+                    .errorType(ErrorType.BAD_REQUEST)
+                    .build();
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.alkl1m.cataloguegraph.exception;
+
+public class ReviewBufferFullException extends RuntimeException {
+
+    public ReviewBufferFullException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.alkl1m.cataloguegraph.exception;
+
+import graphql.ErrorClassification;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.schema.DataFetchingEnvironment;
+import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Преобразует переполнение буфера отложенной записи отзывов в ошибку GraphQL
+ * с классификацией {@code Overloaded}, чтобы клиент повторил добавление отзыва позже.
+ *
+ * @author AlKl1M
+ */
+@Component
+public class ReviewBufferFullExceptionResolver extends DataFetcherExceptionResolverAdapter {
+
+    private static final ErrorClassification OVERLOADED = ErrorClassification.errorClassification("Overloaded");
+
+    @Override
+    protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment env) {
+        if (ex instanceof ReviewBufferFullException) {
+            return GraphqlErrorBuilder.newError(env)
+                    .message(ex.getMessage())
+                    .errorType(OVERLOADED)
+                    .build();
+        }
+        return null;
+    }
+
+}
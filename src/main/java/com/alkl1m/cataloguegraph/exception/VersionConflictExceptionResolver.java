@@ -0,0 +1,33 @@
+package com.alkl1m.cataloguegraph.exception;
+
+import graphql.ErrorClassification;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.schema.DataFetchingEnvironment;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Преобразует конфликт версий при обновлении продукта или отзыва в ошибку GraphQL
+ * с классификацией {@code VersionConflict}, чтобы клиент мог перечитать сущность и повторить изменение.
+ *
+ * @author AlKl1M
+ */
+@Component
+public class VersionConflictExceptionResolver extends DataFetcherExceptionResolverAdapter {
+
+    private static final ErrorClassification VERSION_CONFLICT = ErrorClassification.errorClassification("VersionConflict");
+
+    @Override
+    protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment env) {
+        if (ex instanceof OptimisticLockingFailureException) {
+            return GraphqlErrorBuilder.newError(env)
+                    .message(ex.getMessage())
+                    .errorType(VERSION_CONFLICT)
+                    .build();
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.alkl1m.cataloguegraph.execution;
+
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Ограничивает корневые поля запросов крайним сроком {@link RequestDeadline}.
+ * Поле, не вычисленное к крайнему сроку, завершается ошибкой {@code DeadlineExceeded}, а поле
+ * запроса, отмененного клиентом, — пустым результатом; в обоих случаях подписка на результат
+ * сервиса отменяется, и драйвер MongoDB сразу закрывает курсор на сервере. Поля изменений не
+ * ограничиваются: прерванное изменение могло бы оставить агрегаты рейтинга и сводки несогласованными.
+ * Инструментирование выполняется раньше остальных, поэтому ограничивает сам результат сервиса.
+ *
+ * @author AlKl1M
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DeadlineInstrumentation extends SimplePerformantInstrumentation {
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher,
+                                                InstrumentationFieldFetchParameters parameters,
+                                                InstrumentationState state) {
+        DataFetchingEnvironment environment = parameters.getEnvironment();
+        RequestDeadline deadline = environment.getGraphQlContext().get(RequestDeadline.CONTEXT_KEY);
+        if (deadline == null || parameters.isTrivialDataFetcher()
+                || environment.getParentType() != environment.getGraphQLSchema().getQueryType()) {
+            return dataFetcher;
+        }
+        return env -> {
+            if (deadline.isExpired()) {
+                throw deadline.exceeded();
+            }
+            Object value = dataFetcher.get(env);
+            if (!(value instanceof CompletionStage<?> stage)) {
+                return value;
+            }
+            return Mono.fromFuture(stage.toCompletableFuture(), false)
+                    .timeout(deadline.remaining(), Mono.error(deadline::exceeded))
+                    .takeUntilOther(deadline.cancelled())
+                    .toFuture();
+        };
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.alkl1m.cataloguegraph.execution;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.WebSocketGraphQlRequest;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * Назначает GraphQL-запросу по HTTP крайний срок и отмечает запрос отмененным, когда клиент
+ * отключается, не дождавшись ответа. Крайний срок сохраняется в контексте выполнения GraphQL
+ * и в контексте Reactor. Запросы по WebSocket выполняются без крайнего срока: в них приходят
+ * длительные подписки.
+ *
+ * @author AlKl1M
+ */
+@Component
+@RequiredArgsConstructor
+public class DeadlineInterceptor implements WebGraphQlInterceptor {
+
+    private final DeadlineProperties properties;
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        if (request instanceof WebSocketGraphQlRequest) {
+            return chain.next(request);
+        }
+        RequestDeadline deadline = RequestDeadline.after(timeout(request));
+        request.configureExecutionInput((executionInput, builder) ->
+                builder.graphQLContext(Map.of(RequestDeadline.CONTEXT_KEY, deadline)).build());
+        return chain.next(request)
+                .doOnCancel(deadline::cancel)
+                .contextWrite(Context.of(RequestDeadline.CONTEXT_KEY, deadline));
+    }
+
+    private Duration timeout(WebGraphQlRequest request) {
+        String header = request.getHeaders().getFirst(properties.header());
+        Duration timeout = properties.defaultTimeout();
+        if (header != null && !header.isBlank()) {
+            try {
+                timeout = DurationStyle.detectAndParse(header.trim(), ChronoUnit.MILLIS);
+            } catch (IllegalArgumentException e) {
+                timeout = properties.defaultTimeout();
+            }
+        }
+        if (timeout.isNegative()) {
+            return Duration.ZERO;
+        }
+        return timeout.compareTo(properties.maxTimeout()) > 0 ? properties.maxTimeout() : timeout;
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.alkl1m.cataloguegraph.execution;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки крайних сроков GraphQL-запросов.
+ * Клиент задает время на выполнение запроса заголовком в миллисекундах или в формате длительности
+ * Spring ({@code 500ms}, {@code 2s}); без заголовка или при неверном значении действует время по умолчанию.
+ *
+ * @param header         заголовок с временем на выполнение запроса
+ * @param defaultTimeout время на выполнение запроса без заголовка
+ * @param maxTimeout     наибольшее время на выполнение запроса, которое может задать клиент
+ * @author AlKl1M
+ */
+@ConfigurationProperties("catalogue.graphql.deadline")
+public record DeadlineProperties(
+        @DefaultValue("X-Request-Timeout") String header,
+        @DefaultValue("10s") Duration defaultTimeout,
+        @DefaultValue("30s") Duration maxTimeout) {
+}
@@ -0,0 +1,98 @@
+package com.alkl1m.cataloguegraph.execution;
+
+import com.alkl1m.cataloguegraph.exception.DeadlineExceededException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Крайний срок выполнения GraphQL-запроса и признак его отмены клиентом.
+ * Хранится под ключом {@link #CONTEXT_KEY} в контексте выполнения GraphQL, откуда его читает
+ * {@link DeadlineInstrumentation}, и в контексте Reactor, откуда его читают репозитории,
+ * чтобы ограничить {@code maxTimeMS} запросов MongoDB оставшимся временем.
+ *
+ * @author AlKl1M
+ */
+public final class RequestDeadline {
+
+    /**
+     * Ключ крайнего срока в контексте выполнения GraphQL и в контексте Reactor.
+     */
+    public static final String CONTEXT_KEY = RequestDeadline.class.getName();
+
+    private final Duration timeout;
+    private final long expiresAt;
+    private final Sinks.One<Boolean> cancelled = Sinks.one();
+
+    private RequestDeadline(Duration timeout) {
+        this.timeout = timeout;
+        this.expiresAt = System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * Создает крайний срок, наступающий через указанное время.
+     *
+     * @param timeout время до крайнего срока
+     * @return крайний срок
+     */
+    public static RequestDeadline after(Duration timeout) {
+        return new RequestDeadline(timeout);
+    }
+
+    /**
+     * Находит крайний срок запроса в контексте Reactor.
+     *
+     * @param context контекст Reactor
+     * @return крайний срок или пустой результат, если запрос выполняется без него
+     */
+    public static Optional<RequestDeadline> from(ContextView context) {
+        return context.getOrEmpty(CONTEXT_KEY);
+    }
+
+    /**
+     * Возвращает время, оставшееся до крайнего срока.
+     *
+     * @return оставшееся время; ноль, если крайний срок наступил
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAt - System.nanoTime()));
+    }
+
+    /**
+     * Проверяет, наступил ли крайний срок.
+     *
+     * @return true, если крайний срок наступил
+     */
+    public boolean isExpired() {
+        return expiresAt - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Строит исключение об истечении крайнего срока.
+     *
+     * @return исключение об истечении крайнего срока
+     */
+    public DeadlineExceededException exceeded() {
+        return new DeadlineExceededException("Request deadline of " + timeout.toMillis() + " ms exceeded");
+    }
+
+    /**
+     * Отмечает запрос отмененным клиентом.
+     */
+    public void cancel() {
+        cancelled.tryEmitValue(Boolean.TRUE);
+    }
+
+    /**
+     * Возвращает сигнал отмены запроса клиентом.
+     *
+     * @return результат, завершающийся значением при отмене запроса
+     */
+    public Mono<Boolean> cancelled() {
+        return cancelled.asMono();
+    }
+
+}
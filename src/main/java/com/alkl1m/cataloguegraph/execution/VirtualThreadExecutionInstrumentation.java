@@ -0,0 +1,102 @@
+package com.alkl1m.cataloguegraph.execution;
+
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLSchema;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Блокирующий режим выполнения GraphQL-запросов на виртуальных потоках, включаемый свойством
+ * {@code catalogue.execution.mode=blocking}. Корневые поля запросов и изменений вызываются
+ * каждое в своем виртуальном потоке {@value #THREAD_PREFIX}N, который дожидается результата сервиса,
+ * а не передает его дальше по цепочке колбэков. Поэтому вызов поля от контроллера до репозитория
+ * виден в профилировщике и стеке вызовов одним потоком, а с репозиториями в памяти выполняется в нем целиком.
+ * В этом режиме репозитории {@link com.alkl1m.cataloguegraph.config.BlockingRepositoryConfig} обращаются
+ * к MongoDB синхронным драйвером прямо в виртуальном потоке поля, так что поле от контроллера до ответа
+ * MongoDB выполняется в одном потоке.
+ * Если результат поля отменен, поток прерывается и отменяет ожидаемый результат сервиса; уже отправленная
+ * синхронная операция при этом дожидается ответа сервера, время которого ограничено {@code maxTimeMS}.
+ * Вложенные поля не переносятся: загрузчики DataLoader должны вызываться до пакетной выборки своего уровня.
+ *
+ * @author AlKl1M
+ */
+@Component
+@ConditionalOnProperty(value = "catalogue.execution.mode", havingValue = "blocking")
+public class VirtualThreadExecutionInstrumentation extends SimplePerformantInstrumentation {
+
+    /**
+     * Префикс имен виртуальных потоков, выполняющих корневые поля.
+     */
+    public static final String THREAD_PREFIX = "graphql-vt-";
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name(THREAD_PREFIX, 0).factory());
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher,
+                                                InstrumentationFieldFetchParameters parameters,
+                                                InstrumentationState state) {
+        DataFetchingEnvironment environment = parameters.getEnvironment();
+        GraphQLSchema schema = environment.getGraphQLSchema();
+        if (parameters.isTrivialDataFetcher()
+                || environment.getParentType() != schema.getQueryType()
+                && environment.getParentType() != schema.getMutationType()) {
+            return dataFetcher;
+        }
+        return env -> {
+            CompletableFuture<Object> result = new CompletableFuture<>();
+            Future<?> task = executor.submit(() -> fetch(dataFetcher, env, result));
+            result.whenComplete((value, error) -> {
+                if (result.isCancelled()) {
+                    task.cancel(true);
+                }
+            });
+            return result;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.close();
+    }
+
+    private void fetch(DataFetcher<?> dataFetcher, DataFetchingEnvironment environment,
+                       CompletableFuture<Object> result) {
+        try {
+            Object value = dataFetcher.get(environment);
+            result.complete(value instanceof CompletionStage<?> stage ? await(stage.toCompletableFuture()) : value);
+        } catch (ExecutionException e) {
+            result.completeExceptionally(e.getCause());
+        } catch (InterruptedException e) {
+            result.cancel(false);
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Дожидается результата сервиса; при прерывании потока отменяет его, что отменяет подписку на результат.
+     */
+    private static Object await(CompletableFuture<?> future) throws ExecutionException, InterruptedException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+}
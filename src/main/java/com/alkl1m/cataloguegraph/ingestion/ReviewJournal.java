@@ -0,0 +1,181 @@
+package com.alkl1m.cataloguegraph.ingestion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Локальный журнал отзывов, принятых в режиме отложенной записи.
+ * Журнал состоит из сегментов — файлов с одной записью в строке. Записи добавляются в текущий сегмент;
+ * при сбросе буфера текущий сегмент закрывается, а закрытые сегменты удаляются после записи их отзывов в MongoDB.
+ * Сброс на диск групповой: вызов {@link #force(long)} подтверждает все записи, добавленные до его начала,
+ * поэтому одновременные добавления разделяют один {@code fsync}.
+ * Методы {@link #append(byte[])}, {@link #rotate()} и {@link #restore(List)} вызываются под внешней блокировкой.
+ *
+ * @author AlKl1M
+ */
+final class ReviewJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "reviews-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final List<Path> sealed = new ArrayList<>();
+    private final Object forceLock = new Object();
+
+    private long segmentNumber;
+    private Path segment;
+    private FileChannel channel;
+    private volatile long written;
+    private long forced;
+
+    /**
+     * Открывает журнал в указанном каталоге. Сегменты, оставшиеся от предыдущего запуска,
+     * считаются закрытыми, пустые сегменты удаляются.
+     *
+     * @param directory каталог журнала
+     * @throws IOException если каталог или новый сегмент не удалось создать
+     */
+    ReviewJournal(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = files.filter(ReviewJournal::isSegment)
+                    .sorted(Comparator.comparingLong(ReviewJournal::number))
+                    .toList();
+            for (Path file : segments) {
+                if (Files.size(file) == 0) {
+                    Files.delete(file);
+                } else {
+                    sealed.add(file);
+                }
+            }
+        }
+        segmentNumber = sealed.isEmpty() ? 0 : number(sealed.getLast());
+        open();
+    }
+
+    /**
+     * Читает записи закрытых сегментов, оставшихся от предыдущего запуска.
+     *
+     * @return записи в порядке добавления
+     * @throws IOException если сегмент не удалось прочитать
+     */
+    List<String> recover() throws IOException {
+        List<String> records = new ArrayList<>();
+        for (Path file : sealed) {
+            try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+                lines.filter(line -> !line.isBlank()).forEach(records::add);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Добавляет запись в текущий сегмент без сброса на диск.
+     *
+     * @param record запись, оканчивающаяся переводом строки
+     * @return порядковый номер записи для {@link #force(long)}
+     * @throws IOException если запись не удалась
+     */
+    long append(byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return ++written;
+    }
+
+    /**
+     * Дожидается сброса на диск записи с указанным порядковым номером.
+     * Если запись уже сброшена чужим вызовом, возвращается без обращения к диску.
+     *
+     * @param sequence порядковый номер записи
+     * @throws IOException если сброс не удался
+     */
+    void force(long sequence) throws IOException {
+        synchronized (forceLock) {
+            if (forced >= sequence) {
+                return;
+            }
+            long target = written;
+            channel.force(false);
+            forced = target;
+        }
+    }
+
+    /**
+     * Закрывает текущий сегмент и начинает новый.
+     *
+     * @return закрытые сегменты, записи которых еще не записаны в MongoDB
+     * @throws IOException если сегмент не удалось сбросить на диск или создать новый
+     */
+    List<Path> rotate() throws IOException {
+        synchronized (forceLock) {
+            channel.force(false);
+            forced = written;
+            channel.close();
+            sealed.add(segment);
+            open();
+        }
+        List<Path> segments = List.copyOf(sealed);
+        sealed.clear();
+        return segments;
+    }
+
+    /**
+     * Возвращает сегменты, записи которых не удалось записать в MongoDB, чтобы удалить их после следующего сброса.
+     *
+     * @param segments сегменты, полученные из {@link #rotate()}
+     */
+    void restore(List<Path> segments) {
+        sealed.addAll(0, segments);
+    }
+
+    /**
+     * Удаляет сегменты, записи которых записаны в MongoDB.
+     *
+     * @param segments сегменты, полученные из {@link #rotate()}
+     * @throws IOException если сегмент не удалось удалить
+     */
+    void delete(List<Path> segments) throws IOException {
+        for (Path file : segments) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (forceLock) {
+            channel.force(false);
+            channel.close();
+            if (Files.size(segment) == 0) {
+                Files.delete(segment);
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        segment = directory.resolve(SEGMENT_PREFIX + String.format("%019d", ++segmentNumber) + SEGMENT_SUFFIX);
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long number(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+}
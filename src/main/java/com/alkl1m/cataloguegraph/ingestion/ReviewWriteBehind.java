@@ -0,0 +1,234 @@
+package com.alkl1m.cataloguegraph.ingestion;
+
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.exception.ReviewBufferFullException;
+import com.alkl1m.cataloguegraph.service.ReviewService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Отложенная запись добавляемых отзывов.
+ * Отзыв подтверждается клиенту после сброса на диск записи в локальном журнале, а в MongoDB отзывы
+ * записываются периодически пакетной вставкой с одним обновлением агрегатов рейтинга на продукт пакета.
+ * До записи отзыв не виден в запросах, а подписчики уведомляются о нем после записи.
+ * Количество ожидающих записи отзывов ограничено: при переполнении буфера добавление отклоняется
+ * с ошибкой {@link ReviewBufferFullException}. Вставка отзывов и обновление агрегатов рейтинга выполняются
+ * отдельно: если после вставки пакета не удалось обновить агрегаты, при следующей попытке агрегаты
+ * обновляются только для вставленных отзывов, а сами отзывы повторно не вставляются. Невставленные отзывы
+ * возвращаются в буфер, а сегменты журнала сохраняются, пока все их отзывы не будут вставлены и учтены
+ * в агрегатах. При старте отзывы из журнала, оставшиеся от предыдущего запуска, записываются повторно;
+ * уже записанные отзывы отклоняются по идентификатору, назначенному при приеме. Если процесс остановился
+ * между вставкой и обновлением агрегатов, такие отзывы исправляются задачей пересчета агрегатов рейтинга.
+ *
+ * @author AlKl1M
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "catalogue.reviews.write-behind.enabled", havingValue = "true")
+public class ReviewWriteBehind {
+
+    private static final Duration SHUTDOWN_FLUSH_TIMEOUT = Duration.ofSeconds(30);
+
+    private final WriteBehindProperties properties;
+    private final ReviewService reviewService;
+    private final ObjectMapper objectMapper;
+    private final ReviewJournal journal;
+    private final Deque<Review> buffer = new ArrayDeque<>();
+    private final List<Review> unrated = new ArrayList<>();
+    private final Sinks.Many<Long> flushRequests = Sinks.many().multicast().directBestEffort();
+
+    private Disposable flushing;
+
+    public ReviewWriteBehind(WriteBehindProperties properties, ReviewService reviewService, ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) throws IOException {
+        this.properties = properties;
+        this.reviewService = reviewService;
+        this.objectMapper = objectMapper;
+        this.journal = new ReviewJournal(properties.journalDirectory());
+        for (String record : journal.recover()) {
+            try {
+                buffer.add(objectMapper.readValue(record, Review.class));
+            } catch (JsonProcessingException e) {
+                log.warn("Skipping unreadable review journal record: {}", e.getOriginalMessage());
+            }
+        }
+        if (!buffer.isEmpty()) {
+            log.info("Recovered {} reviews from the journal", buffer.size());
+        }
+        Gauge.builder("catalogue.reviews.write-behind.buffered", buffer, Deque::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Принимает отзыв к записи: назначает ему идентификатор и дожидается сброса записи журнала на диск.
+     *
+     * @param review отзыв для добавления
+     * @return принятый отзыв
+     * @throws ReviewBufferFullException если буфер ожидающих записи отзывов заполнен
+     */
+    public Mono<Review> submit(Review review) {
+        return Mono.fromCallable(() -> append(review))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Начинает периодическую запись накопленных отзывов после запуска приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        flushing = Flux.merge(Flux.interval(properties.flushInterval()), flushRequests.asFlux())
+                .onBackpressureDrop()
+                .concatMap(tick -> flush(), 1)
+                .subscribe();
+    }
+
+    /**
+     * Записывает накопленные отзывы при остановке приложения. Отзывы, которые не удалось записать,
+     * остаются в журнале до следующего запуска.
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        if (flushing != null) {
+            flushing.dispose();
+        }
+        try {
+            flush().block(SHUTDOWN_FLUSH_TIMEOUT);
+        } catch (RuntimeException e) {
+            log.warn("Failed to write buffered reviews on shutdown, they remain in the journal", e);
+        }
+        journal.close();
+    }
+
+    /**
+     * Записывает накопленные отзывы в MongoDB и удаляет сегменты журнала, все отзывы которых записаны
+     * и учтены в агрегатах рейтинга.
+     *
+     * @return завершение записи; ошибки записи не передаются, а отзывы остаются в буфере
+     */
+    public Mono<Void> flush() {
+        return Mono.fromCallable(this::drain)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(drained -> write(drained)
+                        .then(Mono.fromCallable(() -> {
+                            journal.delete(drained.segments());
+                            return drained;
+                        }).subscribeOn(Schedulers.boundedElastic()))
+                        .onErrorResume(e -> {
+                            log.warn("Failed to write {} buffered reviews and to rate {} written ones, "
+                                    + "retrying on next flush", drained.reviews().size(), drained.unrated().size(), e);
+                            restore(drained);
+                            return Mono.empty();
+                        }))
+                .onErrorResume(e -> {
+                    log.error("Failed to rotate the review journal", e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Review append(Review review) throws IOException {
+        if (review.getId() == null) {
+            review.setId(new ObjectId().toHexString());
+        }
+        byte[] record = (objectMapper.writeValueAsString(review) + "\n").getBytes(StandardCharsets.UTF_8);
+        long sequence;
+        synchronized (buffer) {
+            if (buffer.size() >= properties.capacity()) {
+                flushRequests.tryEmitNext(0L);
+                throw new ReviewBufferFullException("Review buffer is full, retry later");
+            }
+            sequence = journal.append(record);
+            buffer.add(review);
+            if (buffer.size() % properties.batchSize() == 0) {
+                flushRequests.tryEmitNext(0L);
+            }
+        }
+        journal.force(sequence);
+        return review;
+    }
+
+    private Drained drain() throws IOException {
+        synchronized (buffer) {
+            if (buffer.isEmpty() && unrated.isEmpty()) {
+                return null;
+            }
+            List<Path> segments = journal.rotate();
+            Drained drained = new Drained(new ArrayDeque<>(buffer), new ArrayList<>(unrated), segments);
+            buffer.clear();
+            unrated.clear();
+            return drained;
+        }
+    }
+
+    private void restore(Drained drained) {
+        synchronized (buffer) {
+            drained.reviews().reversed().forEach(buffer::addFirst);
+            unrated.addAll(0, drained.unrated());
+            journal.restore(drained.segments());
+        }
+    }
+
+    /**
+     * Сначала учитывает в агрегатах рейтинга отзывы, вставленные при предыдущих попытках, затем вставляет
+     * отзывы пакетами и учитывает каждый вставленный пакет. Прогресс отражается в {@code drained}:
+     * из него удаляются вставленные отзывы и отзывы, учтенные в агрегатах рейтинга.
+     */
+    private Mono<Void> write(Drained drained) {
+        return applyRatings(drained, List.copyOf(drained.unrated()))
+                .thenMany(Flux.defer(() -> Flux.fromIterable(List.copyOf(drained.reviews()))))
+                .buffer(properties.batchSize())
+                .concatMap(batch -> reviewService.insertReviews(batch)
+                        .flatMap(result -> {
+                            batch.forEach(review -> drained.reviews().removeFirst());
+                            drained.unrated().addAll(result.items());
+                            if (!result.errors().isEmpty()) {
+                                log.warn("{} buffered reviews were rejected, first error: {}",
+                                        result.errors().size(), result.errors().getFirst().message());
+                            }
+                            return applyRatings(drained, result.items());
+                        }), 1)
+                .then();
+    }
+
+    private Mono<Void> applyRatings(Drained drained, List<Review> inserted) {
+        if (inserted.isEmpty()) {
+            return Mono.empty();
+        }
+        return reviewService.applyRatings(inserted)
+                .doOnSuccess(ignored -> drained.unrated().subList(0, inserted.size()).clear());
+    }
+
+    /**
+     * Отзывы, изъятые из буфера для записи.
+     *
+     * @param reviews  отзывы, которые еще не вставлены
+     * @param unrated  вставленные отзывы, еще не учтенные в агрегатах рейтинга
+     * @param segments сегменты журнала с этими отзывами
+     */
+    private record Drained(Deque<Review> reviews, List<Review> unrated, List<Path> segments) {
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.alkl1m.cataloguegraph.ingestion;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Настройки режима отложенной записи отзывов.
+ * Принятые отзывы копятся в памяти не дольше {@code flushInterval} и записываются в MongoDB
+ * пакетами по {@code batchSize}; при {@code capacity} ожидающих записи отзывов новые отклоняются.
+ *
+ * @param enabled          включен ли режим отложенной записи
+ * @param journalDirectory каталог локального журнала принятых отзывов
+ * @param capacity         максимальное количество отзывов, ожидающих записи
+ * @param batchSize        количество отзывов в одной пакетной записи
+ * @param flushInterval    период записи накопленных отзывов
+ * @author AlKl1M
+ */
+@ConfigurationProperties("catalogue.reviews.write-behind")
+public record WriteBehindProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/review-journal") Path journalDirectory,
+        @DefaultValue("10000") int capacity,
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("1s") Duration flushInterval) {
+}
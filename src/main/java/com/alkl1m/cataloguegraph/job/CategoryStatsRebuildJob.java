@@ -0,0 +1,34 @@
+package com.alkl1m.cataloguegraph.job;
+
+import com.alkl1m.cataloguegraph.service.CategoryStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Задача полного пересчета сводок по категориям.
+ * Исправляет расхождения приращений, накопившиеся, например, после частично выполненных операций
+ * с продуктами. Изменения продуктов во время пересчета могут быть учтены неточно,
+ * поэтому задача по умолчанию запускается ночью, после пересчета агрегатов рейтинга.
+ *
+ * @author AlKl1M
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryStatsRebuildJob {
+
+    private final CategoryStatsService categoryStatsService;
+
+    /**
+     * Запускает пересчет по расписанию.
+     */
+    @Scheduled(cron = "${catalogue.category-stats.rebuild.cron:0 30 3 * * *}")
+    public void rebuildOnSchedule() {
+        categoryStatsService.rebuild().subscribe(
+                categories -> log.info("Category stats rebuilt for {} categories", categories),
+                e -> log.error("Category stats rebuild failed", e));
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.alkl1m.cataloguegraph.job;
+
+import com.alkl1m.cataloguegraph.ranking.ProductRanking;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Задача перестроения рейтингов лучших и набирающих популярность продуктов.
+ * Рейтинги строятся после запуска приложения и перестраиваются по расписанию, чтобы обновить
+ * средний рейтинг каталога и исправить расхождения приращений.
+ *
+ * @author AlKl1M
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductRankingRebuildJob {
+
+    private final ProductRanking productRanking;
+
+    /**
+     * Запускает перестроение после запуска приложения и по расписанию.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${catalogue.ranking.rebuild.cron:0 0 * * * *}")
+    public void rebuild() {
+        productRanking.rebuild().subscribe(
+                products -> log.info("Product rankings rebuilt for {} rated products", products),
+                e -> log.error("Product rankings rebuild failed", e));
+    }
+
+}
@@ -0,0 +1,203 @@
+package com.alkl1m.cataloguegraph.job;
+
+import com.alkl1m.cataloguegraph.cache.ProductCacheEvictor;
+import com.alkl1m.cataloguegraph.cache.ResponseCache;
+import com.alkl1m.cataloguegraph.config.InMemoryRepositoryConfig;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.ranking.ProductRanking;
+import com.alkl1m.cataloguegraph.repository.MongoOperationClass;
+import com.alkl1m.cataloguegraph.repository.MongoOperationRouting;
+import com.alkl1m.cataloguegraph.repository.VersionedUpdates;
+import com.alkl1m.cataloguegraph.service.CategoryStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Задача пересчета агрегатов рейтинга продуктов по коллекции отзывов.
+ * Исправляет расхождения, накопившиеся, например, после частично выполненных операций с отзывами.
+ * Количество оценок каждого продукта считается одной агрегацией по коллекции отзывов, к результатам которой
+ * через {@code $unionWith} присоединяются агрегаты продуктов, поэтому пересчет выполняется за один проход
+ * без запроса на каждый продукт. Агрегация выполняется аналитическим клиентом и может использовать диск.
+ * Исправление применяется, только если агрегаты продукта не изменились после чтения: иначе оно затерло бы
+ * оценки, учтенные во время пересчета, и такой продукт пропускается до следующего запуска.
+ * Оценка, учтенная в агрегатах до чтения, но еще не сохраненная в отзыве, может быть исключена,
+ * поэтому задача по умолчанию запускается ночью. Версия исправленных продуктов не меняется,
+ * поэтому пересчет не вызывает конфликтов версий у клиентов. Исправленные продукты вытесняются из кэшей
+ * и учитываются в рейтингах продуктов и сводках категорий.
+ *
+ * @author AlKl1M
+ */
+@Slf4j
+@Component
+@Profile("!" + InMemoryRepositoryConfig.PROFILE)
+@RequiredArgsConstructor
+public class RatingAggregatesRepairJob {
+
+    /**
+     * Количество отзывов по оценкам: {@code {_id: {productId, rating}, count}}.
+     */
+    private static final AggregationOperation COUNT_BY_RATING = context -> new Document("$group",
+            new Document("_id", new Document("productId", "$productId").append("rating", "$rating"))
+                    .append("count", new Document("$sum", 1)));
+
+    /**
+     * Количество отзывов по оценкам, собранное по продуктам: {@code {_id: productId, buckets: [{rating, count}]}}.
+     */
+    private static final AggregationOperation BUCKETS_BY_PRODUCT = context -> new Document("$group",
+            new Document("_id", "$_id.productId")
+                    .append("buckets", new Document("$push",
+                            new Document("rating", "$_id.rating").append("count", "$count"))));
+
+    /**
+     * Агрегаты продуктов с идентификатором в том же строковом виде, что и в отзывах.
+     */
+    private static final AggregationOperation WITH_PRODUCTS = context -> new Document("$unionWith",
+            new Document("coll", "products")
+                    .append("pipeline", List.of(new Document("$project", new Document("_id",
+                            new Document("$toString", "$_id"))
+                            .append("ratingCount", 1)
+                            .append("ratingSum", 1)
+                            .append("ratingHistogram", 1)
+                            .append("stored", new Document("$literal", true))))));
+
+    /**
+     * Объединение оценок и агрегатов продукта: {@code $max} пропускает отсутствующие у одной из сторон поля.
+     */
+    private static final AggregationOperation JOIN_BY_PRODUCT = context -> new Document("$group",
+            new Document("_id", "$_id")
+                    .append("buckets", new Document("$max", "$buckets"))
+                    .append("stored", new Document("$max", "$stored"))
+                    .append("ratingCount", new Document("$max", "$ratingCount"))
+                    .append("ratingSum", new Document("$max", "$ratingSum"))
+                    .append("ratingHistogram", new Document("$max", "$ratingHistogram")));
+
+    /**
+     * Только существующие продукты: отзывы к удаленным продуктам пропускаются.
+     */
+    private static final AggregationOperation EXISTING_PRODUCTS = context -> new Document("$match",
+            new Document("stored", true));
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final MongoOperationRouting routing;
+    private final ProductCacheEvictor productCacheEvictor;
+    private final ResponseCache responseCache;
+    private final ProductRanking productRanking;
+    private final CategoryStatsService categoryStatsService;
+
+    @Value("${catalogue.ratings.repair.concurrency:8}")
+    private int concurrency;
+
+    /**
+     * Запускает пересчет по расписанию.
+     */
+    @Scheduled(cron = "${catalogue.ratings.repair.cron:0 0 3 * * *}")
+    public void repairOnSchedule() {
+        repair().subscribe(
+                repaired -> log.info("Rating aggregates repaired for {} products", repaired),
+                e -> log.error("Rating aggregates repair failed", e));
+    }
+
+    /**
+     * Пересчитывает агрегаты рейтинга всех продуктов и исправляет расходящиеся.
+     *
+     * @return количество исправленных продуктов
+     */
+    public Mono<Long> repair() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                        COUNT_BY_RATING,
+                        BUCKETS_BY_PRODUCT,
+                        WITH_PRODUCTS,
+                        JOIN_BY_PRODUCT,
+                        EXISTING_PRODUCTS)
+                .withOptions(AggregationOptions.builder()
+                        .allowDiskUse(true)
+                        .readPreference(routing.readPreference(MongoOperationClass.BATCH))
+                        .build());
+
+        return routing.template(MongoOperationClass.BATCH)
+                .aggregate(aggregation, mongoTemplate.getCollectionName(Review.class), Document.class)
+                .flatMap(this::repairProduct, concurrency)
+                .filter(Boolean::booleanValue)
+                .count();
+    }
+
+    private Mono<Boolean> repairProduct(Document joined) {
+        long count = 0;
+        long sum = 0;
+        Map<String, Long> histogram = new HashMap<>();
+        List<Document> buckets = joined.getList("buckets", Document.class, List.of());
+        for (Document bucket : buckets) {
+            int rating = ((Number) bucket.get("rating")).intValue();
+            long ratingCount = ((Number) bucket.get("count")).longValue();
+            count += ratingCount;
+            sum += rating * ratingCount;
+            histogram.put(String.valueOf(rating), ratingCount);
+        }
+
+        Object storedCount = joined.get("ratingCount");
+        Object storedSum = joined.get("ratingSum");
+        if (count == longValue(storedCount)
+                && sum == longValue(storedSum)
+                && histogram.equals(withoutEmptyBuckets(joined.get("ratingHistogram", Document.class)))) {
+            return Mono.just(false);
+        }
+
+        String productId = joined.getString("_id");
+        Query unchanged = new Query(where("id").is(productId)
+                .and("ratingCount").is(storedCount)
+                .and("ratingSum").is(storedSum));
+        Update update = VersionedUpdates.keepVersion(new Update()
+                .set("ratingCount", count)
+                .set("ratingSum", sum)
+                .set("ratingHistogram", histogram));
+        long countDelta = count - longValue(storedCount);
+        long sumDelta = sum - longValue(storedSum);
+        return mongoTemplate.findAndModify(unchanged, update, FindAndModifyOptions.options().returnNew(true),
+                        Product.class)
+                .flatMap(product -> categoryStatsService.ratingRepaired(product.getCategory(), countDelta, sumDelta)
+                        .then(Mono.fromRunnable(() -> {
+                            productCacheEvictor.evict(List.of(productId));
+                            responseCache.invalidateRatings(List.of(productId));
+                            productRanking.ratingChanged(product);
+                        }))
+                        .thenReturn(true))
+                .defaultIfEmpty(false);
+    }
+
+    private long longValue(Object value) {
+        return value != null ? ((Number) value).longValue() : 0;
+    }
+
+    private Map<String, Long> withoutEmptyBuckets(Document histogram) {
+        Map<String, Long> buckets = new HashMap<>();
+        if (histogram != null) {
+            histogram.forEach((rating, count) -> {
+                if (count != null && ((Number) count).longValue() != 0) {
+                    buckets.put(rating, ((Number) count).longValue());
+                }
+            });
+        }
+        return buckets;
+    }
+
+}
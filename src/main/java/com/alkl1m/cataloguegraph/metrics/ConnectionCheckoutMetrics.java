@@ -0,0 +1,59 @@
+package com.alkl1m.cataloguegraph.metrics;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Записывает время ожидания соединения из пула клиента MongoDB в таймер {@value #CHECKOUT_METRIC}
+ * с именем пула и исходом: {@code success} или причиной отказа ({@code timeout}, {@code connection_error},
+ * {@code pool_closed}). Дополняет метрики {@code mongodb.driver.pool.*} Spring Boot, в которых
+ * есть количество выданных соединений и длина очереди ожидания, но нет времени ожидания.
+ *
+ * @author AlKl1M
+ */
+public class ConnectionCheckoutMetrics implements ConnectionPoolListener {
+
+    /**
+     * Имя таймера ожидания соединения из пула.
+     */
+    public static final String CHECKOUT_METRIC = "mongodb.driver.pool.checkout";
+
+    private final MeterRegistry meterRegistry;
+    private final String pool;
+    private final Timer checkedOut;
+
+    /**
+     * @param meterRegistry реестр метрик
+     * @param pool          имя пула в метриках
+     */
+    public ConnectionCheckoutMetrics(MeterRegistry meterRegistry, String pool) {
+        this.meterRegistry = meterRegistry;
+        this.pool = pool;
+        this.checkedOut = timer("success");
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        checkedOut.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        timer(event.getReason().name().toLowerCase(Locale.ROOT))
+                .record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String outcome) {
+        return Timer.builder(CHECKOUT_METRIC)
+                .tag("pool", pool)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.alkl1m.cataloguegraph.metrics;
+
+import graphql.schema.GraphQLNamedType;
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.graphql.observation.DataFetcherObservationContext;
+import org.springframework.graphql.observation.DefaultDataFetcherObservationConvention;
+import org.springframework.stereotype.Component;
+
+/**
+ * Соглашение об именовании наблюдений за загрузкой полей GraphQL.
+ * Дополняет стандартные теги таймера {@code graphql.datafetcher} тегом {@value #TYPE_NAME} с именем
+ * родительского типа, чтобы одноименные поля разных типов (например, {@code Product.reviews})
+ * измерялись отдельно.
+ *
+ * @author AlKl1M
+ */
+@Component
+public class FieldObservationConvention extends DefaultDataFetcherObservationConvention {
+
+    /**
+     * Имя тега с родительским типом поля.
+     */
+    public static final String TYPE_NAME = "graphql.type.name";
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(DataFetcherObservationContext context) {
+        String typeName = context.getEnvironment().getParentType() instanceof GraphQLNamedType namedType
+                ? namedType.getName()
+                : "unknown";
+        return super.getLowCardinalityKeyValues(context).and(KeyValue.of(TYPE_NAME, typeName));
+    }
+
+}
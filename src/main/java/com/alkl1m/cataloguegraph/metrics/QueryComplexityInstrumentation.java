@@ -0,0 +1,92 @@
+package com.alkl1m.cataloguegraph.metrics;
+
+import graphql.ExecutionResult;
+import graphql.analysis.QueryTraverser;
+import graphql.analysis.QueryVisitorFieldEnvironment;
+import graphql.analysis.QueryVisitorStub;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Записывает глубину и сложность каждой выполняемой GraphQL-операции в гистограммы
+ * {@value #DEPTH_METRIC} и {@value #COMPLEXITY_METRIC} с разбивкой по типу операции.
+ * Сложность — количество запрошенных полей без учета {@code __typename}.
+ *
+ * @author AlKl1M
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryComplexityInstrumentation extends SimplePerformantInstrumentation {
+
+    /**
+     * Имя гистограммы глубины операций.
+     */
+    public static final String DEPTH_METRIC = "graphql.request.depth";
+
+    /**
+     * Имя гистограммы сложности операций.
+     */
+    public static final String COMPLEXITY_METRIC = "graphql.request.complexity";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        ExecutionContext executionContext = parameters.getExecutionContext();
+        QueryTraverser traverser = QueryTraverser.newQueryTraverser()
+                .schema(executionContext.getGraphQLSchema())
+                .document(executionContext.getDocument())
+                .operationName(executionContext.getOperationDefinition().getName())
+                .coercedVariables(executionContext.getCoercedVariables())
+                .build();
+
+        SelectionStatistics statistics = new SelectionStatistics();
+        traverser.visitPreOrder(statistics);
+
+        String operation = executionContext.getOperationDefinition().getOperation().name().toLowerCase(Locale.ROOT);
+        summary(DEPTH_METRIC, operation).record(statistics.depth);
+        summary(COMPLEXITY_METRIC, operation).record(statistics.fields);
+        return super.beginExecuteOperation(parameters, state);
+    }
+
+    private DistributionSummary summary(String name, String operation) {
+        return DistributionSummary.builder(name)
+                .tag("graphql.operation", operation)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Считает поля и максимальную глубину вложенности выборки.
+     */
+    private static final class SelectionStatistics extends QueryVisitorStub {
+
+        private int fields;
+        private int depth;
+
+        @Override
+        public void visitField(QueryVisitorFieldEnvironment environment) {
+            if (environment.isTypeNameIntrospectionField()) {
+                return;
+            }
+            fields++;
+            int fieldDepth = 1;
+            for (QueryVisitorFieldEnvironment parent = environment.getParentEnvironment(); parent != null;
+                 parent = parent.getParentEnvironment()) {
+                fieldDepth++;
+            }
+            depth = Math.max(depth, fieldDepth);
+        }
+
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.alkl1m.cataloguegraph.metrics;
+
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import reactor.core.observability.micrometer.Micrometer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Наблюдает за вызовами методов сервисов.
+ * Время измеряется от подписки до завершения реактивного результата, а не до возврата из метода,
+ * и публикуется таймером {@value #SERVICE_METRIC} с тегами сервиса, метода и статуса завершения.
+ * Методы подписки {@code watch*} не наблюдаются: их результат длится, пока клиент подписан.
+ *
+ * @author AlKl1M
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceObservationAspect {
+
+    /**
+     * Имя таймера вызовов сервисов.
+     */
+    public static final String SERVICE_METRIC = "catalogue.service";
+
+    private final ObservationRegistry observationRegistry;
+
+    /**
+     * Оборачивает результат метода сервиса наблюдением.
+     *
+     * @param joinPoint вызов метода сервиса
+     * @return результат метода, наблюдаемый при подписке
+     * @throws Throwable исключение, выброшенное методом
+     */
+    @Around("execution(public * com.alkl1m.cataloguegraph.service.*Service.*(..))"
+            + " && !execution(* com.alkl1m.cataloguegraph.service.*Service.watch*(..))")
+    public Object observe(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        String service = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+
+        if (result instanceof Mono<?> mono) {
+            return mono.name(SERVICE_METRIC)
+                    .tag("service", service)
+                    .tag("method", method)
+                    .tap(Micrometer.observation(observationRegistry));
+        }
+        if (result instanceof Flux<?> flux) {
+            return flux.name(SERVICE_METRIC)
+                    .tag("service", service)
+                    .tag("method", method)
+                    .tap(Micrometer.observation(observationRegistry));
+        }
+        return result;
+    }
+
+}
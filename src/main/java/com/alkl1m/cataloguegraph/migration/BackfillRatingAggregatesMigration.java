@@ -0,0 +1,44 @@
+package com.alkl1m.cataloguegraph.migration;
+
+import com.alkl1m.cataloguegraph.config.InMemoryRepositoryConfig;
+import com.alkl1m.cataloguegraph.job.RatingAggregatesRepairJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Однократная миграция, заполняющая агрегаты рейтинга продуктов, созданных до их появления.
+ *
+ * @author AlKl1M
+ */
+@Slf4j
+@Order(2)
+@Component
+@Profile("!" + InMemoryRepositoryConfig.PROFILE)
+@ConditionalOnProperty(value = "catalogue.migrations.backfill-rating-aggregates", havingValue = "true", matchIfMissing = true)
+public class BackfillRatingAggregatesMigration extends OneOffMigration {
+
+    private final RatingAggregatesRepairJob repairJob;
+
+    public BackfillRatingAggregatesMigration(ReactiveMongoTemplate mongoTemplate, RatingAggregatesRepairJob repairJob) {
+        super(mongoTemplate);
+        this.repairJob = repairJob;
+    }
+
+    @Override
+    protected String id() {
+        return "backfill-rating-aggregates";
+    }
+
+    @Override
+    protected Mono<Void> apply() {
+        return repairJob.repair()
+                .doOnNext(repaired -> log.info("Rating aggregates filled for {} products", repaired))
+                .then();
+    }
+
+}
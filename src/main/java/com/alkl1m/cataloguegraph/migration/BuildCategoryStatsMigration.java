@@ -0,0 +1,45 @@
+package com.alkl1m.cataloguegraph.migration;
+
+import com.alkl1m.cataloguegraph.config.InMemoryRepositoryConfig;
+import com.alkl1m.cataloguegraph.service.CategoryStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Однократная миграция, строящая сводки по категориям для продуктов, созданных до их появления.
+ * Выполняется после заполнения агрегатов рейтинга, так как средний рейтинг категории строится по ним.
+ *
+ * @author AlKl1M
+ */
+@Slf4j
+@Order(3)
+@Component
+@Profile("!" + InMemoryRepositoryConfig.PROFILE)
+@ConditionalOnProperty(value = "catalogue.migrations.build-category-stats", havingValue = "true", matchIfMissing = true)
+public class BuildCategoryStatsMigration extends OneOffMigration {
+
+    private final CategoryStatsService categoryStatsService;
+
+    public BuildCategoryStatsMigration(ReactiveMongoTemplate mongoTemplate, CategoryStatsService categoryStatsService) {
+        super(mongoTemplate);
+        this.categoryStatsService = categoryStatsService;
+    }
+
+    @Override
+    protected String id() {
+        return "build-category-stats";
+    }
+
+    @Override
+    protected Mono<Void> apply() {
+        return categoryStatsService.rebuild()
+                .doOnNext(categories -> log.info("Category stats built for {} categories", categories))
+                .then();
+    }
+
+}
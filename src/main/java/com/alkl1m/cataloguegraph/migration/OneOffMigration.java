@@ -0,0 +1,55 @@
+package com.alkl1m.cataloguegraph.migration;
+
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Базовый класс однократной миграции данных, выполняемой при старте приложения.
+ * Факт выполнения фиксируется в коллекции {@code migrations}, и при последующих запусках миграция пропускается.
+ *
+ * @author AlKl1M
+ */
+public abstract class OneOffMigration implements ApplicationRunner {
+
+    static final String MIGRATIONS_COLLECTION = "migrations";
+
+    protected final ReactiveMongoTemplate mongoTemplate;
+
+    protected OneOffMigration(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * @return уникальный идентификатор миграции
+     */
+    protected abstract String id();
+
+    /**
+     * Выполняет изменение данных.
+     *
+     * @return сигнал завершения миграции
+     */
+    protected abstract Mono<Void> apply();
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query applied = new Query(where("_id").is(id()));
+
+        mongoTemplate.exists(applied, MIGRATIONS_COLLECTION)
+                .filter(exists -> !exists)
+                .flatMap(notApplied -> apply()
+                        .then(mongoTemplate.insert(
+                                new Document("_id", id()).append("appliedAt", Instant.now()),
+                                MIGRATIONS_COLLECTION)))
+                .block();
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.alkl1m.cataloguegraph.migration;
+
+import com.alkl1m.cataloguegraph.config.InMemoryRepositoryConfig;
+import com.alkl1m.cataloguegraph.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Однократная миграция, удаляющая встроенные списки отзывов из документов продуктов.
+ * Отзывы всегда сохранялись и в коллекцию {@code reviews}, поэтому встроенные копии
+ * можно удалить без потери данных.
+ *
+ * @author AlKl1M
+ */
+@Slf4j
+@Order(1)
+@Component
+@Profile("!" + InMemoryRepositoryConfig.PROFILE)
+@ConditionalOnProperty(value = "catalogue.migrations.strip-embedded-reviews", havingValue = "true", matchIfMissing = true)
+public class StripEmbeddedReviewsMigration extends OneOffMigration {
+
+    public StripEmbeddedReviewsMigration(ReactiveMongoTemplate mongoTemplate) {
+        super(mongoTemplate);
+    }
+
+    @Override
+    protected String id() {
+        return "strip-embedded-reviews";
+    }
+
+    @Override
+    protected Mono<Void> apply() {
+        Query withReviews = new Query(where("reviews").exists(true));
+        Update unsetReviews = new Update().unset("reviews");
+
+        return mongoTemplate.updateMulti(withReviews, unsetReviews, Product.class)
+                .doOnNext(result -> log.info("Removed embedded reviews from {} products", result.getModifiedCount()))
+                .then();
+    }
+
+}
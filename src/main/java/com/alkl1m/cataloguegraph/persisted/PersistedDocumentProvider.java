@@ -0,0 +1,65 @@
+package com.alkl1m.cataloguegraph.persisted;
+
+import com.alkl1m.cataloguegraph.admission.CostAdmissionInstrumentation;
+import graphql.ErrorClassification;
+import graphql.ExecutionInput;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Поставщик разобранных и проверенных GraphQL-документов.
+ * Поддерживает автоматически сохраненные запросы Apollo: клиент отправляет SHA-256 запроса
+ * в расширении {@code persistedQuery}, а текст запроса — только если сервер ответил
+ * {@code PersistedQueryNotFound}. Обычные запросы разбираются через тот же кэш документов.
+ * В режиме списка разрешенных операций запросы, не зарегистрированные заранее, отклоняются
+ * до разбора и учитываются счетчиком {@value CostAdmissionInstrumentation#REJECTED_METRIC}.
+ *
+ * @author AlKl1M
+ */
+@Component
+public class PersistedDocumentProvider extends ApolloPersistedQuerySupport {
+
+    private static final ErrorClassification NOT_ALLOWED = ErrorClassification.errorClassification("OperationNotAllowed");
+
+    private final PersistedQueryStore store;
+    private final PersistedQueryProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public PersistedDocumentProvider(PersistedQueryStore store, PersistedQueryProperties properties,
+                                     MeterRegistry meterRegistry) {
+        super(store);
+        this.store = store;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(ExecutionInput executionInput,
+                                                                      Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        Optional<Object> persistedQueryId = getPersistedQueryId(executionInput);
+        if (properties.allowListOnly()) {
+            String hash = persistedQueryId.map(Object::toString)
+                    .orElseGet(() -> PersistedQueryStore.sha256(executionInput.getQuery()));
+            if (!store.isRegistered(hash)) {
+                meterRegistry.counter(CostAdmissionInstrumentation.REJECTED_METRIC, "reason", "allow-list").increment();
+                return CompletableFuture.completedFuture(new PreparsedDocumentEntry(GraphqlErrorBuilder.newError()
+                        .message("Operation is not registered")
+                        .errorType(NOT_ALLOWED)
+                        .build()));
+            }
+        }
+        if (persistedQueryId.isPresent()) {
+            return super.getDocumentAsync(executionInput, parseAndValidateFunction);
+        }
+        return CompletableFuture.completedFuture(store.document(executionInput.getQuery(),
+                query -> parseAndValidateFunction.apply(executionInput)));
+    }
+
+}
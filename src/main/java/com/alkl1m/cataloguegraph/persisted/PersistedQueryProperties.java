@@ -0,0 +1,24 @@
+package com.alkl1m.cataloguegraph.persisted;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки сохраненных GraphQL-запросов и кэша разобранных документов.
+ * Зарегистрированные операции хранятся в файлах по одной операции в каждом;
+ * идентификатором операции служит SHA-256 содержимого файла, поэтому клиенты
+ * должны отправлять текст операции без изменений.
+ *
+ * @param maxDocuments  максимальное количество разобранных и проверенных документов в кэше
+ * @param maxQueries    максимальное количество запомненных хэшей автоматически сохраненных запросов
+ * @param allowListOnly допускаются ли к выполнению только зарегистрированные операции
+ * @param operations    расположение файлов зарегистрированных операций
+ * @author AlKl1M
+ */
+@ConfigurationProperties("catalogue.graphql.persisted-queries")
+public record PersistedQueryProperties(
+        @DefaultValue("1000") int maxDocuments,
+        @DefaultValue("10000") int maxQueries,
+        @DefaultValue("false") boolean allowListOnly,
+        @DefaultValue("classpath*:persisted-queries/*.graphql") String operations) {
+}
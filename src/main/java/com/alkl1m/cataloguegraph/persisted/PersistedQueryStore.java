@@ -0,0 +1,147 @@
+package com.alkl1m.cataloguegraph.persisted;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.persisted.PersistedQueryCache;
+import graphql.execution.preparsed.persisted.PersistedQueryCacheMiss;
+import graphql.execution.preparsed.persisted.PersistedQueryIdInvalid;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Хранилище сохраненных GraphQL-запросов и кэш разобранных и проверенных документов.
+ * Документы кэшируются по тексту запроса, а сохраненные запросы отображают SHA-256 текста на сам текст,
+ * поэтому запрос, пришедший по хэшу и целиком, разбирается и проверяется один раз.
+ * Зарегистрированные операции загружаются при старте и не вытесняются; автоматически сохраненные
+ * запросы и документы хранятся в ограниченных кэшах. Статистика кэша документов публикуется
+ * как метрики {@code cache.*} с именем {@value #DOCUMENTS_CACHE}.
+ *
+ * @author AlKl1M
+ */
+@Slf4j
+@Component
+public class PersistedQueryStore implements PersistedQueryCache {
+
+    /**
+     * Имя кэша разобранных документов в метриках.
+     */
+    public static final String DOCUMENTS_CACHE = "graphqlDocuments";
+
+    private final Map<String, String> registered;
+    private final Cache<String, String> queries;
+    private final Cache<String, PreparsedDocumentEntry> documents;
+
+    public PersistedQueryStore(PersistedQueryProperties properties, ResourceLoader resourceLoader,
+                               MeterRegistry meterRegistry) throws IOException {
+        this.registered = load(ResourcePatternUtils.getResourcePatternResolver(resourceLoader)
+                .getResources(properties.operations()));
+        this.queries = Caffeine.newBuilder()
+                .maximumSize(properties.maxQueries())
+                .build();
+        this.documents = Caffeine.newBuilder()
+                .maximumSize(properties.maxDocuments())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, documents, DOCUMENTS_CACHE);
+        log.info("Loaded {} registered GraphQL operations", registered.size());
+    }
+
+    /**
+     * Проверяет, зарегистрирована ли операция с указанным хэшем.
+     *
+     * @param hash SHA-256 текста операции
+     * @return true, если операция зарегистрирована
+     */
+    public boolean isRegistered(String hash) {
+        return registered.containsKey(hash);
+    }
+
+    /**
+     * Возвращает текст зарегистрированной или автоматически сохраненной операции по ее хэшу.
+     *
+     * @param hash SHA-256 текста операции
+     * @return текст операции или пустой результат, если операция неизвестна
+     */
+    public Optional<String> query(String hash) {
+        String query = registered.get(hash);
+        return Optional.ofNullable(query != null ? query : queries.getIfPresent(hash));
+    }
+
+    /**
+     * Возвращает разобранный и проверенный документ из кэша, разбирая запрос при промахе.
+     *
+     * @param query            текст запроса
+     * @param parseAndValidate разбор и проверка запроса
+     * @return разобранный документ или ошибки разбора и проверки
+     */
+    public PreparsedDocumentEntry document(String query, Function<String, PreparsedDocumentEntry> parseAndValidate) {
+        return documents.get(query, parseAndValidate);
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getPersistedQueryDocumentAsync(Object persistedQueryId,
+                                                                                    ExecutionInput executionInput,
+                                                                                    PersistedQueryCacheMiss onCacheMiss) {
+        String hash = persistedQueryId.toString();
+        String query = registered.get(hash);
+        if (query == null) {
+            query = queries.getIfPresent(hash);
+        }
+        if (query == null) {
+            query = executionInput.getQuery();
+            if (query == null || query.isBlank() || PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(query)) {
+                throw new PersistedQueryNotFound(persistedQueryId);
+            }
+            if (!sha256(query).equalsIgnoreCase(hash)) {
+                throw new PersistedQueryIdInvalid(persistedQueryId);
+            }
+            queries.put(hash, query);
+        }
+        return CompletableFuture.completedFuture(documents.get(query, onCacheMiss));
+    }
+
+    /**
+     * Вычисляет SHA-256 текста запроса в шестнадцатеричном виде, как это делают клиенты.
+     *
+     * @param query текст запроса
+     * @return хэш запроса
+     */
+    public static String sha256(String query) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, String> load(Resource[] resources) throws IOException {
+        Map<String, String> operations = new HashMap<>();
+        for (Resource resource : resources) {
+            String query = resource.getContentAsString(StandardCharsets.UTF_8);
+            operations.put(sha256(query), query);
+        }
+        return Map.copyOf(operations);
+    }
+
+}
@@ -0,0 +1,332 @@
+package com.alkl1m.cataloguegraph.ranking;
+
+import com.alkl1m.cataloguegraph.dto.TrendingWindow;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.repository.ProductRepository;
+import com.alkl1m.cataloguegraph.repository.ReviewRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Рейтинги лучших и набирающих популярность продуктов в памяти приложения.
+ * Продукты с отзывами хранятся в упорядоченных множествах на основе списков с пропусками: общем
+ * и по категориям — по убыванию байесовской оценки, и по одному на каждое {@link TrendingWindow} —
+ * по убыванию скорости появления отзывов. Поэтому первые продукты рейтинга читаются без сортировки
+ * за время, пропорциональное их количеству.
+ * Скорость хранится в виде прямого затухания: логарифма суммы {@code exp((t - t0) / окно)} по отзывам,
+ * где {@code t0} — момент перестроения. Такой ключ не меняется со временем, а его порядок совпадает
+ * с порядком затухающих скоростей в любой момент, поэтому множества не нужно пересортировывать.
+ * Рейтинги обновляются по изменениям агрегатов рейтинга и добавленным отзывам и перестраиваются
+ * по коллекциям продуктов и отзывов при старте и по расписанию; средний рейтинг каталога
+ * для байесовской оценки фиксируется при перестроении. Изменения, сделанные во время перестроения,
+ * могут не попасть в новые рейтинги до следующего перестроения.
+ * Перестроение читает только идентификаторы, категории и агрегаты рейтинга продуктов и не накапливает их:
+ * средний рейтинг каталога вычисляется первым проходом, а позиции — вторым.
+ * Для продуктов, уже отданных из рейтинга, хранится их последняя известная версия: она обновляется
+ * при изменениях агрегатов рейтинга и самого продукта и сбрасывается при перестроении, поэтому первые
+ * продукты рейтинга отдаются без запроса к MongoDB, а в памяти хранятся только продукты, попадавшие
+ * в первые позиции рейтингов с последнего перестроения.
+ *
+ * @author AlKl1M
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductRanking {
+
+    private static final int TRENDING_HORIZON_WINDOWS = 4;
+
+    private final ProductRepository productRepository;
+    private final ReviewRepository reviewRepository;
+    private final RankingProperties properties;
+
+    private volatile Rankings rankings = new Rankings(0, Instant.now());
+
+    /**
+     * Возвращает идентификаторы продуктов с наибольшей байесовской оценкой.
+     *
+     * @param category категория продуктов (если не указана — все категории)
+     * @param limit    максимальное количество продуктов
+     * @return идентификаторы продуктов по убыванию оценки
+     */
+    public List<String> topProductIds(String category, int limit) {
+        Rankings current = rankings;
+        NavigableSet<Ranked> ranked = category != null
+                ? current.topByCategory.getOrDefault(category, Collections.emptyNavigableSet())
+                : current.top;
+        return ids(ranked, limit);
+    }
+
+    /**
+     * Возвращает идентификаторы продуктов с наибольшей скоростью появления отзывов.
+     *
+     * @param window окно оценки скорости
+     * @param limit  максимальное количество продуктов
+     * @return идентификаторы продуктов по убыванию скорости
+     */
+    public List<String> trendingProductIds(TrendingWindow window, int limit) {
+        return ids(rankings.trending.get(window), limit);
+    }
+
+    /**
+     * Возвращает последнюю известную версию продукта рейтинга.
+     *
+     * @param productId уникальный идентификатор продукта
+     * @return продукт или null, если версия продукта в рейтинге не сохранена
+     */
+    public Product product(String productId) {
+        return rankings.product(productId);
+    }
+
+    /**
+     * Запоминает загруженные продукты, отданные из рейтинга, чтобы отдавать их без запроса к MongoDB.
+     * Продукты, которых нет в рейтингах, не запоминаются.
+     *
+     * @param products загруженные продукты рейтинга
+     */
+    public void remember(Collection<Product> products) {
+        Rankings current = rankings;
+        products.forEach(current::remember);
+    }
+
+    /**
+     * Учитывает текущие агрегаты рейтинга продукта.
+     *
+     * @param product продукт с актуальными агрегатами рейтинга
+     */
+    public void ratingChanged(Product product) {
+        Rankings current = rankings;
+        current.rate(product.getId(), product.getCategory(), product.getRatingCount(), product.getRatingSum(),
+                properties.priorWeight());
+        current.refresh(product);
+    }
+
+    /**
+     * Учитывает добавленные отзывы в скорости появления отзывов их продуктов.
+     *
+     * @param reviews добавленные отзывы
+     */
+    public void reviewsAdded(Collection<Review> reviews) {
+        Rankings current = rankings;
+        reviews.forEach(review -> current.trend(review.getProductId(), review.getCreatedAt()));
+    }
+
+    /**
+     * Учитывает изменение продукта: обновляет его сохраненную версию, а при изменении категории —
+     * и позиции в рейтингах по категориям.
+     *
+     * @param before продукт до изменения
+     * @param after  продукт после изменения
+     */
+    public void productUpdated(Product before, Product after) {
+        if (!Objects.equals(before.getCategory(), after.getCategory())) {
+            ratingChanged(after);
+        } else {
+            rankings.refresh(after);
+        }
+    }
+
+    /**
+     * Исключает удаленные продукты из всех рейтингов.
+     *
+     * @param products удаленные продукты
+     */
+    public void productsRemoved(Collection<Product> products) {
+        Rankings current = rankings;
+        products.forEach(product -> current.remove(product.getId()));
+    }
+
+    /**
+     * Перестраивает рейтинги по коллекциям продуктов и отзывов и заменяет ими текущие.
+     * Продукты с отзывами читаются дважды: первым проходом вычисляется средний рейтинг каталога,
+     * вторым — позиции продуктов. Для скорости появления отзывов читаются только отзывы,
+     * созданные за несколько самых длинных окон.
+     *
+     * @return количество продуктов с отзывами
+     */
+    public Mono<Integer> rebuild() {
+        Instant now = Instant.now();
+        Duration horizon = TrendingWindow.WEEK.getDuration().multipliedBy(TRENDING_HORIZON_WINDOWS);
+        return productRepository.streamRated(properties.batchSize())
+                .reduceWith(() -> new long[2], (totals, product) -> {
+                    totals[0] += product.getRatingCount();
+                    totals[1] += product.getRatingSum();
+                    return totals;
+                })
+                .flatMap(totals -> {
+                    Rankings next = new Rankings(totals[0] > 0 ? (double) totals[1] / totals[0] : 0, now);
+                    return productRepository.streamRated(properties.batchSize())
+                            .doOnNext(product -> next.rate(product.getId(), product.getCategory(),
+                                    product.getRatingCount(), product.getRatingSum(), properties.priorWeight()))
+                            .count()
+                            .flatMap(rated -> reviewRepository.streamCreatedSince(LocalDateTime.ofInstant(
+                                            now.minus(horizon), ZoneId.systemDefault()), properties.batchSize())
+                                    .doOnNext(review -> next.trend(review.getProductId(), review.getCreatedAt()))
+                                    .then(Mono.fromSupplier(() -> {
+                                        rankings = next;
+                                        return Math.toIntExact(rated);
+                                    })));
+                });
+    }
+
+    private static List<String> ids(NavigableSet<Ranked> ranked, int limit) {
+        return ranked.stream()
+                .limit(limit)
+                .map(Ranked::productId)
+                .toList();
+    }
+
+    /**
+     * Позиция продукта в рейтинге: по убыванию оценки, при равной оценке — по идентификатору.
+     */
+    private record Ranked(double score, String productId) implements Comparable<Ranked> {
+
+        @Override
+        public int compareTo(Ranked other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : productId.compareTo(other.productId);
+        }
+
+    }
+
+    /**
+     * Позиции продукта во всех рейтингах. Изменяется под блокировкой самого объекта.
+     */
+    private static final class Entry {
+
+        private Product product;
+        private String category;
+        private Ranked rating;
+        private final Map<TrendingWindow, Ranked> trend = new EnumMap<>(TrendingWindow.class);
+
+    }
+
+    /**
+     * Набор рейтингов, построенный при одном перестроении.
+     */
+    private static final class Rankings {
+
+        private final double priorMean;
+        private final Instant landmark;
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private final NavigableSet<Ranked> top = new ConcurrentSkipListSet<>();
+        private final Map<String, NavigableSet<Ranked>> topByCategory = new ConcurrentHashMap<>();
+        private final Map<TrendingWindow, NavigableSet<Ranked>> trending = new EnumMap<>(TrendingWindow.class);
+
+        private Rankings(double priorMean, Instant landmark) {
+            this.priorMean = priorMean;
+            this.landmark = landmark;
+            for (TrendingWindow window : TrendingWindow.values()) {
+                trending.put(window, new ConcurrentSkipListSet<>());
+            }
+        }
+
+        private Product product(String productId) {
+            Entry entry = entries.get(productId);
+            if (entry == null) {
+                return null;
+            }
+            synchronized (entry) {
+                return entry.product;
+            }
+        }
+
+        private void rate(String productId, String category, long count, long sum, int priorWeight) {
+            Entry entry = entries.computeIfAbsent(productId, id -> new Entry());
+            synchronized (entry) {
+                unrate(entry);
+                entry.category = category;
+                entry.rating = count > 0
+                        ? new Ranked((priorWeight * priorMean + sum) / (priorWeight + count), productId)
+                        : null;
+                if (entry.rating != null) {
+                    top.add(entry.rating);
+                    topByCategory.computeIfAbsent(category, key -> new ConcurrentSkipListSet<>()).add(entry.rating);
+                }
+            }
+        }
+
+        private void remember(Product product) {
+            Entry entry = entries.get(product.getId());
+            if (entry != null) {
+                synchronized (entry) {
+                    entry.product = product;
+                }
+            }
+        }
+
+        private void refresh(Product product) {
+            Entry entry = entries.get(product.getId());
+            if (entry != null) {
+                synchronized (entry) {
+                    if (entry.product != null) {
+                        entry.product = product;
+                    }
+                }
+            }
+        }
+
+        private void trend(String productId, LocalDateTime createdAt) {
+            if (createdAt == null) {
+                return;
+            }
+            double age = Duration.between(landmark, createdAt.atZone(ZoneId.systemDefault()).toInstant()).toMillis();
+            Entry entry = entries.computeIfAbsent(productId, id -> new Entry());
+            synchronized (entry) {
+                for (TrendingWindow window : TrendingWindow.values()) {
+                    double exponent = age / window.getDuration().toMillis();
+                    Ranked previous = entry.trend.get(window);
+                    Ranked next = new Ranked(previous != null ? logAddExp(previous.score(), exponent) : exponent,
+                            productId);
+                    if (previous != null) {
+                        trending.get(window).remove(previous);
+                    }
+                    entry.trend.put(window, next);
+                    trending.get(window).add(next);
+                }
+            }
+        }
+
+        private void remove(String productId) {
+            Entry entry = entries.remove(productId);
+            if (entry != null) {
+                synchronized (entry) {
+                    unrate(entry);
+                    entry.trend.forEach((window, ranked) -> trending.get(window).remove(ranked));
+                    entry.trend.clear();
+                }
+            }
+        }
+
+        private void unrate(Entry entry) {
+            if (entry.rating != null) {
+                top.remove(entry.rating);
+                NavigableSet<Ranked> category = topByCategory.get(entry.category);
+                if (category != null) {
+                    category.remove(entry.rating);
+                }
+            }
+        }
+
+        private static double logAddExp(double a, double b) {
+            return Math.max(a, b) + Math.log1p(Math.exp(-Math.abs(a - b)));
+        }
+
+    }
+
+}
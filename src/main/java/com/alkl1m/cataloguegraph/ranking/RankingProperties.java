@@ -0,0 +1,22 @@
+package com.alkl1m.cataloguegraph.ranking;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки рейтингов лучших и набирающих популярность продуктов.
+ * Байесовская оценка продукта — среднее его оценок, дополненных {@code priorWeight} оценками,
+ * равными среднему рейтингу каталога, поэтому продукты с малым числом отзывов не вытесняют вверх списка
+ * продукты с большим числом отзывов.
+ *
+ * @param priorWeight количество средних оценок каталога, добавляемых к оценкам продукта
+ * @param maxLimit    максимальное количество продуктов в одном рейтинге
+ * @param batchSize   количество документов в одном пакете курсора при перестроении рейтингов
+ * @author AlKl1M
+ */
+@ConfigurationProperties("catalogue.ranking")
+public record RankingProperties(
+        @DefaultValue("10") int priorWeight,
+        @DefaultValue("100") int maxLimit,
+        @DefaultValue("1000") int batchSize) {
+}
@@ -0,0 +1,49 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import com.alkl1m.cataloguegraph.dto.BulkError;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.data.mongodb.BulkOperationException;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Разбор результатов неупорядоченных пакетных записей MongoDB.
+ *
+ * @author AlKl1M
+ */
+public final class BulkWrites {
+
+    private BulkWrites() {
+    }
+
+    /**
+     * Выполняет пакетную запись и преобразует ошибки отдельных операций в ошибки элементов.
+     * Ошибки, не относящиеся к отдельным операциям, передаются дальше без изменений.
+     *
+     * @param execution выполнение пакетной записи
+     * @return ошибки по элементам пакета; пустой список, если все операции выполнены
+     */
+    public static Mono<List<BulkError>> errorsOf(Mono<?> execution) {
+        return execution
+                .thenReturn(List.<BulkError>of())
+                .onErrorResume(e -> writeErrors(e).isPresent(), e -> Mono.just(writeErrors(e).orElseThrow().stream()
+                        .map(error -> new BulkError(error.getIndex(), error.getMessage()))
+                        .toList()));
+    }
+
+    private static Optional<List<BulkWriteError>> writeErrors(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BulkOperationException bulkOperationException) {
+                return Optional.of(bulkOperationException.getErrors());
+            }
+            if (cause instanceof MongoBulkWriteException mongoBulkWriteException) {
+                return Optional.of(mongoBulkWriteException.getWriteErrors());
+            }
+        }
+        return Optional.empty();
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import com.alkl1m.cataloguegraph.entity.CategoryStats;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Streamable;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Запросы, изменения и агрегации сводок по категориям, общие для реактивных и блокирующих репозиториев.
+ *
+ * @author AlKl1M
+ */
+public final class CategoryStatsQueries {
+
+    private CategoryStatsQueries() {
+    }
+
+    /**
+     * Строит запрос сводки категории.
+     *
+     * @param category категория
+     * @return запрос сводки
+     */
+    public static Query byCategory(String category) {
+        return new Query(where("category").is(category));
+    }
+
+    /**
+     * Строит запрос сводок категорий.
+     *
+     * @param categories категории
+     * @return запрос сводок
+     */
+    public static Query byCategories(Iterable<String> categories) {
+        return new Query(where("category").in(Streamable.of(categories).toList()));
+    }
+
+    /**
+     * Строит запрос сводок указанных категорий, в которых не осталось продуктов.
+     *
+     * @param categories категории
+     * @return запрос пустых сводок
+     */
+    public static Query empty(Collection<String> categories) {
+        return new Query(where("category").in(categories).and("productCount").lte(0));
+    }
+
+    /**
+     * Строит операцию {@code $inc} из ненулевых приращений сводки, дополняя ее операциями {@code $min}
+     * и {@code $max} по заданным ценам.
+     *
+     * @param increment приращение сводки
+     * @return изменение сводки; пустое, если приращение ничего не меняет
+     */
+    public static Update incrementUpdate(CategoryStats increment) {
+        Update update = new Update();
+        incIfNonZero(update, "productCount", increment.getProductCount());
+        incIfNonZero(update, "pricedCount", increment.getPricedCount());
+        incIfNonZero(update, "priceSum", increment.getPriceSum());
+        incIfNonZero(update, "ratingCount", increment.getRatingCount());
+        incIfNonZero(update, "ratingSum", increment.getRatingSum());
+        increment.getPriceBands().forEach((band, delta) -> incIfNonZero(update, "priceBands." + band, delta));
+        if (increment.getMinPrice() != null) {
+            update.min("minPrice", increment.getMinPrice());
+        }
+        if (increment.getMaxPrice() != null) {
+            update.max("maxPrice", increment.getMaxPrice());
+        }
+        return update;
+    }
+
+    /**
+     * Строит запрос наименьшей или наибольшей цены продуктов категории по индексу {@code category, price, _id}.
+     *
+     * @param category  категория
+     * @param direction направление сортировки по цене
+     * @return запрос продукта с граничной ценой, загружающий только цену
+     */
+    public static Query boundaryPrice(String category, Sort.Direction direction) {
+        Query query = new Query(where("category").is(category).and("price").ne(null))
+                .with(Sort.by(direction, "price"))
+                .limit(1);
+        query.fields().include("price");
+        return query;
+    }
+
+    /**
+     * Строит изменение ценового диапазона сводки.
+     *
+     * @param minPrice наименьшая цена продуктов категории (null — продуктов с ценой нет)
+     * @param maxPrice наибольшая цена продуктов категории (null — продуктов с ценой нет)
+     * @return изменение сводки
+     */
+    public static Update priceRange(Double minPrice, Double maxPrice) {
+        if (minPrice == null || maxPrice == null) {
+            return new Update().unset("minPrice").unset("maxPrice");
+        }
+        return new Update()
+                .set("minPrice", minPrice)
+                .set("maxPrice", maxPrice);
+    }
+
+    /**
+     * Строит агрегацию коллекции продуктов, пересчитывающую сводки всех категорий и заменяющую ими
+     * коллекцию сводок через {@code $out}.
+     *
+     * @param priceBoundaries возрастающие границы ценовых диапазонов
+     * @param collection      имя коллекции сводок
+     * @return этапы агрегации
+     */
+    public static List<Document> rebuild(List<Double> priceBoundaries, String collection) {
+        Document band = new Document("$subtract", List.of(
+                new Document("$size", new Document("$filter", new Document("input", priceBoundaries)
+                        .append("as", "boundary")
+                        .append("cond", new Document("$lte", List.of("$$boundary", "$price"))))),
+                1));
+        return List.of(
+                new Document("$match", new Document("category", new Document("$ne", null))),
+                new Document("$group", new Document("_id", new Document("category", "$category").append("band", band))
+                        .append("productCount", new Document("$sum", 1L))
+                        .append("pricedCount", new Document("$sum",
+                                new Document("$cond", List.of(new Document("$isNumber", "$price"), 1L, 0L))))
+                        .append("priceSum", new Document("$sum", "$price"))
+                        .append("minPrice", new Document("$min", "$price"))
+                        .append("maxPrice", new Document("$max", "$price"))
+                        .append("ratingCount", new Document("$sum", "$ratingCount"))
+                        .append("ratingSum", new Document("$sum", "$ratingSum"))),
+                new Document("$group", new Document("_id", "$_id.category")
+                        .append("productCount", new Document("$sum", "$productCount"))
+                        .append("pricedCount", new Document("$sum", "$pricedCount"))
+                        .append("priceSum", new Document("$sum", "$priceSum"))
+                        .append("minPrice", new Document("$min", "$minPrice"))
+                        .append("maxPrice", new Document("$max", "$maxPrice"))
+                        .append("ratingCount", new Document("$sum", "$ratingCount"))
+                        .append("ratingSum", new Document("$sum", "$ratingSum"))
+                        .append("bands", new Document("$push", new Document("k", new Document("$toString", "$_id.band"))
+                                .append("v", "$productCount")))),
+                new Document("$addFields", new Document("priceBands", new Document("$arrayToObject",
+                        new Document("$filter", new Document("input", "$bands")
+                                .append("cond", new Document("$ne", List.of("$$this.k", "-1"))))))),
+                new Document("$project", new Document("bands", 0)),
+                new Document("$out", collection));
+    }
+
+    private static void incIfNonZero(Update update, String key, Number delta) {
+        if (delta.doubleValue() != 0) {
+            update.inc(key, delta);
+        }
+    }
+
+}
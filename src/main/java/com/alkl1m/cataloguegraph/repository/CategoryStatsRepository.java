@@ -0,0 +1,13 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import com.alkl1m.cataloguegraph.entity.CategoryStats;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * @author AlKl1M
+ */
+@Repository
+public interface CategoryStatsRepository extends ReactiveMongoRepository<CategoryStats, String>,
+        CategoryStatsRepositoryCustom {
+}
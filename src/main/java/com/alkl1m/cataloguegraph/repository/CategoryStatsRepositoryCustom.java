@@ -0,0 +1,57 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import com.alkl1m.cataloguegraph.entity.CategoryStats;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Изменения сводок по категориям, которые не выражаются производными методами репозитория.
+ *
+ * @author AlKl1M
+ */
+public interface CategoryStatsRepositoryCustom {
+
+    /**
+     * Находит сводки категорий одним запросом как операцию {@link MongoOperationClass#LISTING}.
+     * Заменяет производный метод репозитория, чтобы на чтение распространялись ограничение времени
+     * выполнения и крайний срок запроса.
+     *
+     * @param categories категории
+     * @return найденные сводки в произвольном порядке
+     */
+    Flux<CategoryStats> findAllById(Iterable<String> categories);
+
+    /**
+     * Применяет приращения к сводкам категорий одной неупорядоченной пакетной записью.
+     * Счетчики, суммы и столбцы ценовых диапазонов увеличиваются через {@code $inc},
+     * а заданные минимальная и максимальная цены учитываются через {@code $min} и {@code $max}.
+     * Отсутствующие сводки создаются.
+     *
+     * @param increments приращения сводок, по одному на категорию
+     * @return сигнал завершения
+     */
+    Mono<Void> applyIncrements(Collection<CategoryStats> increments);
+
+    /**
+     * Заново определяет минимальную и максимальную цены категорий по коллекции продуктов
+     * и удаляет сводки категорий, в которых не осталось продуктов.
+     * Цены определяются двумя запросами по индексу {@code category, price, _id} на категорию.
+     *
+     * @param categories категории, из которых удалялись продукты
+     * @return сигнал завершения
+     */
+    Mono<Void> refreshPriceRanges(Collection<String> categories);
+
+    /**
+     * Полностью пересчитывает сводки всех категорий одной агрегацией по коллекции продуктов
+     * и атомарно заменяет ими коллекцию сводок через {@code $out}.
+     *
+     * @param priceBoundaries возрастающие границы ценовых диапазонов
+     * @return количество категорий
+     */
+    Mono<Long> rebuild(List<Double> priceBoundaries);
+
+}
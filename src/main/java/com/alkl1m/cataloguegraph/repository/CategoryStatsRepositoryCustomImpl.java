@@ -0,0 +1,90 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import com.alkl1m.cataloguegraph.entity.CategoryStats;
+import com.alkl1m.cataloguegraph.entity.Product;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Реализация изменений сводок по категориям на основе {@link ReactiveMongoTemplate}.
+ * Перестроение сводок выполняется как пакетная операция {@link MongoOperationClass#BATCH}.
+ * Запросы строятся в {@link CategoryStatsQueries}, общих с блокирующим репозиторием.
+ *
+ * @author AlKl1M
+ */
+@RequiredArgsConstructor
+public class CategoryStatsRepositoryCustomImpl implements CategoryStatsRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final MongoOperationRouting routing;
+
+    @Override
+    public Flux<CategoryStats> findAllById(Iterable<String> categories) {
+        return routing.find(CategoryStatsQueries.byCategories(categories), CategoryStats.class,
+                MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Mono<Void> applyIncrements(Collection<CategoryStats> increments) {
+        var bulkOperations = mongoTemplate.bulkOps(BulkMode.UNORDERED, CategoryStats.class);
+        int updates = 0;
+        for (CategoryStats increment : increments) {
+            Update update = CategoryStatsQueries.incrementUpdate(increment);
+            if (!update.getUpdateObject().isEmpty()) {
+                bulkOperations.upsert(CategoryStatsQueries.byCategory(increment.getCategory()), update);
+                updates++;
+            }
+        }
+        return updates > 0 ? bulkOperations.execute().then() : Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> refreshPriceRanges(Collection<String> categories) {
+        if (categories.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(categories)
+                .flatMap(category -> Mono.zip(
+                                boundaryPrice(category, Sort.Direction.ASC),
+                                boundaryPrice(category, Sort.Direction.DESC))
+                        .map(prices -> CategoryStatsQueries.priceRange(prices.getT1(), prices.getT2()))
+                        .defaultIfEmpty(CategoryStatsQueries.priceRange(null, null))
+                        .flatMap(update -> mongoTemplate.updateFirst(CategoryStatsQueries.byCategory(category), update,
+                                CategoryStats.class)))
+                .then(mongoTemplate.remove(CategoryStatsQueries.empty(categories), CategoryStats.class))
+                .then();
+    }
+
+    @Override
+    public Mono<Long> rebuild(List<Double> priceBoundaries) {
+        List<Document> pipeline = CategoryStatsQueries.rebuild(priceBoundaries,
+                mongoTemplate.getCollectionName(CategoryStats.class));
+        return routing.template(MongoOperationClass.BATCH).getCollection(mongoTemplate.getCollectionName(Product.class))
+                .flatMap(products -> Mono.from(products
+                        .withReadPreference(routing.readPreference(MongoOperationClass.BATCH))
+                        .aggregate(pipeline)
+                        .maxTime(routing.maxTime(MongoOperationClass.BATCH).toMillis(), TimeUnit.MILLISECONDS)
+                        .toCollection()))
+                .then(mongoTemplate.count(new Query(), CategoryStats.class));
+    }
+
+    /**
+     * Находит наименьшую или наибольшую цену продуктов категории.
+     */
+    private Mono<Double> boundaryPrice(String category, Sort.Direction direction) {
+        return mongoTemplate.findOne(CategoryStatsQueries.boundaryPrice(category, direction), Product.class)
+                .mapNotNull(Product::getPrice);
+    }
+
+}
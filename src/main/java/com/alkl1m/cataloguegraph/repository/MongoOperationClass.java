@@ -0,0 +1,54 @@
+package com.alkl1m.cataloguegraph.repository;
+
+/**
+ * Класс операций чтения MongoDB со своими ограничением времени выполнения ({@code maxTimeMS})
+ * и предпочтением чтения. Аналитические и пакетные операции выполняются отдельным клиентом
+ * со своим пулом соединений, поэтому не занимают соединения, нужные запросам продуктов.
+ * Чтение по идентификаторам относится к спискам, поэтому на него тоже распространяются ограничение
+ * времени выполнения и крайний срок запроса. Изменения выполняются основным клиентом на первичном узле.
+ * Результаты списков и агрегатов рейтинга попадают в кэш средних рейтингов и кэш ответов, которые
+ * вытесняются после изменений. Чтение с отстающего вторичного узла сразу после вытеснения снова
+ * закэшировало бы устаревшее значение, поэтому по умолчанию эти классы читают с первичного узла.
+ * Полнотекстовый поиск читает с вторичных узлов с ограничением устаревания: его результаты в кэше ответов
+ * могут отставать от изменений на {@code maxStaleness} сверх времени жизни записи кэша.
+ *
+ * @author AlKl1M
+ */
+public enum MongoOperationClass {
+
+    /**
+     * Списки и окна продуктов и отзывов, чтение документов по идентификаторам.
+     */
+    LISTING(false),
+
+    /**
+     * Чтение агрегатов рейтинга продуктов.
+     */
+    RATING(false),
+
+    /**
+     * Полнотекстовый поиск продуктов с подсчетом фасетов.
+     */
+    ANALYTICS(true),
+
+    /**
+     * Чтение коллекций курсором и перестроение сводок по категориям.
+     */
+    BATCH(true);
+
+    private final boolean analytics;
+
+    MongoOperationClass(boolean analytics) {
+        this.analytics = analytics;
+    }
+
+    /**
+     * Проверяет, выполняются ли операции класса отдельным аналитическим клиентом.
+     *
+     * @return true, если операции выполняются аналитическим клиентом
+     */
+    public boolean isAnalytics() {
+        return analytics;
+    }
+
+}
@@ -0,0 +1,203 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import com.alkl1m.cataloguegraph.execution.RequestDeadline;
+import com.mongodb.ReadPreference;
+import com.mongodb.reactivestreams.client.MongoClient;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Маршрутизация операций чтения MongoDB по классам {@link MongoOperationClass}:
+ * выбор клиента, ограничения времени выполнения и предпочтения чтения.
+ * Классы без настроек выполняются без ограничения времени на первичном узле.
+ * Если в контексте Reactor есть крайний срок запроса {@link RequestDeadline}, {@code maxTimeMS}
+ * не превышает оставшегося до него времени, а после крайнего срока операция не начинается.
+ *
+ * @author AlKl1M
+ */
+public class MongoOperationRouting {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final MongoClient analyticsClient;
+    private final ReactiveMongoTemplate analyticsTemplate;
+    private final Map<MongoOperationClass, Duration> maxTimes;
+    private final Map<MongoOperationClass, ReadPreference> readPreferences;
+
+    /**
+     * @param mongoTemplate     шаблон основного клиента
+     * @param analyticsClient   аналитический клиент, закрываемый вместе с маршрутизацией
+     * @param analyticsTemplate шаблон аналитического клиента
+     * @param maxTimes          ограничения времени выполнения по классам операций (ноль — без ограничения)
+     * @param readPreferences   предпочтения чтения по классам операций
+     */
+    public MongoOperationRouting(ReactiveMongoTemplate mongoTemplate, MongoClient analyticsClient,
+                                 ReactiveMongoTemplate analyticsTemplate, Map<MongoOperationClass, Duration> maxTimes,
+                                 Map<MongoOperationClass, ReadPreference> readPreferences) {
+        this.mongoTemplate = mongoTemplate;
+        this.analyticsClient = analyticsClient;
+        this.analyticsTemplate = analyticsTemplate;
+        this.maxTimes = maxTimes.isEmpty() ? Map.of() : new EnumMap<>(maxTimes);
+        this.readPreferences = readPreferences.isEmpty() ? Map.of() : new EnumMap<>(readPreferences);
+    }
+
+    /**
+     * Возвращает шаблон клиента, выполняющего операции класса.
+     *
+     * @param operation класс операции
+     * @return шаблон аналитического или основного клиента
+     */
+    public ReactiveMongoTemplate template(MongoOperationClass operation) {
+        return operation.isAnalytics() ? analyticsTemplate : mongoTemplate;
+    }
+
+    /**
+     * Находит документы запросом класса операции.
+     *
+     * @param query     запрос
+     * @param type      тип документов
+     * @param operation класс операции
+     * @param <T>       тип документов
+     * @return найденные документы
+     */
+    public <T> Flux<T> find(Query query, Class<T> type, MongoOperationClass operation) {
+        return Flux.deferContextual(context -> template(operation).find(prepare(query, operation, context), type));
+    }
+
+    /**
+     * Находит первый документ запросом класса операции.
+     *
+     * @param query     запрос
+     * @param type      тип документа
+     * @param operation класс операции
+     * @param <T>       тип документа
+     * @return найденный документ или пустой результат
+     */
+    public <T> Mono<T> findOne(Query query, Class<T> type, MongoOperationClass operation) {
+        return Mono.deferContextual(context -> template(operation).findOne(prepare(query, operation, context), type));
+    }
+
+    /**
+     * Получает окно документов запросом класса операции.
+     *
+     * @param query     запрос с позицией прокрутки
+     * @param type      тип документов
+     * @param operation класс операции
+     * @param <T>       тип документов
+     * @return окно документов
+     */
+    public <T> Mono<Window<T>> scroll(Query query, Class<T> type, MongoOperationClass operation) {
+        return Mono.deferContextual(context -> template(operation).scroll(prepare(query, operation, context), type));
+    }
+
+    /**
+     * Выполняет агрегацию с параметрами класса операции.
+     *
+     * @param aggregation агрегация
+     * @param outputType  тип результатов
+     * @param operation   класс операции
+     * @param <O>         тип результатов
+     * @return результаты агрегации
+     */
+    public <O> Flux<O> aggregate(TypedAggregation<?> aggregation, Class<O> outputType, MongoOperationClass operation) {
+        return Flux.deferContextual(context -> template(operation).aggregate(
+                aggregation.withOptions(aggregationOptions(operation, context)), outputType));
+    }
+
+    /**
+     * Возвращает ограничение времени выполнения операций класса.
+     *
+     * @param operation класс операции
+     * @return ограничение времени выполнения (ноль — без ограничения)
+     */
+    public Duration maxTime(MongoOperationClass operation) {
+        return maxTimes.getOrDefault(operation, Duration.ZERO);
+    }
+
+    /**
+     * Возвращает предпочтение чтения операций класса.
+     *
+     * @param operation класс операции
+     * @return предпочтение чтения
+     */
+    public ReadPreference readPreference(MongoOperationClass operation) {
+        return readPreferences.getOrDefault(operation, ReadPreference.primary());
+    }
+
+    /**
+     * Применяет к запросу ограничение времени выполнения и предпочтение чтения класса операции.
+     * Используется и блокирующими репозиториями, выполняющими запрос синхронным драйвером.
+     *
+     * @param query     запрос
+     * @param operation класс операции
+     * @param context   контекст Reactor с крайним сроком запроса
+     * @return тот же запрос
+     * @throws com.alkl1m.cataloguegraph.exception.DeadlineExceededException если крайний срок наступил
+     */
+    public Query prepare(Query query, MongoOperationClass operation, ContextView context) {
+        Duration maxTime = maxTime(operation, context);
+        if (!maxTime.isZero()) {
+            query.maxTime(maxTime);
+        }
+        return query.withReadPreference(readPreference(operation));
+    }
+
+    /**
+     * Строит параметры агрегации с ограничением времени выполнения и предпочтением чтения класса операции.
+     *
+     * @param operation класс операции
+     * @param context   контекст Reactor с крайним сроком запроса
+     * @return параметры агрегации
+     * @throws com.alkl1m.cataloguegraph.exception.DeadlineExceededException если крайний срок наступил
+     */
+    public AggregationOptions aggregationOptions(MongoOperationClass operation, ContextView context) {
+        AggregationOptions.Builder options = AggregationOptions.builder()
+                .readPreference(readPreference(operation));
+        Duration maxTime = maxTime(operation, context);
+        if (!maxTime.isZero()) {
+            options.maxTime(maxTime);
+        }
+        return options.build();
+    }
+
+    /**
+     * Определяет ограничение времени выполнения операции: наименьшее из ограничения класса и времени,
+     * оставшегося до крайнего срока запроса, но не меньше миллисекунды, так как ноль означает отсутствие
+     * ограничения.
+     *
+     * @throws com.alkl1m.cataloguegraph.exception.DeadlineExceededException если крайний срок наступил
+     */
+    private Duration maxTime(MongoOperationClass operation, ContextView context) {
+        Duration maxTime = maxTime(operation);
+        Optional<RequestDeadline> deadline = RequestDeadline.from(context);
+        if (deadline.isEmpty()) {
+            return maxTime;
+        }
+        if (deadline.get().isExpired()) {
+            throw deadline.get().exceeded();
+        }
+        Duration remaining = deadline.get().remaining();
+        if (remaining.toMillis() < 1) {
+            remaining = Duration.ofMillis(1);
+        }
+        return maxTime.isZero() || remaining.compareTo(maxTime) < 0 ? remaining : maxTime;
+    }
+
+    /**
+     * Закрывает аналитический клиент.
+     */
+    public void close() {
+        analyticsClient.close();
+    }
+
+}
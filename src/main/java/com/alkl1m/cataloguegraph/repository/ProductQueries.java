@@ -0,0 +1,369 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import com.alkl1m.cataloguegraph.dto.FacetCount;
+import com.alkl1m.cataloguegraph.dto.PriceRangeCount;
+import com.alkl1m.cataloguegraph.dto.ProductSearchResult;
+import com.alkl1m.cataloguegraph.dto.SearchFacet;
+import com.alkl1m.cataloguegraph.dto.SearchFilters;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import org.bson.Document;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Streamable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Запросы, изменения и агрегации коллекции продуктов, общие для реактивных и блокирующих репозиториев.
+ *
+ * @author AlKl1M
+ */
+public final class ProductQueries {
+
+    private static final Sort PRICE_ORDER = Sort.by(Sort.Order.asc("price"), Sort.Order.asc("id"));
+
+    /**
+     * Сортировка по убыванию релевантности, а затем по идентификатору.
+     * Задается документом, так как {@link Sort} не выражает сортировку по {@code $meta}.
+     */
+    private static final AggregationOperation RELEVANCE_ORDER = context -> new Document("$sort",
+            new Document("score", new Document("$meta", "textScore")).append("_id", 1));
+
+    /**
+     * Идентификатор корзины фасета цены для продуктов без цены.
+     */
+    private static final String NO_PRICE_BUCKET = "none";
+
+    private ProductQueries() {
+    }
+
+    /**
+     * Строит запрос продукта по идентификатору.
+     *
+     * @param id уникальный идентификатор продукта
+     * @return запрос продукта
+     */
+    public static Query byId(String id) {
+        return new Query(where("id").is(id));
+    }
+
+    /**
+     * Строит запрос продуктов по идентификаторам.
+     *
+     * @param ids уникальные идентификаторы продуктов
+     * @return запрос продуктов
+     */
+    public static Query byIds(Iterable<String> ids) {
+        return new Query(where("id").in(Streamable.of(ids).toList()));
+    }
+
+    /**
+     * Строит запрос продукта по идентификатору, загружающий только идентификатор.
+     *
+     * @param id уникальный идентификатор продукта
+     * @return запрос существования продукта
+     */
+    public static Query exists(String id) {
+        Query query = byId(id);
+        query.fields().include("id");
+        return query;
+    }
+
+    /**
+     * Строит запрос страницы продуктов по категории и ценовому диапазону, упорядоченных по цене
+     * и идентификатору.
+     *
+     * @param category категория продуктов (может быть null)
+     * @param minPrice минимальная цена продуктов (может быть null)
+     * @param maxPrice максимальная цена продуктов (может быть null)
+     * @param skip     количество пропускаемых продуктов
+     * @param limit    максимальное количество возвращаемых продуктов
+     * @param fields   загружаемые поля документа (пустая коллекция — все поля)
+     * @return запрос страницы продуктов
+     */
+    public static Query filtered(String category, Double minPrice, Double maxPrice, long skip, int limit,
+                                 Collection<String> fields) {
+        Query query = new Query(filterCriteria(category, minPrice, maxPrice))
+                .with(PRICE_ORDER)
+                .skip(skip)
+                .limit(limit);
+        return Projections.include(query, fields);
+    }
+
+    /**
+     * Строит запрос окна продуктов по категории и ценовому диапазону, следующих за указанной позицией.
+     *
+     * @param category категория продуктов (может быть null)
+     * @param minPrice минимальная цена продуктов (может быть null)
+     * @param maxPrice максимальная цена продуктов (может быть null)
+     * @param position позиция, после которой начинается окно
+     * @param limit    максимальное количество продуктов в окне
+     * @param fields   загружаемые поля документа (пустая коллекция — все поля)
+     * @return запрос окна продуктов
+     */
+    public static Query scrollFiltered(String category, Double minPrice, Double maxPrice, ScrollPosition position,
+                                       int limit, Collection<String> fields) {
+        Query query = new Query(filterCriteria(category, minPrice, maxPrice))
+                .with(PRICE_ORDER)
+                .with(position)
+                .limit(limit);
+        return Projections.include(query, fields);
+    }
+
+    /**
+     * Строит агрегацию полнотекстового поиска: страница продуктов, общее количество и запрошенные фасеты
+     * вычисляются одним этапом {@code $facet}.
+     *
+     * @param text            поисковый запрос
+     * @param filters         фильтры по категориям и ценовому диапазону
+     * @param facets          подсчитываемые фасеты
+     * @param priceBoundaries возрастающие границы ценовых диапазонов фасета цены
+     * @param skip            количество пропускаемых продуктов
+     * @param limit           максимальное количество возвращаемых продуктов
+     * @param fields          загружаемые поля документа (пустая коллекция — все поля)
+     * @return агрегация поиска, возвращающая один документ
+     */
+    public static TypedAggregation<Product> search(String text, SearchFilters filters, Collection<SearchFacet> facets,
+                                                   List<Double> priceBoundaries, long skip, int limit,
+                                                   Collection<String> fields) {
+        List<AggregationOperation> page = new ArrayList<>(List.of(RELEVANCE_ORDER, Aggregation.skip(skip),
+                Aggregation.limit(limit)));
+        if (!fields.isEmpty()) {
+            Document projection = new Document();
+            fields.forEach(field -> projection.append(field.equals("id") ? "_id" : field, 1));
+            page.add(context -> new Document("$project", projection));
+        }
+        FacetOperation facet = Aggregation.facet(page.toArray(AggregationOperation[]::new)).as("products")
+                .and(Aggregation.count().as("total")).as("total");
+        if (facets.contains(SearchFacet.CATEGORY)) {
+            facet = facet.and(Aggregation.sortByCount("category")).as("categories");
+        }
+        if (withPriceRanges(facets, priceBoundaries)) {
+            List<Object> boundaries = new ArrayList<>(priceBoundaries);
+            boundaries.add(Double.MAX_VALUE);
+            facet = facet.and(Aggregation.bucket("price")
+                    .withBoundaries(boundaries.toArray())
+                    .withDefaultBucket(NO_PRICE_BUCKET)).as("priceRanges");
+        }
+
+        return Aggregation.newAggregation(Product.class,
+                Aggregation.match(TextCriteria.forDefaultLanguage().matching(text)),
+                Aggregation.match(searchCriteria(filters)),
+                facet);
+    }
+
+    /**
+     * Разбирает результат агрегации {@link #search}.
+     *
+     * @param result          документ результата агрегации
+     * @param facets          подсчитываемые фасеты
+     * @param priceBoundaries возрастающие границы ценовых диапазонов фасета цены
+     * @param converter       преобразователь документов продуктов
+     * @return найденные продукты и фасеты
+     */
+    public static ProductSearchResult searchResult(Document result, Collection<SearchFacet> facets,
+                                                   List<Double> priceBoundaries, MongoConverter converter) {
+        return new ProductSearchResult(
+                result.getList("total", Document.class).stream()
+                        .mapToLong(total -> total.get("total", Number.class).longValue())
+                        .sum(),
+                result.getList("products", Document.class).stream()
+                        .map(product -> converter.read(Product.class, product))
+                        .toList(),
+                facets.contains(SearchFacet.CATEGORY) ? categoryCounts(result) : null,
+                withPriceRanges(facets, priceBoundaries) ? priceRangeCounts(result, priceBoundaries) : null);
+    }
+
+    /**
+     * Строит запрос агрегатов рейтинга продукта: количества и суммы оценок.
+     *
+     * @param id уникальный идентификатор продукта
+     * @return запрос агрегатов рейтинга
+     */
+    public static Query rating(String id) {
+        Query query = byId(id);
+        query.fields().include("ratingCount", "ratingSum");
+        return query;
+    }
+
+    /**
+     * Строит изменение описательных полей продукта, увеличивающее его версию.
+     * Поля, равные null в объекте изменений, не меняются.
+     *
+     * @param changes новые значения полей продукта
+     * @return изменение продукта
+     */
+    public static Update fieldsUpdate(Product changes) {
+        Update update = new Update().inc(VersionedUpdates.VERSION, 1);
+        setIfNotNull(update, "name", changes.getName());
+        setIfNotNull(update, "description", changes.getDescription());
+        setIfNotNull(update, "price", changes.getPrice());
+        setIfNotNull(update, "category", changes.getCategory());
+        return update;
+    }
+
+    /**
+     * Строит операцию {@code $inc} агрегатов рейтинга для добавленной и удаленной оценок.
+     * Версия продукта не меняется.
+     *
+     * @param addedRating   добавленная оценка (может быть null)
+     * @param removedRating удаленная оценка (может быть null)
+     * @return изменение агрегатов или null, если оценки взаимно компенсируются
+     */
+    public static Update ratingAdjustment(Integer addedRating, Integer removedRating) {
+        Map<String, Long> increments = new HashMap<>();
+        if (addedRating != null) {
+            mergeRating(increments, addedRating, 1);
+        }
+        if (removedRating != null) {
+            mergeRating(increments, removedRating, -1);
+        }
+        Update update = ratingUpdate(increments);
+        return update.getUpdateObject().isEmpty() ? null : VersionedUpdates.keepVersion(update);
+    }
+
+    /**
+     * Строит операции {@code $inc} агрегатов рейтинга по продуктам добавленных отзывов.
+     * Версии продуктов не меняются.
+     *
+     * @param reviews добавленные отзывы
+     * @return изменения агрегатов по идентификаторам продуктов
+     */
+    public static Map<String, Update> ratingIncrements(Collection<Review> reviews) {
+        Map<String, Map<String, Long>> incrementsByProductId = new HashMap<>();
+        for (Review review : reviews) {
+            mergeRating(incrementsByProductId.computeIfAbsent(review.getProductId(), productId -> new HashMap<>()),
+                    review.getRating(), 1);
+        }
+        Map<String, Update> updates = new HashMap<>();
+        incrementsByProductId.forEach((productId, increments) ->
+                updates.put(productId, VersionedUpdates.keepVersion(ratingUpdate(increments))));
+        return updates;
+    }
+
+    /**
+     * Строит запрос всех продуктов для чтения курсором.
+     *
+     * @param batchSize количество документов в одном пакете курсора
+     * @return запрос всех продуктов
+     */
+    public static Query all(int batchSize) {
+        return new Query().cursorBatchSize(batchSize);
+    }
+
+    /**
+     * Строит запрос продуктов с отзывами для чтения курсором, загружающий только категорию и агрегаты рейтинга.
+     *
+     * @param batchSize количество документов в одном пакете курсора
+     * @return запрос продуктов с отзывами
+     */
+    public static Query rated(int batchSize) {
+        Query query = new Query(where("ratingCount").gt(0)).cursorBatchSize(batchSize);
+        query.fields().include("category", "ratingCount", "ratingSum");
+        return query;
+    }
+
+    /**
+     * Добавляет к приращениям агрегатов рейтинга одну оценку с указанным знаком.
+     */
+    private static void mergeRating(Map<String, Long> increments, int rating, int sign) {
+        increments.merge("ratingCount", (long) sign, Long::sum);
+        increments.merge("ratingSum", (long) sign * rating, Long::sum);
+        increments.merge("ratingHistogram." + rating, (long) sign, Long::sum);
+    }
+
+    /**
+     * Строит операцию {@code $inc} из ненулевых приращений.
+     */
+    private static Update ratingUpdate(Map<String, Long> increments) {
+        Update update = new Update();
+        increments.forEach((key, delta) -> {
+            if (delta != 0) {
+                update.inc(key, delta);
+            }
+        });
+        return update;
+    }
+
+    private static void setIfNotNull(Update update, String key, Object value) {
+        if (value != null) {
+            update.set(key, value);
+        }
+    }
+
+    private static boolean withPriceRanges(Collection<SearchFacet> facets, List<Double> priceBoundaries) {
+        return facets.contains(SearchFacet.PRICE) && !priceBoundaries.isEmpty();
+    }
+
+    private static List<FacetCount> categoryCounts(Document result) {
+        return result.getList("categories", Document.class).stream()
+                .map(category -> new FacetCount(category.getString("_id"),
+                        category.get("count", Number.class).longValue()))
+                .toList();
+    }
+
+    /**
+     * Сопоставляет корзины {@code $bucket}, идентифицируемые нижней границей, с ценовыми диапазонами.
+     * Последний диапазон не ограничен сверху; продукты без цены не учитываются.
+     */
+    private static List<PriceRangeCount> priceRangeCounts(Document result, List<Double> priceBoundaries) {
+        return result.getList("priceRanges", Document.class).stream()
+                .filter(bucket -> bucket.get("_id") instanceof Number)
+                .map(bucket -> {
+                    double from = bucket.get("_id", Number.class).doubleValue();
+                    int next = priceBoundaries.indexOf(from) + 1;
+                    return new PriceRangeCount(from, next < priceBoundaries.size() ? priceBoundaries.get(next) : null,
+                            bucket.get("count", Number.class).longValue());
+                })
+                .toList();
+    }
+
+    /**
+     * Строит условие поиска по категориям и ценовому диапазону.
+     */
+    private static Criteria searchCriteria(SearchFilters filters) {
+        Criteria criteria = filterCriteria(null, filters.minPrice(), filters.maxPrice());
+        if (filters.categories() != null && !filters.categories().isEmpty()) {
+            criteria.and("category").in(filters.categories());
+        }
+        return criteria;
+    }
+
+    /**
+     * Строит условие выборки по категории и ценовому диапазону.
+     * Порядок условий соответствует составному индексу {@code category, price, _id}.
+     */
+    private static Criteria filterCriteria(String category, Double minPrice, Double maxPrice) {
+        Criteria criteria = new Criteria();
+        if (category != null) {
+            criteria.and("category").is(category);
+        }
+        if (minPrice != null || maxPrice != null) {
+            Criteria price = criteria.and("price");
+            if (minPrice != null) {
+                price.gte(minPrice);
+            }
+            if (maxPrice != null) {
+                price.lte(maxPrice);
+            }
+        }
+        return criteria;
+    }
+
+}
@@ -3,11 +3,25 @@ package com.alkl1m.cataloguegraph.repository;
 import com.alkl1m.cataloguegraph.entity.Product;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
 
 /**
+ * Репозиторий продуктов. Чтение по идентификаторам реализовано в {@link ProductRepositoryCustom}
+ * и переобъявлено здесь, чтобы вызовы не были неоднозначными.
+ *
  * @author AlKl1M
  */
 @Repository
-public interface ProductRepository extends ReactiveMongoRepository<Product, String> {
+public interface ProductRepository extends ReactiveMongoRepository<Product, String>, ProductRepositoryCustom {
+
+    @Override
+    Mono<Product> findById(String id);
+
+    @Override
+    Mono<Boolean> existsById(String id);
+
+    Mono<Long> deleteByIdIn(Collection<String> ids);
 
 }
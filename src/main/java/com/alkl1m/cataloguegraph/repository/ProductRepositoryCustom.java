@@ -0,0 +1,176 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import com.alkl1m.cataloguegraph.dto.BulkError;
+import com.alkl1m.cataloguegraph.dto.ProductSearchResult;
+import com.alkl1m.cataloguegraph.dto.SearchFacet;
+import com.alkl1m.cataloguegraph.dto.SearchFilters;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Запросы к коллекции продуктов, которые не выражаются производными методами репозитория.
+ *
+ * @author AlKl1M
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Находит продукт по идентификатору как операцию {@link MongoOperationClass#LISTING}.
+     * Заменяет производный метод репозитория, чтобы на чтение распространялись ограничение времени
+     * выполнения и крайний срок запроса.
+     *
+     * @param id уникальный идентификатор продукта
+     * @return продукт или пустой результат, если продукт не найден
+     */
+    Mono<Product> findById(String id);
+
+    /**
+     * Находит продукты по идентификаторам одним запросом как операцию {@link MongoOperationClass#LISTING}.
+     *
+     * @param ids уникальные идентификаторы продуктов
+     * @return найденные продукты в произвольном порядке
+     */
+    Flux<Product> findAllById(Iterable<String> ids);
+
+    /**
+     * Проверяет существование продукта как операцию {@link MongoOperationClass#LISTING}.
+     *
+     * @param id уникальный идентификатор продукта
+     * @return true, если продукт существует
+     */
+    Mono<Boolean> existsById(String id);
+
+    /**
+     * Находит продукты по категории и ценовому диапазону.
+     * Фильтрация, сортировка (по цене, затем по идентификатору) и пагинация выполняются на стороне MongoDB.
+     *
+     * @param category категория продуктов (может быть null)
+     * @param minPrice минимальная цена продуктов (может быть null)
+     * @param maxPrice максимальная цена продуктов (может быть null)
+     * @param skip     количество пропускаемых продуктов
+     * @param limit    максимальное количество возвращаемых продуктов
+     * @param fields   загружаемые поля документа (пустая коллекция — все поля)
+     * @return продукты, удовлетворяющие фильтрам
+     */
+    Flux<Product> findFiltered(String category, Double minPrice, Double maxPrice, long skip, int limit,
+                               Collection<String> fields);
+
+    /**
+     * Получает окно продуктов, следующих за указанной позицией, по категории и ценовому диапазону.
+     * Для keyset-позиции продолжение выборки строится диапазонным условием по ключам сортировки
+     * (цена, идентификатор), поэтому стоимость запроса не зависит от глубины прокрутки.
+     *
+     * @param category категория продуктов (может быть null)
+     * @param minPrice минимальная цена продуктов (может быть null)
+     * @param maxPrice максимальная цена продуктов (может быть null)
+     * @param position позиция, после которой начинается окно
+     * @param limit    максимальное количество продуктов в окне
+     * @param fields   загружаемые поля документа (пустая коллекция — все поля)
+     * @return окно продуктов, удовлетворяющих фильтрам
+     */
+    Mono<Window<Product>> scrollFiltered(String category, Double minPrice, Double maxPrice,
+                                         ScrollPosition position, int limit, Collection<String> fields);
+
+    /**
+     * Выполняет полнотекстовый поиск продуктов по названию и описанию.
+     * Страница продуктов, общее количество и запрошенные фасеты вычисляются одной агрегацией
+     * с этапом {@code $facet} по результатам текстового индекса. Продукты упорядочены по убыванию
+     * релевантности, а при равной релевантности — по идентификатору.
+     *
+     * @param text            поисковый запрос
+     * @param filters         фильтры по категориям и ценовому диапазону
+     * @param facets          подсчитываемые фасеты
+     * @param priceBoundaries возрастающие границы ценовых диапазонов фасета цены
+     * @param skip            количество пропускаемых продуктов
+     * @param limit           максимальное количество возвращаемых продуктов
+     * @param fields          загружаемые поля документа (пустая коллекция — все поля)
+     * @return найденные продукты и фасеты
+     */
+    Mono<ProductSearchResult> search(String text, SearchFilters filters, Collection<SearchFacet> facets,
+                                     List<Double> priceBoundaries, long skip, int limit, Collection<String> fields);
+
+    /**
+     * Находит агрегаты рейтинга продукта: количество и сумму оценок.
+     * Остальные поля продукта не загружаются.
+     *
+     * @param id уникальный идентификатор продукта
+     * @return продукт с агрегатами рейтинга или пустой результат, если продукт не найден
+     */
+    Mono<Product> findRating(String id);
+
+    /**
+     * Атомарно изменяет описательные поля продукта одной операцией {@code findAndModify}
+     * и увеличивает его версию. Поля, равные null в объекте изменений, не меняются.
+     *
+     * @param id              уникальный идентификатор продукта
+     * @param changes         новые значения полей продукта
+     * @param expectedVersion версия, которую должен иметь продукт (null — любая версия)
+     * @return продукт до изменения или пустой результат, если продукт не найден или его версия отличается
+     */
+    Mono<Product> updateFields(String id, Product changes, Long expectedVersion);
+
+    /**
+     * Атомарно удаляет продукт одной операцией {@code findAndRemove}.
+     *
+     * @param id уникальный идентификатор продукта
+     * @return удаленный продукт или пустой результат, если продукт не найден
+     */
+    Mono<Product> removeById(String id);
+
+    /**
+     * Атомарно изменяет агрегаты рейтинга продукта одной операцией {@code $inc}.
+     * Добавленная оценка увеличивает количество, сумму и столбец гистограммы, удаленная — уменьшает их.
+     * Замена оценки передается как пара из добавленной и удаленной оценок. Версия продукта не меняется.
+     *
+     * @param productId     уникальный идентификатор продукта
+     * @param addedRating   добавленная оценка (может быть null)
+     * @param removedRating удаленная оценка (может быть null)
+     * @return продукт с обновленными агрегатами или пустой результат, если продукт не найден
+     */
+    Mono<Product> adjustRating(String productId, Integer addedRating, Integer removedRating);
+
+    /**
+     * Учитывает оценки добавленных отзывов в агрегатах рейтинга продуктов.
+     * Оценки группируются по продукту, и каждый продукт обновляется одной операцией {@code $inc}
+     * в составе одной неупорядоченной пакетной записи.
+     *
+     * @param reviews добавленные отзывы
+     * @return сигнал завершения
+     */
+    Mono<Void> addRatings(Collection<Review> reviews);
+
+    /**
+     * Читает все продукты курсором с ограниченным размером пакета.
+     * Следующий пакет запрашивается у сервера только по мере запроса элементов подписчиком,
+     * поэтому потребление памяти не зависит от размера коллекции.
+     *
+     * @param batchSize количество документов в одном пакете курсора
+     * @return все продукты
+     */
+    Flux<Product> streamAll(int batchSize);
+
+    /**
+     * Читает курсором продукты с отзывами, загружая только идентификатор, категорию и агрегаты рейтинга.
+     *
+     * @param batchSize количество документов в одном пакете курсора
+     * @return продукты с отзывами без остальных полей
+     */
+    Flux<Product> streamRated(int batchSize);
+
+    /**
+     * Вставляет продукты одной неупорядоченной пакетной записью.
+     * Идентификаторы продуктов должны быть назначены заранее.
+     *
+     * @param products продукты для вставки
+     * @return ошибки по продуктам, которые не удалось вставить
+     */
+    Mono<List<BulkError>> bulkInsert(List<Product> products);
+
+}
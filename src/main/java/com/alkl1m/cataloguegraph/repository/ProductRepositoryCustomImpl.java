@@ -0,0 +1,138 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import com.alkl1m.cataloguegraph.dto.BulkError;
+import com.alkl1m.cataloguegraph.dto.ProductSearchResult;
+import com.alkl1m.cataloguegraph.dto.SearchFacet;
+import com.alkl1m.cataloguegraph.dto.SearchFilters;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Реализация запросов к коллекции продуктов на основе {@link ReactiveMongoTemplate}.
+ * Чтения списков, рейтингов, поиска и курсоров маршрутизируются по классам {@link MongoOperationClass}.
+ * Запросы строятся в {@link ProductQueries}, общих с блокирующим репозиторием.
+ *
+ * @author AlKl1M
+ */
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final MongoOperationRouting routing;
+
+    @Override
+    public Mono<Product> findById(String id) {
+        return routing.findOne(ProductQueries.byId(id), Product.class, MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Flux<Product> findAllById(Iterable<String> ids) {
+        return routing.find(ProductQueries.byIds(ids), Product.class, MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return routing.findOne(ProductQueries.exists(id), Product.class, MongoOperationClass.LISTING)
+                .hasElement();
+    }
+
+    @Override
+    public Flux<Product> findFiltered(String category, Double minPrice, Double maxPrice, long skip, int limit,
+                                      Collection<String> fields) {
+        return routing.find(ProductQueries.filtered(category, minPrice, maxPrice, skip, limit, fields), Product.class,
+                MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Mono<Window<Product>> scrollFiltered(String category, Double minPrice, Double maxPrice,
+                                                ScrollPosition position, int limit, Collection<String> fields) {
+        return routing.scroll(ProductQueries.scrollFiltered(category, minPrice, maxPrice, position, limit, fields),
+                Product.class, MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Mono<ProductSearchResult> search(String text, SearchFilters filters, Collection<SearchFacet> facets,
+                                            List<Double> priceBoundaries, long skip, int limit,
+                                            Collection<String> fields) {
+        TypedAggregation<Product> aggregation = ProductQueries.search(text, filters, facets, priceBoundaries, skip,
+                limit, fields);
+        return routing.aggregate(aggregation, Document.class, MongoOperationClass.ANALYTICS)
+                .next()
+                .map(result -> ProductQueries.searchResult(result, facets, priceBoundaries,
+                        mongoTemplate.getConverter()));
+    }
+
+    @Override
+    public Mono<Product> findRating(String id) {
+        return routing.findOne(ProductQueries.rating(id), Product.class, MongoOperationClass.RATING);
+    }
+
+    @Override
+    public Mono<Product> updateFields(String id, Product changes, Long expectedVersion) {
+        return mongoTemplate.findAndModify(VersionedUpdates.byIdAndVersion(id, expectedVersion),
+                ProductQueries.fieldsUpdate(changes), FindAndModifyOptions.options().returnNew(false), Product.class);
+    }
+
+    @Override
+    public Mono<Product> removeById(String id) {
+        return mongoTemplate.findAndRemove(ProductQueries.byId(id), Product.class);
+    }
+
+    @Override
+    public Mono<Product> adjustRating(String productId, Integer addedRating, Integer removedRating) {
+        Update update = ProductQueries.ratingAdjustment(addedRating, removedRating);
+        if (update == null) {
+            return mongoTemplate.findOne(ProductQueries.byId(productId), Product.class);
+        }
+        return mongoTemplate.findAndModify(ProductQueries.byId(productId), update,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+    }
+
+    @Override
+    public Mono<Void> addRatings(Collection<Review> reviews) {
+        Map<String, Update> increments = ProductQueries.ratingIncrements(reviews);
+        if (increments.isEmpty()) {
+            return Mono.empty();
+        }
+
+        var bulkOperations = mongoTemplate.bulkOps(BulkMode.UNORDERED, Product.class);
+        increments.forEach((productId, update) -> bulkOperations.updateOne(ProductQueries.byId(productId), update));
+        return bulkOperations.execute().then();
+    }
+
+    @Override
+    public Flux<Product> streamAll(int batchSize) {
+        return routing.find(ProductQueries.all(batchSize), Product.class, MongoOperationClass.BATCH);
+    }
+
+    @Override
+    public Flux<Product> streamRated(int batchSize) {
+        return routing.find(ProductQueries.rated(batchSize), Product.class, MongoOperationClass.BATCH);
+    }
+
+    @Override
+    public Mono<List<BulkError>> bulkInsert(List<Product> products) {
+        if (products.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return BulkWrites.errorsOf(mongoTemplate.bulkOps(BulkMode.UNORDERED, Product.class)
+                .insert(products)
+                .execute());
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collection;
+
+/**
+ * Применение проекции полей к запросам MongoDB.
+ *
+ * @author AlKl1M
+ */
+final class Projections {
+
+    private Projections() {
+    }
+
+    /**
+     * Ограничивает загружаемые поля документа указанными.
+     * Пустая коллекция означает загрузку всех полей.
+     *
+     * @param query  запрос
+     * @param fields загружаемые поля документа
+     * @return тот же запрос с проекцией
+     */
+    static Query include(Query query, Collection<String> fields) {
+        if (!fields.isEmpty()) {
+            query.fields().include(fields.toArray(String[]::new));
+        }
+        return query;
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Запросы и изменения коллекции отзывов, общие для реактивных и блокирующих репозиториев.
+ *
+ * @author AlKl1M
+ */
+public final class ReviewQueries {
+
+    private static final Sort ID_ORDER = Sort.by(Sort.Order.asc("id"));
+
+    private ReviewQueries() {
+    }
+
+    /**
+     * Строит запрос отзыва по идентификатору.
+     *
+     * @param id уникальный идентификатор отзыва
+     * @return запрос отзыва
+     */
+    public static Query byId(String id) {
+        return new Query(where("id").is(id));
+    }
+
+    /**
+     * Строит запрос отзыва по идентификатору, загружающий только идентификатор.
+     *
+     * @param id уникальный идентификатор отзыва
+     * @return запрос существования отзыва
+     */
+    public static Query exists(String id) {
+        Query query = byId(id);
+        query.fields().include("id");
+        return query;
+    }
+
+    /**
+     * Строит запрос всех отзывов продукта.
+     *
+     * @param productId уникальный идентификатор продукта
+     * @return запрос отзывов продукта
+     */
+    public static Query byProductId(String productId) {
+        return new Query(where("productId").is(productId));
+    }
+
+    /**
+     * Строит запрос отзывов нескольких продуктов.
+     *
+     * @param productIds уникальные идентификаторы продуктов
+     * @return запрос отзывов продуктов
+     */
+    public static Query byProductIds(Collection<String> productIds) {
+        return new Query(where("productId").in(productIds));
+    }
+
+    /**
+     * Строит запрос страницы отзывов продукта.
+     *
+     * @param productId уникальный идентификатор продукта
+     * @param pageable  номер, размер и сортировка страницы
+     * @param fields    загружаемые поля документа (пустая коллекция — все поля)
+     * @return запрос страницы отзывов
+     */
+    public static Query page(String productId, Pageable pageable, Collection<String> fields) {
+        return Projections.include(byProductId(productId).with(pageable), fields);
+    }
+
+    /**
+     * Строит запрос окна отзывов продукта, упорядоченных по идентификатору, следующих за указанной позицией.
+     *
+     * @param productId уникальный идентификатор продукта
+     * @param position  позиция, после которой начинается окно
+     * @param limit     максимальное количество отзывов в окне
+     * @param fields    загружаемые поля документа (пустая коллекция — все поля)
+     * @return запрос окна отзывов
+     */
+    public static Query scroll(String productId, ScrollPosition position, int limit, Collection<String> fields) {
+        Query query = byProductId(productId)
+                .with(ID_ORDER)
+                .with(position)
+                .limit(limit);
+        return Projections.include(query, fields);
+    }
+
+    /**
+     * Строит изменение оценки и комментария отзыва, увеличивающее его версию. Поля, равные null, не меняются.
+     *
+     * @param rating  новая оценка (может быть null)
+     * @param comment новый комментарий (может быть null)
+     * @return изменение отзыва
+     */
+    public static Update fieldsUpdate(Integer rating, String comment) {
+        Update update = new Update().inc(VersionedUpdates.VERSION, 1);
+        if (rating != null) {
+            update.set("rating", rating);
+        }
+        if (comment != null) {
+            update.set("comment", comment);
+        }
+        return update;
+    }
+
+    /**
+     * Строит запрос всех отзывов для чтения курсором.
+     *
+     * @param batchSize количество документов в одном пакете курсора
+     * @return запрос всех отзывов
+     */
+    public static Query all(int batchSize) {
+        return new Query().cursorBatchSize(batchSize);
+    }
+
+    /**
+     * Строит запрос отзывов, созданных не раньше указанного момента, для чтения курсором.
+     * Загружаются только идентификатор продукта, оценка и время создания.
+     *
+     * @param since     момент, начиная с которого читаются отзывы
+     * @param batchSize количество документов в одном пакете курсора
+     * @return запрос отзывов
+     */
+    public static Query createdSince(LocalDateTime since, int batchSize) {
+        Query query = new Query(where("createdAt").gte(since))
+                .cursorBatchSize(batchSize);
+        return Projections.include(query, List.of("productId", "rating", "createdAt"));
+    }
+
+}
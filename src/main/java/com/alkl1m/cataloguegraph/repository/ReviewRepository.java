@@ -3,14 +3,21 @@ package com.alkl1m.cataloguegraph.repository;
 import com.alkl1m.cataloguegraph.entity.Review;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
-import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
+ * Репозиторий отзывов. Чтение по идентификатору реализовано в {@link ReviewRepositoryCustom}
+ * и переобъявлено здесь, чтобы вызовы не были неоднозначными.
+ *
  * @author AlKl1M
  */
 @Repository
-public interface ReviewRepository extends ReactiveMongoRepository<Review, String> {
+public interface ReviewRepository extends ReactiveMongoRepository<Review, String>, ReviewRepositoryCustom {
 
-    Flux<Review> findByProductId(String productId);
+    @Override
+    Mono<Review> findById(String id);
+
+    @Override
+    Mono<Boolean> existsById(String id);
 
 }
@@ -0,0 +1,130 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import com.alkl1m.cataloguegraph.dto.BulkError;
+import com.alkl1m.cataloguegraph.entity.Review;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Запросы к коллекции отзывов, которые не выражаются производными методами репозитория.
+ *
+ * @author AlKl1M
+ */
+public interface ReviewRepositoryCustom {
+
+    /**
+     * Находит отзыв по идентификатору как операцию {@link MongoOperationClass#LISTING}.
+     * Заменяет производный метод репозитория, чтобы на чтение распространялись ограничение времени
+     * выполнения и крайний срок запроса.
+     *
+     * @param id уникальный идентификатор отзыва
+     * @return отзыв или пустой результат, если отзыв не найден
+     */
+    Mono<Review> findById(String id);
+
+    /**
+     * Проверяет существование отзыва как операцию {@link MongoOperationClass#LISTING}.
+     *
+     * @param id уникальный идентификатор отзыва
+     * @return true, если отзыв существует
+     */
+    Mono<Boolean> existsById(String id);
+
+    /**
+     * Получает все отзывы продукта.
+     *
+     * @param productId уникальный идентификатор продукта
+     * @return отзывы продукта
+     */
+    Flux<Review> findByProductId(String productId);
+
+    /**
+     * Получает отзывы нескольких продуктов одним запросом.
+     *
+     * @param productIds уникальные идентификаторы продуктов
+     * @return отзывы продуктов
+     */
+    Flux<Review> findByProductIdIn(Collection<String> productIds);
+
+    /**
+     * Получает страницу отзывов продукта.
+     *
+     * @param productId уникальный идентификатор продукта
+     * @param pageable  номер, размер и сортировка страницы
+     * @param fields    загружаемые поля документа (пустая коллекция — все поля)
+     * @return отзывы продукта на странице
+     */
+    Flux<Review> findPageByProductId(String productId, Pageable pageable, Collection<String> fields);
+
+    /**
+     * Получает окно отзывов продукта, следующих за указанной позицией.
+     * Отзывы упорядочены по идентификатору, то есть по времени создания.
+     *
+     * @param productId уникальный идентификатор продукта
+     * @param position  позиция, после которой начинается окно
+     * @param limit     максимальное количество отзывов в окне
+     * @param fields    загружаемые поля документа (пустая коллекция — все поля)
+     * @return окно отзывов продукта
+     */
+    Mono<Window<Review>> scrollByProductId(String productId, ScrollPosition position, int limit,
+                                           Collection<String> fields);
+
+    /**
+     * Атомарно изменяет оценку и комментарий отзыва одной операцией {@code findAndModify}
+     * и увеличивает его версию. Поля, равные null, не меняются.
+     *
+     * @param id              уникальный идентификатор отзыва
+     * @param rating          новая оценка (может быть null)
+     * @param comment         новый комментарий (может быть null)
+     * @param expectedVersion версия, которую должен иметь отзыв (null — любая версия)
+     * @return отзыв до изменения или пустой результат, если отзыв не найден или его версия отличается
+     */
+    Mono<Review> updateFields(String id, Integer rating, String comment, Long expectedVersion);
+
+    /**
+     * Атомарно удаляет отзыв одной операцией {@code findAndRemove}.
+     * Отзыв возвращается только одному из одновременных удалений, поэтому его оценка
+     * исключается из агрегатов рейтинга продукта ровно один раз.
+     *
+     * @param id уникальный идентификатор отзыва
+     * @return удаленный отзыв или пустой результат, если отзыв не найден
+     */
+    Mono<Review> removeById(String id);
+
+    /**
+     * Читает все отзывы курсором с ограниченным размером пакета.
+     * Следующий пакет запрашивается у сервера только по мере запроса элементов подписчиком,
+     * поэтому потребление памяти не зависит от размера коллекции.
+     *
+     * @param batchSize количество документов в одном пакете курсора
+     * @return все отзывы
+     */
+    Flux<Review> streamAll(int batchSize);
+
+    /**
+     * Читает курсором отзывы, созданные не раньше указанного момента.
+     * Загружаются только идентификатор продукта, оценка и время создания.
+     *
+     * @param since     момент, начиная с которого читаются отзывы
+     * @param batchSize количество документов в одном пакете курсора
+     * @return отзывы, созданные начиная с указанного момента
+     */
+    Flux<Review> streamCreatedSince(LocalDateTime since, int batchSize);
+
+    /**
+     * Вставляет отзывы одной неупорядоченной пакетной записью.
+     * Идентификаторы отзывов должны быть назначены заранее.
+     *
+     * @param reviews отзывы для вставки
+     * @return ошибки по отзывам, которые не удалось вставить
+     */
+    Mono<List<BulkError>> bulkInsert(List<Review> reviews);
+
+}
@@ -0,0 +1,98 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import com.alkl1m.cataloguegraph.dto.BulkError;
+import com.alkl1m.cataloguegraph.entity.Review;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Реализация запросов к коллекции отзывов на основе {@link ReactiveMongoTemplate}.
+ * Чтения списков и курсоров маршрутизируются по классам {@link MongoOperationClass}.
+ * Запросы строятся в {@link ReviewQueries}, общих с блокирующим репозиторием.
+ *
+ * @author AlKl1M
+ */
+@RequiredArgsConstructor
+public class ReviewRepositoryCustomImpl implements ReviewRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final MongoOperationRouting routing;
+
+    @Override
+    public Mono<Review> findById(String id) {
+        return routing.findOne(ReviewQueries.byId(id), Review.class, MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return routing.findOne(ReviewQueries.exists(id), Review.class, MongoOperationClass.LISTING)
+                .hasElement();
+    }
+
+    @Override
+    public Flux<Review> findByProductId(String productId) {
+        return routing.find(ReviewQueries.byProductId(productId), Review.class, MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Flux<Review> findByProductIdIn(Collection<String> productIds) {
+        return routing.find(ReviewQueries.byProductIds(productIds), Review.class, MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Flux<Review> findPageByProductId(String productId, Pageable pageable, Collection<String> fields) {
+        return routing.find(ReviewQueries.page(productId, pageable, fields), Review.class,
+                MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Mono<Window<Review>> scrollByProductId(String productId, ScrollPosition position, int limit,
+                                                  Collection<String> fields) {
+        return routing.scroll(ReviewQueries.scroll(productId, position, limit, fields), Review.class,
+                MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Mono<Review> updateFields(String id, Integer rating, String comment, Long expectedVersion) {
+        return mongoTemplate.findAndModify(VersionedUpdates.byIdAndVersion(id, expectedVersion),
+                ReviewQueries.fieldsUpdate(rating, comment), FindAndModifyOptions.options().returnNew(false),
+                Review.class);
+    }
+
+    @Override
+    public Mono<Review> removeById(String id) {
+        return mongoTemplate.findAndRemove(ReviewQueries.byId(id), Review.class);
+    }
+
+    @Override
+    public Flux<Review> streamAll(int batchSize) {
+        return routing.find(ReviewQueries.all(batchSize), Review.class, MongoOperationClass.BATCH);
+    }
+
+    @Override
+    public Flux<Review> streamCreatedSince(LocalDateTime since, int batchSize) {
+        return routing.find(ReviewQueries.createdSince(since, batchSize), Review.class, MongoOperationClass.BATCH);
+    }
+
+    @Override
+    public Mono<List<BulkError>> bulkInsert(List<Review> reviews) {
+        if (reviews.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return BulkWrites.errorsOf(mongoTemplate.bulkOps(BulkMode.UNORDERED, Review.class)
+                .insert(reviews)
+                .execute());
+    }
+
+}
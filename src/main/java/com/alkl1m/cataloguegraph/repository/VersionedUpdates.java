@@ -0,0 +1,49 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Изменение документов с полем версии {@code @Version}.
+ * Изменения агрегатов рейтинга, в том числе вне репозиториев, оставляют версию без изменений,
+ * чтобы не вызывать конфликтов оптимистической блокировки у клиентов.
+ *
+ * @author AlKl1M
+ */
+public final class VersionedUpdates {
+
+    static final String VERSION = "version";
+
+    private VersionedUpdates() {
+    }
+
+    /**
+     * Строит запрос документа по идентификатору, а при заданной версии — только документа этой версии.
+     *
+     * @param id              уникальный идентификатор документа
+     * @param expectedVersion ожидаемая версия документа (null — любая версия)
+     * @return запрос документа
+     */
+    public static Query byIdAndVersion(String id, Long expectedVersion) {
+        Query query = new Query(where("id").is(id));
+        if (expectedVersion != null) {
+            query.addCriteria(where(VERSION).is(expectedVersion));
+        }
+        return query;
+    }
+
+    /**
+     * Оставляет версию документа без изменений.
+     * Шаблон увеличивает версию при любом изменении документа, если операция сама ее не затрагивает,
+     * поэтому версия явно увеличивается на ноль.
+     *
+     * @param update операция изменения
+     * @return та же операция изменения
+     */
+    public static Update keepVersion(Update update) {
+        return update.inc(VERSION, 0);
+    }
+
+}
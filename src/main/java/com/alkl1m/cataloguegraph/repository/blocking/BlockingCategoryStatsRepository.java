@@ -0,0 +1,98 @@
+package com.alkl1m.cataloguegraph.repository.blocking;
+
+import com.alkl1m.cataloguegraph.entity.CategoryStats;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.repository.CategoryStatsQueries;
+import com.alkl1m.cataloguegraph.repository.CategoryStatsRepository;
+import com.alkl1m.cataloguegraph.repository.MongoOperationClass;
+import com.alkl1m.cataloguegraph.repository.MongoOperationRouting;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Репозиторий сводок по категориям на синхронном драйвере MongoDB.
+ * Выполняет те же запросы {@link CategoryStatsQueries}, что и реактивный репозиторий.
+ *
+ * @author AlKl1M
+ */
+public class BlockingCategoryStatsRepository extends BlockingMongoRepository<CategoryStats>
+        implements CategoryStatsRepository {
+
+    /**
+     * @param operations операции синхронного драйвера
+     */
+    public BlockingCategoryStatsRepository(BlockingMongoOperations operations) {
+        super(operations, CategoryStats.class);
+    }
+
+    @Override
+    public Mono<Void> applyIncrements(Collection<CategoryStats> increments) {
+        return operations.run(() -> {
+            BulkOperations bulkOperations = operations.template().bulkOps(BulkMode.UNORDERED, CategoryStats.class);
+            int updates = 0;
+            for (CategoryStats increment : increments) {
+                Update update = CategoryStatsQueries.incrementUpdate(increment);
+                if (!update.getUpdateObject().isEmpty()) {
+                    bulkOperations.upsert(CategoryStatsQueries.byCategory(increment.getCategory()), update);
+                    updates++;
+                }
+            }
+            if (updates > 0) {
+                bulkOperations.execute();
+            }
+        });
+    }
+
+    @Override
+    public Mono<Void> refreshPriceRanges(Collection<String> categories) {
+        if (categories.isEmpty()) {
+            return Mono.empty();
+        }
+        return operations.run(() -> {
+            MongoTemplate mongoTemplate = operations.template();
+            for (String category : categories) {
+                mongoTemplate.updateFirst(CategoryStatsQueries.byCategory(category), CategoryStatsQueries.priceRange(
+                        boundaryPrice(category, Sort.Direction.ASC),
+                        boundaryPrice(category, Sort.Direction.DESC)), CategoryStats.class);
+            }
+            mongoTemplate.remove(CategoryStatsQueries.empty(categories), CategoryStats.class);
+        });
+    }
+
+    @Override
+    public Mono<Long> rebuild(List<Double> priceBoundaries) {
+        MongoOperationRouting routing = operations.routing();
+        return operations.call(() -> {
+            MongoTemplate mongoTemplate = operations.template();
+            List<Document> pipeline = CategoryStatsQueries.rebuild(priceBoundaries,
+                    mongoTemplate.getCollectionName(CategoryStats.class));
+            operations.template(MongoOperationClass.BATCH)
+                    .getCollection(mongoTemplate.getCollectionName(Product.class))
+                    .withReadPreference(routing.readPreference(MongoOperationClass.BATCH))
+                    .aggregate(pipeline)
+                    .maxTime(routing.maxTime(MongoOperationClass.BATCH).toMillis(), TimeUnit.MILLISECONDS)
+                    .toCollection();
+            return mongoTemplate.count(new Query(), CategoryStats.class);
+        });
+    }
+
+    /**
+     * Находит наименьшую или наибольшую цену продуктов категории.
+     */
+    private Double boundaryPrice(String category, Sort.Direction direction) {
+        Product product = operations.template().findOne(CategoryStatsQueries.boundaryPrice(category, direction),
+                Product.class);
+        return product != null ? product.getPrice() : null;
+    }
+
+}
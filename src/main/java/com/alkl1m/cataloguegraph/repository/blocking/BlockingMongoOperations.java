@@ -0,0 +1,193 @@
+package com.alkl1m.cataloguegraph.repository.blocking;
+
+import com.alkl1m.cataloguegraph.repository.MongoOperationClass;
+import com.alkl1m.cataloguegraph.repository.MongoOperationRouting;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Выполнение операций синхронного драйвера MongoDB для блокирующих репозиториев.
+ * Операция, на которую подписываются в виртуальном потоке, — например, в потоке корневого поля блокирующего
+ * режима выполнения, — выполняется в нем же: поток ждет ответа MongoDB, а не передает результат колбэком.
+ * Подписки из остальных потоков (загрузчики DataLoader, задачи, потоки Netty) выполняют операцию в новом
+ * виртуальном потоке {@value #THREAD_PREFIX}N, чтобы не блокировать вызывающий поток.
+ * Чтения маршрутизируются по классам {@link MongoOperationClass} с теми же ограничениями времени выполнения,
+ * предпочтениями чтения и крайним сроком запроса, что и в реактивных репозиториях; операции аналитических
+ * классов выполняет аналитический клиент. Начатая операция не прерывается отменой подписки,
+ * ее длительность ограничивает {@code maxTimeMS}.
+ *
+ * @author AlKl1M
+ */
+public class BlockingMongoOperations {
+
+    /**
+     * Префикс имен виртуальных потоков, выполняющих операции вне виртуальных потоков вызывающих.
+     */
+    public static final String THREAD_PREFIX = "mongo-vt-";
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoTemplate analyticsTemplate;
+    private final MongoOperationRouting routing;
+    private final Scheduler scheduler = Schedulers.fromExecutorService(Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name(THREAD_PREFIX, 0).factory()), "blocking-mongo");
+
+    /**
+     * @param mongoTemplate     шаблон основного синхронного клиента
+     * @param analyticsTemplate шаблон аналитического синхронного клиента
+     * @param routing           маршрутизация операций с настройками классов операций
+     */
+    public BlockingMongoOperations(MongoTemplate mongoTemplate, MongoTemplate analyticsTemplate,
+                                   MongoOperationRouting routing) {
+        this.mongoTemplate = mongoTemplate;
+        this.analyticsTemplate = analyticsTemplate;
+        this.routing = routing;
+    }
+
+    /**
+     * Возвращает шаблон основного клиента для записей и операций без класса.
+     *
+     * @return шаблон основного клиента
+     */
+    public MongoTemplate template() {
+        return mongoTemplate;
+    }
+
+    /**
+     * Возвращает шаблон клиента, выполняющего операции класса.
+     *
+     * @param operation класс операции
+     * @return шаблон аналитического или основного клиента
+     */
+    public MongoTemplate template(MongoOperationClass operation) {
+        return operation.isAnalytics() ? analyticsTemplate : mongoTemplate;
+    }
+
+    /**
+     * Возвращает маршрутизацию операций.
+     *
+     * @return маршрутизация операций
+     */
+    public MongoOperationRouting routing() {
+        return routing;
+    }
+
+    /**
+     * Выполняет блокирующий вызов при подписке.
+     *
+     * @param call вызов; результат null означает пустой результат
+     * @param <T>  тип результата
+     * @return результат вызова
+     */
+    public <T> Mono<T> call(Callable<T> call) {
+        Mono<T> result = Mono.fromCallable(call);
+        return Mono.defer(() -> Thread.currentThread().isVirtual() ? result : result.subscribeOn(scheduler));
+    }
+
+    /**
+     * Выполняет блокирующее действие при подписке.
+     *
+     * @param action действие
+     * @return сигнал завершения
+     */
+    public Mono<Void> run(Runnable action) {
+        return call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Находит документы запросом класса операции.
+     *
+     * @param query     запрос
+     * @param type      тип документов
+     * @param operation класс операции
+     * @param <T>       тип документов
+     * @return найденные документы
+     */
+    public <T> Flux<T> find(Query query, Class<T> type, MongoOperationClass operation) {
+        return Mono.deferContextual(context -> call(() -> template(operation)
+                        .find(routing.prepare(query, operation, context), type)))
+                .flatMapIterable(Function.identity());
+    }
+
+    /**
+     * Находит первый документ запросом класса операции.
+     *
+     * @param query     запрос
+     * @param type      тип документа
+     * @param operation класс операции
+     * @param <T>       тип документа
+     * @return найденный документ или пустой результат
+     */
+    public <T> Mono<T> findOne(Query query, Class<T> type, MongoOperationClass operation) {
+        return Mono.deferContextual(context -> call(() -> template(operation)
+                .findOne(routing.prepare(query, operation, context), type)));
+    }
+
+    /**
+     * Получает окно документов запросом класса операции.
+     *
+     * @param query     запрос с позицией прокрутки
+     * @param type      тип документов
+     * @param operation класс операции
+     * @param <T>       тип документов
+     * @return окно документов
+     */
+    public <T> Mono<Window<T>> scroll(Query query, Class<T> type, MongoOperationClass operation) {
+        return Mono.deferContextual(context -> call(() -> template(operation)
+                .scroll(routing.prepare(query, operation, context), type)));
+    }
+
+    /**
+     * Выполняет агрегацию с параметрами класса операции.
+     *
+     * @param aggregation агрегация
+     * @param outputType  тип результатов
+     * @param operation   класс операции
+     * @param <O>         тип результатов
+     * @return результаты агрегации
+     */
+    public <O> Flux<O> aggregate(TypedAggregation<?> aggregation, Class<O> outputType,
+                                 MongoOperationClass operation) {
+        return Mono.deferContextual(context -> call(() -> template(operation)
+                        .aggregate(aggregation.withOptions(routing.aggregationOptions(operation, context)), outputType)
+                        .getMappedResults()))
+                .flatMapIterable(Function.<List<O>>identity());
+    }
+
+    /**
+     * Читает документы курсором запросом класса операции. Следующий пакет курсора запрашивается
+     * по мере запроса элементов подписчиком, а курсор закрывается при завершении или отмене подписки.
+     *
+     * @param query     запрос с размером пакета курсора
+     * @param type      тип документов
+     * @param operation класс операции
+     * @param <T>       тип документов
+     * @return найденные документы
+     */
+    public <T> Flux<T> stream(Query query, Class<T> type, MongoOperationClass operation) {
+        Flux<T> documents = Flux.deferContextual(context -> Flux.fromStream(() -> template(operation)
+                .stream(routing.prepare(query, operation, context), type)));
+        return Flux.defer(() -> Thread.currentThread().isVirtual() ? documents : documents.subscribeOn(scheduler));
+    }
+
+    /**
+     * Останавливает планировщик операций.
+     */
+    public void close() {
+        scheduler.dispose();
+    }
+
+}
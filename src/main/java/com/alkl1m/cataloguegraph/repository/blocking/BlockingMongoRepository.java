@@ -0,0 +1,206 @@
+package com.alkl1m.cataloguegraph.repository.blocking;
+
+import com.alkl1m.cataloguegraph.repository.MongoOperationClass;
+import org.reactivestreams.Publisher;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.mongodb.repository.query.MongoEntityInformation;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.mongodb.repository.support.SimpleMongoRepository;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.data.util.Streamable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Базовая реализация репозитория на синхронном драйвере MongoDB для блокирующего режима выполнения.
+ * Операции CRUD выполняет {@link SimpleMongoRepository} Spring Data, поэтому сохранение, проверка версий
+ * и запросы по образцу ведут себя так же, как у реактивных репозиториев. Чтения по идентификаторам
+ * маршрутизируются как операции {@link MongoOperationClass#LISTING}, а чтение всех сущностей идет курсором
+ * как операция {@link MongoOperationClass#BATCH}. Каждая операция выполняется
+ * через {@link BlockingMongoOperations}. Fluent-запросы по образцу не поддерживаются: сервисы их не используют.
+ *
+ * @param <T> тип сущности
+ * @author AlKl1M
+ */
+abstract class BlockingMongoRepository<T> implements ReactiveMongoRepository<T, String> {
+
+    protected final BlockingMongoOperations operations;
+    protected final Class<T> type;
+    private final MongoEntityInformation<T, String> entityInformation;
+    private final SimpleMongoRepository<T, String> delegate;
+
+    /**
+     * @param operations операции синхронного драйвера
+     * @param type       тип сущности
+     */
+    protected BlockingMongoRepository(BlockingMongoOperations operations, Class<T> type) {
+        this.operations = operations;
+        this.type = type;
+        this.entityInformation = new MongoRepositoryFactory(operations.template()).getEntityInformation(type);
+        this.delegate = new SimpleMongoRepository<>(entityInformation, operations.template());
+    }
+
+    @Override
+    public <S extends T> Mono<S> save(S entity) {
+        return operations.call(() -> delegate.save(entity));
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Iterable<S> entities) {
+        return operations.call(() -> delegate.saveAll(entities))
+                .flatMapIterable(Function.identity());
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream).concatMap(this::save);
+    }
+
+    @Override
+    public <S extends T> Mono<S> insert(S entity) {
+        return operations.call(() -> delegate.insert(entity));
+    }
+
+    @Override
+    public <S extends T> Flux<S> insert(Iterable<S> entities) {
+        return operations.call(() -> delegate.insert(entities))
+                .flatMapIterable(Function.identity());
+    }
+
+    @Override
+    public <S extends T> Flux<S> insert(Publisher<S> entities) {
+        return Flux.from(entities).concatMap(this::insert);
+    }
+
+    @Override
+    public Mono<T> findById(String id) {
+        return operations.findOne(byId(id), type, MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Mono<T> findById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        Query query = byId(id);
+        query.fields().include(entityInformation.getIdAttribute());
+        return operations.findOne(query, type, MongoOperationClass.LISTING)
+                .hasElement();
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<T> findAll() {
+        return operations.stream(new Query(), type, MongoOperationClass.BATCH);
+    }
+
+    @Override
+    public Flux<T> findAll(Sort sort) {
+        return operations.stream(new Query().with(sort), type, MongoOperationClass.BATCH);
+    }
+
+    @Override
+    public Flux<T> findAllById(Iterable<String> ids) {
+        return operations.find(new Query(where(entityInformation.getIdAttribute()).in(Streamable.of(ids).toList())),
+                type, MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Flux<T> findAllById(Publisher<String> idStream) {
+        return Flux.from(idStream).collectList().flatMapMany(this::findAllById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return operations.call(delegate::count);
+    }
+
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return operations.run(() -> delegate.deleteById(id));
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(T entity) {
+        return operations.run(() -> delegate.delete(entity));
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends String> ids) {
+        return operations.run(() -> delegate.deleteAllById(ids));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends T> entities) {
+        return operations.run(() -> delegate.deleteAll(entities));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends T> entityStream) {
+        return Flux.from(entityStream).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return operations.run(delegate::deleteAll);
+    }
+
+    @Override
+    public <S extends T> Mono<S> findOne(Example<S> example) {
+        return operations.call(() -> delegate.findOne(example).orElse(null));
+    }
+
+    @Override
+    public <S extends T> Flux<S> findAll(Example<S> example) {
+        return operations.call(() -> delegate.findAll(example))
+                .flatMapIterable(Function.identity());
+    }
+
+    @Override
+    public <S extends T> Flux<S> findAll(Example<S> example, Sort sort) {
+        return operations.call(() -> delegate.findAll(example, sort))
+                .flatMapIterable(Function.identity());
+    }
+
+    @Override
+    public <S extends T> Mono<Long> count(Example<S> example) {
+        return operations.call(() -> delegate.count(example));
+    }
+
+    @Override
+    public <S extends T> Mono<Boolean> exists(Example<S> example) {
+        return operations.call(() -> delegate.exists(example));
+    }
+
+    @Override
+    public <S extends T, R, P extends Publisher<R>> P findBy(Example<S> example,
+                                                            Function<FluentQuery.ReactiveFluentQuery<S>, P> queryFunction) {
+        throw new UnsupportedOperationException("Fluent query by example is not supported by the blocking repository");
+    }
+
+    /**
+     * Строит запрос сущности по идентификатору.
+     */
+    private Query byId(String id) {
+        return new Query(where(entityInformation.getIdAttribute()).is(id));
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.alkl1m.cataloguegraph.repository.blocking;
+
+import com.alkl1m.cataloguegraph.dto.BulkError;
+import com.alkl1m.cataloguegraph.dto.ProductSearchResult;
+import com.alkl1m.cataloguegraph.dto.SearchFacet;
+import com.alkl1m.cataloguegraph.dto.SearchFilters;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.repository.BulkWrites;
+import com.alkl1m.cataloguegraph.repository.MongoOperationClass;
+import com.alkl1m.cataloguegraph.repository.ProductQueries;
+import com.alkl1m.cataloguegraph.repository.ProductRepository;
+import com.alkl1m.cataloguegraph.repository.VersionedUpdates;
+import org.bson.Document;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Репозиторий продуктов на синхронном драйвере MongoDB.
+ * Выполняет те же запросы {@link ProductQueries}, что и реактивный репозиторий, с теми же классами операций.
+ *
+ * @author AlKl1M
+ */
+public class BlockingProductRepository extends BlockingMongoRepository<Product> implements ProductRepository {
+
+    /**
+     * @param operations операции синхронного драйвера
+     */
+    public BlockingProductRepository(BlockingMongoOperations operations) {
+        super(operations, Product.class);
+    }
+
+    @Override
+    public Flux<Product> findFiltered(String category, Double minPrice, Double maxPrice, long skip, int limit,
+                                      Collection<String> fields) {
+        return operations.find(ProductQueries.filtered(category, minPrice, maxPrice, skip, limit, fields),
+                Product.class, MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Mono<Window<Product>> scrollFiltered(String category, Double minPrice, Double maxPrice,
+                                                ScrollPosition position, int limit, Collection<String> fields) {
+        return operations.scroll(ProductQueries.scrollFiltered(category, minPrice, maxPrice, position, limit, fields),
+                Product.class, MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Mono<ProductSearchResult> search(String text, SearchFilters filters, Collection<SearchFacet> facets,
+                                            List<Double> priceBoundaries, long skip, int limit,
+                                            Collection<String> fields) {
+        return operations.aggregate(ProductQueries.search(text, filters, facets, priceBoundaries, skip, limit, fields),
+                        Document.class, MongoOperationClass.ANALYTICS)
+                .next()
+                .map(result -> ProductQueries.searchResult(result, facets, priceBoundaries,
+                        operations.template().getConverter()));
+    }
+
+    @Override
+    public Mono<Product> findRating(String id) {
+        return operations.findOne(ProductQueries.rating(id), Product.class, MongoOperationClass.RATING);
+    }
+
+    @Override
+    public Mono<Product> updateFields(String id, Product changes, Long expectedVersion) {
+        return operations.call(() -> operations.template().findAndModify(
+                VersionedUpdates.byIdAndVersion(id, expectedVersion), ProductQueries.fieldsUpdate(changes),
+                FindAndModifyOptions.options().returnNew(false), Product.class));
+    }
+
+    @Override
+    public Mono<Product> removeById(String id) {
+        return operations.call(() -> operations.template().findAndRemove(ProductQueries.byId(id), Product.class));
+    }
+
+    @Override
+    public Mono<Product> adjustRating(String productId, Integer addedRating, Integer removedRating) {
+        Update update = ProductQueries.ratingAdjustment(addedRating, removedRating);
+        if (update == null) {
+            return operations.call(() -> operations.template().findOne(ProductQueries.byId(productId),
+                    Product.class));
+        }
+        return operations.call(() -> operations.template().findAndModify(ProductQueries.byId(productId), update,
+                FindAndModifyOptions.options().returnNew(true), Product.class));
+    }
+
+    @Override
+    public Mono<Void> addRatings(Collection<Review> reviews) {
+        Map<String, Update> increments = ProductQueries.ratingIncrements(reviews);
+        if (increments.isEmpty()) {
+            return Mono.empty();
+        }
+        return operations.run(() -> {
+            BulkOperations bulkOperations = operations.template().bulkOps(BulkMode.UNORDERED, Product.class);
+            increments.forEach((productId, update) ->
+                    bulkOperations.updateOne(ProductQueries.byId(productId), update));
+            bulkOperations.execute();
+        });
+    }
+
+    @Override
+    public Flux<Product> streamAll(int batchSize) {
+        return operations.stream(ProductQueries.all(batchSize), Product.class, MongoOperationClass.BATCH);
+    }
+
+    @Override
+    public Flux<Product> streamRated(int batchSize) {
+        return operations.stream(ProductQueries.rated(batchSize), Product.class, MongoOperationClass.BATCH);
+    }
+
+    @Override
+    public Mono<List<BulkError>> bulkInsert(List<Product> products) {
+        if (products.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return BulkWrites.errorsOf(operations.call(() -> operations.template()
+                .bulkOps(BulkMode.UNORDERED, Product.class)
+                .insert(products)
+                .execute()));
+    }
+
+    @Override
+    public Mono<Long> deleteByIdIn(Collection<String> ids) {
+        return operations.call(() -> operations.template()
+                .remove(new Query(where("id").in(ids)), Product.class)
+                .getDeletedCount());
+    }
+
+}
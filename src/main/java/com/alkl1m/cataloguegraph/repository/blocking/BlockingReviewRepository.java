@@ -0,0 +1,94 @@
+package com.alkl1m.cataloguegraph.repository.blocking;
+
+import com.alkl1m.cataloguegraph.dto.BulkError;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.repository.BulkWrites;
+import com.alkl1m.cataloguegraph.repository.MongoOperationClass;
+import com.alkl1m.cataloguegraph.repository.ReviewQueries;
+import com.alkl1m.cataloguegraph.repository.ReviewRepository;
+import com.alkl1m.cataloguegraph.repository.VersionedUpdates;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий отзывов на синхронном драйвере MongoDB.
+ * Выполняет те же запросы {@link ReviewQueries}, что и реактивный репозиторий, с теми же классами операций.
+ *
+ * @author AlKl1M
+ */
+public class BlockingReviewRepository extends BlockingMongoRepository<Review> implements ReviewRepository {
+
+    /**
+     * @param operations операции синхронного драйвера
+     */
+    public BlockingReviewRepository(BlockingMongoOperations operations) {
+        super(operations, Review.class);
+    }
+
+    @Override
+    public Flux<Review> findByProductId(String productId) {
+        return operations.find(ReviewQueries.byProductId(productId), Review.class, MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Flux<Review> findByProductIdIn(Collection<String> productIds) {
+        return operations.find(ReviewQueries.byProductIds(productIds), Review.class, MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Flux<Review> findPageByProductId(String productId, Pageable pageable, Collection<String> fields) {
+        return operations.find(ReviewQueries.page(productId, pageable, fields), Review.class,
+                MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Mono<Window<Review>> scrollByProductId(String productId, ScrollPosition position, int limit,
+                                                  Collection<String> fields) {
+        return operations.scroll(ReviewQueries.scroll(productId, position, limit, fields), Review.class,
+                MongoOperationClass.LISTING);
+    }
+
+    @Override
+    public Mono<Review> updateFields(String id, Integer rating, String comment, Long expectedVersion) {
+        return operations.call(() -> operations.template().findAndModify(
+                VersionedUpdates.byIdAndVersion(id, expectedVersion), ReviewQueries.fieldsUpdate(rating, comment),
+                FindAndModifyOptions.options().returnNew(false), Review.class));
+    }
+
+    @Override
+    public Mono<Review> removeById(String id) {
+        return operations.call(() -> operations.template().findAndRemove(ReviewQueries.byId(id), Review.class));
+    }
+
+    @Override
+    public Flux<Review> streamAll(int batchSize) {
+        return operations.stream(ReviewQueries.all(batchSize), Review.class, MongoOperationClass.BATCH);
+    }
+
+    @Override
+    public Flux<Review> streamCreatedSince(LocalDateTime since, int batchSize) {
+        return operations.stream(ReviewQueries.createdSince(since, batchSize), Review.class,
+                MongoOperationClass.BATCH);
+    }
+
+    @Override
+    public Mono<List<BulkError>> bulkInsert(List<Review> reviews) {
+        if (reviews.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return BulkWrites.errorsOf(operations.call(() -> operations.template()
+                .bulkOps(BulkMode.UNORDERED, Review.class)
+                .insert(reviews)
+                .execute()));
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.alkl1m.cataloguegraph.repository.inmemory;
+
+import com.alkl1m.cataloguegraph.entity.CategoryStats;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.repository.CategoryStatsRepository;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Репозиторий сводок по категориям в памяти.
+ * Приращения применяются к сводке под блокировкой репозитория, как атомарная запись в MongoDB,
+ * а минимальная и максимальная цены после удаления продуктов определяются по индексу
+ * категории и цены репозитория продуктов.
+ *
+ * @author AlKl1M
+ */
+public class InMemoryCategoryStatsRepository extends InMemoryRepository<CategoryStats> implements CategoryStatsRepository {
+
+    private final InMemoryProductRepository productRepository;
+
+    public InMemoryCategoryStatsRepository(InMemoryProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    public Mono<Void> applyIncrements(Collection<CategoryStats> increments) {
+        return Mono.fromRunnable(() -> increments.forEach(this::apply));
+    }
+
+    @Override
+    public Mono<Void> refreshPriceRanges(Collection<String> categories) {
+        return Mono.fromRunnable(() -> {
+            synchronized (this) {
+                for (String category : categories) {
+                    CategoryStats previous = entities.get(category);
+                    if (previous == null) {
+                        continue;
+                    }
+                    if (previous.getProductCount() <= 0) {
+                        take(category);
+                        continue;
+                    }
+                    CategoryStats stats = copy(previous);
+                    stats.setMinPrice(productRepository.boundaryPrice(category, false));
+                    stats.setMaxPrice(productRepository.boundaryPrice(category, true));
+                    replace(previous, stats);
+                }
+            }
+        });
+    }
+
+    @Override
+    public Mono<Long> rebuild(List<Double> priceBoundaries) {
+        return Mono.fromSupplier(() -> {
+            synchronized (this) {
+                entities.keySet().forEach(this::take);
+                for (Product product : productRepository.entities.values()) {
+                    if (product.getCategory() != null) {
+                        apply(increment(product, priceBoundaries));
+                    }
+                }
+                return (long) entities.size();
+            }
+        });
+    }
+
+    @Override
+    protected String idOf(CategoryStats stats) {
+        return stats.getCategory();
+    }
+
+    @Override
+    protected void assignId(CategoryStats stats, String id) {
+        stats.setCategory(id);
+    }
+
+    @Override
+    protected CategoryStats copy(CategoryStats stats) {
+        CategoryStats copy = new CategoryStats(stats.getCategory());
+        copy.setProductCount(stats.getProductCount());
+        copy.setPricedCount(stats.getPricedCount());
+        copy.setPriceSum(stats.getPriceSum());
+        copy.setMinPrice(stats.getMinPrice());
+        copy.setMaxPrice(stats.getMaxPrice());
+        copy.setRatingCount(stats.getRatingCount());
+        copy.setRatingSum(stats.getRatingSum());
+        copy.setPriceBands(new HashMap<>(stats.getPriceBands()));
+        return copy;
+    }
+
+    @Override
+    protected void index(CategoryStats stats) {
+    }
+
+    @Override
+    protected void unindex(CategoryStats stats) {
+    }
+
+    private synchronized void apply(CategoryStats increment) {
+        CategoryStats previous = entities.get(increment.getCategory());
+        CategoryStats stats = previous != null ? copy(previous) : new CategoryStats(increment.getCategory());
+        stats.setProductCount(stats.getProductCount() + increment.getProductCount());
+        stats.setPricedCount(stats.getPricedCount() + increment.getPricedCount());
+        stats.setPriceSum(stats.getPriceSum() + increment.getPriceSum());
+        stats.setRatingCount(stats.getRatingCount() + increment.getRatingCount());
+        stats.setRatingSum(stats.getRatingSum() + increment.getRatingSum());
+        increment.getPriceBands().forEach((band, delta) -> stats.getPriceBands().merge(band, delta, Long::sum));
+        if (increment.getMinPrice() != null) {
+            stats.setMinPrice(stats.getMinPrice() != null
+                    ? Math.min(stats.getMinPrice(), increment.getMinPrice()) : increment.getMinPrice());
+        }
+        if (increment.getMaxPrice() != null) {
+            stats.setMaxPrice(stats.getMaxPrice() != null
+                    ? Math.max(stats.getMaxPrice(), increment.getMaxPrice()) : increment.getMaxPrice());
+        }
+        replace(previous, stats);
+    }
+
+    private static CategoryStats increment(Product product, List<Double> priceBoundaries) {
+        CategoryStats increment = new CategoryStats(product.getCategory());
+        increment.setProductCount(1);
+        increment.setRatingCount(product.getRatingCount());
+        increment.setRatingSum(product.getRatingSum());
+        if (product.getPrice() != null) {
+            increment.setPricedCount(1);
+            increment.setPriceSum(product.getPrice());
+            increment.setMinPrice(product.getPrice());
+            increment.setMaxPrice(product.getPrice());
+            long band = priceBoundaries.stream()
+                    .filter(boundary -> boundary <= product.getPrice())
+                    .count() - 1;
+            if (band >= 0) {
+                increment.getPriceBands().put(String.valueOf(band), 1L);
+            }
+        }
+        return increment;
+    }
+
+}
@@ -0,0 +1,402 @@
+package com.alkl1m.cataloguegraph.repository.inmemory;
+
+import com.alkl1m.cataloguegraph.dto.BulkError;
+import com.alkl1m.cataloguegraph.dto.FacetCount;
+import com.alkl1m.cataloguegraph.dto.PriceRangeCount;
+import com.alkl1m.cataloguegraph.dto.ProductSearchResult;
+import com.alkl1m.cataloguegraph.dto.SearchFacet;
+import com.alkl1m.cataloguegraph.dto.SearchFilters;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.repository.ProductRepository;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.OffsetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Репозиторий продуктов в памяти.
+ * Индексы по цене и по категории с ценой повторяют составные индексы коллекции продуктов,
+ * поэтому выборка с фильтрами просматривает только подходящий диапазон. Ключи индексов хранят цену
+ * как примитив и не создают обертку на каждое сравнение.
+ * Инвертированный индекс слов названия и описания заменяет текстовый индекс: совпадение слова
+ * в названии весит {@value #NAME_WEIGHT}, в описании — 1, как веса полей текстового индекса.
+ *
+ * @author AlKl1M
+ */
+public class InMemoryProductRepository extends InMemoryRepository<Product> implements ProductRepository {
+
+    private static final String MAX_ID = "\uffff";
+    private static final int NAME_WEIGHT = 3;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final NavigableMap<PriceKey, Product> byPrice = new ConcurrentSkipListMap<>();
+    private final Map<String, NavigableMap<PriceKey, Product>> byCategoryAndPrice = new ConcurrentHashMap<>();
+    private final Map<String, PriceKey> indexedKeys = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Integer>> postings = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Integer>> indexedTerms = new ConcurrentHashMap<>();
+
+    @Override
+    public Flux<Product> findFiltered(String category, Double minPrice, Double maxPrice, long skip, int limit,
+                                      Collection<String> fields) {
+        return Flux.defer(() -> Flux.fromStream(range(category, minPrice, maxPrice, null)
+                        .skip(skip)
+                        .limit(limit)))
+                .map(this::read);
+    }
+
+    @Override
+    public Mono<Window<Product>> scrollFiltered(String category, Double minPrice, Double maxPrice,
+                                                ScrollPosition position, int limit, Collection<String> fields) {
+        return Mono.fromSupplier(() -> {
+            long offset = 0;
+            PriceKey after = null;
+            if (position instanceof KeysetScrollPosition keyset && !keyset.isInitial()) {
+                Map<String, Object> keys = keyset.getKeys();
+                after = PriceKey.of((Double) keys.get("price"), (String) keys.get("_id"), category);
+            } else if (position instanceof OffsetScrollPosition offsetPosition && !offsetPosition.isInitial()) {
+                offset = offsetPosition.getOffset() + 1;
+            }
+
+            List<Product> products = range(category, minPrice, maxPrice, after)
+                    .skip(offset)
+                    .limit(limit + 1L)
+                    .map(this::read)
+                    .toList();
+            boolean hasNext = products.size() > limit;
+            List<Product> content = hasNext ? products.subList(0, limit) : products;
+            return Window.from(content, index -> {
+                Map<String, Object> keys = new HashMap<>();
+                keys.put("price", content.get(index).getPrice());
+                keys.put("_id", content.get(index).getId());
+                return ScrollPosition.forward(keys);
+            }, hasNext);
+        });
+    }
+
+    @Override
+    public Mono<ProductSearchResult> search(String text, SearchFilters filters, Collection<SearchFacet> facets,
+                                            List<Double> priceBoundaries, long skip, int limit,
+                                            Collection<String> fields) {
+        return Mono.fromSupplier(() -> {
+            Map<String, Integer> scores = new HashMap<>();
+            for (String term : terms(text).keySet()) {
+                postings.getOrDefault(term, Map.of()).forEach((id, weight) -> scores.merge(id, weight, Integer::sum));
+            }
+            List<Product> hits = scores.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .map(hit -> entities.get(hit.getKey()))
+                    .filter(product -> product != null && matches(product, filters))
+                    .toList();
+
+            List<FacetCount> categories = null;
+            if (facets.contains(SearchFacet.CATEGORY)) {
+                categories = hits.stream()
+                        .collect(Collectors.groupingBy(Product::getCategory, Collectors.counting()))
+                        .entrySet().stream()
+                        .map(category -> new FacetCount(category.getKey(), category.getValue()))
+                        .sorted(Comparator.comparingLong(FacetCount::count).reversed())
+                        .toList();
+            }
+            List<PriceRangeCount> priceRanges = null;
+            if (facets.contains(SearchFacet.PRICE) && !priceBoundaries.isEmpty()) {
+                priceRanges = priceRangeCounts(hits, priceBoundaries);
+            }
+            return new ProductSearchResult(hits.size(), hits.stream().skip(skip).limit(limit).map(this::read).toList(),
+                    categories, priceRanges);
+        });
+    }
+
+    @Override
+    public Mono<Product> findRating(String id) {
+        return findById(id);
+    }
+
+    @Override
+    public Mono<Product> updateFields(String id, Product changes, Long expectedVersion) {
+        return Mono.fromSupplier(() -> {
+            synchronized (this) {
+                Product previous = entities.get(id);
+                if (previous == null || expectedVersion != null && !expectedVersion.equals(previous.getVersion())) {
+                    return null;
+                }
+                Product product = copy(previous);
+                if (changes.getName() != null) {
+                    product.setName(changes.getName());
+                }
+                if (changes.getDescription() != null) {
+                    product.setDescription(changes.getDescription());
+                }
+                if (changes.getPrice() != null) {
+                    product.setPrice(changes.getPrice());
+                }
+                if (changes.getCategory() != null) {
+                    product.setCategory(changes.getCategory());
+                }
+                product.setVersion(previous.getVersion() != null ? previous.getVersion() + 1 : 1L);
+                replace(previous, product);
+                return previous;
+            }
+        });
+    }
+
+    @Override
+    public Mono<Product> removeById(String id) {
+        return Mono.fromSupplier(() -> take(id));
+    }
+
+    @Override
+    public Mono<Product> adjustRating(String productId, Integer addedRating, Integer removedRating) {
+        return Mono.fromSupplier(() -> {
+            synchronized (this) {
+                Product previous = entities.get(productId);
+                if (previous == null) {
+                    return null;
+                }
+                Product product = copy(previous);
+                if (addedRating != null) {
+                    applyRating(product, addedRating, 1);
+                }
+                if (removedRating != null) {
+                    applyRating(product, removedRating, -1);
+                }
+                replace(previous, product);
+                return read(product);
+            }
+        });
+    }
+
+    @Override
+    public Mono<Void> addRatings(Collection<Review> reviews) {
+        return Mono.fromRunnable(() -> {
+            synchronized (this) {
+                for (Review review : reviews) {
+                    Product previous = entities.get(review.getProductId());
+                    if (previous != null) {
+                        Product product = copy(previous);
+                        applyRating(product, review.getRating(), 1);
+                        replace(previous, product);
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public Flux<Product> streamAll(int batchSize) {
+        return findAll();
+    }
+
+    @Override
+    public Flux<Product> streamRated(int batchSize) {
+        return findAll()
+                .filter(product -> product.getRatingCount() > 0);
+    }
+
+    @Override
+    public Mono<List<BulkError>> bulkInsert(List<Product> products) {
+        return Mono.fromSupplier(() -> {
+            List<BulkError> errors = new ArrayList<>();
+            for (int index = 0; index < products.size(); index++) {
+                Product product = products.get(index);
+                if (!insertIfAbsent(product)) {
+                    errors.add(new BulkError(index, "Duplicate key: " + product.getId()));
+                }
+            }
+            return errors;
+        });
+    }
+
+    @Override
+    public Mono<Long> deleteByIdIn(Collection<String> ids) {
+        return Mono.fromSupplier(() -> ids.stream()
+                .filter(this::remove)
+                .count());
+    }
+
+    @Override
+    protected String idOf(Product product) {
+        return product.getId();
+    }
+
+    @Override
+    protected void assignId(Product product, String id) {
+        product.setId(id);
+    }
+
+    @Override
+    protected Product copy(Product product) {
+        return new Product(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getCategory(), product.getRatingCount(), product.getRatingSum(),
+                new HashMap<>(product.getRatingHistogram()), product.getVersion());
+    }
+
+    @Override
+    protected Long versionOf(Product product) {
+        return product.getVersion();
+    }
+
+    @Override
+    protected void assignVersion(Product product, long version) {
+        product.setVersion(version);
+    }
+
+    @Override
+    protected boolean isVersioned() {
+        return true;
+    }
+
+    @Override
+    protected void index(Product product) {
+        PriceKey key = PriceKey.of(product.getPrice(), product.getId(), product.getCategory());
+        indexedKeys.put(product.getId(), key);
+        byPrice.put(key, product);
+        byCategoryAndPrice.computeIfAbsent(product.getCategory(), category -> new ConcurrentSkipListMap<>())
+                .put(key, product);
+
+        Map<String, Integer> terms = terms(product.getName(), NAME_WEIGHT);
+        terms(product.getDescription()).forEach((term, weight) -> terms.merge(term, weight, Integer::sum));
+        indexedTerms.put(product.getId(), terms);
+        terms.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>())
+                .put(product.getId(), weight));
+    }
+
+    @Override
+    protected void unindex(Product product) {
+        PriceKey key = indexedKeys.remove(product.getId());
+        if (key != null) {
+            byPrice.remove(key);
+            byCategoryAndPrice.get(key.category()).remove(key);
+        }
+        Map<String, Integer> terms = indexedTerms.remove(product.getId());
+        if (terms != null) {
+            terms.keySet().forEach(term -> postings.get(term).remove(product.getId()));
+        }
+    }
+
+    /**
+     * Находит наименьшую или наибольшую цену продуктов категории по индексу категории и цены.
+     *
+     * @param category категория продуктов
+     * @param highest  true — наибольшая цена, false — наименьшая
+     * @return цена или null, если в категории нет продуктов с ценой
+     */
+    Double boundaryPrice(String category, boolean highest) {
+        NavigableMap<PriceKey, Product> priced = byCategoryAndPrice.getOrDefault(category, new ConcurrentSkipListMap<>())
+                .tailMap(new PriceKey(true, Double.NEGATIVE_INFINITY, "", category), true);
+        Map.Entry<PriceKey, Product> boundary = highest ? priced.lastEntry() : priced.firstEntry();
+        return boundary != null ? boundary.getKey().price() : null;
+    }
+
+    /**
+     * Выбирает продукты из индекса в порядке цены и идентификатора.
+     */
+    private Stream<Product> range(String category, Double minPrice, Double maxPrice, PriceKey after) {
+        NavigableMap<PriceKey, Product> products = category != null
+                ? byCategoryAndPrice.getOrDefault(category, new ConcurrentSkipListMap<>())
+                : byPrice;
+        if (minPrice != null) {
+            products = products.tailMap(new PriceKey(true, minPrice, "", category), true);
+        }
+        if (maxPrice != null) {
+            products = products.headMap(new PriceKey(true, maxPrice, MAX_ID, category), true);
+        }
+        if (after != null) {
+            products = products.tailMap(after, false);
+        }
+        return products.values().stream()
+                .filter(product -> maxPrice == null || product.getPrice() != null);
+    }
+
+    private boolean matches(Product product, SearchFilters filters) {
+        return (filters.categories() == null || filters.categories().isEmpty()
+                || filters.categories().contains(product.getCategory()))
+                && (filters.minPrice() == null || product.getPrice() != null && product.getPrice() >= filters.minPrice())
+                && (filters.maxPrice() == null || product.getPrice() != null && product.getPrice() <= filters.maxPrice());
+    }
+
+    /**
+     * Считает найденные продукты по ценовым диапазонам; последний диапазон не ограничен сверху.
+     */
+    private List<PriceRangeCount> priceRangeCounts(List<Product> hits, List<Double> priceBoundaries) {
+        NavigableMap<Double, Long> counts = new TreeMap<>();
+        priceBoundaries.forEach(from -> counts.put(from, 0L));
+        for (Product product : hits) {
+            Double from = product.getPrice() != null ? counts.floorKey(product.getPrice()) : null;
+            if (from != null) {
+                counts.merge(from, 1L, Long::sum);
+            }
+        }
+        List<PriceRangeCount> ranges = new ArrayList<>();
+        counts.forEach((from, count) -> {
+            Double to = counts.higherKey(from);
+            if (count > 0) {
+                ranges.add(new PriceRangeCount(from, to, count));
+            }
+        });
+        return ranges;
+    }
+
+    private static Map<String, Integer> terms(String text) {
+        return terms(text, 1);
+    }
+
+    private static Map<String, Integer> terms(String text, int weight) {
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        if (text != null) {
+            for (String term : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+                if (!term.isEmpty()) {
+                    terms.merge(term, weight, Integer::sum);
+                }
+            }
+        }
+        return terms;
+    }
+
+    private void applyRating(Product product, int rating, int sign) {
+        product.setRatingCount(product.getRatingCount() + sign);
+        product.setRatingSum(product.getRatingSum() + (long) sign * rating);
+        product.getRatingHistogram().merge(String.valueOf(rating), (long) sign, Long::sum);
+    }
+
+    /**
+     * Ключ индекса по цене: цена, а затем идентификатор; продукты без цены идут первыми.
+     * Категория хранится в ключе, чтобы удалить продукт из индекса категории после изменения продукта.
+     */
+    private record PriceKey(boolean priced, double price, String id, String category) implements Comparable<PriceKey> {
+
+        static PriceKey of(Double price, String id, String category) {
+            return new PriceKey(price != null, price != null ? price : 0, id, category);
+        }
+
+        @Override
+        public int compareTo(PriceKey other) {
+            if (priced != other.priced) {
+                return priced ? 1 : -1;
+            }
+            int byPrice = Double.compare(price, other.price);
+            return byPrice != 0 ? byPrice : id.compareTo(other.id);
+        }
+
+    }
+
+}
@@ -0,0 +1,362 @@
+package com.alkl1m.cataloguegraph.repository.inmemory;
+
+import org.bson.types.ObjectId;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.repository.query.FluentQuery;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Базовая реализация репозитория в памяти, заменяющая MongoDB в профиле {@code in-memory} и в бенчмарках.
+ * Хранит копии сущностей по идентификатору и поддерживает вторичные индексы наследников; чтение отдает
+ * копии, поэтому изменения объектов вызывающим кодом не затрагивают хранилище, как и при работе с MongoDB.
+ * Записи выполняются под блокировкой репозитория и заменяют хранимую сущность новой копией,
+ * поэтому чтение идет без блокировок и всегда видит согласованную сущность.
+ * Версии сущностей проверяются и увеличиваются при сохранении так же, как это делает Spring Data MongoDB.
+ * Запросы по образцу не поддерживаются: сервисы их не используют.
+ *
+ * @param <T> тип сущности
+ * @author AlKl1M
+ */
+abstract class InMemoryRepository<T> implements ReactiveMongoRepository<T, String> {
+
+    protected final Map<String, T> entities = new ConcurrentHashMap<>();
+
+    /**
+     * Возвращает идентификатор сущности.
+     */
+    protected abstract String idOf(T entity);
+
+    /**
+     * Назначает сущности идентификатор.
+     */
+    protected abstract void assignId(T entity, String id);
+
+    /**
+     * Создает независимую копию сущности.
+     */
+    protected abstract T copy(T entity);
+
+    /**
+     * Добавляет сущность во вторичные индексы.
+     */
+    protected abstract void index(T entity);
+
+    /**
+     * Удаляет сущность из вторичных индексов.
+     */
+    protected abstract void unindex(T entity);
+
+    /**
+     * Возвращает версию сущности; для сущностей без версии — null.
+     */
+    protected Long versionOf(T entity) {
+        return null;
+    }
+
+    /**
+     * Назначает сущности версию; сущности без версии ее не хранят.
+     */
+    protected void assignVersion(T entity, long version) {
+    }
+
+    /**
+     * Проверяет, есть ли у сущностей репозитория версия.
+     */
+    protected boolean isVersioned() {
+        return false;
+    }
+
+    /**
+     * Сохраняет копию сущности, назначая ей идентификатор при необходимости.
+     * Сущность без версии вставляется, а сущность с версией обновляется, только если версия совпадает
+     * с сохраненной; в обоих случаях переданной сущности назначается новая версия.
+     *
+     * @param entity сущность
+     * @return переданная сущность
+     * @throws DuplicateKeyException             если вставляемая сущность уже существует
+     * @throws OptimisticLockingFailureException если версия сущности отличается от сохраненной
+     */
+    protected synchronized T store(T entity) {
+        if (idOf(entity) == null) {
+            assignId(entity, new ObjectId().toHexString());
+        }
+        T previous = entities.get(idOf(entity));
+        if (isVersioned()) {
+            Long version = versionOf(entity);
+            if (version == null) {
+                if (previous != null) {
+                    throw new DuplicateKeyException("Duplicate key: " + idOf(entity));
+                }
+                assignVersion(entity, 0);
+            } else {
+                if (previous == null || !version.equals(versionOf(previous))) {
+                    throw new OptimisticLockingFailureException("Entity " + idOf(entity)
+                            + " was modified or removed after version " + version);
+                }
+                assignVersion(entity, version + 1);
+            }
+        }
+        replace(previous, copy(entity));
+        return entity;
+    }
+
+    /**
+     * Вставляет копию сущности, если сущности с таким идентификатором еще нет.
+     * Версия сущности сохраняется как есть, а если ее нет — начинается с нуля.
+     *
+     * @param entity сущность
+     * @return true, если сущность вставлена
+     */
+    protected synchronized boolean insertIfAbsent(T entity) {
+        if (idOf(entity) == null) {
+            assignId(entity, new ObjectId().toHexString());
+        }
+        if (entities.containsKey(idOf(entity))) {
+            return false;
+        }
+        if (isVersioned() && versionOf(entity) == null) {
+            assignVersion(entity, 0);
+        }
+        replace(null, copy(entity));
+        return true;
+    }
+
+    /**
+     * Заменяет хранимую сущность и обновляет индексы. Вызывается под блокировкой репозитория.
+     *
+     * @param previous хранимая сущность (может быть null)
+     * @param next     новая сущность, которая больше не изменяется
+     */
+    protected void replace(T previous, T next) {
+        if (previous != null) {
+            unindex(previous);
+        }
+        entities.put(idOf(next), next);
+        index(next);
+    }
+
+    /**
+     * Удаляет сущность по идентификатору и обновляет индексы.
+     *
+     * @param id уникальный идентификатор сущности
+     * @return true, если сущность была удалена
+     */
+    protected synchronized boolean remove(String id) {
+        return take(id) != null;
+    }
+
+    /**
+     * Удаляет сущность по идентификатору, обновляет индексы и возвращает удаленную сущность.
+     *
+     * @param id уникальный идентификатор сущности
+     * @return удаленная сущность или null, если ее не было
+     */
+    protected synchronized T take(String id) {
+        T previous = entities.remove(id);
+        if (previous != null) {
+            unindex(previous);
+        }
+        return previous;
+    }
+
+    /**
+     * Возвращает копию хранимой сущности.
+     *
+     * @param entity хранимая сущность (может быть null)
+     * @return копия сущности или null
+     */
+    protected T read(T entity) {
+        return entity != null ? copy(entity) : null;
+    }
+
+    @Override
+    public <S extends T> Mono<S> save(S entity) {
+        return Mono.fromSupplier(() -> {
+            store(entity);
+            return entity;
+        });
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.fromIterable(entities).concatMap(this::save);
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream).concatMap(this::save);
+    }
+
+    @Override
+    public <S extends T> Mono<S> insert(S entity) {
+        return Mono.fromSupplier(() -> {
+            if (!insertIfAbsent(entity)) {
+                throw new DuplicateKeyException("Duplicate key: " + idOf(entity));
+            }
+            return entity;
+        });
+    }
+
+    @Override
+    public <S extends T> Flux<S> insert(Iterable<S> entities) {
+        return Flux.fromIterable(entities).concatMap(this::insert);
+    }
+
+    @Override
+    public <S extends T> Flux<S> insert(Publisher<S> entities) {
+        return Flux.from(entities).concatMap(this::insert);
+    }
+
+    @Override
+    public Mono<T> findById(String id) {
+        return Mono.fromSupplier(() -> read(entities.get(id)));
+    }
+
+    @Override
+    public Mono<T> findById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return Mono.fromSupplier(() -> entities.containsKey(id));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<T> findAll() {
+        return Flux.defer(() -> Flux.fromIterable(entities.values()))
+                .map(this::read);
+    }
+
+    @Override
+    public Flux<T> findAll(Sort sort) {
+        if (sort.isUnsorted()) {
+            return findAll();
+        }
+        return Flux.defer(() -> Flux.fromStream(entities.values().stream()
+                        .sorted(comparator(sort))))
+                .map(this::read);
+    }
+
+    @Override
+    public Flux<T> findAllById(Iterable<String> ids) {
+        return Flux.fromIterable(ids)
+                .mapNotNull(entities::get)
+                .map(this::read);
+    }
+
+    @Override
+    public Flux<T> findAllById(Publisher<String> idStream) {
+        return Flux.from(idStream)
+                .mapNotNull(entities::get)
+                .map(this::read);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(() -> (long) entities.size());
+    }
+
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return Mono.fromRunnable(() -> remove(id));
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(T entity) {
+        return deleteById(idOf(entity));
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends String> ids) {
+        return Mono.fromRunnable(() -> ids.forEach(this::remove));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends T> entities) {
+        return Mono.fromRunnable(() -> entities.forEach(entity -> remove(idOf(entity))));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends T> entityStream) {
+        return Flux.from(entityStream).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return Mono.fromRunnable(() -> entities.keySet().forEach(this::remove));
+    }
+
+    @Override
+    public <S extends T> Mono<S> findOne(Example<S> example) {
+        throw unsupportedExample();
+    }
+
+    @Override
+    public <S extends T> Flux<S> findAll(Example<S> example) {
+        throw unsupportedExample();
+    }
+
+    @Override
+    public <S extends T> Flux<S> findAll(Example<S> example, Sort sort) {
+        throw unsupportedExample();
+    }
+
+    @Override
+    public <S extends T> Mono<Long> count(Example<S> example) {
+        throw unsupportedExample();
+    }
+
+    @Override
+    public <S extends T> Mono<Boolean> exists(Example<S> example) {
+        throw unsupportedExample();
+    }
+
+    @Override
+    public <S extends T, R, P extends Publisher<R>> P findBy(Example<S> example,
+                                                            Function<FluentQuery.ReactiveFluentQuery<S>, P> queryFunction) {
+        throw unsupportedExample();
+    }
+
+    /**
+     * Строит порядок сущностей по значениям их свойств; значения null идут первыми, как в MongoDB.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Comparator<T> comparator(Sort sort) {
+        Comparator<T> comparator = (left, right) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<T> byProperty = Comparator.comparing(
+                    entity -> (Comparable) new BeanWrapperImpl(entity).getPropertyValue(order.getProperty()),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            comparator = comparator.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return comparator;
+    }
+
+    private UnsupportedOperationException unsupportedExample() {
+        return new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.alkl1m.cataloguegraph.repository.inmemory;
+
+import com.alkl1m.cataloguegraph.dto.BulkError;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.repository.ReviewRepository;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.OffsetScrollPosition;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Репозиторий отзывов в памяти.
+ * Индекс по продукту упорядочен по идентификатору отзыва и повторяет составной индекс коллекции отзывов,
+ * поэтому страницы отзывов продукта читаются без сортировки.
+ *
+ * @author AlKl1M
+ */
+public class InMemoryReviewRepository extends InMemoryRepository<Review> implements ReviewRepository {
+
+    private final Map<String, NavigableMap<String, Review>> byProductId = new ConcurrentHashMap<>();
+    private final Map<String, String> indexedProductIds = new ConcurrentHashMap<>();
+
+    @Override
+    public Flux<Review> findByProductId(String productId) {
+        return Flux.defer(() -> Flux.fromIterable(reviewsOf(productId).values()))
+                .map(this::read);
+    }
+
+    @Override
+    public Flux<Review> findByProductIdIn(Collection<String> productIds) {
+        return Flux.fromIterable(productIds)
+                .concatMap(this::findByProductId);
+    }
+
+    @Override
+    public Flux<Review> findPageByProductId(String productId, Pageable pageable, Collection<String> fields) {
+        return findByProductId(productId)
+                .skip(pageable.getOffset())
+                .take(pageable.getPageSize());
+    }
+
+    @Override
+    public Mono<Window<Review>> scrollByProductId(String productId, ScrollPosition position, int limit,
+                                                  Collection<String> fields) {
+        return Mono.fromSupplier(() -> {
+            NavigableMap<String, Review> reviews = reviewsOf(productId);
+            long offset = 0;
+            if (position instanceof KeysetScrollPosition keyset && !keyset.isInitial()) {
+                reviews = reviews.tailMap((String) keyset.getKeys().get("_id"), false);
+            } else if (position instanceof OffsetScrollPosition offsetPosition && !offsetPosition.isInitial()) {
+                offset = offsetPosition.getOffset() + 1;
+            }
+
+            List<Review> page = reviews.values().stream()
+                    .skip(offset)
+                    .limit(limit + 1L)
+                    .map(this::read)
+                    .toList();
+            boolean hasNext = page.size() > limit;
+            List<Review> content = hasNext ? page.subList(0, limit) : page;
+            return Window.from(content,
+                    index -> ScrollPosition.forward(Map.of("_id", content.get(index).getId())), hasNext);
+        });
+    }
+
+    @Override
+    public Mono<Review> updateFields(String id, Integer rating, String comment, Long expectedVersion) {
+        return Mono.fromSupplier(() -> {
+            synchronized (this) {
+                Review previous = entities.get(id);
+                if (previous == null || expectedVersion != null && !expectedVersion.equals(previous.getVersion())) {
+                    return null;
+                }
+                Review review = copy(previous);
+                if (rating != null) {
+                    review.setRating(rating);
+                }
+                if (comment != null) {
+                    review.setComment(comment);
+                }
+                review.setVersion(previous.getVersion() != null ? previous.getVersion() + 1 : 1L);
+                replace(previous, review);
+                return previous;
+            }
+        });
+    }
+
+    @Override
+    public Mono<Review> removeById(String id) {
+        return Mono.fromSupplier(() -> take(id));
+    }
+
+    @Override
+    public Flux<Review> streamAll(int batchSize) {
+        return findAll();
+    }
+
+    @Override
+    public Flux<Review> streamCreatedSince(LocalDateTime since, int batchSize) {
+        return findAll()
+                .filter(review -> review.getCreatedAt() != null && !review.getCreatedAt().isBefore(since));
+    }
+
+    @Override
+    public Mono<List<BulkError>> bulkInsert(List<Review> reviews) {
+        return Mono.fromSupplier(() -> {
+            List<BulkError> errors = new ArrayList<>();
+            for (int index = 0; index < reviews.size(); index++) {
+                Review review = reviews.get(index);
+                if (!insertIfAbsent(review)) {
+                    errors.add(new BulkError(index, "Duplicate key: " + review.getId()));
+                }
+            }
+            return errors;
+        });
+    }
+
+    @Override
+    protected String idOf(Review review) {
+        return review.getId();
+    }
+
+    @Override
+    protected void assignId(Review review, String id) {
+        review.setId(id);
+    }
+
+    @Override
+    protected Review copy(Review review) {
+        return new Review(review.getId(), review.getProductId(), review.getAuthor(), review.getRating(),
+                review.getComment(), review.getCreatedAt(), review.getVersion());
+    }
+
+    @Override
+    protected Long versionOf(Review review) {
+        return review.getVersion();
+    }
+
+    @Override
+    protected void assignVersion(Review review, long version) {
+        review.setVersion(version);
+    }
+
+    @Override
+    protected boolean isVersioned() {
+        return true;
+    }
+
+    @Override
+    protected void index(Review review) {
+        indexedProductIds.put(review.getId(), review.getProductId());
+        byProductId.computeIfAbsent(review.getProductId(), productId -> new ConcurrentSkipListMap<>())
+                .put(review.getId(), review);
+    }
+
+    @Override
+    protected void unindex(Review review) {
+        String productId = indexedProductIds.remove(review.getId());
+        if (productId != null) {
+            reviewsOf(productId).remove(review.getId());
+        }
+    }
+
+    private NavigableMap<String, Review> reviewsOf(String productId) {
+        return byProductId.getOrDefault(productId, new ConcurrentSkipListMap<>());
+    }
+
+}
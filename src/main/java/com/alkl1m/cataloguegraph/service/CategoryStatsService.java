@@ -0,0 +1,33 @@
+package com.alkl1m.cataloguegraph.service;
+
+import com.alkl1m.cataloguegraph.dto.PriceRangeCount;
+import com.alkl1m.cataloguegraph.entity.CategoryStats;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CategoryStatsService {
+
+    Flux<CategoryStats> getCategoryStats(Collection<String> categories);
+
+    List<PriceRangeCount> getPriceBands(CategoryStats stats);
+
+    Mono<Void> productsAdded(Collection<Product> products);
+
+    Mono<Void> productsRemoved(Collection<Product> products);
+
+    Mono<Void> productUpdated(Product before, Product after);
+
+    Mono<Void> ratingAdjusted(String category, Integer addedRating, Integer removedRating);
+
+    Mono<Void> ratingsAdded(Collection<Product> products, Collection<Review> reviews);
+
+    Mono<Void> ratingRepaired(String category, long countDelta, long sumDelta);
+
+    Mono<Long> rebuild();
+
+}
@@ -1,23 +1,58 @@
 package com.alkl1m.cataloguegraph.service;
 
+import com.alkl1m.cataloguegraph.dto.BulkError;
+import com.alkl1m.cataloguegraph.dto.BulkResult;
+import com.alkl1m.cataloguegraph.dto.ProductSearchResult;
+import com.alkl1m.cataloguegraph.dto.SearchFacet;
+import com.alkl1m.cataloguegraph.dto.SearchFilters;
+import com.alkl1m.cataloguegraph.dto.TrendingWindow;
 import com.alkl1m.cataloguegraph.entity.Product;
 import com.alkl1m.cataloguegraph.entity.Review;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface ProductService {
 
-    Flux<Product> getProductsFiltered(String category, Float minPrice, Float maxPrice, int page, int size);
+    Flux<Product> getProductsFiltered(String category, Float minPrice, Float maxPrice, int page, int size,
+                                      Collection<String> fields);
+
+    Mono<Window<Product>> getProductsWindow(String category, Float minPrice, Float maxPrice,
+                                            ScrollPosition position, int size, Collection<String> fields);
+
+    Mono<ProductSearchResult> searchProducts(String query, SearchFilters filters, Collection<SearchFacet> facets,
+                                             int page, int size, Collection<String> fields);
 
     Mono<Product> getProductById(String id);
 
+    Flux<Product> getProductsByIds(Collection<String> ids);
+
     Mono<Product> addProduct(Product product);
 
-    Mono<Product> updateProduct(String id, Product updatedProduct);
+    Mono<BulkResult<Product>> addProducts(List<Product> products);
+
+    Flux<Product> exportProducts(int batchSize);
+
+    Flux<BulkError> importProducts(Flux<Product> products, int batchSize);
+
+    Mono<Product> updateProduct(String id, Product changes, Long expectedVersion);
 
     Mono<Boolean> deleteProduct(String id);
 
-    Mono<Product> addReviewToProduct(String productId, Review review);
+    Mono<Long> deleteProducts(Collection<String> ids);
+
+    Mono<Product> adjustRating(String productId, Integer addedRating, Integer removedRating);
+
+    Mono<List<Product>> addRatings(Collection<Review> reviews);
 
     Mono<Double> getProductAverageRating(String id);
+
+    Flux<Product> getTopProducts(String category, int limit);
+
+    Flux<Product> getTrendingProducts(TrendingWindow window, int limit);
+
 }
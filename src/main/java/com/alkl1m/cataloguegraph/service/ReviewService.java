@@ -1,19 +1,49 @@
 package com.alkl1m.cataloguegraph.service;
 
+import com.alkl1m.cataloguegraph.dto.BulkError;
+import com.alkl1m.cataloguegraph.dto.BulkResult;
+import com.alkl1m.cataloguegraph.entity.Product;
 import com.alkl1m.cataloguegraph.entity.Review;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 public interface ReviewService {
 
-    Flux<Review> getReviewsByProductId(String productId, int page, int size);
+    Flux<Review> getReviewsByProductId(String productId);
+
+    Flux<Review> getReviewsByProductId(String productId, int page, int size, Collection<String> fields);
+
+    Mono<Map<String, List<Review>>> getReviewsByProductIds(Collection<String> productIds);
+
+    Mono<Window<Review>> getReviewsWindow(String productId, ScrollPosition position, int size,
+                                          Collection<String> fields);
 
     Mono<Review> getReviewById(String id);
 
     Mono<Review> addReview(Review review);
 
-    Mono<Review> updateReview(String id, Integer rating, String comment);
+    Mono<BulkResult<Review>> addReviews(List<Review> reviews);
+
+    Mono<BulkResult<Review>> insertReviews(List<Review> reviews);
+
+    Mono<Void> applyRatings(List<Review> inserted);
+
+    Flux<Review> exportReviews(int batchSize);
+
+    Flux<BulkError> importReviews(Flux<Review> reviews, int batchSize);
+
+    Mono<Review> updateReview(String id, Integer rating, String comment, Long expectedVersion);
 
     Mono<Boolean> deleteReview(String id);
 
+    Flux<Review> watchReviewsAdded(String productId);
+
+    Flux<Product> watchRatingChanges(String productId);
+
 }
@@ -0,0 +1,285 @@
+package com.alkl1m.cataloguegraph.service.impl;
+
+import com.alkl1m.cataloguegraph.dto.PriceRangeCount;
+import com.alkl1m.cataloguegraph.entity.CategoryStats;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.repository.CategoryStatsRepository;
+import com.alkl1m.cataloguegraph.service.CategoryStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Сервис сводок по категориям продуктов.
+ * Сводки хранятся в коллекции {@code category_stats} и обновляются приращениями при каждом изменении
+ * продуктов и их рейтингов, поэтому чтение сводок не зависит от размера каталога.
+ * Приращения по одной категории объединяются и применяются одной записью на категорию.
+ * Минимальная и максимальная цены при удалении продуктов заново определяются по индексу коллекции продуктов.
+ * Полный пересчет исправляет расхождения, накопившиеся из-за частично выполненных операций,
+ * и необходим после изменения границ ценовых диапазонов {@code catalogue.search.price-boundaries}.
+ *
+ * @author AlKl1M
+ */
+@Service
+@RequiredArgsConstructor
+public class CategoryStatsServiceImpl implements CategoryStatsService {
+
+    private final CategoryStatsRepository categoryStatsRepository;
+
+    @Value("${catalogue.search.price-boundaries:0,100,500,1000,5000}")
+    private List<Double> priceBoundaries = List.of();
+
+    /**
+     * Получает сводки по указанным категориям или по всем категориям, упорядоченные по названию категории.
+     *
+     * @param categories категории (null или пустая коллекция — все категории)
+     * @return сводки существующих категорий
+     */
+    @Override
+    public Flux<CategoryStats> getCategoryStats(Collection<String> categories) {
+        if (categories == null || categories.isEmpty()) {
+            return categoryStatsRepository.findAll(Sort.by("category"));
+        }
+        return categoryStatsRepository.findAllById(categories.stream().distinct().sorted().toList());
+    }
+
+    /**
+     * Получает количество продуктов категории по ценовым диапазонам.
+     * Пустые диапазоны и продукты без цены или с ценой ниже первой границы не учитываются.
+     *
+     * @param stats сводка по категории
+     * @return непустые ценовые диапазоны в порядке возрастания цены
+     */
+    @Override
+    public List<PriceRangeCount> getPriceBands(CategoryStats stats) {
+        List<Double> boundaries = boundaries();
+        return IntStream.range(0, boundaries.size())
+                .mapToObj(band -> new PriceRangeCount(boundaries.get(band),
+                        band + 1 < boundaries.size() ? boundaries.get(band + 1) : null,
+                        stats.getPriceBands().getOrDefault(String.valueOf(band), 0L)))
+                .filter(range -> range.count() > 0)
+                .toList();
+    }
+
+    /**
+     * Учитывает добавленные продукты в сводках их категорий.
+     *
+     * @param products добавленные продукты
+     * @return сигнал завершения
+     */
+    @Override
+    public Mono<Void> productsAdded(Collection<Product> products) {
+        Increments increments = new Increments();
+        products.forEach(product -> increments.product(product, 1));
+        return increments.apply();
+    }
+
+    /**
+     * Исключает удаленные продукты из сводок их категорий.
+     *
+     * @param products удаленные продукты
+     * @return сигнал завершения
+     */
+    @Override
+    public Mono<Void> productsRemoved(Collection<Product> products) {
+        Increments increments = new Increments();
+        products.forEach(product -> increments.product(product, -1));
+        return increments.apply();
+    }
+
+    /**
+     * Переносит продукт в сводках, если изменились его категория или цена.
+     *
+     * @param before продукт до изменения
+     * @param after  продукт после изменения
+     * @return сигнал завершения
+     */
+    @Override
+    public Mono<Void> productUpdated(Product before, Product after) {
+        if (Objects.equals(before.getCategory(), after.getCategory())
+                && Objects.equals(before.getPrice(), after.getPrice())) {
+            return Mono.empty();
+        }
+        Increments increments = new Increments();
+        increments.product(before, -1);
+        increments.product(after, 1);
+        return increments.apply();
+    }
+
+    /**
+     * Учитывает добавление, изменение или удаление оценки продукта в сводке его категории.
+     *
+     * @param category      категория продукта
+     * @param addedRating   добавленная оценка (может быть null)
+     * @param removedRating удаленная оценка (может быть null)
+     * @return сигнал завершения
+     */
+    @Override
+    public Mono<Void> ratingAdjusted(String category, Integer addedRating, Integer removedRating) {
+        Increments increments = new Increments();
+        if (addedRating != null) {
+            increments.rating(category, addedRating, 1);
+        }
+        if (removedRating != null) {
+            increments.rating(category, removedRating, -1);
+        }
+        return increments.apply();
+    }
+
+    /**
+     * Учитывает оценки добавленных отзывов в сводках категорий их продуктов.
+     * Отзывы к продуктам, отсутствующим среди переданных, не учитываются.
+     *
+     * @param products продукты отзывов
+     * @param reviews  добавленные отзывы
+     * @return сигнал завершения
+     */
+    @Override
+    public Mono<Void> ratingsAdded(Collection<Product> products, Collection<Review> reviews) {
+        Map<String, Product> productsById = products.stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity(), (first, second) -> first));
+        Increments increments = new Increments();
+        for (Review review : reviews) {
+            Product product = productsById.get(review.getProductId());
+            if (product != null) {
+                increments.rating(product.getCategory(), review.getRating(), 1);
+            }
+        }
+        return increments.apply();
+    }
+
+    /**
+     * Учитывает исправление агрегатов рейтинга продукта в сводке его категории.
+     *
+     * @param category   категория продукта
+     * @param countDelta изменение количества оценок продукта
+     * @param sumDelta   изменение суммы оценок продукта
+     * @return сигнал завершения
+     */
+    @Override
+    public Mono<Void> ratingRepaired(String category, long countDelta, long sumDelta) {
+        Increments increments = new Increments();
+        increments.ratings(category, countDelta, sumDelta);
+        return increments.apply();
+    }
+
+    /**
+     * Полностью пересчитывает сводки всех категорий по коллекции продуктов.
+     *
+     * @return количество категорий
+     */
+    @Override
+    public Mono<Long> rebuild() {
+        return categoryStatsRepository.rebuild(boundaries());
+    }
+
+    private List<Double> boundaries() {
+        return priceBoundaries.stream().sorted().toList();
+    }
+
+    /**
+     * Определяет номер ценового диапазона: номер наибольшей границы, не превышающей цену,
+     * или -1, если цена ниже первой границы. Совпадает с вычислением при полном пересчете.
+     */
+    private int band(List<Double> boundaries, double price) {
+        int band = -1;
+        while (band + 1 < boundaries.size() && boundaries.get(band + 1) <= price) {
+            band++;
+        }
+        return band;
+    }
+
+    /**
+     * Приращения сводок, объединенные по категориям.
+     */
+    private class Increments {
+
+        private final List<Double> boundaries = boundaries();
+        private final Map<String, CategoryStats> byCategory = new HashMap<>();
+        private final Set<String> shrunk = new HashSet<>();
+
+        /**
+         * Добавляет продукт в сводку его категории или исключает из нее вместе с его агрегатами рейтинга.
+         */
+        void product(Product product, int sign) {
+            if (product.getCategory() == null) {
+                return;
+            }
+            CategoryStats increment = of(product.getCategory());
+            increment.setProductCount(increment.getProductCount() + sign);
+            increment.setRatingCount(increment.getRatingCount() + sign * product.getRatingCount());
+            increment.setRatingSum(increment.getRatingSum() + sign * product.getRatingSum());
+            if (sign < 0) {
+                shrunk.add(product.getCategory());
+            }
+
+            Double price = product.getPrice();
+            if (price == null) {
+                return;
+            }
+            increment.setPricedCount(increment.getPricedCount() + sign);
+            increment.setPriceSum(increment.getPriceSum() + sign * price);
+            int band = band(boundaries, price);
+            if (band >= 0) {
+                increment.getPriceBands().merge(String.valueOf(band), (long) sign, Long::sum);
+            }
+            if (sign > 0) {
+                increment.setMinPrice(increment.getMinPrice() != null ? Math.min(increment.getMinPrice(), price) : price);
+                increment.setMaxPrice(increment.getMaxPrice() != null ? Math.max(increment.getMaxPrice(), price) : price);
+            }
+        }
+
+        /**
+         * Добавляет оценку в сводку категории или исключает ее.
+         */
+        void rating(String category, int rating, int sign) {
+            if (category == null) {
+                return;
+            }
+            CategoryStats increment = of(category);
+            increment.setRatingCount(increment.getRatingCount() + sign);
+            increment.setRatingSum(increment.getRatingSum() + (long) sign * rating);
+        }
+
+        /**
+         * Изменяет количество и сумму оценок в сводке категории.
+         */
+        void ratings(String category, long countDelta, long sumDelta) {
+            if (category == null || countDelta == 0 && sumDelta == 0) {
+                return;
+            }
+            CategoryStats increment = of(category);
+            increment.setRatingCount(increment.getRatingCount() + countDelta);
+            increment.setRatingSum(increment.getRatingSum() + sumDelta);
+        }
+
+        Mono<Void> apply() {
+            if (byCategory.isEmpty()) {
+                return Mono.empty();
+            }
+            return categoryStatsRepository.applyIncrements(byCategory.values())
+                    .then(categoryStatsRepository.refreshPriceRanges(shrunk));
+        }
+
+        private CategoryStats of(String category) {
+            return byCategory.computeIfAbsent(category, CategoryStats::new);
+        }
+
+    }
+
+}
@@ -1,20 +1,56 @@
 package com.alkl1m.cataloguegraph.service.impl;
 
+import com.alkl1m.cataloguegraph.cache.ProductCacheEvictor;
+import com.alkl1m.cataloguegraph.cache.ResponseCache;
+import com.alkl1m.cataloguegraph.config.CacheConfig;
+import com.alkl1m.cataloguegraph.dto.BulkError;
+import com.alkl1m.cataloguegraph.dto.BulkResult;
+import com.alkl1m.cataloguegraph.dto.ProductSearchResult;
+import com.alkl1m.cataloguegraph.dto.SearchFacet;
+import com.alkl1m.cataloguegraph.dto.SearchFilters;
+import com.alkl1m.cataloguegraph.dto.TrendingWindow;
 import com.alkl1m.cataloguegraph.entity.Product;
 import com.alkl1m.cataloguegraph.entity.Review;
 import com.alkl1m.cataloguegraph.exception.ProductNotFoundException;
 import com.alkl1m.cataloguegraph.exception.ReviewNotFoundException;
+import com.alkl1m.cataloguegraph.ranking.ProductRanking;
+import com.alkl1m.cataloguegraph.ranking.RankingProperties;
 import com.alkl1m.cataloguegraph.repository.ProductRepository;
+import com.alkl1m.cataloguegraph.service.CategoryStatsService;
 import com.alkl1m.cataloguegraph.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 /**
  * Сервис для управления продуктами.
  * Предоставляет методы для получения, добавления, обновления и удаления продуктов,
- * а также для добавления отзывов и расчета среднего рейтинга.
+ * а также для ведения агрегатов рейтинга и расчета среднего рейтинга.
+ * Продукты и средние рейтинги кэшируются по идентификатору продукта; записи вытесняются
+ * после завершения изменяющих операций. Пакетные операции выполняются одной неупорядоченной
+ * записью в MongoDB, поэтому время их выполнения определяется числом пакетов, а не элементов.
+ * Изменяющие операции учитываются в сводках по категориям после записи продуктов
+ * и вытесняют из кэша ответов GraphQL-запросы, содержащие затронутые продукты и категории.
+ * Обновление и удаление продукта выполняются одной атомарной операцией без предварительного чтения,
+ * поэтому одновременные изменения не теряются.
  *
  * @author AlKl1M
  */
@@ -23,26 +59,82 @@ import reactor.core.publisher.Mono;
 public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
+    private final ProductCacheEvictor productCacheEvictor;
+    private final CategoryStatsService categoryStatsService;
+    private final ResponseCache responseCache;
+    private final ProductRanking productRanking;
+    private final RankingProperties rankingProperties;
+
+    @Value("${catalogue.search.price-boundaries:0,100,500,1000,5000}")
+    private List<Double> priceBoundaries = List.of();
 
     /**
      * Получает список продуктов с фильтрацией по категории и ценовому диапазону с пагинацией.
+     * Продукты упорядочены по цене, а затем по идентификатору.
      *
      * @param category категория продуктов (может быть null)
      * @param minPrice минимальная цена продуктов (может быть null)
      * @param maxPrice максимальная цена продуктов (может быть null)
      * @param page     номер страницы для пагинации
      * @param size     количество элементов на странице
+     * @param fields   загружаемые поля продукта (пустая коллекция — все поля)
      * @return список продуктов, удовлетворяющих фильтрам
      */
     @Override
-    public Flux<Product> getProductsFiltered(String category, Float minPrice, Float maxPrice, int page, int size) {
+    public Flux<Product> getProductsFiltered(String category, Float minPrice, Float maxPrice, int page, int size,
+                                             Collection<String> fields) {
+        return productRepository.findFiltered(
+                category,
+                minPrice != null ? minPrice.doubleValue() : null,
+                maxPrice != null ? maxPrice.doubleValue() : null,
+                (long) page * size,
+                size,
+                fields);
+    }
+
+    /**
+     * Получает окно продуктов с фильтрацией по категории и ценовому диапазону,
+     * начиная с указанной позиции прокрутки.
+     *
+     * @param category категория продуктов (может быть null)
+     * @param minPrice минимальная цена продуктов (может быть null)
+     * @param maxPrice максимальная цена продуктов (может быть null)
+     * @param position позиция, после которой начинается окно
+     * @param size     количество элементов в окне
+     * @param fields   загружаемые поля продукта (пустая коллекция — все поля)
+     * @return окно продуктов, удовлетворяющих фильтрам
+     */
+    @Override
+    public Mono<Window<Product>> getProductsWindow(String category, Float minPrice, Float maxPrice,
+                                                   ScrollPosition position, int size, Collection<String> fields) {
+        return productRepository.scrollFiltered(
+                category,
+                minPrice != null ? minPrice.doubleValue() : null,
+                maxPrice != null ? maxPrice.doubleValue() : null,
+                position,
+                size,
+                fields);
+    }
 
-        return productRepository.findAll()
-                .filter(product -> (category == null || product.getCategory().equals(category)) &&
-                        (minPrice == null || product.getPrice() >= minPrice) &&
-                        (maxPrice == null || product.getPrice() <= maxPrice))
-                .skip((long) page * size)
-                .take(size);
+    /**
+     * Выполняет полнотекстовый поиск продуктов по названию и описанию с подсчетом фасетов.
+     * Продукты упорядочены по убыванию релевантности; фасет цены делит найденные продукты
+     * на диапазоны по границам из свойства {@code catalogue.search.price-boundaries}.
+     *
+     * @param query   поисковый запрос
+     * @param filters фильтры по категориям и ценовому диапазону (может быть null)
+     * @param facets  подсчитываемые фасеты
+     * @param page    номер страницы для пагинации
+     * @param size    количество элементов на странице
+     * @param fields  загружаемые поля продукта (пустая коллекция — все поля)
+     * @return найденные продукты и фасеты
+     */
+    @Override
+    public Mono<ProductSearchResult> searchProducts(String query, SearchFilters filters,
+                                                    Collection<SearchFacet> facets, int page, int size,
+                                                    Collection<String> fields) {
+        return productRepository.search(query, filters != null ? filters : SearchFilters.NONE, facets,
+                priceBoundaries.stream().sorted().toList(), (long) page * size, size, fields);
     }
 
     /**
@@ -53,11 +145,24 @@ public class ProductServiceImpl implements ProductService {
      * @throws ProductNotFoundException если продукт с указанным идентификатором не найден
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id")
     public Mono<Product> getProductById(String id) {
         return productRepository.findById(id)
                 .switchIfEmpty(Mono.error(new ProductNotFoundException("Product with id " + id + " not found")));
     }
 
+    /**
+     * Получает продукты по их уникальным идентификаторам одним запросом.
+     * Отсутствующие продукты пропускаются.
+     *
+     * @param ids уникальные идентификаторы продуктов
+     * @return найденные продукты
+     */
+    @Override
+    public Flux<Product> getProductsByIds(Collection<String> ids) {
+        return productRepository.findAllById(ids);
+    }
+
     /**
      * Добавляет новый продукт.
      *
@@ -66,26 +171,113 @@ public class ProductServiceImpl implements ProductService {
      */
     @Override
     public Mono<Product> addProduct(Product product) {
-        return productRepository.save(product);
+        return productRepository.save(product)
+                .flatMap(saved -> categoryStatsService.productsAdded(List.of(saved))
+                        .thenReturn(saved))
+                .doOnNext(saved -> responseCache.invalidateProducts(List.of(saved)));
+    }
+
+    /**
+     * Добавляет продукты одной пакетной записью.
+     * Продукты, которые не удалось вставить, не прерывают вставку остальных и возвращаются в виде ошибок
+     * с позицией во входном списке.
+     *
+     * @param products продукты для добавления
+     * @return добавленные продукты и ошибки по остальным
+     */
+    @Override
+    public Mono<BulkResult<Product>> addProducts(List<Product> products) {
+        products.stream()
+                .filter(product -> product.getId() == null)
+                .forEach(product -> product.setId(new ObjectId().toHexString()));
+
+        return productRepository.bulkInsert(products)
+                .map(errors -> {
+                    Set<Integer> failed = errors.stream()
+                            .map(BulkError::index)
+                            .collect(Collectors.toSet());
+                    List<Product> inserted = IntStream.range(0, products.size())
+                            .filter(index -> !failed.contains(index))
+                            .mapToObj(products::get)
+                            .toList();
+                    return new BulkResult<>(inserted, errors);
+                })
+                .flatMap(result -> categoryStatsService.productsAdded(result.items())
+                        .thenReturn(result))
+                .doOnNext(result -> responseCache.invalidateProducts(result.items()));
+    }
+
+    /**
+     * Выгружает все продукты потоком, читая коллекцию пакетами указанного размера.
+     *
+     * @param batchSize количество документов в одном пакете курсора
+     * @return все продукты
+     */
+    @Override
+    public Flux<Product> exportProducts(int batchSize) {
+        return productRepository.streamAll(batchSize);
+    }
+
+    /**
+     * Загружает продукты из потока пакетными записями.
+     * Следующий пакет накапливается только после записи предыдущего, поэтому потребление памяти
+     * ограничено размером пакета. Агрегаты рейтинга загружаемых продуктов обнуляются:
+     * они заново набираются при загрузке отзывов.
+     *
+     * @param products  поток продуктов
+     * @param batchSize количество продуктов в одной пакетной записи
+     * @return ошибки по продуктам, которые не удалось загрузить, с позицией в потоке
+     */
+    @Override
+    public Flux<BulkError> importProducts(Flux<Product> products, int batchSize) {
+        return products
+                .map(product -> {
+                    product.setRatingCount(0);
+                    product.setRatingSum(0);
+                    product.setRatingHistogram(new HashMap<>());
+                    return product;
+                })
+                .buffer(batchSize)
+                .index()
+                .concatMap(batch -> addProducts(batch.getT2())
+                        .flatMapIterable(result -> result.errors().stream()
+                                .map(error -> error.withOffset(batch.getT1() * batchSize))
+                                .toList()), 1);
     }
 
     /**
-     * Обновляет информацию о продукте.
+     * Частично обновляет информацию о продукте одной атомарной операцией.
+     * Поля, равные null в объекте изменений, не меняются; агрегаты рейтинга не затрагиваются.
+     * Если указана ожидаемая версия, продукт обновляется, только если его не изменили после чтения клиентом.
      *
-     * @param id             уникальный идентификатор продукта
-     * @param updatedProduct объект с обновленной информацией о продукте
+     * @param id              уникальный идентификатор продукта
+     * @param changes         новые значения полей продукта
+     * @param expectedVersion версия продукта, прочитанная клиентом (может быть null)
      * @return обновленный продукт
+     * @throws ProductNotFoundException          если продукт с указанным идентификатором не найден
+     * @throws OptimisticLockingFailureException если версия продукта отличается от ожидаемой
      */
     @Override
-    public Mono<Product> updateProduct(String id, Product updatedProduct) {
-        return productRepository.findById(id)
-                .switchIfEmpty(Mono.error(new ProductNotFoundException("Product not found")))
-                .flatMap(product -> {
-                    product.setName(updatedProduct.getName());
-                    product.setPrice(updatedProduct.getPrice());
-                    product.setDescription(updatedProduct.getDescription());
-                    product.setCategory(updatedProduct.getCategory());
-                    return productRepository.save(product);
+    @CacheEvict(cacheNames = {CacheConfig.PRODUCTS, CacheConfig.PRODUCT_RATINGS}, key = "#id")
+    public Mono<Product> updateProduct(String id, Product changes, Long expectedVersion) {
+        return productRepository.updateFields(id, changes, expectedVersion)
+                .switchIfEmpty(Mono.defer(() -> updateFailure(id, expectedVersion)))
+                .flatMap(before -> {
+                    Product after = new Product(before.getId(),
+                            changes.getName() != null ? changes.getName() : before.getName(),
+                            changes.getDescription() != null ? changes.getDescription() : before.getDescription(),
+                            changes.getPrice() != null ? changes.getPrice() : before.getPrice(),
+                            changes.getCategory() != null ? changes.getCategory() : before.getCategory());
+                    after.setRatingCount(before.getRatingCount());
+                    after.setRatingSum(before.getRatingSum());
+                    after.setRatingHistogram(before.getRatingHistogram());
+                    after.setVersion(before.getVersion() != null ? before.getVersion() + 1 : 1L);
+                    return categoryStatsService.productUpdated(before, after)
+                            .doOnSuccess(done -> {
+                                productRanking.productUpdated(before, after);
+                                responseCache.invalidateProducts(List.of(before, after));
+                            })
+                            .thenReturn(after);
                 });
     }
 
@@ -96,50 +288,165 @@ public class ProductServiceImpl implements ProductService {
      * @return результат операции удаления (true, если удаление прошло успешно)
      */
     @Override
+    @CacheEvict(cacheNames = {CacheConfig.PRODUCTS, CacheConfig.PRODUCT_RATINGS}, key = "#id")
     public Mono<Boolean> deleteProduct(String id) {
-        return productRepository.existsById(id)
+        return productRepository.removeById(id)
+                .flatMap(product -> categoryStatsService.productsRemoved(List.of(product))
+                        .doOnSuccess(done -> {
+                            productRanking.productsRemoved(List.of(product));
+                            responseCache.invalidateProducts(List.of(product));
+                        })
+                        .thenReturn(true))
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Удаляет продукты по их уникальным идентификаторам одним запросом.
+     * Отсутствующие продукты пропускаются.
+     *
+     * @param ids уникальные идентификаторы продуктов
+     * @return количество удаленных продуктов
+     */
+    @Override
+    public Mono<Long> deleteProducts(Collection<String> ids) {
+        return productRepository.findAllById(ids)
+                .collectList()
+                .flatMap(products -> productRepository.deleteByIdIn(ids)
+                        .flatMap(deleted -> categoryStatsService.productsRemoved(products)
+                                .doOnSuccess(done -> {
+                                    productRanking.productsRemoved(products);
+                                    responseCache.invalidateProducts(products);
+                                })
+                                .thenReturn(deleted)))
+                .doOnSuccess(deleted -> productCacheEvictor.evict(ids));
+    }
+
+    /**
+     * Атомарно изменяет агрегаты рейтинга продукта при добавлении, изменении или удалении отзыва.
+     *
+     * @param productId     уникальный идентификатор продукта
+     * @param addedRating   добавленная оценка (может быть null)
+     * @param removedRating удаленная оценка (может быть null)
+     * @return продукт с обновленными агрегатами
+     * @throws ProductNotFoundException если продукт с указанным идентификатором не найден
+     */
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.PRODUCTS, CacheConfig.PRODUCT_RATINGS}, key = "#productId")
+    public Mono<Product> adjustRating(String productId, Integer addedRating, Integer removedRating) {
+        return productRepository.adjustRating(productId, addedRating, removedRating)
                 .switchIfEmpty(Mono.error(new ProductNotFoundException("Product not found")))
-                .flatMap(exist -> {
-                    if (Boolean.TRUE.equals(exist)) {
-                        return productRepository.deleteById(id)
-                                .then(Mono.just(true));
-                    } else {
-                        return Mono.just(false);
-                    }
-                });
+                .flatMap(product -> categoryStatsService.ratingAdjusted(product.getCategory(), addedRating, removedRating)
+                        .thenReturn(product))
+                .doOnNext(product -> responseCache.invalidateRatings(List.of(productId)));
     }
 
     /**
-     * Добавляет отзыв к продукту.
+     * Учитывает оценки добавленных отзывов в агрегатах рейтинга их продуктов.
+     * Агрегаты каждого продукта обновляются один раз, сколько бы отзывов к нему ни относилось.
      *
-     * @param productId уникальный идентификатор продукта
-     * @param review    объект отзыва
-     * @return обновленный продукт с добавленным отзывом
+     * @param reviews добавленные отзывы
+     * @return продукты отзывов с обновленными агрегатами рейтинга
      */
     @Override
-    public Mono<Product> addReviewToProduct(String productId, Review review) {
-        return productRepository.findById(productId)
-                .flatMap(product -> {
-                    product.getReviews().add(review);
-                    return productRepository.save(product);
-                })
-                .switchIfEmpty(Mono.error(new ProductNotFoundException("Product not found")));
+    public Mono<List<Product>> addRatings(Collection<Review> reviews) {
+        Set<String> productIds = reviews.stream()
+                .map(Review::getProductId)
+                .collect(Collectors.toSet());
+        return productRepository.addRatings(reviews)
+                .then(productRepository.findAllById(productIds).collectList())
+                .flatMap(products -> categoryStatsService.ratingsAdded(products, reviews)
+                        .thenReturn(products))
+                .doOnSuccess(products -> {
+                    productCacheEvictor.evict(productIds);
+                    responseCache.invalidateRatings(productIds);
+                });
     }
 
     /**
-     * Получает средний рейтинг продукта на основе его отзывов.
+     * Получает средний рейтинг продукта по его агрегатам рейтинга.
      *
      * @param id уникальный идентификатор продукта
      * @return средний рейтинг продукта
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_RATINGS, key = "#id")
     public Mono<Double> getProductAverageRating(String id) {
-        return productRepository.findById(id)
+        return productRepository.findRating(id)
                 .switchIfEmpty(Mono.error(new ProductNotFoundException("No products found")))
-                .flatMap(product -> Mono.just(product.getReviews().stream()
-                        .mapToInt(Review::getRating)
-                        .average()
-                        .orElseThrow(() -> new ReviewNotFoundException("No reviews found for the product"))));
+                .flatMap(product -> Mono.justOrEmpty(product.getAverageRating()))
+                .switchIfEmpty(Mono.error(new ReviewNotFoundException("No reviews found for the product")));
+    }
+
+    /**
+     * Получает продукты с наибольшей байесовской оценкой рейтинга.
+     * Порядок продуктов и сами продукты берутся из рейтинга в памяти.
+     *
+     * @param category категория продуктов (может быть null)
+     * @param limit    максимальное количество продуктов
+     * @return продукты по убыванию оценки
+     */
+    @Override
+    public Flux<Product> getTopProducts(String category, int limit) {
+        return ranked(productRanking.topProductIds(category, Math.clamp(limit, 0, rankingProperties.maxLimit())));
+    }
+
+    /**
+     * Получает продукты с наибольшей скоростью появления отзывов за указанное окно.
+     * Порядок продуктов и сами продукты берутся из рейтинга в памяти.
+     *
+     * @param window окно оценки скорости
+     * @param limit  максимальное количество продуктов
+     * @return продукты по убыванию скорости появления отзывов
+     */
+    @Override
+    public Flux<Product> getTrendingProducts(TrendingWindow window, int limit) {
+        return ranked(productRanking.trendingProductIds(window, Math.clamp(limit, 0, rankingProperties.maxLimit())));
+    }
+
+    /**
+     * Возвращает продукты рейтинга в порядке идентификаторов.
+     * Продукты, версия которых в рейтинге не сохранена, загружаются одним запросом и запоминаются в рейтинге;
+     * продукты, удаленные после построения рейтинга, пропускаются.
+     */
+    private Flux<Product> ranked(List<String> ids) {
+        Map<String, Product> products = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            Product product = productRanking.product(id);
+            if (product != null) {
+                products.put(id, product);
+            } else {
+                missing.add(id);
+            }
+        }
+        Mono<Map<String, Product>> loaded = missing.isEmpty()
+                ? Mono.just(products)
+                : productRepository.findAllById(missing)
+                        .collectList()
+                        .map(found -> {
+                            productRanking.remember(found);
+                            found.forEach(product -> products.put(product.getId(), product));
+                            return products;
+                        });
+        return loaded.flatMapIterable(byId -> ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    /**
+     * Определяет причину, по которой условное обновление продукта не нашло документ:
+     * продукт отсутствует или его версия отличается от ожидаемой.
+     */
+    private <T> Mono<T> updateFailure(String id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.error(new ProductNotFoundException("Product not found"));
+        }
+        return productRepository.existsById(id)
+                .flatMap(exists -> Mono.error(Boolean.TRUE.equals(exists)
+                        ? new OptimisticLockingFailureException("Product " + id + " was modified after version "
+                        + expectedVersion)
+                        : new ProductNotFoundException("Product not found")));
     }
 
 }
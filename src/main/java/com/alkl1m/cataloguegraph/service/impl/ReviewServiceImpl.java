@@ -1,20 +1,48 @@
 package com.alkl1m.cataloguegraph.service.impl;
 
+import com.alkl1m.cataloguegraph.cache.ResponseCache;
+import com.alkl1m.cataloguegraph.cache.ResponseTags;
+import com.alkl1m.cataloguegraph.dto.BulkError;
+import com.alkl1m.cataloguegraph.dto.BulkResult;
+import com.alkl1m.cataloguegraph.entity.Product;
 import com.alkl1m.cataloguegraph.entity.Review;
 import com.alkl1m.cataloguegraph.exception.ProductNotFoundException;
 import com.alkl1m.cataloguegraph.exception.ReviewNotFoundException;
+import com.alkl1m.cataloguegraph.ingestion.ReviewWriteBehind;
+import com.alkl1m.cataloguegraph.ranking.ProductRanking;
 import com.alkl1m.cataloguegraph.repository.ReviewRepository;
 import com.alkl1m.cataloguegraph.service.ProductService;
 import com.alkl1m.cataloguegraph.service.ReviewService;
+import com.alkl1m.cataloguegraph.subscription.ReviewEvents;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 /**
  * Сервис для управления отзывами.
  * Предоставляет методы для получения, добавления, обновления и удаления отзывов,
  * а также для работы с продуктами, связанными с отзывами.
+ * Добавленные отзывы и изменения агрегатов рейтинга публикуются подписчикам после успешной записи
+ * и учитываются в рейтингах лучших и набирающих популярность продуктов.
  *
  * @author AlKl1M
  */
@@ -24,6 +52,21 @@ public class ReviewServiceImpl implements ReviewService {
 
     private final ProductService productService;
     private final ReviewRepository reviewRepository;
+    private final ReviewEvents reviewEvents;
+    private final ResponseCache responseCache;
+    private final ProductRanking productRanking;
+    private final ObjectProvider<ReviewWriteBehind> reviewWriteBehind;
+
+    /**
+     * Получает все отзывы для указанного продукта.
+     *
+     * @param productId уникальный идентификатор продукта
+     * @return список отзывов, связанных с указанным продуктом
+     */
+    @Override
+    public Flux<Review> getReviewsByProductId(String productId) {
+        return reviewRepository.findByProductId(productId);
+    }
 
     /**
      * Получает список отзывов для указанного продукта с пагинацией.
@@ -31,13 +74,44 @@ public class ReviewServiceImpl implements ReviewService {
      * @param productId уникальный идентификатор продукта
      * @param page      номер страницы для пагинации
      * @param size      количество элементов на странице
+     * @param fields    загружаемые поля отзыва (пустая коллекция — все поля)
      * @return список отзывов, связанных с указанным продуктом
      */
     @Override
-    public Flux<Review> getReviewsByProductId(String productId, int page, int size) {
-        return reviewRepository.findByProductId(productId)
-                .skip((long) page * size)
-                .take(size);
+    public Flux<Review> getReviewsByProductId(String productId, int page, int size, Collection<String> fields) {
+        return reviewRepository.findPageByProductId(productId, PageRequest.of(page, size, Sort.by("id")), fields);
+    }
+
+    /**
+     * Получает отзывы сразу для нескольких продуктов одним запросом.
+     *
+     * @param productIds уникальные идентификаторы продуктов
+     * @return отзывы, сгруппированные по идентификатору продукта; для продуктов без отзывов — пустой список
+     */
+    @Override
+    public Mono<Map<String, List<Review>>> getReviewsByProductIds(Collection<String> productIds) {
+        return reviewRepository.findByProductIdIn(productIds)
+                .collect(() -> {
+                    Map<String, List<Review>> reviewsByProductId = new HashMap<>();
+                    productIds.forEach(productId -> reviewsByProductId.put(productId, new ArrayList<>()));
+                    return reviewsByProductId;
+                }, (reviewsByProductId, review) ->
+                        reviewsByProductId.get(review.getProductId()).add(review));
+    }
+
+    /**
+     * Получает окно отзывов для указанного продукта, начиная с указанной позиции прокрутки.
+     *
+     * @param productId уникальный идентификатор продукта
+     * @param position  позиция, после которой начинается окно
+     * @param size      количество элементов в окне
+     * @param fields    загружаемые поля отзыва (пустая коллекция — все поля)
+     * @return окно отзывов, связанных с указанным продуктом
+     */
+    @Override
+    public Mono<Window<Review>> getReviewsWindow(String productId, ScrollPosition position, int size,
+                                                 Collection<String> fields) {
+        return reviewRepository.scrollByProductId(productId, position, size, fields);
     }
 
     /**
@@ -52,57 +126,269 @@ public class ReviewServiceImpl implements ReviewService {
     }
 
     /**
-     * Добавляет новый отзыв и ассоциирует его с продуктом.
+     * Добавляет новый отзыв к существующему продукту.
+     * Сначала атомарно обновляются агрегаты рейтинга продукта, что одновременно проверяет его существование;
+     * если сохранить отзыв не удалось, изменение агрегатов откатывается.
+     * В режиме отложенной записи отзыв к существующему продукту только принимается к записи
+     * и возвращается до того, как он будет записан в MongoDB.
      *
      * @param review объект отзыва для добавления
      * @return добавленный отзыв
+     * @throws ProductNotFoundException если продукт отзыва не найден
      */
     @Override
     public Mono<Review> addReview(Review review) {
-        return reviewRepository.save(review)
-                .flatMap(savedReview ->
-                        productService.addReviewToProduct(review.getProductId(), savedReview)
-                                .thenReturn(savedReview)
-                );
+        ReviewWriteBehind writeBehind = reviewWriteBehind.getIfAvailable();
+        if (writeBehind != null) {
+            return productService.getProductById(review.getProductId())
+                    .then(writeBehind.submit(review));
+        }
+        return productService.adjustRating(review.getProductId(), review.getRating(), null)
+                .flatMap(product -> reviewRepository.save(review)
+                        .onErrorResume(e -> productService.adjustRating(review.getProductId(), null, review.getRating())
+                                .then(Mono.error(e)))
+                        .doOnNext(savedReview -> {
+                            productRanking.ratingChanged(product);
+                            productRanking.reviewsAdded(List.of(savedReview));
+                            reviewEvents.reviewAdded(savedReview);
+                            reviewEvents.ratingChanged(product);
+                        }));
     }
 
     /**
-     * Обновляет информацию о существующем отзыве.
+     * Добавляет отзывы одной пакетной записью.
+     * Существование продуктов проверяется одним запросом; отзывы к несуществующим продуктам
+     * и отзывы, которые не удалось вставить, возвращаются в виде ошибок с позицией во входном списке.
+     * После вставки агрегаты рейтинга обновляются один раз для каждого продукта пакета.
      *
-     * @param id      уникальный идентификатор отзыва
-     * @param rating  новый рейтинг отзыва
-     * @param comment новый комментарий отзыва
-     * @return обновленный отзыв
+     * @param reviews отзывы для добавления
+     * @return добавленные отзывы и ошибки по остальным
      */
     @Override
-    public Mono<Review> updateReview(String id, Integer rating, String comment) {
-        return reviewRepository.findById(id)
-                .flatMap(existingReview -> {
-                    existingReview.setRating(rating);
-                    existingReview.setComment(comment);
-                    return reviewRepository.save(existingReview);
+    public Mono<BulkResult<Review>> addReviews(List<Review> reviews) {
+        return insertReviews(reviews)
+                .flatMap(result -> applyRatings(result.items()).thenReturn(result));
+    }
+
+    /**
+     * Вставляет отзывы одной пакетной записью, не обновляя агрегаты рейтинга продуктов.
+     * Существование продуктов проверяется одним запросом; отзывы к несуществующим продуктам
+     * и отзывы, которые не удалось вставить, возвращаются в виде ошибок с позицией во входном списке.
+     * Агрегаты рейтинга вставленных отзывов обновляются отдельно методом {@link #applyRatings(List)},
+     * поэтому при его ошибке его можно повторить только для отзывов, вставленных этим вызовом.
+     *
+     * @param reviews отзывы для вставки
+     * @return вставленные отзывы и ошибки по остальным
+     */
+    @Override
+    public Mono<BulkResult<Review>> insertReviews(List<Review> reviews) {
+        Set<String> productIds = reviews.stream()
+                .map(Review::getProductId)
+                .collect(Collectors.toSet());
+
+        return productService.getProductsByIds(productIds)
+                .map(Product::getId)
+                .collect(Collectors.toSet())
+                .flatMap(existingProductIds -> {
+                    List<BulkError> errors = new ArrayList<>();
+                    List<Integer> acceptedIndices = new ArrayList<>();
+                    for (int index = 0; index < reviews.size(); index++) {
+                        Review review = reviews.get(index);
+                        if (existingProductIds.contains(review.getProductId())) {
+                            if (review.getId() == null) {
+                                review.setId(new ObjectId().toHexString());
+                            }
+                            acceptedIndices.add(index);
+                        } else {
+                            errors.add(new BulkError(index,
+                                    "Product with id " + review.getProductId() + " not found"));
+                        }
+                    }
+                    List<Review> accepted = acceptedIndices.stream()
+                            .map(reviews::get)
+                            .toList();
+
+                    return reviewRepository.bulkInsert(accepted)
+                            .flatMap(insertErrors -> {
+                                Set<Integer> failed = new HashSet<>();
+                                insertErrors.forEach(error -> {
+                                    failed.add(error.index());
+                                    errors.add(new BulkError(acceptedIndices.get(error.index()), error.message()));
+                                });
+                                List<Review> inserted = new ArrayList<>();
+                                for (int index = 0; index < accepted.size(); index++) {
+                                    if (!failed.contains(index)) {
+                                        inserted.add(accepted.get(index));
+                                    }
+                                }
+                                errors.sort(Comparator.comparingInt(BulkError::index));
+                                return Mono.just(new BulkResult<>(inserted, errors));
+                            });
+                });
+    }
+
+    /**
+     * Учитывает вставленные отзывы в агрегатах рейтинга: агрегаты обновляются один раз для каждого продукта,
+     * после чего отзывы и изменившиеся рейтинги публикуются подписчикам.
+     * Каждый отзыв должен учитываться ровно один раз, поэтому метод вызывается только для отзывов,
+     * вставка которых подтверждена {@link #insertReviews(List)}.
+     *
+     * @param inserted вставленные отзывы
+     * @return завершение обновления агрегатов
+     */
+    @Override
+    public Mono<Void> applyRatings(List<Review> inserted) {
+        return productService.addRatings(inserted)
+                .doOnNext(products -> {
+                    products.forEach(productRanking::ratingChanged);
+                    productRanking.reviewsAdded(inserted);
+                    publishAdded(inserted, products);
                 })
-                .switchIfEmpty(Mono.error(new ReviewNotFoundException("Review not found")));
+                .then();
     }
 
     /**
-     * Удаляет отзыв по его уникальному идентификатору.
+     * Выгружает все отзывы потоком, читая коллекцию пакетами указанного размера.
+     *
+     * @param batchSize количество документов в одном пакете курсора
+     * @return все отзывы
+     */
+    @Override
+    public Flux<Review> exportReviews(int batchSize) {
+        return reviewRepository.streamAll(batchSize);
+    }
+
+    /**
+     * Загружает отзывы из потока пакетными записями.
+     * Следующий пакет накапливается только после записи предыдущего, поэтому потребление памяти
+     * ограничено размером пакета. Агрегаты рейтинга обновляются один раз на продукт в каждом пакете.
+     *
+     * @param reviews   поток отзывов
+     * @param batchSize количество отзывов в одной пакетной записи
+     * @return ошибки по отзывам, которые не удалось загрузить, с позицией в потоке
+     */
+    @Override
+    public Flux<BulkError> importReviews(Flux<Review> reviews, int batchSize) {
+        return reviews
+                .map(review -> {
+                    if (review.getCreatedAt() == null) {
+                        review.setCreatedAt(LocalDateTime.now());
+                    }
+                    return review;
+                })
+                .buffer(batchSize)
+                .index()
+                .concatMap(batch -> addReviews(batch.getT2())
+                        .flatMapIterable(result -> result.errors().stream()
+                                .map(error -> error.withOffset(batch.getT1() * batchSize))
+                                .toList()), 1);
+    }
+
+    /**
+     * Частично обновляет существующий отзыв одной атомарной операцией.
+     * Поля, равные null, не меняются. Предыдущая оценка берется из той же операции, поэтому
+     * при одновременных изменениях агрегаты рейтинга продукта корректируются на точную разницу оценок.
+     * Если указана ожидаемая версия, отзыв обновляется, только если его не изменили после чтения клиентом.
+     * Если оценка не изменилась, из кэша ответов вытесняются запросы с отзывами продукта.
+     *
+     * @param id              уникальный идентификатор отзыва
+     * @param rating          новый рейтинг отзыва (может быть null)
+     * @param comment         новый комментарий отзыва (может быть null)
+     * @param expectedVersion версия отзыва, прочитанная клиентом (может быть null)
+     * @return обновленный отзыв
+     * @throws ReviewNotFoundException           если отзыв с указанным идентификатором не найден
+     * @throws OptimisticLockingFailureException если версия отзыва отличается от ожидаемой
+     */
+    @Override
+    public Mono<Review> updateReview(String id, Integer rating, String comment, Long expectedVersion) {
+        return reviewRepository.updateFields(id, rating, comment, expectedVersion)
+                .switchIfEmpty(Mono.defer(() -> updateFailure(id, expectedVersion)))
+                .flatMap(previous -> {
+                    Review updated = new Review(previous.getId(), previous.getProductId(), previous.getAuthor(),
+                            rating != null ? rating : previous.getRating(),
+                            comment != null ? comment : previous.getComment(),
+                            previous.getCreatedAt());
+                    updated.setVersion(previous.getVersion() != null ? previous.getVersion() + 1 : 1L);
+                    return previous.getRating() == updated.getRating()
+                            ? Mono.just(updated)
+                                    .doOnNext(review -> responseCache.invalidate(
+                                            List.of(ResponseTags.product(review.getProductId()))))
+                            : productService.adjustRating(updated.getProductId(), updated.getRating(),
+                                            previous.getRating())
+                                    .doOnNext(product -> {
+                                        productRanking.ratingChanged(product);
+                                        reviewEvents.ratingChanged(product);
+                                    })
+                                    .thenReturn(updated);
+                });
+    }
+
+    /**
+     * Удаляет отзыв по его уникальному идентификатору и исключает его оценку из агрегатов рейтинга продукта.
+     * Запросы с отзывами продукта вытесняются из кэша ответов сразу после удаления, даже если продукт
+     * отзыва уже удален и агрегаты рейтинга корректировать не нужно.
      *
      * @param id уникальный идентификатор отзыва
      * @return результат операции удаления (true, если удаление прошло успешно)
      */
     @Override
     public Mono<Boolean> deleteReview(String id) {
+        return reviewRepository.removeById(id)
+                .doOnNext(review -> responseCache.invalidate(List.of(ResponseTags.product(review.getProductId()))))
+                .flatMap(review -> productService.adjustRating(review.getProductId(), null, review.getRating())
+                        .doOnNext(product -> {
+                            productRanking.ratingChanged(product);
+                            reviewEvents.ratingChanged(product);
+                        })
+                        .onErrorResume(ProductNotFoundException.class, e -> Mono.empty())
+                        .thenReturn(true))
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Подписывает на отзывы, добавляемые к продукту.
+     *
+     * @param productId уникальный идентификатор продукта
+     * @return отзывы, добавляемые после подписки
+     */
+    @Override
+    public Flux<Review> watchReviewsAdded(String productId) {
+        return reviewEvents.reviewsAdded(productId);
+    }
+
+    /**
+     * Подписывает на изменения агрегатов рейтинга продукта.
+     *
+     * @param productId уникальный идентификатор продукта
+     * @return продукт после каждого изменения его рейтинга
+     */
+    @Override
+    public Flux<Product> watchRatingChanges(String productId) {
+        return reviewEvents.ratingChanges(productId);
+    }
+
+    /**
+     * Определяет причину, по которой условное обновление отзыва не нашло документ:
+     * отзыв отсутствует или его версия отличается от ожидаемой.
+     */
+    private <T> Mono<T> updateFailure(String id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.error(new ReviewNotFoundException("Review not found"));
+        }
         return reviewRepository.existsById(id)
-                .switchIfEmpty(Mono.error(new ReviewNotFoundException("Review not found")))
-                .flatMap(exists -> {
-                    if (Boolean.TRUE.equals(exists)) {
-                        return reviewRepository.deleteById(id)
-                                .then(Mono.just(true));
-                    } else {
-                        return Mono.just(false);
-                    }
-                });
+                .flatMap(exists -> Mono.error(Boolean.TRUE.equals(exists)
+                        ? new OptimisticLockingFailureException("Review " + id + " was modified after version "
+                        + expectedVersion)
+                        : new ReviewNotFoundException("Review not found")));
+    }
+
+    /**
+     * Публикует отзывы, добавленные пакетом, и изменившиеся рейтинги их продуктов.
+     * Продукты с обновленными агрегатами уже загружены при обновлении агрегатов рейтинга.
+     */
+    private void publishAdded(List<Review> inserted, List<Product> products) {
+        inserted.forEach(reviewEvents::reviewAdded);
+        products.forEach(reviewEvents::ratingChanged);
     }
 
 }
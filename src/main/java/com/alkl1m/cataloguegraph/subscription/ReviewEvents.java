@@ -0,0 +1,74 @@
+package com.alkl1m.cataloguegraph.subscription;
+
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Разветвитель событий об отзывах для GraphQL-подписок.
+ * События публикуются мутациями отзывов в один общий поток на каждый вид события,
+ * поэтому количество подписчиков не влияет на работу с MongoDB. Медленный подписчик
+ * не задерживает остальных: у каждого подписчика свой ограниченный буфер, из которого
+ * при переполнении вытесняются самые старые отзывы, а из изменений рейтинга
+ * подписчик получает только последнее.
+ *
+ * @author AlKl1M
+ */
+@Component
+public class ReviewEvents {
+
+    private final Sinks.Many<Review> reviewsAdded = Sinks.many().multicast().directBestEffort();
+    private final Sinks.Many<Product> ratingChanges = Sinks.many().multicast().directBestEffort();
+    private final int bufferSize;
+
+    public ReviewEvents(@Value("${catalogue.subscriptions.buffer-size:256}") int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Публикует добавленный отзыв.
+     *
+     * @param review добавленный отзыв
+     */
+    public void reviewAdded(Review review) {
+        synchronized (reviewsAdded) {
+            reviewsAdded.tryEmitNext(review);
+        }
+    }
+
+    /**
+     * Публикует продукт с изменившимися агрегатами рейтинга.
+     *
+     * @param product продукт с обновленными агрегатами
+     */
+    public void ratingChanged(Product product) {
+        synchronized (ratingChanges) {
+            ratingChanges.tryEmitNext(product);
+        }
+    }
+
+    /**
+     * @param productId уникальный идентификатор продукта
+     * @return отзывы, добавляемые к продукту
+     */
+    public Flux<Review> reviewsAdded(String productId) {
+        return reviewsAdded.asFlux()
+                .filter(review -> productId.equals(review.getProductId()))
+                .onBackpressureBuffer(bufferSize, BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    /**
+     * @param productId уникальный идентификатор продукта
+     * @return продукт после каждого изменения его агрегатов рейтинга
+     */
+    public Flux<Product> ratingChanges(String productId) {
+        return ratingChanges.asFlux()
+                .filter(product -> productId.equals(product.getId()))
+                .onBackpressureLatest();
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.alkl1m.cataloguegraph.controller;
+
+import com.alkl1m.cataloguegraph.cache.ResponseCache;
+import com.alkl1m.cataloguegraph.config.InMemoryRepositoryConfig;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.repository.CategoryStatsRepository;
+import com.alkl1m.cataloguegraph.repository.ProductRepository;
+import com.alkl1m.cataloguegraph.repository.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+
+@SpringBootTest(properties = "catalogue.execution.mode=blocking")
+@AutoConfigureWebTestClient
+@ActiveProfiles(InMemoryRepositoryConfig.PROFILE)
+@DisplayName("Интеграционные тесты блокирующего режима выполнения на виртуальных потоках")
+class BlockingExecutionModeTest {
+
+    @MockitoSpyBean
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private CategoryStatsRepository categoryStatsRepository;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        responseCache.invalidateAll();
+        reviewRepository.deleteAll().block();
+        productRepository.deleteAll().block();
+        categoryStatsRepository.deleteAll().block();
+
+        productRepository.saveAll(List.of(
+                new Product("product1", "Laptop", "High-end laptop", 1500.0, "Electronics"),
+                new Product("product2", "Headphones", "Noise-cancelling headphones", 300.0, "Electronics")
+        )).collectList().block();
+        reviewRepository.saveAll(List.of(
+                new Review(null, "product1", "User1", 5, "Excellent!", LocalDateTime.now()),
+                new Review(null, "product2", "User2", 4, "Very good!", LocalDateTime.now())
+        )).collectList().block();
+    }
+
+    @Test
+    @DisplayName("Должен извлечь продукты с отзывами через загрузчики и несколько корневых полей")
+    void testGetProductsWithReviews() {
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", """
+                    query {
+                        getProducts(category: \"Electronics\", page: 0, size: 10) {
+                            id
+                            reviews {
+                                author
+                            }
+                        }
+                        getProductById(id: \"product1\") {
+                            name
+                        }
+                    }
+                """))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getProducts.length()").isEqualTo(2)
+                .jsonPath("$.data.getProducts[?(@.id == 'product1')].reviews[0].author").isEqualTo("User1")
+                .jsonPath("$.data.getProducts[?(@.id == 'product2')].reviews[0].author").isEqualTo("User2")
+                .jsonPath("$.data.getProductById.name").isEqualTo("Laptop");
+    }
+
+    @Test
+    @DisplayName("Должен выполнить изменение и вернуть классифицированную ошибку сервиса")
+    void testMutation_withServiceError() {
+        String mutation = """
+                    mutation {
+                        updateProduct(id: \"product1\", price: 1400.0, expectedVersion: 0) {
+                            price
+                            version
+                        }
+                    }
+                """;
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", mutation))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.updateProduct.price").isEqualTo(1400.0)
+                .jsonPath("$.data.updateProduct.version").isEqualTo(1);
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", mutation))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.errors[0].extensions.classification").isEqualTo("VersionConflict");
+    }
+
+    @Test
+    @DisplayName("Должен отменить чтение из репозитория, если крайний срок запроса истек")
+    void testQuery_withExceededDeadline_CancelsRepositoryRead() throws InterruptedException {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        doReturn(Flux.<Product>never().doOnCancel(cancelled::countDown))
+                .when(productRepository).findFiltered(any(), any(), any(), anyLong(), anyInt(), any());
+
+        webTestClient.post()
+                .uri("/graphql")
+                .header("X-Request-Timeout", "200ms")
+                .bodyValue(Map.of("query", """
+                    query {
+                        getProducts(category: \"Electronics\") {
+                            id
+                        }
+                    }
+                """))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.errors[0].path[0]").isEqualTo("getProducts")
+                .jsonPath("$.errors[0].extensions.classification").isEqualTo("DeadlineExceeded");
+
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.alkl1m.cataloguegraph.controller;
+
+import com.alkl1m.cataloguegraph.cache.ResponseCache;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.repository.ProductRepository;
+import com.alkl1m.cataloguegraph.repository.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Testcontainers
+@AutoConfigureWebTestClient
+@DisplayName("Интеграционные тесты для контроллера выгрузки и загрузки каталога")
+class CatalogueTransferControllerTest {
+
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:latest");
+
+    static {
+        mongoDBContainer.start();
+    }
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+        registry.add("spring.data.mongodb.database", () -> "testDB");
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        responseCache.invalidateAll();
+        reviewRepository.deleteAll().block();
+        productRepository.deleteAll().block();
+    }
+
+    @Test
+    @DisplayName("Должен выгрузить продукты построчно")
+    void testExportProducts() {
+        productRepository.saveAll(List.of(
+                new Product("product1", "Laptop", "High-end laptop", 1500.0, "Electronics"),
+                new Product("product2", "Phone", "Smartphone", 800.0, "Electronics"))).collectList().block();
+
+        List<Product> exported = webTestClient.get()
+                .uri("/catalogue/products")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Product.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertNotNull(exported);
+        assertEquals(2, exported.size());
+    }
+
+    @Test
+    @DisplayName("Должен загрузить продукты и отзывы и вернуть ошибки по отзывам к несуществующим продуктам")
+    void testImportProductsAndReviews() {
+        String products = """
+                {"id": "product1", "name": "Laptop", "description": "High-end laptop", "price": 1500.0, "category": "Electronics"}
+                {"id": "product2", "name": "Phone", "description": "Smartphone", "price": 800.0, "category": "Electronics"}
+                """;
+
+        webTestClient.post()
+                .uri("/catalogue/products")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(products)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().isEmpty();
+
+        String reviews = """
+                {"productId": "product1", "author": "User1", "rating": 5, "comment": "Excellent!"}
+                {"productId": "missing", "author": "User2", "rating": 1, "comment": "Bad"}
+                {"productId": "product1", "author": "User3", "rating": 3, "comment": "Fine"}
+                """;
+
+        webTestClient.post()
+                .uri("/catalogue/reviews")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(reviews)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.index").isEqualTo(1);
+
+        List<Review> imported = reviewRepository.findAll().collectList().block();
+        assertNotNull(imported);
+        assertEquals(2, imported.size());
+        assertTrue(imported.stream().allMatch(review -> review.getCreatedAt().isBefore(LocalDateTime.now().plusSeconds(1))));
+
+        Product product = productRepository.findById("product1").block();
+        assertNotNull(product);
+        assertEquals(2, product.getRatingCount());
+        assertEquals(8, product.getRatingSum());
+    }
+
+}
@@ -0,0 +1,230 @@
+package com.alkl1m.cataloguegraph.controller;
+
+import com.alkl1m.cataloguegraph.cache.ResponseCache;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.repository.CategoryStatsRepository;
+import com.alkl1m.cataloguegraph.repository.ProductRepository;
+import com.alkl1m.cataloguegraph.repository.ReviewRepository;
+import com.alkl1m.cataloguegraph.service.CategoryStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest
+@Testcontainers
+@AutoConfigureWebTestClient
+@DisplayName("Интеграционные тесты для контроллера сводок по категориям")
+class CategoryStatsControllerTest {
+
+    private static final String BOOKS_STATS = """
+            query {
+                categoryStats(categories: [\"Books\"]) {
+                    category
+                    productCount
+                    minPrice
+                    maxPrice
+                    averagePrice
+                    averageRating
+                    priceBands {
+                        from
+                        to
+                        count
+                    }
+                }
+            }
+        """;
+
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:latest");
+
+    static {
+        mongoDBContainer.start();
+    }
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+        registry.add("spring.data.mongodb.database", () -> "testDB");
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private CategoryStatsRepository categoryStatsRepository;
+
+    @Autowired
+    private CategoryStatsService categoryStatsService;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        responseCache.invalidateAll();
+        reviewRepository.deleteAll().block();
+        productRepository.deleteAll().block();
+        categoryStatsRepository.deleteAll().block();
+
+        String mutation = """
+            mutation {
+                addProducts(products: [
+                    {name: \"Novel\", description: \"Paperback\", price: 50.0, category: \"Books\"},
+                    {name: \"Atlas\", description: \"Hardcover\", price: 150.0, category: \"Books\"},
+                    {name: \"Encyclopedia\", description: \"Collector's edition\", price: 700.0, category: \"Books\"}
+                ]) {
+                    items {
+                        id
+                    }
+                }
+            }
+        """;
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", mutation))
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    @DisplayName("Должен учесть добавленные продукты и отзывы в сводке категории")
+    void testCategoryStats_afterAddingProductsAndReviews() {
+        Product product = productRepository.findAll()
+                .filter(candidate -> candidate.getName().equals("Atlas"))
+                .blockFirst();
+        assertNotNull(product);
+
+        String mutation = String.format("""
+            mutation {
+                addReview(productId: \"%s\", author: \"User1\", rating: 4, comment: \"Good maps\") {
+                    id
+                }
+            }
+        """, product.getId());
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", mutation))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", BOOKS_STATS))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.categoryStats.length()").isEqualTo(1)
+                .jsonPath("$.data.categoryStats[0].productCount").isEqualTo(3)
+                .jsonPath("$.data.categoryStats[0].minPrice").isEqualTo(50.0)
+                .jsonPath("$.data.categoryStats[0].maxPrice").isEqualTo(700.0)
+                .jsonPath("$.data.categoryStats[0].averagePrice").isEqualTo(300.0)
+                .jsonPath("$.data.categoryStats[0].averageRating").isEqualTo(4.0)
+                .jsonPath("$.data.categoryStats[0].priceBands.length()").isEqualTo(3)
+                .jsonPath("$.data.categoryStats[0].priceBands[2].from").isEqualTo(500.0)
+                .jsonPath("$.data.categoryStats[0].priceBands[2].to").isEqualTo(1000.0);
+    }
+
+    @Test
+    @DisplayName("Должен пересчитать цены сводки после удаления продуктов и удалить пустую сводку")
+    void testCategoryStats_afterDeletingProducts() {
+        Product cheapest = productRepository.findAll()
+                .filter(candidate -> candidate.getName().equals("Novel"))
+                .blockFirst();
+        assertNotNull(cheapest);
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", String.format("""
+                    mutation {
+                        deleteProduct(id: \"%s\")
+                    }
+                """, cheapest.getId())))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", BOOKS_STATS))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.categoryStats[0].productCount").isEqualTo(2)
+                .jsonPath("$.data.categoryStats[0].minPrice").isEqualTo(150.0)
+                .jsonPath("$.data.categoryStats[0].averagePrice").isEqualTo(425.0);
+
+        List<String> ids = productRepository.findAll()
+                .map(Product::getId)
+                .collectList()
+                .block();
+        assertNotNull(ids);
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", String.format("""
+                    mutation {
+                        deleteProducts(ids: [\"%s\", \"%s\"])
+                    }
+                """, ids.get(0), ids.get(1))))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", BOOKS_STATS))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.categoryStats").isEmpty();
+    }
+
+    @Test
+    @DisplayName("Должен перестроить сводки по коллекции продуктов")
+    void testRebuildCategoryStats() {
+        categoryStatsRepository.deleteAll().block();
+        productRepository.save(new Product(null, "Phone", "Smartphone", 999.0, "Electronics")).block();
+
+        assertEquals(2L, categoryStatsService.rebuild().block());
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", """
+                    query {
+                        categoryStats {
+                            category
+                            productCount
+                            maxPrice
+                        }
+                    }
+                """))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.categoryStats.length()").isEqualTo(2)
+                .jsonPath("$.data.categoryStats[0].category").isEqualTo("Books")
+                .jsonPath("$.data.categoryStats[0].productCount").isEqualTo(3)
+                .jsonPath("$.data.categoryStats[1].category").isEqualTo("Electronics")
+                .jsonPath("$.data.categoryStats[1].maxPrice").isEqualTo(999.0);
+    }
+
+}
@@ -0,0 +1,267 @@
+package com.alkl1m.cataloguegraph.controller;
+
+import com.alkl1m.cataloguegraph.cache.ResponseCache;
+import com.alkl1m.cataloguegraph.config.InMemoryRepositoryConfig;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.repository.CategoryStatsRepository;
+import com.alkl1m.cataloguegraph.repository.ProductRepository;
+import com.alkl1m.cataloguegraph.repository.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles(InMemoryRepositoryConfig.PROFILE)
+@DisplayName("Интеграционные тесты API каталога на репозиториях в памяти")
+class InMemoryProfileTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private CategoryStatsRepository categoryStatsRepository;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        responseCache.invalidateAll();
+        reviewRepository.deleteAll().block();
+        productRepository.deleteAll().block();
+        categoryStatsRepository.deleteAll().block();
+
+        String mutation = """
+            mutation {
+                addProducts(products: [
+                    {name: \"Laptop\", description: \"High-end laptop\", price: 1500.0, category: \"Electronics\"},
+                    {name: \"Headphones\", description: \"Noise-cancelling headphones\", price: 300.0, category: \"Electronics\"},
+                    {name: \"Novel\", description: \"Paperback\", price: 50.0, category: \"Books\"}
+                ]) {
+                    items {
+                        id
+                    }
+                }
+            }
+        """;
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", mutation))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.addProducts.items.length()").isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Должен извлечь продукты категории по индексу цены с фильтром и постранично по курсору")
+    void testGetProducts() {
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", """
+                    query {
+                        getProducts(category: \"Electronics\", minPrice: 100.0, page: 0, size: 10) {
+                            name
+                            price
+                        }
+                        getProductsConnection(first: 2) {
+                            edges {
+                                node {
+                                    name
+                                }
+                            }
+                            pageInfo {
+                                hasNextPage
+                            }
+                        }
+                    }
+                """))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getProducts.length()").isEqualTo(2)
+                .jsonPath("$.data.getProducts[0].name").isEqualTo("Headphones")
+                .jsonPath("$.data.getProducts[1].name").isEqualTo("Laptop")
+                .jsonPath("$.data.getProductsConnection.edges[0].node.name").isEqualTo("Novel")
+                .jsonPath("$.data.getProductsConnection.edges[1].node.name").isEqualTo("Headphones")
+                .jsonPath("$.data.getProductsConnection.pageInfo.hasNextPage").isEqualTo(true);
+    }
+
+    @Test
+    @DisplayName("Должен найти продукты по тексту и посчитать фасеты")
+    void testSearchProducts() {
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", """
+                    query {
+                        searchProducts(query: \"laptop\", facets: [CATEGORY]) {
+                            total
+                            products {
+                                name
+                            }
+                            categories {
+                                value
+                                count
+                            }
+                        }
+                    }
+                """))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.searchProducts.total").isEqualTo(1)
+                .jsonPath("$.data.searchProducts.products[0].name").isEqualTo("Laptop")
+                .jsonPath("$.data.searchProducts.categories[0].value").isEqualTo("Electronics");
+    }
+
+    @Test
+    @DisplayName("Должен учесть отзывы в рейтинге продукта и в сводке категории")
+    void testAddReviews() {
+        Product laptop = productRepository.findAll()
+                .filter(candidate -> candidate.getName().equals("Laptop"))
+                .blockFirst();
+        assertNotNull(laptop);
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", String.format("""
+                    mutation {
+                        addReviews(reviews: [
+                            {productId: \"%1$s\", author: \"User1\", rating: 5, comment: \"Excellent!\"},
+                            {productId: \"%1$s\", author: \"User2\", rating: 3, comment: \"Fine\"}
+                        ]) {
+                            items {
+                                id
+                            }
+                        }
+                    }
+                """, laptop.getId())))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", String.format("""
+                    query {
+                        getProductAverageRating(id: \"%s\")
+                        categoryStats(categories: [\"Electronics\"]) {
+                            productCount
+                            averageRating
+                        }
+                    }
+                """, laptop.getId())))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getProductAverageRating").isEqualTo(4.0)
+                .jsonPath("$.data.categoryStats[0].productCount").isEqualTo(2)
+                .jsonPath("$.data.categoryStats[0].averageRating").isEqualTo(4.0);
+    }
+
+    @Test
+    @DisplayName("Должен вытеснить из кэша ответов отзывы продукта при удалении отзыва к удаленному продукту")
+    void testDeleteReview_withRemovedProduct() {
+        Product laptop = productRepository.findAll()
+                .filter(candidate -> candidate.getName().equals("Laptop"))
+                .blockFirst();
+        assertNotNull(laptop);
+        Review review = reviewRepository.save(new Review(null, laptop.getId(), "User1", 5, "Excellent!",
+                LocalDateTime.now())).block();
+        assertNotNull(review);
+
+        String query = String.format("""
+                    query {
+                        getReviews(productId: \"%s\") {
+                            id
+                        }
+                    }
+                """, laptop.getId());
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", query))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getReviews.length()").isEqualTo(1);
+
+        productRepository.deleteById(laptop.getId()).block();
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", String.format("""
+                    mutation {
+                        deleteReview(id: \"%s\")
+                    }
+                """, review.getId())))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.deleteReview").isEqualTo(true);
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", query))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getReviews.length()").isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Должен обновить продукт по версии и отклонить обновление по устаревшей версии")
+    void testUpdateProduct_withVersion() {
+        Product novel = productRepository.findAll()
+                .filter(candidate -> candidate.getName().equals("Novel"))
+                .blockFirst();
+        assertNotNull(novel);
+        assertEquals(0L, novel.getVersion());
+
+        String mutation = """
+                    mutation {
+                        updateProduct(id: \"%s\", price: 60.0, expectedVersion: 0) {
+                            price
+                            version
+                        }
+                    }
+                """;
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", String.format(mutation, novel.getId())))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.updateProduct.price").isEqualTo(60.0)
+                .jsonPath("$.data.updateProduct.version").isEqualTo(1);
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", String.format(mutation, novel.getId())))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.errors[0].extensions.classification").isEqualTo("VersionConflict");
+    }
+
+}
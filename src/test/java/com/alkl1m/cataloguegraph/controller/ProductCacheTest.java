@@ -0,0 +1,134 @@
+package com.alkl1m.cataloguegraph.controller;
+
+import com.alkl1m.cataloguegraph.config.InMemoryRepositoryConfig;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = "catalogue.graphql.response-cache.enabled=false")
+@AutoConfigureWebTestClient
+@ActiveProfiles(InMemoryRepositoryConfig.PROFILE)
+@DisplayName("Интеграционные тесты кэша продуктов и средних рейтингов")
+class ProductCacheTest {
+
+    @MockitoSpyBean
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        productRepository.deleteAll().block();
+        product = productRepository.save(new Product(null, "Laptop", "High-end laptop", 1500.0, "Electronics"))
+                .block();
+        clearInvocations(productRepository);
+    }
+
+    @Test
+    @DisplayName("Должен читать продукт из кэша и перечитать его после изменения и удаления")
+    void testGetProductById_isCachedAndEvicted() {
+        getProductById();
+        getProductById();
+        verify(productRepository, times(1)).findById(product.getId());
+
+        execute("""
+                mutation ($id: ID!) {
+                    updateProduct(id: $id, price: 1400.0) {
+                        id
+                    }
+                }
+            """);
+        getProductById()
+                .jsonPath("$.data.getProductById.price").isEqualTo(1400.0);
+        getProductById();
+        verify(productRepository, times(2)).findById(product.getId());
+
+        execute("""
+                mutation ($id: ID!) {
+                    deleteProduct(id: $id)
+                }
+            """);
+        getProductById()
+                .jsonPath("$.data.getProductById").isEmpty();
+        verify(productRepository, times(3)).findById(product.getId());
+    }
+
+    @Test
+    @DisplayName("Должен читать средний рейтинг из кэша и перечитать его после добавления отзыва")
+    void testGetProductAverageRating_isCachedAndEvicted() {
+        execute("""
+                mutation ($id: ID!) {
+                    addReview(productId: $id, author: "User1", rating: 5, comment: "Excellent!") {
+                        id
+                    }
+                }
+            """);
+        getProductAverageRating()
+                .jsonPath("$.data.getProductAverageRating").isEqualTo(5.0);
+        getProductAverageRating();
+        verify(productRepository, times(1)).findRating(product.getId());
+
+        execute("""
+                mutation ($id: ID!) {
+                    addReview(productId: $id, author: "User2", rating: 3, comment: "Average") {
+                        id
+                    }
+                }
+            """);
+        getProductAverageRating()
+                .jsonPath("$.data.getProductAverageRating").isEqualTo(4.0);
+        getProductAverageRating();
+        verify(productRepository, times(2)).findRating(product.getId());
+    }
+
+    private WebTestClient.BodyContentSpec getProductById() {
+        return execute("""
+                query ($id: ID!) {
+                    getProductById(id: $id) {
+                        id
+                        price
+                    }
+                }
+            """);
+    }
+
+    private WebTestClient.BodyContentSpec getProductAverageRating() {
+        return execute("""
+                query ($id: ID!) {
+                    getProductAverageRating(id: $id)
+                }
+            """);
+    }
+
+    private WebTestClient.BodyContentSpec execute(String document) {
+        return webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", document, "variables", Map.of("id", product.getId())))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody();
+    }
+
+}
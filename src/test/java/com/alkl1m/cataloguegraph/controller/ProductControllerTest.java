@@ -1,7 +1,9 @@
 package com.alkl1m.cataloguegraph.controller;
 
+import com.alkl1m.cataloguegraph.cache.ResponseCache;
 import com.alkl1m.cataloguegraph.entity.Product;
 import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.persisted.PersistedQueryStore;
 import com.alkl1m.cataloguegraph.repository.ProductRepository;
 import com.alkl1m.cataloguegraph.repository.ReviewRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,8 +21,11 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @SpringBootTest
 @Testcontainers
@@ -46,16 +51,20 @@ class ProductControllerTest {
     @Autowired
     private ReviewRepository reviewRepository;
 
+    @Autowired
+    private ResponseCache responseCache;
+
     @Autowired
     private WebTestClient webTestClient;
 
     @BeforeEach
     void setUp() {
+        responseCache.invalidateAll();
         productRepository.deleteAll().subscribe();
         reviewRepository.deleteAll().subscribe();
 
-        Product product1 = new Product(null, "Laptop", "High-end laptop", 1500.0, "Electronics", null);
-        Product product2 = new Product(null, "Headphones", "Noise-cancelling headphones", 300.0, "Electronics", null);
+        Product product1 = new Product(null, "Laptop", "High-end laptop", 1500.0, "Electronics");
+        Product product2 = new Product(null, "Headphones", "Noise-cancelling headphones", 300.0, "Electronics");
         productRepository.saveAll(List.of(product1, product2)).collectList().block();
 
         Review review1 = new Review(null, product1.getId(), "User1", 5, "Excellent!", LocalDateTime.now());
@@ -88,6 +97,153 @@ class ProductControllerTest {
                 .jsonPath("$.data.getProducts[0].category").isEqualTo("Electronics");
     }
 
+    @Test
+    @DisplayName("Должен отдать повторный запрос из кэша ответов и вытеснить его после изменения продукта")
+    void testGetProducts_servedFromResponseCacheUntilMutation() {
+        String query = """
+                    query {
+                        getProducts(category: \"Electronics\", page: 0, size: 10) {
+                            name
+                            price
+                        }
+                    }
+                """;
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", query))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getProducts[1].name").isEqualTo("Laptop");
+
+        Product laptop = productRepository.findAll()
+                .filter(candidate -> candidate.getName().equals("Laptop"))
+                .blockFirst();
+        assertNotNull(laptop);
+        laptop.setName("Renamed directly");
+        productRepository.save(laptop).block();
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", query))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getProducts[1].name").isEqualTo("Laptop");
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", String.format("""
+                    mutation {
+                        updateProduct(id: \"%s\", price: 1200.0) {
+                            id
+                        }
+                    }
+                """, laptop.getId())))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", query))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getProducts[1].name").isEqualTo("Renamed directly")
+                .jsonPath("$.data.getProducts[1].price").isEqualTo(1200.0);
+    }
+
+    @Test
+    @DisplayName("Должен извлечь продукты постранично по курсору")
+    void testGetProductsConnection() {
+        String firstPage = """
+                    query {
+                        getProductsConnection(category: \"Electronics\", first: 1) {
+                            edges {
+                                cursor
+                                node {
+                                    name
+                                    price
+                                }
+                            }
+                            pageInfo {
+                                hasNextPage
+                                endCursor
+                            }
+                        }
+                    }
+                """;
+
+        AtomicReference<String> endCursor = new AtomicReference<>();
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", firstPage))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getProductsConnection.edges[0].node.name").isEqualTo("Headphones")
+                .jsonPath("$.data.getProductsConnection.pageInfo.hasNextPage").isEqualTo(true)
+                .jsonPath("$.data.getProductsConnection.pageInfo.endCursor").value(String.class, endCursor::set);
+
+        String secondPage = String.format("""
+                    query {
+                        getProductsConnection(category: \"Electronics\", first: 1, after: \"%s\") {
+                            edges {
+                                node {
+                                    name
+                                }
+                            }
+                        }
+                    }
+                """, endCursor.get());
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", secondPage))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getProductsConnection.edges[0].node.name").isEqualTo("Laptop");
+    }
+
+    @Test
+    @DisplayName("Должен найти продукты по тексту с подсчетом фасетов")
+    void testSearchProducts() {
+        String query = """
+                    query {
+                        searchProducts(query: \"laptop\", filters: { categories: [\"Electronics\"] }, facets: [CATEGORY, PRICE]) {
+                            total
+                            products {
+                                name
+                            }
+                            categories {
+                                value
+                                count
+                            }
+                            priceRanges {
+                                from
+                                to
+                                count
+                            }
+                        }
+                    }
+                """;
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", query))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.searchProducts.total").isEqualTo(1)
+                .jsonPath("$.data.searchProducts.products[0].name").isEqualTo("Laptop")
+                .jsonPath("$.data.searchProducts.categories[0].value").isEqualTo("Electronics")
+                .jsonPath("$.data.searchProducts.categories[0].count").isEqualTo(1)
+                .jsonPath("$.data.searchProducts.priceRanges[0].from").isEqualTo(1000.0)
+                .jsonPath("$.data.searchProducts.priceRanges[0].to").isEqualTo(5000.0);
+    }
+
     @Test
     @DisplayName("Должен извлечь продукт по ID")
     void testGetProductById() {
@@ -114,6 +270,116 @@ class ProductControllerTest {
                 .jsonPath("$.data.getProductById.id").isEqualTo(product.getId());
     }
 
+    @Test
+    @DisplayName("Должен отклонить запрос, стоимость которого превышает допустимую")
+    void testGetProducts_withOversizedPage_IsRejected() {
+        String query = """
+                    query {
+                        getProducts(size: 100000) {
+                            id
+                            reviews {
+                                id
+                            }
+                        }
+                    }
+                """;
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", query))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data").doesNotExist()
+                .jsonPath("$.errors[0].extensions.classification").isEqualTo("ExecutionAborted");
+    }
+
+    @Test
+    @DisplayName("Должен отклонить страницу нулевого размера, не читая каталог целиком")
+    void testGetProducts_withZeroSize_IsRejected() {
+        String query = """
+                    query {
+                        getProducts(size: 0) {
+                            id
+                            reviews {
+                                id
+                            }
+                        }
+                    }
+                """;
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", query))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getProducts").doesNotExist()
+                .jsonPath("$.errors[0].path[0]").isEqualTo("getProducts")
+                .jsonPath("$.errors[0].extensions.classification").isEqualTo("BAD_REQUEST");
+    }
+
+    @Test
+    @DisplayName("Должен завершить поле ошибкой, если крайний срок запроса истек")
+    void testGetProducts_withExpiredDeadline_ReturnsDeadlineExceeded() {
+        String query = """
+                    query {
+                        getProducts(category: \"Electronics\", page: 0, size: 10) {
+                            id
+                        }
+                    }
+                """;
+
+        webTestClient.post()
+                .uri("/graphql")
+                .header("X-Request-Timeout", "0")
+                .bodyValue(Map.of("query", query))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getProducts").isEmpty()
+                .jsonPath("$.errors[0].path[0]").isEqualTo("getProducts")
+                .jsonPath("$.errors[0].extensions.classification").isEqualTo("DeadlineExceeded");
+    }
+
+    @Test
+    @DisplayName("Должен выполнить сохраненный запрос по хэшу после его регистрации")
+    void testGetProducts_withPersistedQuery() {
+        String query = """
+                    query {
+                        getProducts(category: \"Electronics\", page: 0, size: 10) {
+                            name
+                        }
+                    }
+                """;
+        Map<String, Object> extensions = Map.of("persistedQuery",
+                Map.of("version", 1, "sha256Hash", PersistedQueryStore.sha256(query)));
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("extensions", extensions))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.errors[0].message").isEqualTo("PersistedQueryNotFound");
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", query, "extensions", extensions))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getProducts.length()").isEqualTo(2);
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("extensions", extensions))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getProducts.length()").isEqualTo(2);
+    }
+
     @Test
     @DisplayName("Должен добавить новый продукт")
     void testAddProduct() {
@@ -138,6 +404,59 @@ class ProductControllerTest {
                 .jsonPath("$.data.addProduct.name").isEqualTo("Smartphone");
     }
 
+    @Test
+    @DisplayName("Должен добавить несколько продуктов и удалить их одним запросом")
+    void testAddAndDeleteProducts() {
+        String mutation = """
+                    mutation {
+                        addProducts(products: [
+                            {name: \"Tablet\", description: \"10 inch\", price: 499.0, category: \"Electronics\"},
+                            {name: \"Headphones\", description: \"Wireless\", price: 199.0, category: \"Electronics\"}
+                        ]) {
+                            items {
+                                id
+                                name
+                            }
+                            errors {
+                                index
+                                message
+                            }
+                        }
+                    }
+                """;
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", mutation))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.addProducts.items.length()").isEqualTo(2)
+                .jsonPath("$.data.addProducts.items[0].name").isEqualTo("Tablet")
+                .jsonPath("$.data.addProducts.errors").isEmpty();
+
+        List<String> ids = productRepository.findAll()
+                .filter(product -> product.getCategory().equals("Electronics"))
+                .map(Product::getId)
+                .collectList()
+                .block();
+        assertNotNull(ids);
+
+        String deleteMutation = String.format("""
+                    mutation {
+                        deleteProducts(ids: [%s])
+                    }
+                """, ids.stream().map(id -> "\"" + id + "\"").collect(Collectors.joining(", ")));
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", deleteMutation))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.deleteProducts").isEqualTo(ids.size());
+    }
+
     @Test
     @DisplayName("Должен удалить продукт")
     void testDeleteProduct() {
@@ -197,21 +516,137 @@ class ProductControllerTest {
     }
 
     @Test
-    @DisplayName("Должен извлечь средний рейтинг продукта")
-    void testGetProductAverageRating_withValidPayload_ReturnsValidAgerageRating() {
+    @DisplayName("Должен обновить только переданные поля продукта и увеличить его версию")
+    void testUpdateProduct_withPartialPayload_KeepsOtherFields() {
         Product product = productRepository.findAll().blockFirst();
         assertNotNull(product);
 
-        Review review = new Review(null, product.getId(), "User3", 4, "Good", LocalDateTime.now());
+        String mutation = String.format("""
+                    mutation {
+                        updateProduct(id: \"%s\", price: 999.0, expectedVersion: %d) {
+                            name
+                            description
+                            price
+                            category
+                            version
+                        }
+                    }
+                """, product.getId(), product.getVersion());
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", mutation))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.updateProduct.name").isEqualTo(product.getName())
+                .jsonPath("$.data.updateProduct.description").isEqualTo(product.getDescription())
+                .jsonPath("$.data.updateProduct.price").isEqualTo(999.0)
+                .jsonPath("$.data.updateProduct.category").isEqualTo(product.getCategory())
+                .jsonPath("$.data.updateProduct.version").isEqualTo(product.getVersion() + 1);
+    }
+
+    @Test
+    @DisplayName("Должен отклонить обновление продукта, измененного после чтения")
+    void testUpdateProduct_withStaleVersion_ReturnsVersionConflict() {
+        Product product = productRepository.findAll().blockFirst();
+        assertNotNull(product);
 
-        product.getReviews().add(review);
+        String mutation = """
+                    mutation {
+                        updateProduct(id: \"%s\", name: \"%s\", expectedVersion: %d) {
+                            name
+                        }
+                    }
+                """;
 
-        reviewRepository.save(review).block();
-        productRepository.save(product).block();
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", String.format(mutation, product.getId(), "First edit", product.getVersion())))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.updateProduct.name").isEqualTo("First edit");
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", String.format(mutation, product.getId(), "Second edit", product.getVersion())))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.updateProduct").isEmpty()
+                .jsonPath("$.errors[0].extensions.classification").isEqualTo("VersionConflict");
+
+        Product stored = productRepository.findById(product.getId()).block();
+        assertNotNull(stored);
+        assertEquals("First edit", stored.getName());
+    }
+
+    @Test
+    @DisplayName("Должен извлечь средний рейтинг продукта")
+    void testGetProductAverageRating_withValidPayload_ReturnsValidAgerageRating() {
+        Product product = productRepository.findAll()
+                .filter(p -> p.getName().equals("Headphones"))
+                .blockFirst();
+        assertNotNull(product);
+
+        String mutation = String.format("""
+                    mutation {
+                        addReview(productId: \"%s\", author: \"User3\", rating: 4, comment: \"Good\") {
+                            id
+                        }
+                    }
+                """, product.getId());
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", mutation))
+                .exchange()
+                .expectStatus().isOk();
 
         String query = String.format("""
                     query {
                         getProductAverageRating(id: \"%s\")
+                        getProductById(id: \"%s\") {
+                            averageRating
+                            ratingCount
+                            ratingHistogram {
+                                rating
+                                count
+                            }
+                        }
+                    }
+                """, product.getId(), product.getId());
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", query))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getProductAverageRating").isEqualTo(4)
+                .jsonPath("$.data.getProductById.averageRating").isEqualTo(4)
+                .jsonPath("$.data.getProductById.ratingCount").isEqualTo(1)
+                .jsonPath("$.data.getProductById.ratingHistogram[0].rating").isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Должен извлечь отзывы продукта из коллекции отзывов")
+    void testGetProductReviews() {
+        Product product = productRepository.findAll()
+                .filter(p -> p.getName().equals("Laptop"))
+                .blockFirst();
+        assertNotNull(product);
+
+        String query = String.format("""
+                    query {
+                        getProductById(id: \"%s\") {
+                            name
+                            reviews {
+                                author
+                                rating
+                            }
+                        }
                     }
                 """, product.getId());
 
@@ -221,8 +656,63 @@ class ProductControllerTest {
                 .exchange()
                 .expectStatus().isOk()
                 .expectBody()
-                .jsonPath("$.data.getProductAverageRating").isEqualTo(4);
+                .jsonPath("$.data.getProductById.reviews.length()").isEqualTo(2);
     }
 
-}
+    @Test
+    @DisplayName("Должен извлечь лучшие и набирающие популярность продукты после добавления отзывов")
+    void testTopAndTrendingProducts() {
+        Map<String, String> ids = productRepository.findAll()
+                .collectMap(Product::getName, Product::getId)
+                .block();
+        assertNotNull(ids);
+
+        String mutation = String.format("""
+                    mutation {
+                        addReviews(reviews: [
+                            {productId: \"%1$s\", author: \"User3\", rating: 5, comment: \"Great sound\"},
+                            {productId: \"%1$s\", author: \"User4\", rating: 5, comment: \"Comfortable\"},
+                            {productId: \"%1$s\", author: \"User5\", rating: 4, comment: \"Good\"},
+                            {productId: \"%2$s\", author: \"User6\", rating: 2, comment: \"Too heavy\"}
+                        ]) {
+                            items {
+                                id
+                            }
+                        }
+                    }
+                """, ids.get("Headphones"), ids.get("Laptop"));
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", mutation))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.addReviews.items.length()").isEqualTo(4);
 
+        String query = """
+                    query {
+                        topProducts(category: \"Electronics\", limit: 5) {
+                            name
+                            ratingCount
+                        }
+                        trendingProducts(window: HOUR) {
+                            name
+                        }
+                    }
+                """;
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", query))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.topProducts.length()").isEqualTo(2)
+                .jsonPath("$.data.topProducts[0].name").isEqualTo("Headphones")
+                .jsonPath("$.data.topProducts[0].ratingCount").isEqualTo(3)
+                .jsonPath("$.data.topProducts[1].name").isEqualTo("Laptop")
+                .jsonPath("$.data.trendingProducts[0].name").isEqualTo("Headphones");
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.alkl1m.cataloguegraph.controller;
+
+import com.alkl1m.cataloguegraph.config.InMemoryRepositoryConfig;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.ranking.ProductRanking;
+import com.alkl1m.cataloguegraph.repository.ProductRepository;
+import com.alkl1m.cataloguegraph.repository.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = "catalogue.graphql.response-cache.enabled=false")
+@AutoConfigureWebTestClient
+@ActiveProfiles(InMemoryRepositoryConfig.PROFILE)
+@DisplayName("Интеграционные тесты рейтингов лучших и набирающих популярность продуктов")
+class ProductRankingTest {
+
+    @MockitoSpyBean
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ProductRanking productRanking;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        reviewRepository.deleteAll().block();
+        productRepository.deleteAll().block();
+        product = productRepository.save(new Product(null, "Laptop", "High-end laptop", 1500.0, "Electronics"))
+                .block();
+        productRanking.rebuild().block();
+        execute("""
+                mutation ($id: ID!) {
+                    addReview(productId: $id, author: "User1", rating: 5, comment: "Excellent!") {
+                        id
+                    }
+                }
+            """);
+        clearInvocations(productRepository);
+    }
+
+    @Test
+    @DisplayName("Должен загрузить продукты рейтингов один раз и затем отдавать их без запросов к репозиторию")
+    void testRankedProducts_servedFromRanking() {
+        rankedProducts();
+        verify(productRepository, times(1)).findAllById(any(Iterable.class));
+        clearInvocations(productRepository);
+
+        execute("""
+                query {
+                    topProducts(category: "Electronics") {
+                        id
+                        ratingCount
+                    }
+                    trendingProducts(window: HOUR) {
+                        id
+                    }
+                }
+            """)
+                .jsonPath("$.data.topProducts[0].id").isEqualTo(product.getId())
+                .jsonPath("$.data.topProducts[0].ratingCount").isEqualTo(1)
+                .jsonPath("$.data.trendingProducts[0].id").isEqualTo(product.getId());
+
+        verify(productRepository, never()).findAllById(any(Iterable.class));
+    }
+
+    @Test
+    @DisplayName("Должен отдавать в рейтинге измененный продукт")
+    void testRankedProducts_afterUpdate() {
+        rankedProducts();
+        clearInvocations(productRepository);
+
+        execute("""
+                mutation ($id: ID!) {
+                    updateProduct(id: $id, name: "Gaming laptop") {
+                        id
+                    }
+                }
+            """);
+
+        execute("""
+                query {
+                    topProducts {
+                        name
+                    }
+                }
+            """)
+                .jsonPath("$.data.topProducts[0].name").isEqualTo("Gaming laptop");
+
+        verify(productRepository, never()).findAllById(any(Iterable.class));
+    }
+
+    @Test
+    @DisplayName("Должен сбросить запомненные продукты при перестроении рейтингов")
+    void testRebuild_dropsRememberedProducts() {
+        rankedProducts();
+        productRanking.rebuild().block();
+        clearInvocations(productRepository);
+
+        rankedProducts();
+
+        verify(productRepository, times(1)).findAllById(any(Iterable.class));
+    }
+
+    private void rankedProducts() {
+        execute("""
+                query {
+                    topProducts {
+                        id
+                    }
+                    trendingProducts(window: HOUR) {
+                        id
+                    }
+                }
+            """)
+                .jsonPath("$.data.topProducts[0].id").isEqualTo(product.getId());
+    }
+
+    private WebTestClient.BodyContentSpec execute(String document) {
+        return webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", document, "variables", Map.of("id", product.getId())))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody();
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.alkl1m.cataloguegraph.controller;
+
+import com.alkl1m.cataloguegraph.config.InMemoryRepositoryConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Map;
+
+@SpringBootTest(properties = {
+        "catalogue.graphql.cost.max-cost=20",
+        "catalogue.graphql.cost.rate-limit.capacity=20",
+        "catalogue.graphql.cost.rate-limit.refill-per-second=1",
+        "catalogue.graphql.cost.rate-limit.trusted-proxies=10.0.0.0/8",
+        "catalogue.graphql.response-cache.enabled=false"})
+@AutoConfigureWebTestClient
+@ActiveProfiles(InMemoryRepositoryConfig.PROFILE)
+@DisplayName("Интеграционные тесты ограничения суммарной стоимости операций клиента")
+class RateLimitTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    @DisplayName("Должен отклонить запрос после исчерпания корзины, даже если клиент меняет заголовок идентификатора")
+    void testRateLimit_ignoresClientIdHeaderFromUntrustedAddress() {
+        String query = """
+                    query {
+                        getProductById(id: \"missing\") {
+                            id
+                        }
+                    }
+                """;
+
+        for (int request = 0; request < 3; request++) {
+            webTestClient.post()
+                    .uri("/graphql")
+                    .header("X-Client-Id", "client-" + request)
+                    .bodyValue(Map.of("query", query))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.data").exists();
+        }
+
+        webTestClient.post()
+                .uri("/graphql")
+                .header("X-Client-Id", "client-3")
+                .bodyValue(Map.of("query", query))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data").doesNotExist()
+                .jsonPath("$.errors[0].message").isEqualTo("Query cost budget exhausted, retry later")
+                .jsonPath("$.errors[0].extensions.classification").isEqualTo("ExecutionAborted");
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.alkl1m.cataloguegraph.controller;
+
+import com.alkl1m.cataloguegraph.cache.ResponseCache;
+import com.alkl1m.cataloguegraph.config.InMemoryRepositoryConfig;
+import com.alkl1m.cataloguegraph.encoding.EncodingGraphQlHttpHandler;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.repository.ProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles(InMemoryRepositoryConfig.PROFILE)
+@DisplayName("Интеграционные тесты выбора формата ответа на GraphQL-запросы")
+class ResponseEncodingTest {
+
+    private static final Map<String, String> PRODUCTS_QUERY = Map.of("query", """
+            query {
+                getProducts(category: \"Electronics\", page: 0, size: 10) {
+                    name
+                    price
+                }
+            }
+        """);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        responseCache.invalidateAll();
+        productRepository.deleteAll().block();
+
+        productRepository.saveAll(List.of(
+                new Product("product1", "Laptop", "High-end laptop", 1500.0, "Electronics"),
+                new Product("product2", "Headphones", "Noise-cancelling headphones", 300.0, "Electronics")
+        )).collectList().block();
+    }
+
+    @Test
+    @DisplayName("Должен вернуть ответ в формате CBOR, если клиент принимает CBOR")
+    void testGetProducts_withCborAccept() throws IOException {
+        byte[] body = webTestClient.post()
+                .uri("/graphql")
+                .accept(MediaType.APPLICATION_CBOR)
+                .bodyValue(PRODUCTS_QUERY)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(body);
+
+        JsonNode products = new ObjectMapper(new CBORFactory()).readTree(body).at("/data/getProducts");
+        assertEquals(2, products.size());
+        assertEquals("Headphones", products.get(0).get("name").asText());
+    }
+
+    @Test
+    @DisplayName("Должен вернуть ответ в формате Smile или JSON в зависимости от заголовка Accept")
+    void testGetProducts_withSmileAndJsonAccept() throws IOException {
+        byte[] body = webTestClient.post()
+                .uri("/graphql")
+                .accept(EncodingGraphQlHttpHandler.APPLICATION_SMILE)
+                .bodyValue(PRODUCTS_QUERY)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(EncodingGraphQlHttpHandler.APPLICATION_SMILE)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(body);
+        assertEquals(1500.0, new ObjectMapper(new SmileFactory()).readTree(body)
+                .at("/data/getProducts/1/price").asDouble());
+
+        webTestClient.post()
+                .uri("/graphql")
+                .accept(MediaType.APPLICATION_GRAPHQL_RESPONSE)
+                .bodyValue(PRODUCTS_QUERY)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_GRAPHQL_RESPONSE)
+                .expectBody()
+                .jsonPath("$.data.getProducts[1].name").isEqualTo("Laptop");
+    }
+
+}
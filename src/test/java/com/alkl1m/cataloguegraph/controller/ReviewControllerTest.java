@@ -1,5 +1,6 @@
 package com.alkl1m.cataloguegraph.controller;
 
+import com.alkl1m.cataloguegraph.cache.ResponseCache;
 import com.alkl1m.cataloguegraph.entity.Product;
 import com.alkl1m.cataloguegraph.entity.Review;
 import com.alkl1m.cataloguegraph.repository.ProductRepository;
@@ -10,11 +11,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.test.tester.ExecutionGraphQlServiceTester;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -43,19 +48,26 @@ class ReviewControllerTest {
     @Autowired
     private ReviewRepository reviewRepository;
 
+    @Autowired
+    private ResponseCache responseCache;
+
     @Autowired
     private WebTestClient webTestClient;
 
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+
     @BeforeEach
     void setUp() {
+        responseCache.invalidateAll();
         reviewRepository.deleteAll().block();
         productRepository.deleteAll().block();
 
-        Product product1 = new Product("product1", "Laptop", "High-end laptop", 1500.0, "Electronics", null);
-        Product product2 = new Product("product2", "Laptop", "High-end laptop", 1500.0, "Electronics", null);
+        Product product1 = new Product("product1", "Laptop", "High-end laptop", 1500.0, "Electronics");
+        Product product2 = new Product("product2", "Laptop", "High-end laptop", 1500.0, "Electronics");
 
         productRepository.saveAll(List.of(product1, product2)).collectList().block();
 
@@ -88,6 +100,62 @@ class ReviewControllerTest {
                 .jsonPath("$.data.getReviews").isArray();
     }
 
+    @Test
+    @DisplayName("Должен извлечь отзывы продукта постранично по курсору")
+    void testGetReviewsConnection() {
+        String query = """
+            query {
+                getReviewsConnection(productId: \"product1\", first: 10) {
+                    edges {
+                        cursor
+                        node {
+                            author
+                            rating
+                        }
+                    }
+                    pageInfo {
+                        hasNextPage
+                    }
+                }
+            }
+        """;
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", query))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getReviewsConnection.edges.length()").isEqualTo(1)
+                .jsonPath("$.data.getReviewsConnection.edges[0].node.author").isEqualTo("User1")
+                .jsonPath("$.data.getReviewsConnection.pageInfo.hasNextPage").isEqualTo(false);
+    }
+
+    @Test
+    @DisplayName("Должен извлечь продукт отзыва")
+    void testGetReviewProduct() {
+        String query = """
+            query {
+                getReviews(productId: \"product1\", page: 0, size: 10) {
+                    author
+                    product {
+                        id
+                        name
+                    }
+                }
+            }
+        """;
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", query))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.getReviews[0].product.id").isEqualTo("product1")
+                .jsonPath("$.data.getReviews[0].product.name").isEqualTo("Laptop");
+    }
+
     @Test
     @DisplayName("Должен извлечь отзыв по ID")
     void testGetReviewById() {
@@ -137,6 +205,85 @@ class ReviewControllerTest {
                 .jsonPath("$.data.addReview.author").isEqualTo("User3");
     }
 
+    @Test
+    @DisplayName("Должен уведомить подписчиков о новом отзыве и изменении рейтинга продукта")
+    void testReviewAddedAndRatingChangedSubscriptions() {
+        ExecutionGraphQlServiceTester tester = ExecutionGraphQlServiceTester.create(graphQlService);
+        Flux<String> reviewsAdded = tester.document("""
+            subscription {
+                reviewAdded(productId: \"product1\") {
+                    author
+                }
+            }
+        """).executeSubscription().toFlux("reviewAdded.author", String.class);
+        Flux<Double> ratingChanges = tester.document("""
+            subscription {
+                ratingChanged(productId: \"product1\") {
+                    averageRating
+                }
+            }
+        """).executeSubscription().toFlux("ratingChanged.averageRating", Double.class);
+
+        String mutation = """
+            mutation {
+                addReview(productId: \"product1\", author: \"User3\", rating: 5, comment: \"Amazing!\") {
+                    id
+                }
+            }
+        """;
+
+        StepVerifier.create(Flux.zip(reviewsAdded, ratingChanges).take(1))
+                .then(() -> webTestClient.post()
+                        .uri("/graphql")
+                        .bodyValue(Map.of("query", mutation))
+                        .exchange()
+                        .expectStatus().isOk())
+                .assertNext(events -> {
+                    assertEquals("User3", events.getT1());
+                    assertEquals(5.0, events.getT2());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Должен добавить несколько отзывов и вернуть ошибки по отзывам к несуществующим продуктам")
+    void testAddReviews() {
+        String mutation = """
+            mutation {
+                addReviews(reviews: [
+                    {productId: \"product1\", author: \"User3\", rating: 3, comment: \"Fine\"},
+                    {productId: \"missing\", author: \"User4\", rating: 1, comment: \"Bad\"},
+                    {productId: \"product1\", author: \"User5\", rating: 4, comment: \"Good\"}
+                ]) {
+                    items {
+                        id
+                        author
+                    }
+                    errors {
+                        index
+                        message
+                    }
+                }
+            }
+        """;
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", mutation))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.addReviews.items.length()").isEqualTo(2)
+                .jsonPath("$.data.addReviews.items[1].author").isEqualTo("User5")
+                .jsonPath("$.data.addReviews.errors.length()").isEqualTo(1)
+                .jsonPath("$.data.addReviews.errors[0].index").isEqualTo(1);
+
+        Product product = productRepository.findById("product1").block();
+        assertNotNull(product);
+        assertEquals(2, product.getRatingCount());
+        assertEquals(7, product.getRatingSum());
+    }
+
     @Test
     @DisplayName("Должен обновить отзыв")
     void testUpdateReview() {
@@ -163,6 +310,37 @@ class ReviewControllerTest {
                 .jsonPath("$.data.updateReview.comment").isEqualTo("Updated comment");
     }
 
+    @Test
+    @DisplayName("Должен обновить только комментарий отзыва, сохранив оценку")
+    void testUpdateReview_withCommentOnly() {
+        Review review = reviewRepository.findAll().blockFirst();
+        assertNotNull(review);
+
+        String mutation = String.format("""
+            mutation {
+                updateReview(id: \"%s\", comment: \"Only the comment\", expectedVersion: %d) {
+                    rating
+                    comment
+                    version
+                }
+            }
+        """, review.getId(), review.getVersion());
+
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", mutation))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.updateReview.rating").isEqualTo(review.getRating())
+                .jsonPath("$.data.updateReview.comment").isEqualTo("Only the comment")
+                .jsonPath("$.data.updateReview.version").isEqualTo(review.getVersion() + 1);
+
+        Product product = productRepository.findById(review.getProductId()).block();
+        assertNotNull(product);
+        assertEquals(0, product.getRatingCount());
+    }
+
     @Test
     @DisplayName("Должен удалить отзыв")
     void testDeleteReview() {
@@ -0,0 +1,236 @@
+package com.alkl1m.cataloguegraph.controller;
+
+import com.alkl1m.cataloguegraph.cache.ResponseCache;
+import com.alkl1m.cataloguegraph.config.InMemoryRepositoryConfig;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.exception.ReviewBufferFullException;
+import com.alkl1m.cataloguegraph.ingestion.ReviewWriteBehind;
+import com.alkl1m.cataloguegraph.ingestion.WriteBehindProperties;
+import com.alkl1m.cataloguegraph.repository.ProductRepository;
+import com.alkl1m.cataloguegraph.repository.ReviewRepository;
+import com.alkl1m.cataloguegraph.service.ReviewService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = "catalogue.reviews.write-behind.enabled=true")
+@AutoConfigureWebTestClient
+@ActiveProfiles(InMemoryRepositoryConfig.PROFILE)
+@DisplayName("Интеграционные тесты отложенной записи отзывов")
+class ReviewWriteBehindTest {
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) throws IOException {
+        String journalDirectory = Files.createTempDirectory("review-journal").toString();
+        registry.add("catalogue.reviews.write-behind.journal-directory", () -> journalDirectory);
+        registry.add("catalogue.reviews.write-behind.flush-interval", () -> "1h");
+    }
+
+    @MockitoSpyBean
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ReviewWriteBehind reviewWriteBehind;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TempDir
+    private Path journalDirectory;
+
+    @BeforeEach
+    void setUp() {
+        responseCache.invalidateAll();
+        reviewRepository.deleteAll().block();
+        productRepository.deleteAll().block();
+        reset(productRepository);
+
+        productRepository.saveAll(List.of(
+                new Product("product1", "Laptop", "High-end laptop", 1500.0, "Electronics")
+        )).collectList().block();
+    }
+
+    @Test
+    @DisplayName("Должен принять отзывы и записать их с агрегатами рейтинга при сбросе буфера")
+    void testAddReview_writtenOnFlush() {
+        for (int rating : new int[]{5, 2}) {
+            webTestClient.post()
+                    .uri("/graphql")
+                    .bodyValue(Map.of("query", String.format("""
+                        mutation {
+                            addReview(productId: \"product1\", author: \"User1\", rating: %d, comment: \"Fine\") {
+                                id
+                                rating
+                            }
+                        }
+                    """, rating)))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.data.addReview.id").isNotEmpty()
+                    .jsonPath("$.data.addReview.rating").isEqualTo(rating);
+        }
+
+        assertEquals(0L, reviewRepository.count().block());
+
+        reviewWriteBehind.flush().block();
+
+        assertEquals(2L, reviewRepository.count().block());
+        Product product = productRepository.findById("product1").block();
+        assertNotNull(product);
+        assertEquals(2, product.getRatingCount());
+        assertEquals(7, product.getRatingSum());
+    }
+
+    @Test
+    @DisplayName("Должен учесть рейтинг вставленного отзыва один раз, если обновить агрегаты сразу не удалось")
+    void testFlush_retriesRatingsWithoutReinserting() {
+        doReturn(Mono.error(new DataAccessResourceFailureException("Connection reset")))
+                .doCallRealMethod()
+                .when(productRepository).addRatings(anyCollection());
+
+        reviewWriteBehind.submit(new Review(null, "product1", "User1", 5, "Fine", LocalDateTime.now())).block();
+
+        reviewWriteBehind.flush().block();
+
+        assertEquals(1L, reviewRepository.count().block());
+        Product product = productRepository.findById("product1").block();
+        assertNotNull(product);
+        assertEquals(0, product.getRatingCount());
+
+        reviewWriteBehind.flush().block();
+
+        assertEquals(1L, reviewRepository.count().block());
+        product = productRepository.findById("product1").block();
+        assertNotNull(product);
+        assertEquals(1, product.getRatingCount());
+        assertEquals(5, product.getRatingSum());
+        verify(productRepository, times(2)).addRatings(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Должен записать при старте отзывы из журнала предыдущего запуска, пропустив уже записанные")
+    void testStart_replaysJournal() throws IOException {
+        Review written = new Review(new ObjectId().toHexString(), "product1", "User1", 5, "Fine",
+                LocalDateTime.now());
+        reviewRepository.save(written).block();
+        Review pending = new Review(new ObjectId().toHexString(), "product1", "User2", 3, "Fair",
+                LocalDateTime.now());
+        Path segment = journalDirectory.resolve("reviews-0000000000000000001.journal");
+        Files.writeString(segment, objectMapper.writeValueAsString(written) + "\n"
+                + objectMapper.writeValueAsString(pending) + "\n");
+
+        ReviewWriteBehind restarted = writeBehind(10);
+        try {
+            restarted.flush().block();
+        } finally {
+            restarted.stop();
+        }
+
+        assertEquals(2L, reviewRepository.count().block());
+        Product product = productRepository.findById("product1").block();
+        assertNotNull(product);
+        assertEquals(1, product.getRatingCount());
+        assertEquals(3, product.getRatingSum());
+        assertFalse(Files.exists(segment));
+    }
+
+    @Test
+    @DisplayName("Должен отклонить отзыв при заполненном буфере и принять его после сброса буфера")
+    void testSubmit_withFullBuffer() throws IOException {
+        ReviewWriteBehind writeBehind = writeBehind(1);
+        try {
+            writeBehind.submit(new Review(null, "product1", "User1", 5, "Fine", LocalDateTime.now())).block();
+
+            StepVerifier.create(writeBehind.submit(
+                            new Review(null, "product1", "User2", 4, "Good", LocalDateTime.now())))
+                    .expectError(ReviewBufferFullException.class)
+                    .verify();
+
+            writeBehind.flush().block();
+
+            StepVerifier.create(writeBehind.submit(
+                            new Review(null, "product1", "User2", 4, "Good", LocalDateTime.now())))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        } finally {
+            writeBehind.stop();
+        }
+
+        assertEquals(2L, reviewRepository.count().block());
+    }
+
+    @Test
+    @DisplayName("Должен отклонить отзыв к несуществующему продукту при приеме")
+    void testAddReview_withMissingProduct() {
+        webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", """
+                    mutation {
+                        addReview(productId: \"missing\", author: \"User1\", rating: 5, comment: \"Fine\") {
+                            id
+                        }
+                    }
+                """))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.errors[0].message").isNotEmpty();
+
+        reviewWriteBehind.flush().block();
+
+        assertEquals(0L, reviewRepository.count().block());
+    }
+
+    private ReviewWriteBehind writeBehind(int capacity) throws IOException {
+        WriteBehindProperties properties = new WriteBehindProperties(true, journalDirectory, capacity, 1000,
+                Duration.ofHours(1));
+        return new ReviewWriteBehind(properties, reviewService, objectMapper, new SimpleMeterRegistry());
+    }
+
+}
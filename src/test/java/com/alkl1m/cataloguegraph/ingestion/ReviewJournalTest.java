@@ -0,0 +1,138 @@
+package com.alkl1m.cataloguegraph.ingestion;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Тесты журнала отложенной записи отзывов")
+class ReviewJournalTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Должен сохранить все записи, подтвержденные одновременными групповыми сбросами")
+    void testForce_withConcurrentAppends() throws Exception {
+        int threads = 8;
+        int recordsPerThread = 50;
+        ReviewJournal journal = new ReviewJournal(directory);
+        Object appendLock = new Object();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> appenders = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int appender = thread;
+                appenders.add(executor.submit(() -> {
+                    for (int index = 0; index < recordsPerThread; index++) {
+                        long sequence;
+                        synchronized (appendLock) {
+                            sequence = journal.append(record(appender + "-" + index));
+                        }
+                        journal.force(sequence);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> appenderResult : appenders) {
+                appenderResult.get();
+            }
+        }
+        journal.close();
+
+        List<String> records = new ReviewJournal(directory).recover();
+        assertEquals(threads * recordsPerThread, records.size());
+        IntStream.range(0, threads).forEach(appender -> IntStream.range(0, recordsPerThread)
+                .forEach(index -> assertTrue(records.contains(appender + "-" + index))));
+    }
+
+    @Test
+    @DisplayName("Должен возвращать порядковые номера записей по возрастанию, а повторный сброс не должен падать")
+    void testForce_withAlreadyForcedSequence() throws IOException {
+        ReviewJournal journal = new ReviewJournal(directory);
+
+        long first = journal.append(record("first"));
+        long second = journal.append(record("second"));
+        journal.force(second);
+        journal.force(first);
+        journal.close();
+
+        assertEquals(first + 1, second);
+        assertEquals(List.of("first", "second"), new ReviewJournal(directory).recover());
+    }
+
+    @Test
+    @DisplayName("Должен закрывать сегмент при ротации и удалять только сегменты записанных отзывов")
+    void testRotate_thenDelete() throws IOException {
+        ReviewJournal journal = new ReviewJournal(directory);
+
+        journal.append(record("first"));
+        List<Path> firstSegments = journal.rotate();
+        journal.append(record("second"));
+        List<Path> secondSegments = journal.rotate();
+
+        assertEquals(1, firstSegments.size());
+        assertEquals(1, secondSegments.size());
+        assertEquals(List.of("first"), Files.readAllLines(firstSegments.getFirst()));
+
+        journal.delete(firstSegments);
+        journal.close();
+
+        assertFalse(Files.exists(firstSegments.getFirst()));
+        assertEquals(List.of("second"), new ReviewJournal(directory).recover());
+    }
+
+    @Test
+    @DisplayName("Должен вернуть восстановленные сегменты при следующей ротации перед новыми")
+    void testRestore_thenRotate() throws IOException {
+        ReviewJournal journal = new ReviewJournal(directory);
+
+        journal.append(record("first"));
+        List<Path> failed = journal.rotate();
+        journal.restore(failed);
+        journal.append(record("second"));
+        List<Path> segments = journal.rotate();
+
+        assertEquals(2, segments.size());
+        assertEquals(failed.getFirst(), segments.getFirst());
+
+        journal.delete(segments);
+        journal.close();
+
+        assertEquals(List.of(), new ReviewJournal(directory).recover());
+    }
+
+    @Test
+    @DisplayName("Должен удалить пустые сегменты при открытии журнала")
+    void testOpen_removesEmptySegments() throws IOException {
+        new ReviewJournal(directory).close();
+        Files.createFile(directory.resolve("reviews-0000000000000000007.journal"));
+
+        ReviewJournal journal = new ReviewJournal(directory);
+        journal.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static byte[] record(String value) {
+        return (value + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+}
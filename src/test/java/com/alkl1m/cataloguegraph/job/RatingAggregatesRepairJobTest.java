@@ -0,0 +1,134 @@
+package com.alkl1m.cataloguegraph.job;
+
+import com.alkl1m.cataloguegraph.cache.ResponseCache;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.entity.Review;
+import com.alkl1m.cataloguegraph.repository.CategoryStatsRepository;
+import com.alkl1m.cataloguegraph.repository.ProductRepository;
+import com.alkl1m.cataloguegraph.repository.ReviewRepository;
+import com.alkl1m.cataloguegraph.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@SpringBootTest
+@Testcontainers
+@DisplayName("Интеграционные тесты пересчета агрегатов рейтинга продуктов")
+class RatingAggregatesRepairJobTest {
+
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:latest");
+
+    static {
+        mongoDBContainer.start();
+    }
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+        registry.add("spring.data.mongodb.database", () -> "testDB");
+    }
+
+    @Autowired
+    private RatingAggregatesRepairJob repairJob;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private CategoryStatsRepository categoryStatsRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    private Product laptop;
+
+    private Product novel;
+
+    @BeforeEach
+    void setUp() {
+        responseCache.invalidateAll();
+        reviewRepository.deleteAll().block();
+        productRepository.deleteAll().block();
+        categoryStatsRepository.deleteAll().block();
+
+        laptop = productRepository.save(new Product(null, "Laptop", "High-end laptop", 1500.0, "Electronics"))
+                .block();
+        novel = productRepository.save(new Product(null, "Novel", "Paperback", 50.0, "Books")).block();
+        assertNotNull(laptop);
+        assertNotNull(novel);
+        reviewRepository.saveAll(List.of(
+                new Review(null, laptop.getId(), "User1", 5, "Excellent!", LocalDateTime.now()),
+                new Review(null, laptop.getId(), "User2", 3, "Fine", LocalDateTime.now()),
+                new Review(null, laptop.getId(), "User3", 5, "Great", LocalDateTime.now())
+        )).collectList().block();
+    }
+
+    @Test
+    @DisplayName("Должен восстановить испорченные агрегаты рейтинга, не меняя версию продукта")
+    void testRepair_restoresCorruptedAggregates() {
+        corrupt(laptop, 1, 1, Map.of("1", 1L));
+        corrupt(novel, 4, 20, Map.of("5", 4L));
+
+        assertEquals(2L, repairJob.repair().block());
+
+        Product repairedLaptop = productRepository.findById(laptop.getId()).block();
+        assertNotNull(repairedLaptop);
+        assertEquals(3, repairedLaptop.getRatingCount());
+        assertEquals(13, repairedLaptop.getRatingSum());
+        assertEquals(Map.of("5", 2L, "3", 1L), repairedLaptop.getRatingHistogram());
+        assertEquals(laptop.getVersion(), repairedLaptop.getVersion());
+
+        Product repairedNovel = productRepository.findById(novel.getId()).block();
+        assertNotNull(repairedNovel);
+        assertEquals(0, repairedNovel.getRatingCount());
+        assertEquals(0, repairedNovel.getRatingSum());
+        assertEquals(Map.of(), repairedNovel.getRatingHistogram());
+
+        assertEquals(0L, repairJob.repair().block());
+    }
+
+    @Test
+    @DisplayName("Должен вытеснить из кэша средний рейтинг исправленного продукта")
+    void testRepair_evictsCachedRating() {
+        corrupt(laptop, 1, 1, Map.of("1", 1L));
+        assertEquals(1.0, productService.getProductAverageRating(laptop.getId()).block());
+
+        repairJob.repair().block();
+
+        assertEquals(13.0 / 3, productService.getProductAverageRating(laptop.getId()).block());
+    }
+
+    private void corrupt(Product product, long count, long sum, Map<String, Long> histogram) {
+        mongoTemplate.updateFirst(new Query(where("id").is(product.getId())), new Update()
+                .set("ratingCount", count)
+                .set("ratingSum", sum)
+                .set("ratingHistogram", histogram), Product.class).block();
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import com.alkl1m.cataloguegraph.cache.ResponseCache;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.execution.VirtualThreadExecutionInstrumentation;
+import com.alkl1m.cataloguegraph.repository.blocking.BlockingProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(properties = "catalogue.execution.mode=blocking")
+@Testcontainers
+@AutoConfigureWebTestClient
+@DisplayName("Интеграционные тесты репозиториев на синхронном драйвере в блокирующем режиме")
+class BlockingRepositoryTest {
+
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:latest");
+
+    static {
+        mongoDBContainer.start();
+    }
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+        registry.add("spring.data.mongodb.database", () -> "testDB");
+    }
+
+    @MockitoSpyBean
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        responseCache.invalidateAll();
+        reviewRepository.deleteAll().block();
+        productRepository.deleteAll().block();
+        product = productRepository.save(new Product(null, "Laptop", "High-end laptop", 1500.0, "Electronics"))
+                .block();
+        assertNotNull(product);
+    }
+
+    @Test
+    @DisplayName("Должен выполнить запрос корневого поля синхронным драйвером в виртуальном потоке поля")
+    @SuppressWarnings("unchecked")
+    void testRootField_readsInFieldThread() {
+        assertInstanceOf(BlockingProductRepository.class, productRepository);
+        AtomicReference<String> readThread = new AtomicReference<>();
+        doAnswer(invocation -> ((Flux<Product>) invocation.callRealMethod())
+                .doOnSubscribe(subscription -> readThread.set(Thread.currentThread().getName())))
+                .when(productRepository).findFiltered(any(), any(), any(), anyLong(), anyInt(), any());
+
+        execute("""
+                query {
+                    getProducts(category: "Electronics") {
+                        id
+                    }
+                }
+            """)
+                .jsonPath("$.data.getProducts[0].id").isEqualTo(product.getId());
+
+        assertTrue(readThread.get().startsWith(VirtualThreadExecutionInstrumentation.THREAD_PREFIX));
+    }
+
+    @Test
+    @DisplayName("Должен учесть отзыв в рейтинге и вернуть конфликт версий при повторном изменении")
+    void testMutations_withSynchronousDriver() {
+        execute("""
+                mutation {
+                    addReview(productId: "%s", author: "User1", rating: 4, comment: "Good") {
+                        id
+                    }
+                }
+            """.formatted(product.getId()))
+                .jsonPath("$.errors").doesNotExist();
+
+        execute("""
+                query {
+                    getProductAverageRating(id: "%s")
+                }
+            """.formatted(product.getId()))
+                .jsonPath("$.data.getProductAverageRating").isEqualTo(4.0);
+
+        String update = """
+                mutation {
+                    updateProduct(id: "%s", price: 1400.0, expectedVersion: 0) {
+                        version
+                    }
+                }
+            """.formatted(product.getId());
+        execute(update)
+                .jsonPath("$.data.updateProduct.version").isEqualTo(1);
+        execute(update)
+                .jsonPath("$.errors[0].extensions.classification").isEqualTo("VersionConflict");
+    }
+
+    private WebTestClient.BodyContentSpec execute(String document) {
+        return webTestClient.post()
+                .uri("/graphql")
+                .bodyValue(Map.of("query", document))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody();
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.alkl1m.cataloguegraph.repository;
+
+import com.alkl1m.cataloguegraph.config.MongoClientConfig;
+import com.alkl1m.cataloguegraph.config.MongoClientProperties;
+import com.alkl1m.cataloguegraph.entity.Product;
+import com.alkl1m.cataloguegraph.execution.RequestDeadline;
+import com.mongodb.ReadPreference;
+import com.mongodb.TaggableReadPreference;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Тесты маршрутизации операций чтения MongoDB по классам с настройками приложения")
+class MongoOperationRoutingTest {
+
+    private final ReactiveMongoTemplate mongoTemplate = mock(ReactiveMongoTemplate.class);
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(new ConfigDataApplicationContextInitializer())
+            .withUserConfiguration(PropertiesConfiguration.class, MongoClientConfig.class)
+            .withBean(ReactiveMongoTemplate.class, () -> mongoTemplate)
+            .withBean(MongoConverter.class,
+                    () -> new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()))
+            .withBean(MongoProperties.class, MongoProperties::new)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new);
+
+    @Test
+    @DisplayName("Должен читать списки и агрегаты рейтинга, попадающие в кэши, с первичного узла")
+    void testReadPreferences_keepCachedReadsOnPrimary() {
+        contextRunner.run(context -> {
+            MongoOperationRouting routing = context.getBean(MongoOperationRouting.class);
+
+            assertEquals(ReadPreference.primary(), routing.readPreference(MongoOperationClass.LISTING));
+            assertEquals(ReadPreference.primary(), routing.readPreference(MongoOperationClass.RATING));
+            assertEquals(ReadPreference.primary(), routing.readPreference(MongoOperationClass.BATCH));
+            ReadPreference analytics = routing.readPreference(MongoOperationClass.ANALYTICS);
+            assertEquals("secondaryPreferred", analytics.getName());
+            assertEquals(90L, ((TaggableReadPreference) analytics).getMaxStaleness(TimeUnit.SECONDS));
+        });
+    }
+
+    @Test
+    @DisplayName("Должен применить к запросу ограничение времени и предпочтение чтения класса операции")
+    void testFind_appliesOperationClassOptions() {
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(Flux.empty());
+
+        contextRunner.run(context -> {
+            MongoOperationRouting routing = context.getBean(MongoOperationRouting.class);
+            assertSame(mongoTemplate, routing.template(MongoOperationClass.LISTING));
+            assertNotSame(mongoTemplate, routing.template(MongoOperationClass.ANALYTICS));
+
+            routing.find(new Query(), Product.class, MongoOperationClass.LISTING).blockLast();
+
+            ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+            verify(mongoTemplate).find(query.capture(), eq(Product.class));
+            assertEquals(2000L, query.getValue().getMeta().getMaxTimeMsec());
+            assertEquals(ReadPreference.primary(), query.getValue().getReadPreference());
+        });
+    }
+
+    @Test
+    @DisplayName("Должен ограничить время выполнения запроса временем, оставшимся до крайнего срока")
+    void testFind_withDeadline_limitsMaxTime() {
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(Flux.empty());
+
+        contextRunner.run(context -> {
+            MongoOperationRouting routing = context.getBean(MongoOperationRouting.class);
+
+            routing.find(new Query(), Product.class, MongoOperationClass.LISTING)
+                    .contextWrite(Context.of(RequestDeadline.CONTEXT_KEY, RequestDeadline.after(Duration.ofMillis(300))))
+                    .blockLast();
+
+            ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+            verify(mongoTemplate).find(query.capture(), eq(Product.class));
+            long maxTime = query.getValue().getMeta().getMaxTimeMsec();
+            assertTrue(maxTime >= 1 && maxTime <= 300, "maxTimeMS " + maxTime);
+        });
+    }
+
+    @Test
+    @DisplayName("Должен выполнять чтение продукта по идентификатору с ограничением времени до крайнего срока")
+    void testFindById_isRouted() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE,
+                new MongoMappingContext());
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.findOne(any(Query.class), eq(Product.class))).thenReturn(Mono.empty());
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(Flux.empty());
+
+        contextRunner.run(context -> {
+            MongoOperationRouting routing = context.getBean(MongoOperationRouting.class);
+            ProductRepository productRepository = new ReactiveMongoRepositoryFactory(mongoTemplate)
+                    .getRepository(ProductRepository.class,
+                            RepositoryFragments.just(new ProductRepositoryCustomImpl(mongoTemplate, routing)));
+
+            productRepository.findById("product1")
+                    .contextWrite(Context.of(RequestDeadline.CONTEXT_KEY, RequestDeadline.after(Duration.ofMillis(300))))
+                    .block();
+            productRepository.findAllById(List.of("product1", "product2")).blockLast();
+
+            ArgumentCaptor<Query> byId = ArgumentCaptor.forClass(Query.class);
+            verify(mongoTemplate).findOne(byId.capture(), eq(Product.class));
+            long maxTime = byId.getValue().getMeta().getMaxTimeMsec();
+            assertTrue(maxTime >= 1 && maxTime <= 300, "maxTimeMS " + maxTime);
+
+            ArgumentCaptor<Query> byIds = ArgumentCaptor.forClass(Query.class);
+            verify(mongoTemplate).find(byIds.capture(), eq(Product.class));
+            assertEquals(2000L, byIds.getValue().getMeta().getMaxTimeMsec());
+        });
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @EnableConfigurationProperties(MongoClientProperties.class)
+    static class PropertiesConfiguration {
+    }
+
+}